@@ -0,0 +1,153 @@
+package com.reliaquest.employee.accessor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reliaquest.employee.accessor.pojo.ListEmployeeReponse;
+import com.reliaquest.employee.accessor.support.UpstreamGuard;
+import com.reliaquest.employee.util.BenchmarkData;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Decoding the list response of the API through HttpAccessor itself. The
+ * RestTemplate answers every request with the same body from memory, so the
+ * exchange, the decoder and its metrics run as in production without a
+ * network.
+ * <p>
+ * executeRevalidated is the GET alone, hashing the body before it is parsed,
+ * fetchAllEmployee adds mapping it to the list of the snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HttpAccessorBenchmark {
+	@Param({ "1000", "100000", "1000000" })
+	private int size;
+
+	private EmployeeAccessor employeeAccessor;
+
+	@Setup
+	public void setUp() throws IOException {
+		final ObjectMapper objectMapper = new ObjectMapper();
+		final byte[] payload = objectMapper.writeValueAsBytes(new ListEmployeeReponse("success",
+				BenchmarkData.employees(size), "Successfully! All records has been fetched."));
+		final RestTemplate restTemplate = new RestTemplate((uri, method) -> new StubRequest(uri, method, payload));
+		employeeAccessor = new EmployeeAccessor(objectMapper, restTemplate,
+				RetryTemplate.builder().maxAttempts(1).build(),
+				new UpstreamGuard(CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults()), null,
+				new SimpleMeterRegistry());
+	}
+
+	@Benchmark
+	public HttpAccessor.Revalidated<ListEmployeeReponse> executeRevalidated() {
+		return employeeAccessor.executeRevalidated("list", "employees", ListEmployeeReponse.class, null);
+	}
+
+	@Benchmark
+	public EmployeeAccessor.EmployeeList fetchAllEmployee() {
+		return employeeAccessor.fetchAllEmployee(null);
+	}
+
+	private static class StubRequest extends AbstractClientHttpRequest {
+		private final URI uri;
+		private final HttpMethod method;
+		private final byte[] payload;
+
+		private StubRequest(URI uri, HttpMethod method, byte[] payload) {
+			this.uri = uri;
+			this.method = method;
+			this.payload = payload;
+		}
+
+		@Override
+		public HttpMethod getMethod() {
+			return method;
+		}
+
+		@Override
+		public URI getURI() {
+			return uri;
+		}
+
+		@Override
+		protected OutputStream getBodyInternal(HttpHeaders headers) {
+			return new ByteArrayOutputStream();
+		}
+
+		@Override
+		protected ClientHttpResponse executeInternal(HttpHeaders headers) {
+			return new StubResponse(payload);
+		}
+	}
+
+	/**
+	 * 200 with the JSON body and no validator, like the API
+	 */
+	private static class StubResponse implements ClientHttpResponse {
+		private final InputStream body;
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private StubResponse(byte[] payload) {
+			this.body = new ByteArrayInputStream(payload);
+			headers.setContentType(MediaType.APPLICATION_JSON);
+			headers.setContentLength(payload.length);
+		}
+
+		@Override
+		public HttpStatusCode getStatusCode() {
+			return HttpStatus.OK;
+		}
+
+		@Override
+		public String getStatusText() {
+			return HttpStatus.OK.getReasonPhrase();
+		}
+
+		@Override
+		public InputStream getBody() {
+			return body;
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return headers;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package com.reliaquest.employee.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.reliaquest.employee.accessor.AsyncEmployeeAccessor;
+import com.reliaquest.employee.accessor.EmployeeAccessor;
+import com.reliaquest.employee.accessor.pojo.EmployeeData;
+import com.reliaquest.employee.model.EmployeeDTO;
+import com.reliaquest.employee.service.support.EmployeeCache;
+import com.reliaquest.employee.service.support.EmployeeSnapshotCache;
+import com.reliaquest.employee.service.support.EmployeeStats;
+import com.reliaquest.employee.util.BenchmarkData;
+import com.reliaquest.employee.util.MapperUtil;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Read paths of EmployeeService answered from a loaded employee snapshot. The
+ * snapshot does not expire during a run, so the API is called once in setup.
+ * <p>
+ * scanSearch is the linear filter over the DTO list the trigram index
+ * replaced, kept as the baseline for searchEmployee.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeServiceBenchmark {
+	@Param({ "1000", "100000", "1000000" })
+	private int size;
+
+	private EmployeeSnapshotCache snapshotCache;
+	private EmployeeService employeeService;
+	private List<EmployeeDTO> employees;
+	private String surname;
+
+	@Setup
+	public void setUp() {
+		final List<EmployeeData> employeeData = BenchmarkData.employees(size);
+		final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		snapshotCache = new EmployeeSnapshotCache(new FixedEmployeeAccessor(employeeData, meterRegistry),
+				new FixedAsyncEmployeeAccessor(employeeData, meterRegistry), Duration.ofDays(1), Duration.ofDays(1),
+				Duration.ZERO, null, new EmployeeStats.Bands(new int[] { 100000, 300000 }, new int[] { 30, 50 }),
+				meterRegistry, Clock.systemUTC());
+		employeeService = new EmployeeService(null, snapshotCache,
+				new EmployeeCache(100, 60000, 60000, meterRegistry), 2, 2, 20);
+		employeeService.fetchAllEmployee().join();
+		employees = MapperUtil.convertAll(employeeData);
+		surname = BenchmarkData.surname(employeeData);
+	}
+
+	@TearDown
+	public void tearDown() {
+		snapshotCache.shutdown();
+	}
+
+	@Benchmark
+	public void searchEmployee(Blackhole blackhole) {
+		// results are built on access, read them as the response would
+		for (EmployeeDTO employee : employeeService.searchEmployee(surname).join().get()) {
+			blackhole.consume(employee);
+		}
+	}
+
+	@Benchmark
+	public void scanSearch(Blackhole blackhole) {
+		final List<EmployeeDTO> found = new ArrayList<>();
+		for (EmployeeDTO employee : employees) {
+			if (employee.getName().contains(surname))
+				found.add(employee);
+		}
+		for (EmployeeDTO employee : found) {
+			blackhole.consume(employee);
+		}
+	}
+
+	@Benchmark
+	public Integer getHighestSalary() {
+		return employeeService.getHighestSalary().join();
+	}
+
+	@Benchmark
+	public Optional<List<String>> getTop10HighestPaidEmployee() {
+		return employeeService.getTop10HighestPaidEmployee(10).join();
+	}
+
+	/**
+	 * Answers the list call with the generated employees, unchanged once the
+	 * caller has them, nothing else is used
+	 */
+	private static class FixedEmployeeAccessor extends EmployeeAccessor {
+		private static final String VERSION = "fixed";
+		private final List<EmployeeData> employees;
+
+		FixedEmployeeAccessor(List<EmployeeData> employees, SimpleMeterRegistry meterRegistry) {
+			super(null, null, null, null, null, meterRegistry);
+			this.employees = employees;
+		}
+
+		@Override
+		public EmployeeList fetchAllEmployee(String version) {
+			return VERSION.equals(version) ? new EmployeeList(VERSION, false, Optional.empty())
+					: new EmployeeList(VERSION, true, Optional.of(employees));
+		}
+	}
+
+	/**
+	 * Same list for the load in setup, which finds no snapshot yet
+	 */
+	private static class FixedAsyncEmployeeAccessor extends AsyncEmployeeAccessor {
+		private final FixedEmployeeAccessor fixed;
+
+		FixedAsyncEmployeeAccessor(List<EmployeeData> employees, SimpleMeterRegistry meterRegistry) {
+			super(null, null, null, null, null, null, null, null, 0, meterRegistry, 1);
+			this.fixed = new FixedEmployeeAccessor(employees, meterRegistry);
+		}
+
+		@Override
+		public CompletableFuture<EmployeeAccessor.EmployeeList> fetchAllEmployee(String version) {
+			return CompletableFuture.completedFuture(fixed.fetchAllEmployee(version));
+		}
+	}
+}
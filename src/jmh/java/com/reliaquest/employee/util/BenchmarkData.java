@@ -0,0 +1,48 @@
+package com.reliaquest.employee.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.reliaquest.employee.accessor.pojo.EmployeeData;
+
+/**
+ * Generated employee lists for the benchmarks, the same for every run of a
+ * size. Names are two made up words so a search for one word matches few
+ * employees, like a real surname.
+ */
+public final class BenchmarkData {
+	private static final String[] SYLLABLES = { "ka", "ren", "mo", "li", "sa", "tor", "vi", "an", "de", "lu", "mar",
+			"si", "no", "bel", "ra", "chi", "en", "go", "ya", "hal" };
+
+	private BenchmarkData() {
+	}
+
+	public static List<EmployeeData> employees(int size) {
+		final Random random = new Random(size);
+		final List<EmployeeData> employees = new ArrayList<>(size);
+		for (int id = 1; id <= size; id++) {
+			employees.add(new EmployeeData(id, word(random) + " " + word(random), 20000 + random.nextInt(980000),
+					18 + random.nextInt(50), ""));
+		}
+		return employees;
+	}
+
+	/**
+	 * @return last name of an employee in the middle of the list
+	 */
+	public static String surname(List<EmployeeData> employees) {
+		final String name = employees.get(employees.size() / 2).getName();
+		return name.substring(name.indexOf(' ') + 1);
+	}
+
+	private static String word(Random random) {
+		final StringBuilder word = new StringBuilder();
+		final int syllables = 2 + random.nextInt(3);
+		for (int i = 0; i < syllables; i++) {
+			word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+		}
+		word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+		return word.toString();
+	}
+}
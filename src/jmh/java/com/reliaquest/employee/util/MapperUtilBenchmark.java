@@ -0,0 +1,53 @@
+package com.reliaquest.employee.util;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.reliaquest.employee.accessor.pojo.EmployeeData;
+import com.reliaquest.employee.model.EmployeeDTO;
+
+/**
+ * Converting the employee list of the API, done on every snapshot refresh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperUtilBenchmark {
+	@Param({ "1000", "100000", "1000000" })
+	private int size;
+
+	private List<EmployeeData> employees;
+
+	@Setup
+	public void setUp() {
+		employees = BenchmarkData.employees(size);
+	}
+
+	@Benchmark
+	public void convertToDto(Blackhole blackhole) {
+		for (EmployeeData employee : employees) {
+			blackhole.consume(MapperUtil.convertToDto(employee));
+		}
+	}
+
+	@Benchmark
+	public List<EmployeeDTO> convertAll() {
+		return MapperUtil.convertAll(employees);
+	}
+}
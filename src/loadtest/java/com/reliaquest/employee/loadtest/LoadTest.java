@@ -0,0 +1,252 @@
+package com.reliaquest.employee.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.reliaquest.employee.JavaEmployeeChallengeRqApplication;
+import com.reliaquest.employee.accessor.pojo.EmployeeData;
+
+/**
+ * Starts an {@link UpstreamSimulator} and the application pointed at it, then
+ * keeps loadtest.concurrency requests in flight against the read endpoints for
+ * loadtest.duration seconds after loadtest.warmup seconds. Requests are picked
+ * at random by the weights of loadtest.mix, a comma separated list of
+ * operation=weight out of list, byId, search, highestSalary, top and stats.
+ * <p>
+ * Each worker sends its next request when the previous one is answered, so
+ * latencies are those seen by a fixed number of clients rather than at a fixed
+ * arrival rate. Throughput and latency percentiles per operation are printed
+ * and written as JSON to loadtest.report when set.
+ * <p>
+ * Any other system property starting with loadtest.app. is passed to the
+ * application without the prefix, e.g.
+ * -Dloadtest.app.employee.service.snapshot.ttl=5000. Run with ./gradlew
+ * loadTest.
+ */
+public class LoadTest {
+	private static final String APP_PREFIX = "loadtest.app.";
+	private static final String DEFAULT_MIX = "list=1,byId=4,search=4,highestSalary=1,top=1,stats=1";
+	private static final long HIGHEST_TRACKABLE = Duration.ofMinutes(1).toNanos();
+	private static final List<String> OPERATIONS = List.of("list", "byId", "search", "highestSalary", "top",
+			"stats");
+
+	private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	private final Map<String, Operation> operations = new LinkedHashMap<>();
+	private final String baseUrl;
+	private final List<EmployeeData> employees;
+	private final int totalWeight;
+
+	LoadTest(String baseUrl, List<EmployeeData> employees, String mix) {
+		this.baseUrl = baseUrl;
+		this.employees = employees;
+		int weights = 0;
+		for (String entry : mix.split(",")) {
+			final String[] pair = entry.trim().split("=");
+			final int weight = Integer.parseInt(pair[1].trim());
+			if (!OPERATIONS.contains(pair[0].trim()))
+				throw new IllegalArgumentException("Unknown operation in loadtest.mix: " + pair[0]);
+			if (weight > 0) {
+				operations.put(pair[0].trim(), new Operation(pair[0].trim(), weight));
+				weights += weight;
+			}
+		}
+		if (weights == 0)
+			throw new IllegalArgumentException("No operation in loadtest.mix: " + mix);
+		this.totalWeight = weights;
+	}
+
+	public static void main(String[] args) throws Exception {
+		final int concurrency = Integer.getInteger("loadtest.concurrency", 32);
+		final int warmup = Integer.getInteger("loadtest.warmup", 5);
+		final int duration = Integer.getInteger("loadtest.duration", 30);
+		final UpstreamSimulator.Settings settings = UpstreamSimulator.Settings.fromSystemProperties(0);
+
+		try (UpstreamSimulator simulator = new UpstreamSimulator(settings)) {
+			simulator.start();
+			final ConfigurableApplicationContext context = SpringApplication
+					.run(JavaEmployeeChallengeRqApplication.class, applicationArguments(simulator.baseUrl()));
+			try {
+				final int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+				final LoadTest loadTest = new LoadTest("http://localhost:" + port,
+						UpstreamSimulator.dataset(settings.employees()),
+						System.getProperty("loadtest.mix", DEFAULT_MIX));
+				final Map<String, Object> report = loadTest.run(concurrency, Duration.ofSeconds(warmup),
+						Duration.ofSeconds(duration));
+				report.put("settings", Map.of("concurrency", concurrency, "durationSeconds", duration, "upstream",
+						settings));
+				final String reportPath = System.getProperty("loadtest.report");
+				if (reportPath != null && !reportPath.isBlank()) {
+					final Path path = Path.of(reportPath);
+					Files.createDirectories(path.toAbsolutePath().getParent());
+					new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+					System.out.println("Report written to " + path.toAbsolutePath());
+				}
+			} finally {
+				context.close();
+			}
+		}
+	}
+
+	private static String[] applicationArguments(String upstreamUrl) throws IOException {
+		final List<String> arguments = new ArrayList<>();
+		arguments.add("--server.port=0");
+		arguments.add("--employee.service.baseurl=" + upstreamUrl);
+		// a snapshot file of an earlier run would be served first
+		arguments.add("--employee.service.snapshot.path="
+				+ Files.createTempDirectory("loadtest").resolve("employee-snapshot.bin"));
+		System.getProperties().stringPropertyNames().stream().filter(name -> name.startsWith(APP_PREFIX)).sorted()
+				.forEach(name -> arguments.add(
+						"--" + name.substring(APP_PREFIX.length()) + "=" + System.getProperty(name)));
+		return arguments.toArray(String[]::new);
+	}
+
+	/**
+	 * @return report per operation and in total
+	 */
+	Map<String, Object> run(int concurrency, Duration warmup, Duration duration) throws InterruptedException {
+		final long warmupEnd = System.nanoTime() + warmup.toNanos();
+		final long end = warmupEnd + duration.toNanos();
+		final CountDownLatch done = new CountDownLatch(concurrency);
+		for (int i = 0; i < concurrency; i++) {
+			final Thread worker = new Thread(() -> {
+				try {
+					while (System.nanoTime() < end) {
+						send(pick());
+					}
+				} finally {
+					done.countDown();
+				}
+			}, "loadtest-" + i);
+			worker.setDaemon(true);
+			worker.start();
+		}
+		Thread.sleep(warmup.toMillis());
+		// drop what was recorded while warming up
+		operations.values().forEach(Operation::reset);
+		done.await();
+
+		final Map<String, Object> report = new LinkedHashMap<>();
+		final Histogram total = new Histogram(HIGHEST_TRACKABLE, 3);
+		long totalErrors = 0;
+		System.out.printf("%-14s %9s %9s %9s %9s %9s %9s %9s %7s%n", "operation", "requests", "req/s", "p50 ms",
+				"p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+		for (Operation operation : operations.values()) {
+			final Histogram histogram = operation.recorder.getIntervalHistogram();
+			final long errors = operation.errors.sum();
+			total.add(histogram);
+			totalErrors += errors;
+			report.put(operation.name, summary(histogram, errors, duration));
+			print(operation.name, histogram, errors, duration);
+		}
+		report.put("total", summary(total, totalErrors, duration));
+		print("total", total, totalErrors, duration);
+		return report;
+	}
+
+	private Operation pick() {
+		int remaining = ThreadLocalRandom.current().nextInt(totalWeight);
+		for (Operation operation : operations.values()) {
+			remaining -= operation.weight;
+			if (remaining < 0)
+				return operation;
+		}
+		throw new IllegalStateException();
+	}
+
+	private void send(Operation operation) {
+		final HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path(operation.name)))
+				.timeout(Duration.ofSeconds(30)).GET().build();
+		final long start = System.nanoTime();
+		try {
+			final HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+			operation.recorder.recordValue(Math.min(System.nanoTime() - start, HIGHEST_TRACKABLE));
+			// 204 and 404 are answers, anything else above 299 is an error
+			if (response.statusCode() >= 300 && response.statusCode() != 404)
+				operation.errors.increment();
+		} catch (IOException e) {
+			operation.errors.increment();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private String path(String operation) {
+		final EmployeeData employee = employees.get(ThreadLocalRandom.current().nextInt(employees.size()));
+		return switch (operation) {
+		case "list" -> "/";
+		case "byId" -> "/" + employee.getId();
+		case "search" -> "/search/" + URLEncoder.encode(employee.getName().split(" ")[0], StandardCharsets.UTF_8)
+				.replace("+", "%20");
+		case "highestSalary" -> "/highestSalary";
+		case "top" -> "/topTenHighestEarningEmployeeNames";
+		case "stats" -> "/stats";
+		default -> throw new IllegalArgumentException("Unknown operation: " + operation);
+		};
+	}
+
+	private static Map<String, Object> summary(Histogram histogram, long errors, Duration duration) {
+		final Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("requests", histogram.getTotalCount());
+		summary.put("throughput", histogram.getTotalCount() / (double) duration.toSeconds());
+		summary.put("errors", errors);
+		summary.put("p50Millis", millis(histogram.getValueAtPercentile(50)));
+		summary.put("p90Millis", millis(histogram.getValueAtPercentile(90)));
+		summary.put("p99Millis", millis(histogram.getValueAtPercentile(99)));
+		summary.put("p999Millis", millis(histogram.getValueAtPercentile(99.9)));
+		summary.put("maxMillis", millis(histogram.getMaxValue()));
+		return summary;
+	}
+
+	private static void print(String name, Histogram histogram, long errors, Duration duration) {
+		System.out.printf(Locale.ROOT, "%-14s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %7d%n", name,
+				histogram.getTotalCount(), histogram.getTotalCount() / (double) duration.toSeconds(),
+				millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+				millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+				millis(histogram.getMaxValue()), errors);
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1e6;
+	}
+
+	private static class Operation {
+		private final String name;
+		private final int weight;
+		private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE, 3);
+		private final LongAdder errors = new LongAdder();
+
+		Operation(String name, int weight) {
+			this.name = name;
+			this.weight = weight;
+		}
+
+		void reset() {
+			recorder.reset();
+			errors.reset();
+		}
+	}
+}
@@ -0,0 +1,246 @@
+package com.reliaquest.employee.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reliaquest.employee.accessor.pojo.EmployeeData;
+import com.reliaquest.employee.accessor.pojo.EmployeeReponse;
+import com.reliaquest.employee.accessor.pojo.EmployeeRequest;
+import com.reliaquest.employee.accessor.pojo.ListEmployeeReponse;
+import com.reliaquest.employee.util.EmployeeUtility;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In process stand in for the 3rd party employee API, serving /employees,
+ * /employee/{id}, /create and /delete/{id} in its response format so that
+ * employee.service.baseurl can point at it. Every call waits for a log-normal
+ * latency and can fail with 500 or 429 (with Retry-After) at a configured
+ * rate. The employee list carries an ETag and answers 304 to a matching
+ * If-None-Match, like a caching API would.
+ * <p>
+ * Settings are system properties, Look {@link Settings}. Run on its own with
+ * ./gradlew upstreamSimulator.
+ */
+public class UpstreamSimulator implements AutoCloseable {
+	private static final String SUCCESS = "success";
+
+	private final Settings settings;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final Map<Integer, EmployeeData> employees = new ConcurrentHashMap<>();
+	private final AtomicInteger nextId;
+	private final AtomicLong version = new AtomicLong();
+	private final HttpServer server;
+	private final ExecutorService executor;
+	/**
+	 * Serialized employee list of {@link #version}, a million employees take too
+	 * long to write on every call
+	 */
+	private volatile Listing listing;
+
+	public UpstreamSimulator(Settings settings) throws IOException {
+		this.settings = settings;
+		for (EmployeeData employee : dataset(settings.employees())) {
+			employees.put(employee.getId(), employee);
+		}
+		this.nextId = new AtomicInteger(settings.employees() + 1);
+		this.server = HttpServer.create(new InetSocketAddress("localhost", settings.port()), 1024);
+		// calls sleep through their latency, a thread per call in flight
+		this.executor = Executors.newCachedThreadPool();
+		server.setExecutor(executor);
+		server.createContext("/employees", exchange -> handle(exchange, this::list));
+		server.createContext("/employee/", exchange -> handle(exchange, this::get));
+		server.createContext("/create", exchange -> handle(exchange, this::create));
+		server.createContext("/delete/", exchange -> handle(exchange, this::delete));
+	}
+
+	public static void main(String[] args) throws Exception {
+		final UpstreamSimulator simulator = new UpstreamSimulator(Settings.fromSystemProperties(8089));
+		simulator.start();
+		System.out.println("Upstream simulator serving " + simulator.settings.employees() + " employees at "
+				+ simulator.baseUrl());
+		Runtime.getRuntime().addShutdownHook(new Thread(simulator::close));
+		Thread.currentThread().join();
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * @return value for employee.service.baseurl
+	 */
+	public String baseUrl() {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	/**
+	 * The 24 employees of the test fixture, repeated with new ids and a numbered
+	 * name until there are size of them. Salaries and ages stay those of the
+	 * fixture employee.
+	 *
+	 * @param size
+	 * @return
+	 */
+	public static List<EmployeeData> dataset(int size) {
+		final List<EmployeeData> fixture = EmployeeUtility.getALlEmployee();
+		final List<EmployeeData> employees = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			final EmployeeData source = fixture.get(i % fixture.size());
+			final int round = i / fixture.size();
+			employees.add(new EmployeeData(i + 1, round == 0 ? source.getName() : source.getName() + " " + round,
+					source.getSalary(), source.getAge(), source.getProfileImage()));
+		}
+		return employees;
+	}
+
+	private void handle(HttpExchange exchange, Handler handler) throws IOException {
+		try (exchange) {
+			sleep(settings.latency());
+			final double roll = ThreadLocalRandom.current().nextDouble();
+			if (roll < settings.throttleRate()) {
+				exchange.getResponseHeaders().set("Retry-After", Integer.toString(settings.retryAfter()));
+				respond(exchange, 429, new EmployeeReponse("failed", null, "Too Many Attempts."));
+			} else if (roll < settings.throttleRate() + settings.errorRate()) {
+				respond(exchange, 500, new EmployeeReponse("failed", null, "Simulated error"));
+			} else {
+				handler.handle(exchange);
+			}
+		}
+	}
+
+	private void list(HttpExchange exchange) throws IOException {
+		final Listing current = listing();
+		exchange.getResponseHeaders().set("ETag", current.etag());
+		if (current.etag().equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+			exchange.sendResponseHeaders(304, -1);
+			return;
+		}
+		write(exchange, 200, current.body());
+	}
+
+	private void get(HttpExchange exchange) throws IOException {
+		final EmployeeData employee = employees.get(id(exchange, "/employee/"));
+		if (employee == null)
+			respond(exchange, 404, new EmployeeReponse("failed", null, "Record not found"));
+		else
+			respond(exchange, 200, new EmployeeReponse(SUCCESS, employee, "Successfully! Record has been fetched."));
+	}
+
+	private void create(HttpExchange exchange) throws IOException {
+		final EmployeeRequest request;
+		try (InputStream body = exchange.getRequestBody()) {
+			request = objectMapper.readValue(body, EmployeeRequest.class);
+		}
+		final EmployeeData employee = new EmployeeData(nextId.getAndIncrement(), request.getName(),
+				request.getSalary(), request.getAge(), "");
+		employees.put(employee.getId(), employee);
+		version.incrementAndGet();
+		respond(exchange, 200, new EmployeeReponse(SUCCESS, employee, "Successfully! Record has been added."));
+	}
+
+	private void delete(HttpExchange exchange) throws IOException {
+		employees.remove(id(exchange, "/delete/"));
+		version.incrementAndGet();
+		respond(exchange, 200, new EmployeeReponse(SUCCESS, null, "Successfully! Record has been deleted"));
+	}
+
+	private Listing listing() throws IOException {
+		final long current = version.get();
+		Listing cached = listing;
+		if (cached == null || cached.version() != current) {
+			final List<EmployeeData> data = new ArrayList<>(employees.values());
+			data.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+			cached = new Listing(current, "\"" + current + "-" + data.size() + "\"", objectMapper.writeValueAsBytes(
+					new ListEmployeeReponse(SUCCESS, data, "Successfully! All records has been fetched.")));
+			listing = cached;
+		}
+		return cached;
+	}
+
+	private static int id(HttpExchange exchange, String prefix) {
+		try {
+			return Integer.parseInt(exchange.getRequestURI().getPath().substring(prefix.length()));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+		write(exchange, status, objectMapper.writeValueAsBytes(body));
+	}
+
+	private static void write(HttpExchange exchange, int status, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@FunctionalInterface
+	private interface Handler {
+		void handle(HttpExchange exchange) throws IOException;
+	}
+
+	private record Listing(long version, String etag, byte[] body) {
+	}
+
+	/**
+	 * @param port           simulator.port, 0 for any free port
+	 * @param employees      simulator.employees, size of the dataset
+	 * @param latencyMedian  simulator.latency.median, milliseconds
+	 * @param latencyP99     simulator.latency.p99, milliseconds, the log-normal
+	 *                       latency is fitted to the median and this
+	 * @param errorRate      simulator.errorRate, share of calls answered 500
+	 * @param throttleRate   simulator.throttleRate, share of calls answered 429
+	 * @param retryAfter     simulator.retryAfter, seconds sent with a 429
+	 */
+	public record Settings(int port, int employees, double latencyMedian, double latencyP99, double errorRate,
+			double throttleRate, int retryAfter) {
+
+		public static Settings fromSystemProperties(int defaultPort) {
+			return new Settings(Integer.getInteger("simulator.port", defaultPort),
+					Integer.getInteger("simulator.employees", 24),
+					Double.parseDouble(System.getProperty("simulator.latency.median", "50")),
+					Double.parseDouble(System.getProperty("simulator.latency.p99", "400")),
+					Double.parseDouble(System.getProperty("simulator.errorRate", "0")),
+					Double.parseDouble(System.getProperty("simulator.throttleRate", "0")),
+					Integer.getInteger("simulator.retryAfter", 1));
+		}
+
+		long latency() {
+			if (latencyMedian <= 0)
+				return 0;
+			// z of the 99th percentile of the standard normal distribution
+			final double sigma = Math.log(Math.max(latencyP99, latencyMedian) / latencyMedian) / 2.326;
+			return Math.round(latencyMedian * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package com.reliaquest.employee.accessor;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reliaquest.employee.accessor.pojo.EmployeeData;
+import com.reliaquest.employee.accessor.pojo.EmployeeReponse;
+import com.reliaquest.employee.accessor.pojo.EmployeeRequest;
+import com.reliaquest.employee.accessor.pojo.ListEmployeeReponse;
+import com.reliaquest.employee.accessor.support.AccessorMetrics;
+import com.reliaquest.employee.accessor.support.ClassifiedRetryPolicy;
+import com.reliaquest.employee.accessor.support.Hedger;
+import com.reliaquest.employee.accessor.support.RetryAfterBackOffPolicy;
+import com.reliaquest.employee.accessor.support.SingleFlight;
+import com.reliaquest.employee.accessor.support.UpstreamGuard;
+import com.reliaquest.employee.accessor.support.UpstreamRateLimiter;
+import com.reliaquest.employee.accessor.support.ValidatorCache;
+import com.reliaquest.employee.exception.EmployeeAccessorError;
+import com.reliaquest.employee.exception.EmployeeAccessorException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Accessor for the lookups by id, create, delete and the employee list loaded
+ * on a request thread. Every call returns immediately with a future which
+ * completes once the 3rd party API answers, failures complete the future
+ * exceptionally with {@link EmployeeAccessorException}. Background refreshes
+ * of the employee list run on their own thread through {@link EmployeeAccessor}.
+ */
+@Service
+@Slf4j
+public class AsyncEmployeeAccessor extends AsyncHttpAccessor {
+	private static final String ALL_EMPLOYEES_URL = "employees";
+	private static final String EMPLOYEE_URL = "employee";
+	private static final String EMPLOYEE_CREATE_URL = "create";
+	private static final String EMPLOYEE_DELETE_URL = "delete";
+
+	private static final String DELIMETER = "/";
+	private static final String ALL_EMPLOYEES_KEY = "ALL";
+
+	private static final String OPERATION_LIST = "list";
+	private static final String OPERATION_GET = "get";
+	private static final String OPERATION_CREATE = "create";
+	private static final String OPERATION_DELETE = "delete";
+
+	private final String baseUrl;
+	private final Hedger hedger;
+	private final SingleFlight<String, Optional<EmployeeData>> employeeFlight;
+	private final SingleFlight<String, EmployeeAccessor.EmployeeList> allEmployeeFlight;
+
+	public AsyncEmployeeAccessor(ObjectMapper objectMapper, HttpClient httpClient, Hedger hedger,
+			UpstreamGuard upstreamGuard, UpstreamRateLimiter rateLimiter, ClassifiedRetryPolicy retryPolicy,
+			RetryAfterBackOffPolicy backOffPolicy, @Value("${employee.service.baseurl}") String baseUrl,
+			@Value("${employee.service.http.readTimeout}") long readTimeout, MeterRegistry meterRegistry,
+			@Value("${employee.service.revalidation.maxEntries}") int revalidationMaxEntries) {
+		super();
+		this.objectMapper = objectMapper;
+		this.httpClient = httpClient;
+		this.hedger = hedger;
+		this.employeeFlight = new SingleFlight<>(OPERATION_GET, meterRegistry);
+		this.allEmployeeFlight = new SingleFlight<>(OPERATION_LIST, meterRegistry);
+		this.upstreamGuard = upstreamGuard;
+		this.rateLimiter = rateLimiter;
+		this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "employee-async-retry");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.baseUrl = baseUrl;
+		this.retryPolicy = retryPolicy;
+		this.backOffPolicy = backOffPolicy;
+		this.readTimeout = Duration.ofMillis(readTimeout);
+		this.metrics = new AccessorMetrics(meterRegistry);
+		this.validatorCache = new ValidatorCache(revalidationMaxEntries, meterRegistry);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		retryScheduler.shutdownNow();
+	}
+
+	/**
+	 * Listing all employee refreshes the employee snapshot, every other call is
+	 * waited on by a user or is a write and goes first
+	 */
+	@Override
+	protected UpstreamRateLimiter.Priority priority(String operation) {
+		return OPERATION_LIST.equals(operation) ? UpstreamRateLimiter.Priority.LOW : UpstreamRateLimiter.Priority.HIGH;
+	}
+
+	/**
+	 * Non blocking counterpart of {@link EmployeeAccessor#fetchAllEmployee(String)},
+	 * revalidated against the version the caller already has and shared by
+	 * concurrent callers asking with the same version. Not hedged.
+	 *
+	 * @param version Look {@link EmployeeAccessor.EmployeeList#version()}, null
+	 *                when the caller has no list yet
+	 * @return
+	 */
+	public CompletableFuture<EmployeeAccessor.EmployeeList> fetchAllEmployee(String version) {
+		String url = String.join(DELIMETER, baseUrl, ALL_EMPLOYEES_URL);
+		final String key = version == null ? ALL_EMPLOYEES_KEY : String.join(DELIMETER, ALL_EMPLOYEES_KEY, version);
+		return allEmployeeFlight.executeAsync(key, () -> {
+			log.info("Async API Call initiated for URL: {}", url);
+			return executeRevalidatedAsync(OPERATION_LIST, url, ListEmployeeReponse.class, version)
+					.thenApply(response -> {
+						if (!response.isModified())
+							return new EmployeeAccessor.EmployeeList(response.version(), false, Optional.empty());
+						final Optional<List<EmployeeData>> employees = Optional
+								.ofNullable(response.body().getData());
+						employees.ifPresent(data -> metrics.records(OPERATION_LIST, data.size()));
+						return new EmployeeAccessor.EmployeeList(response.version(), true, employees);
+					});
+		});
+	}
+
+	/**
+	 * Concurrent lookups of the same id share one call, Look {@link SingleFlight}.
+	 * Hedged when enabled for get operation, Look {@link Hedger}. Sent as a
+	 * conditional request when the id was fetched before, Look
+	 * {@link ValidatorCache}
+	 * 
+	 * @param id
+	 * @return
+	 */
+	public CompletableFuture<Optional<EmployeeData>> getEmployee(String id) {
+		String url = String.join(DELIMETER, baseUrl, EMPLOYEE_URL, id);
+		log.info("Async API Call initiated for URL: {}", url);
+		return employeeFlight.executeAsync(id, () -> hedger
+				.call(OPERATION_GET, () -> executeAsync(OPERATION_GET, url, EmployeeReponse.class, null, HttpMethod.GET))
+				.thenApply(response -> response.map(EmployeeReponse::getData)));
+	}
+
+	/**
+	 * Idempotency is not taken into consideration, it is left to the 3rd party
+	 * API
+	 *
+	 * @param employeeRequest
+	 * @return
+	 */
+	public CompletableFuture<Optional<EmployeeData>> create(EmployeeRequest employeeRequest) {
+		String url = String.join(DELIMETER, baseUrl, EMPLOYEE_CREATE_URL);
+		log.info("Async API Call initaed to create Employee for : {}", employeeRequest);
+		try {
+			String request = objectMapper.writeValueAsString(employeeRequest);
+			return executeAsync(OPERATION_CREATE, url, EmployeeReponse.class, request, HttpMethod.POST)
+					.thenApply(response -> response.map(EmployeeReponse::getData));
+		} catch (JsonProcessingException e) {
+			log.error("Failed while parsing the request: {}", e.getMessage());
+			return CompletableFuture
+					.failedFuture(new EmployeeAccessorException(EmployeeAccessorError.JSON_PARSSING_ERROR, e));
+		}
+	}
+
+	public CompletableFuture<Void> delete(String id) {
+		String url = String.join(DELIMETER, baseUrl, EMPLOYEE_DELETE_URL, id);
+		log.info("Async API Call to delete initiated for URL: {}", url);
+		return executeAsync(OPERATION_DELETE, url, null, null, HttpMethod.DELETE).thenApply(response -> null);
+	}
+
+}
@@ -0,0 +1,371 @@
+package com.reliaquest.employee.accessor;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryPolicy;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.reliaquest.employee.accessor.support.AccessorMetrics;
+import com.reliaquest.employee.accessor.support.ClassifiedRetryPolicy;
+import com.reliaquest.employee.accessor.support.RetryAfterBackOffPolicy;
+import com.reliaquest.employee.accessor.support.RetryClassifier;
+import com.reliaquest.employee.accessor.support.UpstreamGuard;
+import com.reliaquest.employee.accessor.support.UpstreamRateLimiter;
+import com.reliaquest.employee.accessor.support.ValidatorCache;
+import com.reliaquest.employee.exception.EmployeeAccessorError;
+import com.reliaquest.employee.exception.EmployeeAccessorException;
+
+import io.micrometer.common.lang.NonNull;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Non blocking counterpart of {@link HttpAccessor}. Requests are sent with the
+ * JDK HttpClient sendAsync and retries are scheduled on a timer instead of
+ * sleeping the calling thread, so no thread is held while waiting for the
+ * upstream or for the backoff. Retries are decided by the same
+ * {@link ClassifiedRetryPolicy} as the blocking calls, out of the same retry
+ * budget, and wait for the Retry-After or jittered backoff of
+ * {@link RetryAfterBackOffPolicy}.
+ * <p>
+ * Every exchange first waits, without holding a thread, for a permit of the rate
+ * limiter shared with the blocking calls and then goes through the same circuit
+ * breaker of the operation and the same bulkhead, Look {@link UpstreamGuard}.
+ * Calls, attempts, retries and payloads are recorded on the same meters as the
+ * blocking calls, Look {@link AccessorMetrics}.
+ * <p>
+ * GET responses are revalidated the same way as the blocking ones, Look
+ * {@link ValidatorCache}.
+ */
+@Slf4j
+public abstract class AsyncHttpAccessor {
+	HttpClient httpClient;
+	ScheduledExecutorService retryScheduler;
+	ObjectMapper objectMapper;
+	RetryPolicy retryPolicy;
+	RetryAfterBackOffPolicy backOffPolicy;
+	Duration readTimeout;
+	UpstreamGuard upstreamGuard;
+	UpstreamRateLimiter rateLimiter;
+	AccessorMetrics metrics;
+	ValidatorCache validatorCache;
+
+	private static final CompletableFuture<?> CANCELLED = CompletableFuture.completedFuture(null);
+
+	private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+	public <T> CompletableFuture<Optional<T>> executeAsync(@NonNull final String operation,
+			@NonNull final String url, Class<T> responseType, String body, @NonNull final HttpMethod method) {
+		final boolean revalidate = validatorCache != null && responseType != null && method.equals(HttpMethod.GET);
+		final Revalidation revalidation = revalidate ? new Revalidation(operation, url, validatorCache.get(url))
+				: null;
+		return measured(operation, url, body, method, revalidation == null ? null : revalidation.cached(),
+				received -> decode(operation, received, responseType, revalidation));
+	}
+
+	/**
+	 * GET revalidated against the version of the body the caller already has, same
+	 * as {@link HttpAccessor#executeRevalidated(String, String, Class, String)}.
+	 * The whole body is received before it is decoded, so when the API sends no
+	 * validator it is hashed first and an unchanged body is not parsed at all.
+	 *
+	 * @param version Look {@link HttpAccessor.Revalidated#version()}, null when
+	 *                the caller has no body yet
+	 */
+	public <T> CompletableFuture<HttpAccessor.Revalidated<T>> executeRevalidatedAsync(@NonNull final String operation,
+			@NonNull final String url, @NonNull Class<T> responseType, String version) {
+		final ValidatorCache.Entry known = ValidatorCache.Entry.ofVersion(version);
+		return measured(operation, url, null, HttpMethod.GET, known,
+				received -> decodeRevalidated(operation, url, received, responseType, known, version));
+	}
+
+	private <R> CompletableFuture<R> measured(String operation, String url, String body, HttpMethod method,
+			ValidatorCache.Entry cached, Function<HttpResponse<byte[]>, R> decoder) {
+		final Timer.Sample sample = metrics.start();
+		final HttpRequest request;
+		try {
+			request = buildRequest(url, body, method, cached);
+		} catch (IllegalArgumentException e) {
+			log.error("Invalid request for URL: {}", url, e);
+			metrics.call(sample, operation, EmployeeAccessorError.SERVICE_NETWORK_ERROR);
+			return CompletableFuture.failedFuture(
+					new EmployeeAccessorException(EmployeeAccessorError.SERVICE_NETWORK_ERROR, e));
+		}
+		final AtomicReference<CompletableFuture<?>> exchange = new AtomicReference<>();
+		final RetryContext retryContext = retryPolicy.open(null);
+		final CompletableFuture<R> result = attempt(operation, request, decoder, retryContext, exchange);
+		// Cancelling the returned future aborts the exchange in flight and stops
+		// further retries, this is what lets a hedged request drop the slower call
+		result.whenComplete((value, error) -> {
+			final CompletableFuture<?> current = exchange.getAndSet(CANCELLED);
+			if (result.isCancelled() && current != null)
+				current.cancel(true);
+			if (result.isCancelled())
+				metrics.cancelled(sample, operation);
+			else
+				metrics.call(sample, operation, error == null ? null : toAccessorException(unwrap(error)).getError());
+		});
+		return result;
+	}
+
+	private <R> CompletableFuture<R> attempt(String operation, HttpRequest request,
+			Function<HttpResponse<byte[]>, R> decoder, RetryContext retryContext,
+			AtomicReference<CompletableFuture<?>> exchange) {
+		log.info("Executing async attempt # {}, for URL: {}", retryContext.getRetryCount(), request.uri());
+		if (retryContext.getRetryCount() > 0)
+			metrics.retry(operation);
+		final CompletableFuture<Boolean> permit = rateLimiter.acquireAsync(priority(operation));
+		if (!track(exchange, permit)) {
+			permit.cancel(false);
+			return CompletableFuture.failedFuture(new CancellationException());
+		}
+		return permit.thenCompose(permitted -> {
+			if (!permitted) {
+				log.error("Rate limit permit not available for {} call.", operation);
+				return CompletableFuture.<R>failedFuture(
+						new EmployeeAccessorException(EmployeeAccessorError.RATE_LIMITED));
+			}
+			return upstreamGuard.callAsync(operation, () -> send(operation, request, decoder, exchange));
+		}).exceptionallyCompose(error -> {
+			final Throwable cause = unwrap(error);
+			if (exchange.get() == CANCELLED)
+				return CompletableFuture.failedFuture(cause);
+			retryPolicy.registerThrowable(retryContext, cause);
+			if (!retryPolicy.canRetry(retryContext))
+				return CompletableFuture.failedFuture(toAccessorException(cause));
+			final long delay = backOffPolicy.delay(retryContext);
+			final Executor timer = CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, retryScheduler);
+			return CompletableFuture.runAsync(() -> {
+			}, timer).thenCompose(ignored -> attempt(operation, request, decoder, retryContext, exchange));
+		});
+	}
+
+	/**
+	 * One exchange, decoded once the whole body is received and timed with the
+	 * status code it ended with
+	 */
+	private <R> CompletableFuture<R> send(String operation, HttpRequest request,
+			Function<HttpResponse<byte[]>, R> decoder, AtomicReference<CompletableFuture<?>> exchange) {
+		final Timer.Sample sample = metrics.start();
+		final CompletableFuture<HttpResponse<byte[]>> response = httpClient.sendAsync(request,
+				HttpResponse.BodyHandlers.ofByteArray());
+		response.whenComplete((received, error) -> metrics.attempt(sample, operation,
+				received != null ? Integer.toString(received.statusCode())
+						: error instanceof CancellationException ? AccessorMetrics.CANCELLED
+								: AccessorMetrics.IO_ERROR));
+		if (!track(exchange, response)) {
+			response.cancel(true);
+			return CompletableFuture.failedFuture(new CancellationException());
+		}
+		return response.thenApply(decoder);
+	}
+
+	/**
+	 * Makes future the one to cancel with the call
+	 *
+	 * @return false when the call is already cancelled
+	 */
+	private static boolean track(AtomicReference<CompletableFuture<?>> exchange, CompletableFuture<?> future) {
+		CompletableFuture<?> current;
+		do {
+			current = exchange.get();
+			if (current == CANCELLED)
+				return false;
+		} while (!exchange.compareAndSet(current, future));
+		return true;
+	}
+
+	/**
+	 * Priority of the operation when waiting for a rate limit permit, everything
+	 * is interactive unless the accessor says otherwise
+	 */
+	protected UpstreamRateLimiter.Priority priority(String operation) {
+		return UpstreamRateLimiter.Priority.HIGH;
+	}
+
+	private HttpRequest buildRequest(String url, String body, HttpMethod method, ValidatorCache.Entry cached) {
+		final HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).timeout(readTimeout)
+				.header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+		if (method.equals(HttpMethod.GET)) {
+			if (cached != null) {
+				final HttpHeaders conditional = new HttpHeaders();
+				cached.addConditionalHeaders(conditional);
+				conditional.forEach((name, values) -> values.forEach(value -> builder.header(name, value)));
+			}
+			return builder.GET().build();
+		}
+		if (method.equals(HttpMethod.POST))
+			return builder.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+					.POST(HttpRequest.BodyPublishers.ofString(body == null ? "" : body)).build();
+		if (method.equals(HttpMethod.DELETE))
+			return builder.DELETE().build();
+		throw new IllegalArgumentException("Unsupported HTTP method: " + method);
+	}
+
+	private <T> Optional<T> decode(String operation, HttpResponse<byte[]> response, Class<T> responseType,
+			Revalidation revalidation) {
+		final int status = response.statusCode();
+		final ValidatorCache.Entry cached = revalidation == null ? null : revalidation.cached();
+		if (cached != null && status == HttpStatus.NOT_MODIFIED.value())
+			return reuse(revalidation, responseType);
+		if (status != HttpStatus.OK.value())
+			throw statusError(response);
+		if (responseType == null)
+			return Optional.empty();
+		try {
+			if (revalidation == null)
+				return Optional.of(parse(operation, response, responseType));
+			final String etag = response.headers().firstValue(HttpHeaders.ETAG).orElse(null);
+			final String lastModified = response.headers().firstValue(HttpHeaders.LAST_MODIFIED).orElse(null);
+			final ValidatorCache.Entry entry;
+			if (etag != null || lastModified != null) {
+				if (cached != null && etag != null && etag.equals(cached.etag()))
+					return reuse(revalidation, responseType);
+				entry = new ValidatorCache.Entry(etag, lastModified, null, parse(operation, response, responseType));
+			} else {
+				// the whole body is already in memory, hashing it still saves the parsing
+				final byte[] hash = ValidatorCache.contentHash(response.body());
+				if (cached != null && cached.isSameContent(hash))
+					return reuse(revalidation, responseType);
+				entry = new ValidatorCache.Entry(null, null, hash, parse(operation, response, responseType));
+			}
+			validatorCache.put(revalidation.url(), entry);
+			validatorCache.miss(revalidation.operation());
+			return Optional.of(responseType.cast(entry.body()));
+		} catch (IOException e) {
+			throw parsingError(e);
+		}
+	}
+
+	/**
+	 * Nothing is remembered, a 304, an unchanged ETag or the same content hash
+	 * gives back the version asked with and no body
+	 */
+	private <T> HttpAccessor.Revalidated<T> decodeRevalidated(String operation, String url,
+			HttpResponse<byte[]> response, Class<T> responseType, ValidatorCache.Entry known, String version) {
+		final int status = response.statusCode();
+		if (known != null && status == HttpStatus.NOT_MODIFIED.value())
+			return notModified(operation, url, version);
+		if (status != HttpStatus.OK.value())
+			throw statusError(response);
+		final String etag = response.headers().firstValue(HttpHeaders.ETAG).orElse(null);
+		final String lastModified = response.headers().firstValue(HttpHeaders.LAST_MODIFIED).orElse(null);
+		final ValidatorCache.Entry validators;
+		if (etag != null || lastModified != null) {
+			if (known != null && etag != null && etag.equals(known.etag()))
+				return notModified(operation, url, version);
+			validators = new ValidatorCache.Entry(etag, lastModified, null, null);
+		} else {
+			final byte[] hash = ValidatorCache.contentHash(response.body());
+			if (known != null && known.isSameContent(hash))
+				return notModified(operation, url, version);
+			validators = new ValidatorCache.Entry(null, null, hash, null);
+		}
+		try {
+			final T body = parse(operation, response, responseType);
+			metrics.revalidation(operation, false);
+			return new HttpAccessor.Revalidated<>(validators.version(), body);
+		} catch (IOException e) {
+			throw parsingError(e);
+		}
+	}
+
+	private <T> HttpAccessor.Revalidated<T> notModified(String operation, String url, String version) {
+		log.info("Response for URL: {} not modified.", url);
+		metrics.revalidation(operation, true);
+		return new HttpAccessor.Revalidated<>(version, null);
+	}
+
+	/**
+	 * Any status but 200, or 304 to a conditional request
+	 */
+	private static RuntimeException statusError(HttpResponse<byte[]> response) {
+		final int status = response.statusCode();
+		if (status == HttpStatus.NOT_FOUND.value()) {
+			log.error("API Reource not found for URL: {}", response.uri());
+			return new EmployeeAccessorException(EmployeeAccessorError.API_RESOURCE_NOT_FOUND);
+		}
+		if (status >= HttpStatus.INTERNAL_SERVER_ERROR.value() || status == HttpStatus.TOO_MANY_REQUESTS.value())
+			return statusException(response);
+		log.error("Error while getting data from Employee Service with status code: {}", status);
+		return new EmployeeAccessorException(EmployeeAccessorError.SERVICE_ERROR);
+	}
+
+	private static EmployeeAccessorException parsingError(IOException e) {
+		log.error("Failed while parsing to employeeData: {}", e.getMessage());
+		return new EmployeeAccessorException(EmployeeAccessorError.JSON_PARSSING_ERROR, e);
+	}
+
+	private <T> T parse(String operation, HttpResponse<byte[]> response, Class<T> responseType) throws IOException {
+		final T value = readers.computeIfAbsent(responseType, objectMapper::readerFor).readValue(response.body());
+		metrics.payload(operation, response.body().length);
+		return value;
+	}
+
+	private <T> Optional<T> reuse(Revalidation revalidation, Class<T> responseType) {
+		log.info("Response for URL: {} not modified, reusing previous one.", revalidation.url());
+		validatorCache.hit(revalidation.operation());
+		return Optional.of(responseType.cast(revalidation.cached().body()));
+	}
+
+	/**
+	 * Same exception RestTemplate throws for the status, so that
+	 * {@link RetryClassifier} sees it and its Retry-After the same way
+	 */
+	private static HttpStatusCodeException statusException(HttpResponse<byte[]> response) {
+		final HttpStatusCode statusCode = HttpStatusCode.valueOf(response.statusCode());
+		final HttpHeaders headers = new HttpHeaders();
+		response.headers().map().forEach(headers::addAll);
+		if (statusCode.is5xxServerError())
+			return HttpServerErrorException.create(statusCode, "", headers, response.body(), null);
+		return HttpClientErrorException.create(statusCode, "", headers, response.body(), null);
+	}
+
+	private EmployeeAccessorException toAccessorException(Throwable cause) {
+		if (cause instanceof EmployeeAccessorException accessorException)
+			return accessorException;
+		log.error("Error while fetching employee data.", cause);
+		return new EmployeeAccessorException(EmployeeAccessorError.SERVICE_NETWORK_ERROR, cause);
+	}
+
+	/**
+	 * Network failures are classified as RestTemplate reports them
+	 */
+	private static Throwable unwrap(Throwable error) {
+		final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause()
+				: error;
+		if (cause instanceof IOException ioException)
+			return new ResourceAccessException(ioException.getMessage(), ioException);
+		return cause;
+	}
+
+	private record Revalidation(String operation, String url, ValidatorCache.Entry cached) {
+	}
+}
@@ -4,95 +4,97 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpMethod;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.reliaquest.employee.accessor.pojo.EmployeeData;
-import com.reliaquest.employee.accessor.pojo.EmployeeReponse;
-import com.reliaquest.employee.accessor.pojo.EmployeeRequest;
 import com.reliaquest.employee.accessor.pojo.ListEmployeeReponse;
-import com.reliaquest.employee.exception.EmployeeAccessorError;
-import com.reliaquest.employee.exception.EmployeeAccessorException;
+import com.reliaquest.employee.accessor.support.AccessorMetrics;
+import com.reliaquest.employee.accessor.support.SingleFlight;
+import com.reliaquest.employee.accessor.support.UpstreamGuard;
+import com.reliaquest.employee.accessor.support.UpstreamRateLimiter;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Blocking accessor, only used for the background refreshes of the employee
+ * snapshot on its own thread. Lookups by id, create, delete and the list loaded
+ * on a request thread go through {@link AsyncEmployeeAccessor}.
+ */
 @Service
 @Slf4j
 public class EmployeeAccessor extends HttpAccessor {
 	private static final String ALL_EMPLOYEES_URL = "employees";
-	private static final String EMPLOYEE_URL = "employee";
-	private static final String EMPLOYEE_CREATE_URL = "create";
-	private static final String EMPLOYEE_DELETE_URL = "delete";
 
 	private static final String DELIMETER = "/";
+	private static final String ALL_EMPLOYEES_KEY = "ALL";
+
+	private static final String OPERATION_LIST = "list";
 
 	@Value("${employee.service.baseurl}")
 	private String baseUrl;
 
-	public EmployeeAccessor(ObjectMapper objectMapper, RestTemplate restTemplate, RetryTemplate retryTemplate) {
+	private final SingleFlight<String, EmployeeList> allEmployeeFlight;
+
+	public EmployeeAccessor(ObjectMapper objectMapper, RestTemplate restTemplate, RetryTemplate retryTemplate,
+			UpstreamGuard upstreamGuard, UpstreamRateLimiter rateLimiter, MeterRegistry meterRegistry) {
 		super();
 		this.objectMapper = objectMapper;
 		this.restTemplate = restTemplate;
 		this.retryTemplate = retryTemplate;
+		this.upstreamGuard = upstreamGuard;
+		this.rateLimiter = rateLimiter;
+		this.metrics = new AccessorMetrics(meterRegistry);
+		this.allEmployeeFlight = new SingleFlight<>(OPERATION_LIST, meterRegistry);
 	}
 
 	/**
-	 * Fetch all Employee from the API. Considering the fact API doesnt support any
-	 * pagination so not implemented that
-	 * 
-	 * @return List<EmployeeData>
+	 * Listing all employee is a background refresh, every other call is waited on
+	 * by a user or is a write and goes first
 	 */
-	public Optional<List<EmployeeData>> fetchAllEmployee() {
-		String url = String.join(DELIMETER, baseUrl, ALL_EMPLOYEES_URL);
-		log.info("API Call initiated for URL: {}", url);
-		return execute(url, ListEmployeeReponse.class, null, HttpMethod.GET).map(ListEmployeeReponse::getData)
-				.map(Optional::of).orElse(Optional.empty());
+	@Override
+	protected UpstreamRateLimiter.Priority priority(String operation) {
+		return OPERATION_LIST.equals(operation) ? UpstreamRateLimiter.Priority.LOW : UpstreamRateLimiter.Priority.HIGH;
 	}
 
 	/**
-	 * Fetch Employee having employeeId as param
-	 * 
-	 * @param id
-	 * @return EmployeeData
+	 * Fetch all Employee from the API. Considering the fact API doesnt support any
+	 * pagination so not implemented that. The list is revalidated against the
+	 * version the caller already has, when the API still has it nothing is
+	 * returned, Look {@link #executeRevalidated(String, String, Class, String)}.
+	 * Concurrent callers asking with the same version share one in-flight
+	 * upstream call. The number of employees received is recorded per parsed
+	 * list.
+	 *
+	 * @param version Look {@link EmployeeList#version()}, null when the caller has
+	 *                no list yet
+	 * @return EmployeeList
 	 */
-	public Optional<EmployeeData> getEmployee(String id) {
-		String url = String.join(DELIMETER, baseUrl, EMPLOYEE_URL, id);
-		log.info("API Call initiated for URL: {}", url);
-		return execute(url, EmployeeReponse.class, null, HttpMethod.GET).map(EmployeeReponse::getData).map(Optional::of)
-				.orElse(Optional.empty());
+	public EmployeeList fetchAllEmployee(String version) {
+		String url = String.join(DELIMETER, baseUrl, ALL_EMPLOYEES_URL);
+		final String key = version == null ? ALL_EMPLOYEES_KEY : String.join(DELIMETER, ALL_EMPLOYEES_KEY, version);
+		return allEmployeeFlight.execute(key, () -> {
+			log.info("API Call initiated for URL: {}", url);
+			final Revalidated<ListEmployeeReponse> response = executeRevalidated(OPERATION_LIST, url,
+					ListEmployeeReponse.class, version);
+			if (!response.isModified())
+				return new EmployeeList(response.version(), false, Optional.empty());
+			final Optional<List<EmployeeData>> employees = Optional.ofNullable(response.body().getData());
+			employees.ifPresent(data -> metrics.records(OPERATION_LIST, data.size()));
+			return new EmployeeList(response.version(), true, employees);
+		});
 	}
 
 	/**
-	 * Idempotency is not taken into consideration in case we need to implement we
-	 * need to modify the rety and we relly on 3rd party to provide idempotency as
-	 * that is the correct way to do that
-	 * 
-	 * @param employeeRequest
-	 * @return
+	 * @param version   of the list, to revalidate it with on the next call
+	 * @param modified  false when the API still has the version asked with,
+	 *                  employees is then empty
+	 * @param employees empty when not modified or the API returned no data
 	 */
-	public Optional<EmployeeData> create(EmployeeRequest employeeRequest) {
-		String url = String.join(DELIMETER, baseUrl, EMPLOYEE_CREATE_URL);
-		log.info("API Call initaed to create Employee for : {}", employeeRequest);
-		String request;
-		try {
-			request = objectMapper.writeValueAsString(employeeRequest);
-			return execute(url, EmployeeReponse.class, request, HttpMethod.POST).map(EmployeeReponse::getData)
-					.map(Optional::of).orElse(Optional.empty());
-		} catch (JsonProcessingException e) {
-			log.error("Failed while parsing the request: {}", e.getMessage());
-			throw new EmployeeAccessorException(EmployeeAccessorError.JSON_PARSSING_ERROR, e);
-		}
-
-	}
-
-	public void delete(String id) {
-		String url = String.join(DELIMETER, baseUrl, EMPLOYEE_DELETE_URL, id);
-		log.info("API Call to delete initiated for URL: {}", url);
-		execute(url, null, null, HttpMethod.DELETE);
+	public record EmployeeList(String version, boolean modified, Optional<List<EmployeeData>> employees) {
 	}
 
 }
@@ -1,22 +1,35 @@
 package com.reliaquest.employee.accessor;
 
-import java.util.Optional;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.retry.RetryCallback;
 import org.springframework.retry.support.RetryTemplate;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.reliaquest.employee.accessor.support.AccessorMetrics;
+import com.reliaquest.employee.accessor.support.UpstreamGuard;
+import com.reliaquest.employee.accessor.support.UpstreamRateLimiter;
+import com.reliaquest.employee.accessor.support.ValidatorCache;
 import com.reliaquest.employee.exception.EmployeeAccessorError;
 import com.reliaquest.employee.exception.EmployeeAccessorException;
 
 import io.micrometer.common.lang.NonNull;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -24,32 +37,85 @@ public abstract class HttpAccessor {
 	RestTemplate restTemplate;
 	RetryTemplate retryTemplate;
 	ObjectMapper objectMapper;
+	UpstreamGuard upstreamGuard;
+	UpstreamRateLimiter rateLimiter;
+	AccessorMetrics metrics;
 
-	public <T> Optional<T> execute(@NonNull final String url, Class<T> responseType, String body,
-			@NonNull final HttpMethod method) {
+	/**
+	 * ObjectReader per response type, readers are immutable and thread safe so
+	 * they are built once and reused for every call
+	 */
+	private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+	/**
+	 * GET revalidated against the version of the body the caller already has, so
+	 * the caller keeps the only decoded copy and nothing is remembered here. The
+	 * request is conditional on that version, a 304, an unchanged ETag or, when
+	 * the API sends no validator, the same content hash means not modified and
+	 * the body is not kept.
+	 *
+	 * @param version Look {@link Revalidated#version()}, null when the caller
+	 *                has no body yet
+	 */
+	public <T> Revalidated<T> executeRevalidated(@NonNull final String operation, @NonNull final String url,
+			@NonNull Class<T> responseType, String version) {
+		final ValidatorCache.Entry known = ValidatorCache.Entry.ofVersion(version);
+		final DecodedResponse<T> response = measured(operation, url, responseType,
+				new Revalidation(operation, url, known));
+		return new Revalidated<>(response.body() == null ? version : response.validators().version(),
+				response.body());
+	}
+
+	/**
+	 * The call, each attempt and retries are measured, Look
+	 * {@link AccessorMetrics}
+	 */
+	private <T> DecodedResponse<T> measured(String operation, String url, Class<T> responseType,
+			Revalidation revalidation) {
+		final Timer.Sample sample = metrics.start();
 		try {
-			ResponseEntity<String> response = retryTemplate
-					.execute((RetryCallback<ResponseEntity<String>, RuntimeException>) context -> {
+			final DecodedResponse<T> result = executeWithRetry(operation, url, responseType, revalidation);
+			metrics.call(sample, operation, null);
+			return result;
+		} catch (EmployeeAccessorException e) {
+			metrics.call(sample, operation, e.getError());
+			throw e;
+		}
+	}
+
+	/**
+	 * Executes the GET with retries. Every attempt first takes a rate limit permit
+	 * and then goes through the circuit breaker of the given operation and the
+	 * shared bulkhead, so no bulkhead slot is held while waiting for a permit.
+	 * Look {@link UpstreamGuard}.
+	 */
+	private <T> DecodedResponse<T> executeWithRetry(@NonNull final String operation, @NonNull final String url,
+			Class<T> responseType, Revalidation revalidation) {
+		try {
+			DecodedResponse<T> response = retryTemplate
+					.execute((RetryCallback<DecodedResponse<T>, RuntimeException>) context -> {
 						log.info("Executing retry attempt # {}, for URL: {}", context.getRetryCount(), url);
-						if (method.equals(HttpMethod.GET))
-							return restTemplate.getForEntity(url, String.class);
-						if (method.equals(HttpMethod.POST))
-							return restTemplate.postForEntity(url, body, String.class);
-						if (method.equals(HttpMethod.DELETE))
-							return restTemplate.exchange(url, HttpMethod.DELETE, new HttpEntity<>(body), String.class);
-						else
-							throw new IllegalArgumentException("Unsupported HTTP method: " + method);
+						if (context.getRetryCount() > 0)
+							metrics.retry(operation);
+						acquirePermit(operation);
+						return upstreamGuard.call(operation, () -> exchange(operation, url,
+								requestCallback(revalidation.known()), decoder(responseType, revalidation)));
 					});
-			;
-			if (response.getStatusCode() == HttpStatus.OK) {
-				if(responseType != null)
-					return Optional.of(objectMapper.readValue(response.getBody(), responseType));
-				return Optional.empty();
+			if (response.statusCode().value() == HttpStatus.OK.value()) {
+				if (response.error() != null)
+					throw response.error();
+				return response;
 			} else {
 				log.error("Error while getting data from Employee Service with status code: {}",
-						response.getStatusCode());
+						response.statusCode());
 				throw new EmployeeAccessorException(EmployeeAccessorError.SERVICE_ERROR);
 			}
+		} catch (EmployeeAccessorException e) {
+			// open circuit or full bulkhead
+			throw e;
+		} catch (RateLimitedException e) {
+			log.error("Rate limit permit not available for {} call.", operation);
+			throw new EmployeeAccessorException(EmployeeAccessorError.RATE_LIMITED, e);
 		} catch (HttpClientErrorException.NotFound e) {
 			log.error("API Reource not found. {}", e.getMessage());
 			throw new EmployeeAccessorException(EmployeeAccessorError.API_RESOURCE_NOT_FOUND, e);
@@ -62,4 +128,144 @@ public abstract class HttpAccessor {
 		}
 	}
 
+	/**
+	 * Priority of the operation when waiting for a rate limit permit, everything
+	 * is interactive unless the accessor says otherwise
+	 */
+	protected UpstreamRateLimiter.Priority priority(String operation) {
+		return UpstreamRateLimiter.Priority.HIGH;
+	}
+
+	/**
+	 * Every attempt, retries included, takes a permit so the upstream quota is
+	 * respected. Rejection is not retried.
+	 */
+	private void acquirePermit(String operation) {
+		if (rateLimiter != null && !rateLimiter.acquire(priority(operation)))
+			throw new RateLimitedException();
+	}
+
+	/**
+	 * One HTTP exchange, timed with the status code it ended with
+	 */
+	private <T> DecodedResponse<T> exchange(String operation, String url, RequestCallback requestCallback,
+			ResponseExtractor<DecodedResponse<T>> decoder) {
+		final Timer.Sample sample = metrics.start();
+		String status = AccessorMetrics.IO_ERROR;
+		try {
+			final DecodedResponse<T> response = restTemplate.execute(url, HttpMethod.GET, requestCallback, decoder);
+			if (response != null)
+				status = Integer.toString(response.statusCode().value());
+			return response;
+		} catch (HttpStatusCodeException e) {
+			status = Integer.toString(e.getStatusCode().value());
+			throw e;
+		} finally {
+			metrics.attempt(sample, operation, status);
+		}
+	}
+
+	/**
+	 * Asks for JSON, conditional on the validators of the body the caller has (if
+	 * any)
+	 */
+	private RequestCallback requestCallback(ValidatorCache.Entry cached) {
+		return request -> {
+			request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+			if (cached != null)
+				cached.addConditionalHeaders(request.getHeaders());
+		};
+	}
+
+	/**
+	 * Decodes the response with Jackson streaming parser (which recycles its read
+	 * buffers), the body is never materialized as String. Parsing failure is
+	 * carried back instead of thrown so that it is not retried and is mapped same
+	 * as before.
+	 * <p>
+	 * A 304 or an unchanged ETag is not modified without parsing. A response with
+	 * a validator is parsed straight from the response InputStream. When the API
+	 * sends no validator the raw bytes are read and hashed first, an unchanged
+	 * content hash is not modified and is never parsed either.
+	 * <p>
+	 * Size of every parsed body is recorded, dropped ones are not.
+	 */
+	private <T> ResponseExtractor<DecodedResponse<T>> decoder(Class<T> responseType, Revalidation revalidation) {
+		return response -> {
+			final HttpStatusCode statusCode = response.getStatusCode();
+			final String operation = revalidation.operation();
+			final ValidatorCache.Entry known = revalidation.known();
+			if (known != null && statusCode.value() == HttpStatus.NOT_MODIFIED.value())
+				return notModified(revalidation);
+			if (statusCode.value() != HttpStatus.OK.value())
+				return new DecodedResponse<>(statusCode, null, null, null);
+			final ObjectReader reader = readers.computeIfAbsent(responseType, objectMapper::readerFor);
+			try {
+				final String etag = response.getHeaders().getETag();
+				final String lastModified = response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+				final T body;
+				final ValidatorCache.Entry validators;
+				if (etag != null || lastModified != null) {
+					if (known != null && etag != null && etag.equals(known.etag()))
+						return notModified(revalidation);
+					final AccessorMetrics.CountingInputStream counting = AccessorMetrics.counting(response.getBody());
+					body = reader.readValue(counting);
+					metrics.payload(operation, counting.count());
+					validators = new ValidatorCache.Entry(etag, lastModified, null, null);
+				} else {
+					// No validator from the API, the raw bytes are hashed before anything is parsed
+					final byte[] content = StreamUtils.copyToByteArray(response.getBody());
+					final byte[] hash = ValidatorCache.contentHash(content);
+					if (known != null && known.isSameContent(hash))
+						return notModified(revalidation);
+					body = reader.readValue(content);
+					metrics.payload(operation, content.length);
+					validators = new ValidatorCache.Entry(null, null, hash, null);
+				}
+				metrics.revalidation(operation, false);
+				return new DecodedResponse<>(statusCode, body, null, validators);
+			} catch (JsonProcessingException e) {
+				return new DecodedResponse<>(statusCode, null, e, null);
+			}
+		};
+	}
+
+	private <T> DecodedResponse<T> notModified(Revalidation revalidation) {
+		log.info("Response for URL: {} not modified.", revalidation.url());
+		metrics.revalidation(revalidation.operation(), true);
+		return new DecodedResponse<>(HttpStatus.OK, null, null, revalidation.known());
+	}
+
+	/**
+	 * @param version validators of the body as one opaque string, to revalidate
+	 *                it with on the next call
+	 * @param body    null when the API still has the version asked with
+	 */
+	public record Revalidated<T>(String version, T body) {
+		public boolean isModified() {
+			return body != null;
+		}
+	}
+
+	/**
+	 * @param validators of the parsed body, the known ones when not modified
+	 */
+	private record DecodedResponse<T>(HttpStatusCode statusCode, T body, JsonProcessingException error,
+			ValidatorCache.Entry validators) {
+	}
+
+	private static class RateLimitedException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		private RateLimitedException() {
+			super("No rate limit permit available");
+		}
+	}
+
+	/**
+	 * @param known validators of the body the caller has, null for none
+	 */
+	private record Revalidation(String operation, String url, ValidatorCache.Entry known) {
+	}
+
 }
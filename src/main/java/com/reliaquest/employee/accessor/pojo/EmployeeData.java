@@ -43,6 +43,6 @@ public class EmployeeData {
 	 * Employee profile image url
 	 */
 	@JsonProperty("profile_image")
-	private int profileImage;
+	private String profileImage;
 
 }
@@ -0,0 +1,147 @@
+package com.reliaquest.employee.accessor.support;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.reliaquest.employee.exception.EmployeeAccessorError;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Meters of the upstream calls, all tagged with the accessor operation:
+ * <ul>
+ * <li>employee.accessor.calls, timer of the whole call including waiting for
+ * the circuit breaker, permits and retries, tagged with outcome success, the
+ * {@link EmployeeAccessorError} it failed with or CANCELLED when the caller
+ * gave up on it</li>
+ * <li>employee.accessor.attempts, timer of each HTTP exchange tagged with the
+ * status code, IO_ERROR when there was no response or CANCELLED when it was
+ * aborted</li>
+ * <li>employee.accessor.retries, counter of attempts after the first one</li>
+ * <li>employee.accessor.errors, counter of failed calls by error</li>
+ * <li>employee.accessor.payload, response body size in bytes of the parsed
+ * responses</li>
+ * <li>employee.accessor.records, number of employees in a list response</li>
+ * <li>employee.accessor.revalidation, counter of revalidated GETs by result,
+ * hit when the previous body was still current and miss when the response
+ * had to be parsed</li>
+ * </ul>
+ * Timers publish a percentile histogram so latency percentiles can be
+ * aggregated across instances.
+ */
+public class AccessorMetrics {
+	public static final String SUCCESS = "success";
+	public static final String IO_ERROR = "IO_ERROR";
+	public static final String CANCELLED = "CANCELLED";
+	private static final String UNKNOWN = "UNKNOWN";
+
+	private final MeterRegistry meterRegistry;
+
+	public AccessorMetrics(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	public Timer.Sample start() {
+		return Timer.start(meterRegistry);
+	}
+
+	/**
+	 * @param error null when the call succeeded
+	 */
+	public void call(Timer.Sample sample, String operation, EmployeeAccessorError error) {
+		final String outcome = error == null ? SUCCESS : error.name();
+		sample.stop(Timer.builder("employee.accessor.calls").description("Upstream calls including retries")
+				.tags("operation", operation, "outcome", outcome).publishPercentileHistogram()
+				.register(meterRegistry));
+		if (error != null)
+			meterRegistry.counter("employee.accessor.errors", "operation", operation, "error", outcome).increment();
+	}
+
+	/**
+	 * Call dropped by the caller, e.g. the losing attempt of a hedged request. It
+	 * is not counted as an error.
+	 */
+	public void cancelled(Timer.Sample sample, String operation) {
+		sample.stop(Timer.builder("employee.accessor.calls").description("Upstream calls including retries")
+				.tags("operation", operation, "outcome", CANCELLED).publishPercentileHistogram()
+				.register(meterRegistry));
+	}
+
+	/**
+	 * @param status HTTP status code, {@link #IO_ERROR} without a response
+	 */
+	public void attempt(Timer.Sample sample, String operation, String status) {
+		sample.stop(Timer.builder("employee.accessor.attempts").description("Single HTTP exchanges with upstream")
+				.tags("operation", operation, "status", status == null ? UNKNOWN : status)
+				.publishPercentileHistogram().register(meterRegistry));
+	}
+
+	public void retry(String operation) {
+		meterRegistry.counter("employee.accessor.retries", "operation", operation).increment();
+	}
+
+	public void payload(String operation, long bytes) {
+		DistributionSummary.builder("employee.accessor.payload").description("Parsed response body size")
+				.baseUnit("bytes").tag("operation", operation).register(meterRegistry).record(bytes);
+	}
+
+	/**
+	 * @param hit previous body was still current, otherwise the response was
+	 *            parsed
+	 */
+	public void revalidation(String operation, boolean hit) {
+		meterRegistry.counter("employee.accessor.revalidation", "operation", operation, "result", hit ? "hit" : "miss")
+				.increment();
+	}
+
+	public void records(String operation, int count) {
+		DistributionSummary.builder("employee.accessor.records").description("Employees in a list response")
+				.tag("operation", operation).register(meterRegistry).record(count);
+	}
+
+	/**
+	 * @return stream counting the bytes read from body, Look
+	 *         {@link CountingInputStream#count()}
+	 */
+	public static CountingInputStream counting(InputStream body) {
+		return new CountingInputStream(body);
+	}
+
+	public static class CountingInputStream extends FilterInputStream {
+		private long count;
+
+		private CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		public long count() {
+			return count;
+		}
+
+		@Override
+		public int read() throws IOException {
+			final int read = super.read();
+			if (read >= 0)
+				count++;
+			return read;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			final int read = super.read(b, off, len);
+			if (read > 0)
+				count += read;
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			final long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+}
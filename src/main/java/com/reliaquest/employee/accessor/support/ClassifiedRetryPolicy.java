@@ -0,0 +1,82 @@
+package com.reliaquest.employee.accessor.support;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryPolicy;
+import org.springframework.retry.context.RetryContextSupport;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Retry policy which only retries transient failures (Look
+ * {@link RetryClassifier}), gives up when the API asks to come back later than
+ * maxRetryAfter and takes every retry out of the shared {@link RetryBudget}.
+ * <p>
+ * The decision is taken once per failure in registerThrowable as RetryTemplate
+ * calls canRetry more than once per attempt and a budget token must only be
+ * consumed once.
+ */
+@Slf4j
+public class ClassifiedRetryPolicy implements RetryPolicy {
+	private static final String RETRY_PERMITTED = "employee.retry.permitted";
+
+	private final int maxAttempts;
+	private final Duration maxRetryAfter;
+	private final RetryBudget retryBudget;
+	private final Counter budgetExhausted;
+
+	public ClassifiedRetryPolicy(int maxAttempts, Duration maxRetryAfter, RetryBudget retryBudget,
+			MeterRegistry meterRegistry) {
+		this.maxAttempts = maxAttempts;
+		this.maxRetryAfter = maxRetryAfter;
+		this.retryBudget = retryBudget;
+		this.budgetExhausted = Counter.builder("employee.accessor.retry.budget.exhausted")
+				.description("Retries skipped because the retry budget was exhausted").register(meterRegistry);
+		Gauge.builder("employee.accessor.retry.budget.balance", retryBudget, RetryBudget::getBalance)
+				.description("Retry tokens currently available").register(meterRegistry);
+	}
+
+	@Override
+	public boolean canRetry(RetryContext context) {
+		if (context.getLastThrowable() == null)
+			return true;
+		return Boolean.TRUE.equals(context.getAttribute(RETRY_PERMITTED));
+	}
+
+	@Override
+	public RetryContext open(RetryContext parent) {
+		retryBudget.deposit();
+		return new RetryContextSupport(parent);
+	}
+
+	@Override
+	public void close(RetryContext context) {
+	}
+
+	@Override
+	public void registerThrowable(RetryContext context, Throwable throwable) {
+		((RetryContextSupport) context).registerThrowable(throwable);
+		context.setAttribute(RETRY_PERMITTED, isRetryPermitted(context, throwable));
+	}
+
+	private boolean isRetryPermitted(RetryContext context, Throwable throwable) {
+		if (context.getRetryCount() >= maxAttempts || !RetryClassifier.isRetryable(throwable))
+			return false;
+		final Optional<Duration> retryAfter = RetryClassifier.retryAfter(throwable);
+		if (retryAfter.isPresent() && retryAfter.get().compareTo(maxRetryAfter) > 0) {
+			log.warn("Employee Service asked to retry after {}, giving up instead.", retryAfter.get());
+			return false;
+		}
+		if (!retryBudget.tryWithdraw()) {
+			log.warn("Retry budget exhausted, not retrying.");
+			budgetExhausted.increment();
+			return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,150 @@
+package com.reliaquest.employee.accessor.support;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hedged requests for tail latency. When the first attempt has not answered
+ * within the configured latency percentile of the operation a second identical
+ * attempt is sent, whichever succeeds first wins and the other one is
+ * cancelled. Extra attempts are taken out of a {@link RetryBudget} so hedging
+ * can only add a bounded fraction of load on the API.
+ * <p>
+ * The hedge delay comes from the latency of first attempts only, hedged ones
+ * are sent late and would skew it. A first attempt cancelled because the hedge
+ * won records the time it had been waiting, a lower bound of its latency, so
+ * that slow attempts are not left out of the percentile.
+ * <p>
+ * Hedging is opt-in per operation through employee.service.hedge.operations and
+ * only the lookup by id can be hedged, create and delete are never sent twice.
+ */
+@Component
+@Slf4j
+public class Hedger {
+	private static final Set<String> HEDGEABLE_OPERATIONS = Set.of("get");
+	private static final int LATENCY_WINDOW_SIZE = 256;
+
+	private final Set<String> operations;
+	private final double percentile;
+	private final long initialDelay;
+	private final long minDelay;
+	private final RetryBudget hedgeBudget;
+	private final MeterRegistry meterRegistry;
+	private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService scheduler;
+
+	public Hedger(@Value("${employee.service.hedge.operations}") String operations,
+			@Value("${employee.service.hedge.percentile}") double percentile,
+			@Value("${employee.service.hedge.initialDelay}") long initialDelay,
+			@Value("${employee.service.hedge.minDelay}") long minDelay,
+			@Value("${employee.service.hedge.budgetRatio}") double budgetRatio,
+			@Value("${employee.service.hedge.budgetMax}") int budgetMax, MeterRegistry meterRegistry) {
+		this.operations = StringUtils.commaDelimitedListToSet(operations).stream().map(String::trim)
+				.filter(StringUtils::hasText).filter(operation -> {
+					if (HEDGEABLE_OPERATIONS.contains(operation))
+						return true;
+					log.warn("Hedging is not allowed for operation: {}, ignoring it.", operation);
+					return false;
+				}).collect(Collectors.toUnmodifiableSet());
+		this.percentile = percentile;
+		this.initialDelay = initialDelay;
+		this.minDelay = minDelay;
+		this.hedgeBudget = new RetryBudget(budgetRatio, budgetMax);
+		this.meterRegistry = meterRegistry;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "employee-hedge");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		scheduler.shutdownNow();
+	}
+
+	public boolean isEnabled(String operation) {
+		return operations.contains(operation);
+	}
+
+	/**
+	 * @param operation
+	 * @param attempt   starts one independent attempt, cancelling the returned
+	 *                  future must abort that attempt
+	 * @return future of the first successful attempt, fails only when every sent
+	 *         attempt failed
+	 */
+	public <T> CompletableFuture<T> call(String operation, Supplier<CompletableFuture<T>> attempt) {
+		if (!isEnabled(operation))
+			return attempt.get();
+
+		hedgeBudget.deposit();
+		final LatencyWindow latency = latencies.computeIfAbsent(operation,
+				key -> new LatencyWindow(LATENCY_WINDOW_SIZE, percentile, initialDelay));
+		final CompletableFuture<T> result = new CompletableFuture<>();
+		final AtomicInteger pending = new AtomicInteger(1);
+		final CompletableFuture<T> primary = start(attempt, latency, result, pending, () -> {
+		});
+
+		final long delay = Math.max(minDelay, latency.getPercentile());
+		final ScheduledFuture<?> hedgeTimer = scheduler.schedule(() -> {
+			if (result.isDone())
+				return;
+			if (!hedgeBudget.tryWithdraw()) {
+				meterRegistry.counter("employee.accessor.hedge.budget.exhausted", "operation", operation).increment();
+				return;
+			}
+			log.info("No answer for {} within {} ms, sending hedged request.", operation, delay);
+			meterRegistry.counter("employee.accessor.hedge.sent", "operation", operation).increment();
+			pending.incrementAndGet();
+			final CompletableFuture<T> hedge = start(attempt, null, result, pending,
+					() -> meterRegistry.counter("employee.accessor.hedge.won", "operation", operation).increment());
+			result.whenComplete((value, error) -> hedge.cancel(true));
+		}, delay, TimeUnit.MILLISECONDS);
+
+		result.whenComplete((value, error) -> {
+			hedgeTimer.cancel(false);
+			primary.cancel(true);
+		});
+		return result;
+	}
+
+	/**
+	 * @param latency null when the latency of the attempt is not recorded
+	 * @param onWin   run when this attempt completed the result
+	 */
+	private <T> CompletableFuture<T> start(Supplier<CompletableFuture<T>> attempt, LatencyWindow latency,
+			CompletableFuture<T> result, AtomicInteger pending, Runnable onWin) {
+		final long start = System.nanoTime();
+		final CompletableFuture<T> future = attempt.get();
+		future.whenComplete((value, error) -> {
+			if (latency != null)
+				latency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			if (future.isCancelled())
+				return;
+			if (error == null) {
+				if (result.complete(value))
+					onWin.run();
+			} else if (pending.decrementAndGet() == 0)
+				result.completeExceptionally(error);
+		});
+		return future;
+	}
+}
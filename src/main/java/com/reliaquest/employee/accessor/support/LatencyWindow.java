@@ -0,0 +1,47 @@
+package com.reliaquest.employee.accessor.support;
+
+import java.util.Arrays;
+
+/**
+ * Rolling window of the most recent call latencies used to derive a percentile.
+ * The percentile is recomputed every few samples rather than on every read so
+ * that reading it stays cheap on the request path.
+ */
+public class LatencyWindow {
+	private static final int RECOMPUTE_EVERY = 32;
+
+	private final long[] samples;
+	private final double percentile;
+	private int next;
+	private int count;
+	private int sinceRecompute;
+	private volatile long cachedPercentile;
+
+	public LatencyWindow(int size, double percentile, long defaultValue) {
+		if (percentile <= 0 || percentile > 1)
+			throw new IllegalArgumentException("Percentile must be within (0, 1]");
+		this.samples = new long[size];
+		this.percentile = percentile;
+		this.cachedPercentile = defaultValue;
+	}
+
+	public synchronized void record(long latencyMillis) {
+		samples[next] = latencyMillis;
+		next = (next + 1) % samples.length;
+		count = Math.min(count + 1, samples.length);
+		if (++sinceRecompute >= RECOMPUTE_EVERY) {
+			sinceRecompute = 0;
+			final long[] sorted = Arrays.copyOf(samples, count);
+			Arrays.sort(sorted);
+			cachedPercentile = sorted[(int) Math.ceil(percentile * count) - 1];
+		}
+	}
+
+	/**
+	 * @return latency percentile in millis, default value until enough samples
+	 *         are recorded
+	 */
+	public long getPercentile() {
+		return cachedPercentile;
+	}
+}
@@ -0,0 +1,74 @@
+package com.reliaquest.employee.accessor.support;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.backoff.BackOffContext;
+import org.springframework.retry.backoff.BackOffInterruptedException;
+import org.springframework.retry.backoff.BackOffPolicy;
+import org.springframework.retry.backoff.Sleeper;
+import org.springframework.retry.backoff.ThreadWaitSleeper;
+
+/**
+ * Waits for the delay asked by the API through Retry-After when present,
+ * otherwise for an exponential backoff with full jitter (a random delay between
+ * 0 and the capped exponential interval) so that callers failing together do
+ * not retry together.
+ */
+public class RetryAfterBackOffPolicy implements BackOffPolicy {
+	private final long initialInterval;
+	private final double multiplier;
+	private final long maxInterval;
+	private Sleeper sleeper = new ThreadWaitSleeper();
+
+	public RetryAfterBackOffPolicy(long initialInterval, double multiplier, long maxInterval) {
+		this.initialInterval = initialInterval;
+		this.multiplier = multiplier;
+		this.maxInterval = maxInterval;
+	}
+
+	public void setSleeper(Sleeper sleeper) {
+		this.sleeper = sleeper;
+	}
+
+	@Override
+	public BackOffContext start(RetryContext context) {
+		return new RetryAfterBackOffContext(context);
+	}
+
+	@Override
+	public void backOff(BackOffContext backOffContext) throws BackOffInterruptedException {
+		final long delay = delay(((RetryAfterBackOffContext) backOffContext).retryContext);
+		try {
+			sleeper.sleep(delay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BackOffInterruptedException("Thread interrupted while sleeping", e);
+		}
+	}
+
+	/**
+	 * @param retryContext of the failed attempt
+	 * @return millis to wait before the next attempt, for callers scheduling the
+	 *         retry themselves instead of sleeping
+	 */
+	public long delay(RetryContext retryContext) {
+		return RetryClassifier.retryAfter(retryContext.getLastThrowable()).map(Duration::toMillis)
+				.orElseGet(() -> jitteredInterval(retryContext.getRetryCount()));
+	}
+
+	long jitteredInterval(int retryCount) {
+		final double exponential = initialInterval * Math.pow(multiplier, Math.max(0, retryCount - 1));
+		final long ceiling = (long) Math.min(maxInterval, exponential);
+		return ThreadLocalRandom.current().nextLong(ceiling + 1);
+	}
+
+	private static class RetryAfterBackOffContext implements BackOffContext {
+		private final RetryContext retryContext;
+
+		private RetryAfterBackOffContext(RetryContext retryContext) {
+			this.retryContext = retryContext;
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.reliaquest.employee.accessor.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Global retry budget shared by all upstream calls. Every call deposits ratio
+ * of a token and every retry withdraws a whole token, so over time retries stay
+ * below ratio * calls. The balance is capped so that only a bounded burst of
+ * retries is possible after a quiet period, which keeps a failing upstream from
+ * receiving a retry storm on top of the regular traffic.
+ */
+public class RetryBudget {
+	/**
+	 * Balance is kept in thousandths of a token to stay lock free
+	 */
+	private static final long UNIT = 1000;
+
+	private final long deposit;
+	private final long maxBalance;
+	private final AtomicLong balance;
+
+	public RetryBudget(double ratio, int maxTokens) {
+		if (ratio < 0 || maxTokens < 0)
+			throw new IllegalArgumentException("Retry budget ratio and max tokens must not be negative");
+		this.deposit = Math.round(ratio * UNIT);
+		this.maxBalance = maxTokens * UNIT;
+		this.balance = new AtomicLong(maxBalance);
+	}
+
+	/**
+	 * Called once per upstream call (not per attempt)
+	 */
+	public void deposit() {
+		balance.accumulateAndGet(deposit, (current, amount) -> Math.min(maxBalance, current + amount));
+	}
+
+	/**
+	 * @return true when a retry is within budget, the token is consumed
+	 */
+	public boolean tryWithdraw() {
+		long current;
+		do {
+			current = balance.get();
+			if (current < UNIT)
+				return false;
+		} while (!balance.compareAndSet(current, current - UNIT));
+		return true;
+	}
+
+	public double getBalance() {
+		return (double) balance.get() / UNIT;
+	}
+}
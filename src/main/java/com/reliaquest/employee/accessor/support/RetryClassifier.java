@@ -0,0 +1,65 @@
+package com.reliaquest.employee.accessor.support;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Decides which failures of a call to the 3rd party API are worth retrying.
+ * Network errors, 5xx and 429 are transient, any other 4xx will fail the same
+ * way again so it is never retried.
+ */
+@UtilityClass
+public class RetryClassifier {
+
+	public boolean isRetryable(Throwable throwable) {
+		if (throwable instanceof ResourceAccessException)
+			return true;
+		if (throwable instanceof HttpStatusCodeException statusCodeException) {
+			return statusCodeException.getStatusCode().is5xxServerError()
+					|| statusCodeException.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+		}
+		return false;
+	}
+
+	/**
+	 * Delay requested by the API through Retry-After on 429 and 503, either in
+	 * seconds or as HTTP date
+	 *
+	 * @param throwable
+	 * @return Duration to wait before next attempt
+	 */
+	public Optional<Duration> retryAfter(Throwable throwable) {
+		if (!(throwable instanceof HttpStatusCodeException statusCodeException))
+			return Optional.empty();
+		final int status = statusCodeException.getStatusCode().value();
+		if (status != HttpStatus.TOO_MANY_REQUESTS.value() && status != HttpStatus.SERVICE_UNAVAILABLE.value())
+			return Optional.empty();
+		final HttpHeaders headers = statusCodeException.getResponseHeaders();
+		final String retryAfter = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+		if (retryAfter == null || retryAfter.isBlank())
+			return Optional.empty();
+		try {
+			return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(retryAfter.trim()))));
+		} catch (NumberFormatException e) {
+			try {
+				final Instant at = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+						.toInstant();
+				final Duration delay = Duration.between(Instant.now(), at);
+				return Optional.of(delay.isNegative() ? Duration.ZERO : delay);
+			} catch (DateTimeParseException ignored) {
+				return Optional.empty();
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.reliaquest.employee.accessor.support;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Coalesces concurrent identical calls. First caller for a key executes the
+ * supplier while every caller arriving before it finishes waits for and shares
+ * the same result (or exception, errors included). Nothing is cached once the call completes.
+ *
+ * @param <K> key identifying identical calls
+ * @param <V> result type
+ */
+public class SingleFlight<K, V> {
+	private final ConcurrentMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+	private final DistributionSummary callersPerCall;
+
+	public SingleFlight(String operation, MeterRegistry meterRegistry) {
+		this.callersPerCall = DistributionSummary.builder("employee.accessor.coalesced.callers")
+				.description("Number of callers served by a single upstream call").tag("operation", operation)
+				.register(meterRegistry);
+	}
+
+	public V execute(K key, Supplier<V> supplier) {
+		final Flight<V> own = new Flight<>();
+		// compute is atomic per key so a caller can never join a flight which is
+		// already removed and recorded
+		final Flight<V> flight = inFlight.compute(key, (k, existing) -> {
+			if (existing == null)
+				return own;
+			existing.callers++;
+			return existing;
+		});
+		if (flight != own)
+			return flight.await();
+
+		try {
+			final V value = supplier.get();
+			own.result.complete(value);
+			return value;
+		} catch (Throwable e) {
+			// Errors too, a follower waiting on a result never completed would block
+			// forever
+			own.result.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, own);
+			callersPerCall.record(own.callers);
+		}
+	}
+
+	/**
+	 * Same for a call returning a future, callers arriving before it completes
+	 * share it without blocking. Each caller gets its own copy so cancelling one
+	 * does not cancel the others.
+	 */
+	public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> supplier) {
+		final Flight<V> own = new Flight<>();
+		final Flight<V> flight = inFlight.compute(key, (k, existing) -> {
+			if (existing == null)
+				return own;
+			existing.callers++;
+			return existing;
+		});
+		if (flight != own)
+			return flight.result.copy();
+
+		CompletableFuture<V> call;
+		try {
+			call = supplier.get();
+		} catch (Throwable e) {
+			call = CompletableFuture.failedFuture(e);
+		}
+		call.whenComplete((value, error) -> {
+			inFlight.remove(key, own);
+			callersPerCall.record(own.callers);
+			if (error != null)
+				own.result.completeExceptionally(error);
+			else
+				own.result.complete(value);
+		});
+		return own.result.copy();
+	}
+
+	private static class Flight<V> {
+		private final CompletableFuture<V> result = new CompletableFuture<>();
+		/**
+		 * Only mutated inside ConcurrentHashMap.compute for the owning key
+		 */
+		private int callers = 1;
+
+		private V await() {
+			try {
+				return result.join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException cause)
+					throw cause;
+				if (e.getCause() instanceof Error cause)
+					throw cause;
+				throw e;
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.reliaquest.employee.accessor.support;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.reliaquest.employee.exception.EmployeeAccessorError;
+import com.reliaquest.employee.exception.EmployeeAccessorException;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Circuit breaker per upstream operation (list, get, create, delete) and one
+ * shared semaphore bulkhead capping concurrent calls to the 3rd party API. An
+ * open circuit or a full bulkhead fails fast with a distinct
+ * {@link EmployeeAccessorError} instead of running the whole retry cycle.
+ * <p>
+ * Blocking and non blocking calls share the same circuits and bulkhead.
+ */
+@Component
+@Slf4j
+public class UpstreamGuard {
+	public static final String BULKHEAD_NAME = "employee-service";
+
+	private final CircuitBreakerRegistry circuitBreakerRegistry;
+	private final Bulkhead bulkhead;
+
+	public UpstreamGuard(CircuitBreakerRegistry circuitBreakerRegistry, BulkheadRegistry bulkheadRegistry) {
+		super();
+		this.circuitBreakerRegistry = circuitBreakerRegistry;
+		this.bulkhead = bulkheadRegistry.bulkhead(BULKHEAD_NAME);
+		this.circuitBreakerRegistry.getEventPublisher().onEntryAdded(event -> event.getAddedEntry()
+				.getEventPublisher().onStateTransition(transition -> log.warn("Circuit breaker {} moved {}",
+						transition.getCircuitBreakerName(), transition.getStateTransition())));
+	}
+
+	public <T> T call(String operation, Supplier<T> supplier) {
+		final CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(operation);
+		try {
+			return circuitBreaker.executeSupplier(Bulkhead.decorateSupplier(bulkhead, supplier));
+		} catch (CallNotPermittedException e) {
+			log.error("Circuit breaker {} is open, failing fast.", operation);
+			throw new EmployeeAccessorException(EmployeeAccessorError.CIRCUIT_OPEN, e);
+		} catch (BulkheadFullException e) {
+			log.error("Bulkhead {} is full, rejecting {} call.", BULKHEAD_NAME, operation);
+			throw new EmployeeAccessorException(EmployeeAccessorError.BULKHEAD_FULL, e);
+		}
+	}
+
+	/**
+	 * Non blocking counterpart of {@link #call(String, Supplier)}. Permissions are
+	 * taken without waiting and released once the returned future completes, a
+	 * cancelled call is not recorded by the circuit breaker.
+	 *
+	 * @param supplier starts the call, cancelling the returned future must abort it
+	 * @return the future of supplier, or a failed one with CIRCUIT_OPEN or
+	 *         BULKHEAD_FULL
+	 */
+	public <T> CompletableFuture<T> callAsync(String operation, Supplier<CompletableFuture<T>> supplier) {
+		final CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(operation);
+		if (!circuitBreaker.tryAcquirePermission()) {
+			log.error("Circuit breaker {} is open, failing fast.", operation);
+			return CompletableFuture.failedFuture(new EmployeeAccessorException(EmployeeAccessorError.CIRCUIT_OPEN,
+					CallNotPermittedException.createCallNotPermittedException(circuitBreaker)));
+		}
+		if (!bulkhead.tryAcquirePermission()) {
+			circuitBreaker.releasePermission();
+			log.error("Bulkhead {} is full, rejecting {} call.", BULKHEAD_NAME, operation);
+			return CompletableFuture.failedFuture(new EmployeeAccessorException(EmployeeAccessorError.BULKHEAD_FULL,
+					BulkheadFullException.createBulkheadFullException(bulkhead)));
+		}
+		final long start = circuitBreaker.getCurrentTimestamp();
+		final CompletableFuture<T> future;
+		try {
+			future = supplier.get();
+		} catch (RuntimeException e) {
+			bulkhead.onComplete();
+			circuitBreaker.onError(circuitBreaker.getCurrentTimestamp() - start, circuitBreaker.getTimestampUnit(),
+					e);
+			return CompletableFuture.failedFuture(e);
+		}
+		future.whenComplete((value, error) -> {
+			bulkhead.onComplete();
+			final long duration = circuitBreaker.getCurrentTimestamp() - start;
+			final Throwable cause = error instanceof CompletionException && error.getCause() != null
+					? error.getCause()
+					: error;
+			if (cause == null)
+				circuitBreaker.onSuccess(duration, circuitBreaker.getTimestampUnit());
+			else if (cause instanceof CancellationException)
+				circuitBreaker.releasePermission();
+			else
+				circuitBreaker.onError(duration, circuitBreaker.getTimestampUnit(), cause);
+		});
+		return future;
+	}
+
+	public CircuitBreaker.State getState(String operation) {
+		return circuitBreakerRegistry.circuitBreaker(operation).getState();
+	}
+}
@@ -0,0 +1,250 @@
+package com.reliaquest.employee.accessor.support;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Token bucket matching the request quota of the 3rd party API so calls are
+ * spread out client side instead of being answered with 429. A call which finds
+ * the bucket empty queues for at most maxWait, waiting calls are served by
+ * {@link Priority} first and then in arrival order so interactive calls and
+ * writes overtake background list refreshes.
+ * <p>
+ * Waiting does not hold a thread, queued permits are handed out by a timer as
+ * tokens come in. Blocking and non blocking callers share the same bucket and
+ * queue.
+ * <p>
+ * A permitsPerSecond of 0 or less disables the limiter.
+ */
+@Component
+@Slf4j
+public class UpstreamRateLimiter {
+	public enum Priority {
+		HIGH, LOW
+	}
+
+	private final double permitsPerNano;
+	private final double burst;
+	private final Duration maxWait;
+
+	private final ReentrantLock lock = new ReentrantLock(true);
+	private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+			Comparator.comparing(Waiter::priority).thenComparingLong(Waiter::sequence));
+	private final int[] queued = new int[Priority.values().length];
+	private double tokens;
+	private long lastRefill;
+	private long sequence;
+	/**
+	 * Pending hand out of the next token to the head of the queue, null when
+	 * none is scheduled
+	 */
+	private ScheduledFuture<?> nextGrant;
+	private final ScheduledExecutorService scheduler;
+
+	private final Timer[] waitTimers = new Timer[Priority.values().length];
+	private final Counter[] rejections = new Counter[Priority.values().length];
+
+	public UpstreamRateLimiter(@Value("${employee.service.ratelimit.permitsPerSecond}") double permitsPerSecond,
+			@Value("${employee.service.ratelimit.burst}") int burst,
+			@Value("${employee.service.ratelimit.maxWait}") long maxWait, MeterRegistry meterRegistry) {
+		this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+		this.burst = Math.max(1, burst);
+		this.maxWait = Duration.ofMillis(maxWait);
+		this.tokens = this.burst;
+		this.lastRefill = System.nanoTime();
+		this.scheduler = isEnabled() ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "employee-ratelimit");
+			thread.setDaemon(true);
+			return thread;
+		}) : null;
+		for (Priority priority : Priority.values()) {
+			final String tag = priority.name().toLowerCase();
+			Gauge.builder("employee.accessor.ratelimit.queue.depth", this, limiter -> limiter.queued(priority))
+					.description("Calls waiting for a rate limit permit").tag("priority", tag).register(meterRegistry);
+			waitTimers[priority.ordinal()] = Timer.builder("employee.accessor.ratelimit.wait")
+					.description("Time spent waiting for a rate limit permit").tag("priority", tag)
+					.register(meterRegistry);
+			rejections[priority.ordinal()] = Counter.builder("employee.accessor.ratelimit.rejected")
+					.description("Calls rejected after waiting maxWait for a permit").tag("priority", tag)
+					.register(meterRegistry);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (scheduler != null)
+			scheduler.shutdownNow();
+	}
+
+	public boolean isEnabled() {
+		return permitsPerNano > 0;
+	}
+
+	/**
+	 * Blocks until a permit is available or maxWait elapsed
+	 *
+	 * @param priority
+	 * @return false when no permit could be taken within maxWait
+	 */
+	public boolean acquire(Priority priority) {
+		final CompletableFuture<Boolean> permit = acquireAsync(priority);
+		try {
+			return permit.get();
+		} catch (InterruptedException e) {
+			permit.cancel(false);
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (ExecutionException | CancellationException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Same as {@link #acquire(Priority)} without blocking. Cancelling the returned
+	 * future gives up the place in the queue.
+	 *
+	 * @param priority
+	 * @return completes with true once the permit is taken, false when none could
+	 *         be taken within maxWait
+	 */
+	public CompletableFuture<Boolean> acquireAsync(Priority priority) {
+		if (!isEnabled())
+			return CompletableFuture.completedFuture(true);
+		final Waiter waiter;
+		lock.lock();
+		try {
+			refill();
+			if (waiters.isEmpty() && tokens >= 1) {
+				tokens -= 1;
+				waitTimers[priority.ordinal()].record(0, TimeUnit.NANOSECONDS);
+				return CompletableFuture.completedFuture(true);
+			}
+			waiter = new Waiter(priority, sequence++, System.nanoTime(), new CompletableFuture<>());
+			waiters.add(waiter);
+			queued[priority.ordinal()]++;
+			scheduleGrant();
+		} finally {
+			lock.unlock();
+		}
+		final ScheduledFuture<?> expiry = scheduler.schedule(() -> expire(waiter), maxWait.toNanos(),
+				TimeUnit.NANOSECONDS);
+		waiter.permit().whenComplete((granted, error) -> {
+			expiry.cancel(false);
+			if (waiter.permit().isCancelled())
+				remove(waiter);
+		});
+		return waiter.permit();
+	}
+
+	/**
+	 * Hands the available tokens to the head of the queue, by priority
+	 */
+	private void grant() {
+		final List<Waiter> granted = new ArrayList<>();
+		lock.lock();
+		try {
+			nextGrant = null;
+			refill();
+			while (!waiters.isEmpty() && tokens >= 1) {
+				final Waiter head = waiters.poll();
+				queued[head.priority().ordinal()]--;
+				tokens -= 1;
+				granted.add(head);
+			}
+			if (!waiters.isEmpty())
+				scheduleGrant();
+		} finally {
+			lock.unlock();
+		}
+		// completed outside the lock as the callers continue on this thread
+		for (Waiter waiter : granted) {
+			waitTimers[waiter.priority().ordinal()].record(System.nanoTime() - waiter.start(),
+					TimeUnit.NANOSECONDS);
+			if (!waiter.permit().complete(true))
+				giveBack();
+		}
+	}
+
+	/**
+	 * Called with the lock held
+	 */
+	private void scheduleGrant() {
+		if (nextGrant != null)
+			return;
+		final long untilNextToken = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / permitsPerNano);
+		nextGrant = scheduler.schedule(this::grant, untilNextToken, TimeUnit.NANOSECONDS);
+	}
+
+	private void expire(Waiter waiter) {
+		if (!remove(waiter))
+			return;
+		log.warn("No rate limit permit within {} for {} priority call.", maxWait, waiter.priority());
+		rejections[waiter.priority().ordinal()].increment();
+		waiter.permit().complete(false);
+	}
+
+	private boolean remove(Waiter waiter) {
+		lock.lock();
+		try {
+			if (!waiters.remove(waiter))
+				return false;
+			queued[waiter.priority().ordinal()]--;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * A permit granted to a caller which gave up meanwhile goes back to the bucket
+	 */
+	private void giveBack() {
+		lock.lock();
+		try {
+			tokens = Math.min(burst, tokens + 1);
+			if (!waiters.isEmpty())
+				scheduleGrant();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	int queued(Priority priority) {
+		lock.lock();
+		try {
+			return queued[priority.ordinal()];
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void refill() {
+		final long now = System.nanoTime();
+		tokens = Math.min(burst, tokens + (now - lastRefill) * permitsPerNano);
+		lastRefill = now;
+	}
+
+	private record Waiter(Priority priority, long sequence, long start, CompletableFuture<Boolean> permit) {
+	}
+}
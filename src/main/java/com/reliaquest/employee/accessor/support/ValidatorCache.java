@@ -0,0 +1,134 @@
+package com.reliaquest.employee.accessor.support;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Remembers the validators (ETag / Last-Modified, or a content hash when the API
+ * sends none) of the last successful GET per URL together with its decoded
+ * body. The next GET is sent as a conditional request and when the API answers
+ * 304, the ETag is unchanged or, without a validator, the raw body hashes the
+ * same, the remembered body is returned and the response is not parsed.
+ * <p>
+ * The number of URLs remembered is bounded, least recently used ones are
+ * dropped first.
+ * <p>
+ * A caller which keeps the decoded body itself can keep just its validators,
+ * as an {@link Entry#version()} string, instead of an entry here. Its
+ * revalidated GET gives back no body when nothing changed.
+ */
+public class ValidatorCache {
+	private final Map<String, Entry> entries;
+	private final AccessorMetrics metrics;
+
+	public ValidatorCache(int maxEntries, MeterRegistry meterRegistry) {
+		this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > maxEntries;
+			}
+		});
+		this.metrics = new AccessorMetrics(meterRegistry);
+	}
+
+	public Entry get(String url) {
+		return entries.get(url);
+	}
+
+	public void put(String url, Entry entry) {
+		entries.put(url, entry);
+	}
+
+	/**
+	 * Previous decoded body was reused
+	 */
+	public void hit(String operation) {
+		metrics.revalidation(operation, true);
+	}
+
+	/**
+	 * Response changed and had to be parsed
+	 */
+	public void miss(String operation) {
+		metrics.revalidation(operation, false);
+	}
+
+	public static byte[] contentHash(byte[] content) {
+		return newDigest().digest(content);
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	/**
+	 * @param etag         ETag header of the response, null when absent
+	 * @param lastModified Last-Modified header of the response, null when absent
+	 * @param contentHash  hash of the body, only kept when there is no validator
+	 * @param body         decoded body, null when the caller keeps it
+	 */
+	public record Entry(String etag, String lastModified, byte[] contentHash, Object body) {
+		private static final char ETAG = 'E';
+		private static final char LAST_MODIFIED = 'M';
+		private static final char CONTENT_HASH = 'H';
+
+		/**
+		 * @return the validators as one opaque string, the ETag when there is one
+		 *         as it is the one a conditional request is decided on, null
+		 *         without any
+		 */
+		public String version() {
+			if (etag != null)
+				return ETAG + etag;
+			if (lastModified != null)
+				return LAST_MODIFIED + lastModified;
+			return contentHash == null ? null : CONTENT_HASH + HexFormat.of().formatHex(contentHash);
+		}
+
+		/**
+		 * @param version Look {@link #version()}
+		 * @return entry without body, null when version is null or not one
+		 */
+		public static Entry ofVersion(String version) {
+			if (version == null || version.isEmpty())
+				return null;
+			final String value = version.substring(1);
+			try {
+				return switch (version.charAt(0)) {
+				case ETAG -> new Entry(value, null, null, null);
+				case LAST_MODIFIED -> new Entry(null, value, null, null);
+				case CONTENT_HASH -> new Entry(null, null, HexFormat.of().parseHex(value), null);
+				default -> null;
+				};
+			} catch (IllegalArgumentException e) {
+				return null;
+			}
+		}
+
+		public void addConditionalHeaders(HttpHeaders headers) {
+			if (etag != null)
+				headers.setIfNoneMatch(etag);
+			if (lastModified != null)
+				headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+		}
+
+		public boolean isSameContent(byte[] hash) {
+			return contentHash != null && Arrays.equals(contentHash, hash);
+		}
+	}
+}
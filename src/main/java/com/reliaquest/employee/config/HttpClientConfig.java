@@ -0,0 +1,125 @@
+package com.reliaquest.employee.config;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+
+/**
+ * HTTP client engine used by the RestTemplate talking to the 3rd party API.
+ * Engine is selected by employee.service.http.engine (apache | jdk), apache is
+ * the default as it supports per route pool limits and gzip negotiation.
+ */
+@Configuration
+public class HttpClientConfig {
+	private static final String ENGINE_PROPERTY = "employee.service.http.engine";
+	private static final String POOL_METRICS_NAME = "employee-service";
+
+	@Value("${employee.service.http.maxTotal}")
+	private Integer maxTotal;
+	@Value("${employee.service.http.maxPerRoute}")
+	private Integer maxPerRoute;
+	@Value("${employee.service.http.connectTimeout}")
+	private Integer connectTimeout;
+	@Value("${employee.service.http.connectionRequestTimeout}")
+	private Integer connectionRequestTimeout;
+	@Value("${employee.service.http.readTimeout}")
+	private Integer readTimeout;
+	@Value("${employee.service.http.keepAlive}")
+	private Integer keepAlive;
+	@Value("${employee.service.http.idleEviction}")
+	private Integer idleEviction;
+	@Value("${employee.service.http.compression}")
+	private Boolean compression;
+
+	/**
+	 * Shared connection pool, connections are kept alive and reused across calls
+	 * instead of doing a fresh TCP/TLS handshake per request
+	 *
+	 * @return PoolingHttpClientConnectionManager
+	 */
+	@Bean
+	@ConditionalOnProperty(name = ENGINE_PROPERTY, havingValue = "apache", matchIfMissing = true)
+	PoolingHttpClientConnectionManager getConnectionManager() {
+		final ConnectionConfig connectionConfig = ConnectionConfig.custom()
+				.setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+				.setSocketTimeout(Timeout.ofMilliseconds(readTimeout))
+				.setValidateAfterInactivity(TimeValue.ofMilliseconds(idleEviction)).build();
+		return PoolingHttpClientConnectionManagerBuilder.create().setMaxConnTotal(maxTotal)
+				.setMaxConnPerRoute(maxPerRoute).setDefaultConnectionConfig(connectionConfig).build();
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = ENGINE_PROPERTY, havingValue = "apache", matchIfMissing = true)
+	ClientHttpRequestFactory getApacheRequestFactory(PoolingHttpClientConnectionManager connectionManager) {
+		final RequestConfig requestConfig = RequestConfig.custom()
+				.setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeout))
+				.setResponseTimeout(Timeout.ofMilliseconds(readTimeout)).build();
+		final HttpClientBuilder builder = HttpClients.custom().setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(requestConfig)
+				.setKeepAliveStrategy((response, context) -> TimeValue.ofMilliseconds(keepAlive))
+				.evictExpiredConnections().evictIdleConnections(TimeValue.ofMilliseconds(idleEviction));
+		// Content compression (Accept-Encoding: gzip, deflate) is on by default
+		if (!compression)
+			builder.disableContentCompression();
+		return new HttpComponentsClientHttpRequestFactory(builder.build());
+	}
+
+	/**
+	 * Publishes leased, available, pending and max connections of the pool so
+	 * that pool saturation can be tracked
+	 *
+	 * @param connectionManager
+	 * @return MeterBinder
+	 */
+	@Bean
+	@ConditionalOnProperty(name = ENGINE_PROPERTY, havingValue = "apache", matchIfMissing = true)
+	MeterBinder getConnectionPoolMetrics(PoolingHttpClientConnectionManager connectionManager) {
+		return new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_METRICS_NAME);
+	}
+
+	/**
+	 * Non blocking client used by AsyncEmployeeAccessor
+	 *
+	 * @return HttpClient
+	 */
+	@Bean
+	HttpClient getAsyncHttpClient() {
+		return HttpClient.newBuilder().connectTimeout(Duration.ofMillis(connectTimeout)).build();
+	}
+
+	/**
+	 * JDK client keeps its own per host connection pool, pool size and keep alive
+	 * are controlled through jdk.httpclient.connectionPoolSize and
+	 * jdk.httpclient.keepalive.timeout system properties. Gzip is not negotiated
+	 * by this engine.
+	 *
+	 * @return ClientHttpRequestFactory
+	 */
+	@Bean
+	@ConditionalOnProperty(name = ENGINE_PROPERTY, havingValue = "jdk")
+	ClientHttpRequestFactory getJdkRequestFactory() {
+		final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(connectTimeout))
+				.build();
+		final JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+		requestFactory.setReadTimeout(Duration.ofMillis(readTimeout));
+		return requestFactory;
+	}
+}
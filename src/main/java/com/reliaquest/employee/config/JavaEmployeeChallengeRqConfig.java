@@ -1,16 +1,25 @@
 package com.reliaquest.employee.config;
 
+import java.time.Duration;
+import java.util.Locale;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.retry.RetryPolicy;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.retry.annotation.EnableRetry;
-import org.springframework.retry.backoff.ExponentialBackOffPolicy;
-import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reliaquest.employee.accessor.support.ClassifiedRetryPolicy;
+import com.reliaquest.employee.accessor.support.RetryAfterBackOffPolicy;
+import com.reliaquest.employee.accessor.support.RetryBudget;
+import com.reliaquest.employee.model.EmployeeSortField;
+import com.reliaquest.employee.model.SortDirection;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 @EnableRetry
@@ -21,33 +30,84 @@ public class JavaEmployeeChallengeRqConfig {
 	private Integer initailInterval;
 	@Value("${employee.service.api.multiplier}")
 	private Double multiplier;
+	@Value("${employee.service.api.maxInterval}")
+	private Integer maxInterval;
+	@Value("${employee.service.api.maxRetryAfter}")
+	private Integer maxRetryAfter;
+	@Value("${employee.service.api.retryBudgetRatio}")
+	private Double retryBudgetRatio;
+	@Value("${employee.service.api.retryBudgetMax}")
+	private Integer retryBudgetMax;
+
+	/**
+	 * Only transient failures are retried within a global retry budget, Look
+	 * {@link ClassifiedRetryPolicy}. Shared by the blocking and the non blocking
+	 * accessor so that both spend the same budget.
+	 * 
+	 * @return ClassifiedRetryPolicy
+	 */
+	@Bean
+	ClassifiedRetryPolicy getRetryPolicy(MeterRegistry meterRegistry) {
+		final RetryBudget retryBudget = new RetryBudget(retryBudgetRatio, retryBudgetMax);
+		return new ClassifiedRetryPolicy(retry, Duration.ofMillis(maxRetryAfter), retryBudget, meterRegistry);
+	}
+
+	@Bean
+	RetryAfterBackOffPolicy getBackOffPolicy() {
+		return new RetryAfterBackOffPolicy(initailInterval, multiplier, maxInterval);
+	}
 
     /**
-     * Configure Retry strategy and backoff strategy
+     * Configure Retry strategy and backoff strategy.
      * 
      * @return RetryTemplate
      */
     @Bean
-    RetryTemplate getRetryTemplate() {
+    RetryTemplate getRetryTemplate(ClassifiedRetryPolicy retryPolicy, RetryAfterBackOffPolicy backOffPolicy) {
 		final RetryTemplate retryTemplate = new RetryTemplate();
-		final RetryPolicy retryPolicy = new SimpleRetryPolicy(retry);
 		retryTemplate.setRetryPolicy(retryPolicy);
-
-		// Configure backoff policy
-		ExponentialBackOffPolicy backOffPolicy = new ExponentialBackOffPolicy();
-		backOffPolicy.setInitialInterval(initailInterval);
-		backOffPolicy.setMultiplier(multiplier);
 		retryTemplate.setBackOffPolicy(backOffPolicy);
 		return retryTemplate;
 	}
 	
+	/**
+	 * RestTemplate backed by the pooled client engine. Look {@link HttpClientConfig}
+	 * 
+	 * @param requestFactory
+	 * @return RestTemplate
+	 */
 	@Bean
-	RestTemplate getRestTemplate() {
-		return new RestTemplate();
+	RestTemplate getRestTemplate(ClientHttpRequestFactory requestFactory) {
+		return new RestTemplate(requestFactory);
 	}
 	
 	@Bean
 	ObjectMapper getObjectMapper() {
 		return new ObjectMapper();
 	}
+
+	/**
+	 * Sort request parameters in any case, sort=salary as well as sort=SALARY
+	 * 
+	 * @return Converter
+	 */
+	@Bean
+	Converter<String, EmployeeSortField> getEmployeeSortFieldConverter() {
+		return new Converter<String, EmployeeSortField>() {
+			@Override
+			public EmployeeSortField convert(String source) {
+				return EmployeeSortField.valueOf(source.trim().toUpperCase(Locale.ROOT));
+			}
+		};
+	}
+
+	@Bean
+	Converter<String, SortDirection> getSortDirectionConverter() {
+		return new Converter<String, SortDirection>() {
+			@Override
+			public SortDirection convert(String source) {
+				return SortDirection.valueOf(source.trim().toUpperCase(Locale.ROOT));
+			}
+		};
+	}
 }
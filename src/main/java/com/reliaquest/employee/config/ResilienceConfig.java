@@ -0,0 +1,94 @@
+package com.reliaquest.employee.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import com.reliaquest.employee.exception.EmployeeAccessorError;
+import com.reliaquest.employee.exception.EmployeeAccessorException;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Circuit breaker and bulkhead settings for calls to the 3rd party API
+ */
+@Configuration
+public class ResilienceConfig {
+	@Value("${employee.service.circuit.failureRateThreshold}")
+	private Float failureRateThreshold;
+	@Value("${employee.service.circuit.slowCallRateThreshold}")
+	private Float slowCallRateThreshold;
+	@Value("${employee.service.circuit.slowCallDuration}")
+	private Integer slowCallDuration;
+	@Value("${employee.service.circuit.slidingWindowSize}")
+	private Integer slidingWindowSize;
+	@Value("${employee.service.circuit.minimumCalls}")
+	private Integer minimumCalls;
+	@Value("${employee.service.circuit.openDuration}")
+	private Integer openDuration;
+	@Value("${employee.service.circuit.halfOpenCalls}")
+	private Integer halfOpenCalls;
+	@Value("${employee.service.bulkhead.maxConcurrentCalls}")
+	private Integer maxConcurrentCalls;
+	@Value("${employee.service.bulkhead.maxWait}")
+	private Integer maxWait;
+
+	/**
+	 * A missing employee (404) is a valid answer from the API so it is not
+	 * recorded as failure, calls rejected by the bulkhead are ignored as they never
+	 * reached the API. Blocking calls see the 404 as HttpStatusCodeException, non
+	 * blocking ones as API_RESOURCE_NOT_FOUND. The rate limit permit is taken
+	 * before the circuit breaker is entered, so a rejected call is never seen
+	 * here.
+	 *
+	 * @return CircuitBreakerRegistry
+	 */
+	@Bean
+	CircuitBreakerRegistry getCircuitBreakerRegistry() {
+		final CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+				.failureRateThreshold(failureRateThreshold).slowCallRateThreshold(slowCallRateThreshold)
+				.slowCallDurationThreshold(Duration.ofMillis(slowCallDuration))
+				.slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+				.slidingWindowSize(slidingWindowSize).minimumNumberOfCalls(minimumCalls)
+				.waitDurationInOpenState(Duration.ofMillis(openDuration))
+				.permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+				.automaticTransitionFromOpenToHalfOpenEnabled(true)
+				.recordException(e -> !((e instanceof HttpStatusCodeException statusCodeException
+						&& statusCodeException.getStatusCode().value() == HttpStatus.NOT_FOUND.value())
+						|| (e instanceof EmployeeAccessorException accessorException
+								&& accessorException.getError() == EmployeeAccessorError.API_RESOURCE_NOT_FOUND)))
+				.ignoreExceptions(BulkheadFullException.class).build();
+		return CircuitBreakerRegistry.of(config);
+	}
+
+	@Bean
+	BulkheadRegistry getBulkheadRegistry() {
+		final BulkheadConfig config = BulkheadConfig.custom().maxConcurrentCalls(maxConcurrentCalls)
+				.maxWaitDuration(Duration.ofMillis(maxWait)).build();
+		return BulkheadRegistry.of(config);
+	}
+
+	/**
+	 * Publishes circuit state, call outcomes and bulkhead available permits
+	 */
+	@Bean
+	MeterBinder getCircuitBreakerMetrics(CircuitBreakerRegistry circuitBreakerRegistry) {
+		return TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry);
+	}
+
+	@Bean
+	MeterBinder getBulkheadMetrics(BulkheadRegistry bulkheadRegistry) {
+		return TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry);
+	}
+}
@@ -1,31 +1,59 @@
 package com.reliaquest.employee.controller.impl;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.reliaquest.employee.controller.support.EmployeeProjection;
+import com.reliaquest.employee.model.EmployeeBatchRequestDTO;
+import com.reliaquest.employee.model.EmployeeBatchResultDTO;
 import com.reliaquest.employee.model.EmployeeDTO;
+import com.reliaquest.employee.model.EmployeeSortField;
+import com.reliaquest.employee.model.EmployeeStatsDTO;
+import com.reliaquest.employee.model.SortDirection;
 import com.reliaquest.employee.service.EmployeeService;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.extern.slf4j.Slf4j;
 
 @RestController
 @Slf4j
 public class EmployeeController {
+	static final int MAX_TOP_LIMIT = 1000;
+	static final int MAX_PAGE_LIMIT = 1000;
 
 	private EmployeeService employeeService;
+	private ObjectWriter employeeWriter;
 
-	public EmployeeController(EmployeeService employeeService) {
+	public EmployeeController(EmployeeService employeeService, ObjectMapper objectMapper) {
 		super();
 		this.employeeService = employeeService;
+		this.employeeWriter = objectMapper.writerFor(EmployeeDTO.class)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
 	}
 
 	/**
@@ -34,15 +62,80 @@ public class EmployeeController {
 	 * 404 is not correctly suited for these scenarios as we are not searching for
 	 * specifically employee
 	 * 
+	 * Without any parameter the whole list is returned in API order. With limit,
+	 * cursor, sort or direction one page is returned, when more employees follow
+	 * the Link header holds the url of the next page (rel="next") with an opaque
+	 * cursor. Sort and direction are kept by the cursor.
+	 * 
+	 * Request is processed asynchronously so the servlet thread is released while
+	 * a cold or expired employee snapshot is loaded.
+	 * 
+	 * @param limit     page size, all remaining employees when absent
+	 * @param cursor    cursor from the Link header of the previous page
+	 * @param sort      id, name, salary or age, id by default
+	 * @param direction asc or desc, asc by default
+	 * @param fields    fields=id,name narrows every employee to the listed
+	 *                  properties, all when absent
 	 * @return List<EmployeeDTO>
 	 */
 	@GetMapping
-	public ResponseEntity<List<EmployeeDTO>> getAllEmployees() {
-		final Optional<List<EmployeeDTO>> employeeList = employeeService.fetchAllEmployee();
-		if (employeeList.isPresent()) {
-			return ResponseEntity.ok(employeeList.get());
-		}
-		return ResponseEntity.noContent().build();
+	public CompletableFuture<ResponseEntity<Object>> getAllEmployees(
+			@RequestParam(name = "limit", required = false) @Min(1) @Max(MAX_PAGE_LIMIT) Integer limit,
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "sort", required = false) EmployeeSortField sort,
+			@RequestParam(name = "direction", required = false) SortDirection direction,
+			@RequestParam(name = "fields", required = false) EmployeeProjection fields) {
+		if (limit != null || cursor != null || sort != null || direction != null)
+			return getEmployeePage(limit, cursor, sort, direction, fields);
+		return employeeService.fetchAllEmployee().thenApply(employeeList -> {
+			if (employeeList.isPresent()) {
+				return ResponseEntity.ok(projected(employeeList.get(), fields));
+			}
+			return ResponseEntity.noContent().build();
+		});
+	}
+
+	/**
+	 * Same list as {@link #getAllEmployees} without paging, one JSON employee per
+	 * line (Accept: application/x-ndjson). Look {@link #streamEmployees}
+	 * 
+	 * @param fields properties to write, all when absent
+	 * @return StreamingResponseBody
+	 */
+	@GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public CompletableFuture<ResponseEntity<StreamingResponseBody>> streamAllEmployees(
+			@RequestParam(name = "fields", required = false) EmployeeProjection fields) {
+		return streamEmployees(employeeService.fetchAllEmployee(), fields);
+	}
+
+	/**
+	 * The page may be read on another thread, so the request the next link is
+	 * built from is taken up front
+	 */
+	private CompletableFuture<ResponseEntity<Object>> getEmployeePage(Integer limit, String cursor,
+			EmployeeSortField sort, SortDirection direction, EmployeeProjection fields) {
+		final RequestAttributes request = RequestContextHolder.getRequestAttributes();
+		return employeeService.fetchEmployeePage(sort, direction, cursor, limit).thenApply(page -> {
+			if (page.isEmpty()) {
+				return ResponseEntity.noContent().build();
+			}
+			final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+			if (page.get().nextCursor() != null) {
+				final String next = ServletUriComponentsBuilder
+						.fromRequest(((ServletRequestAttributes) request).getRequest())
+						.replaceQueryParam("cursor", page.get().nextCursor()).toUriString();
+				response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+			}
+			return response.body(projected(page.get().employees(), fields));
+		});
+	}
+
+	/**
+	 * @param fields null for all properties
+	 * @return the employees, written through the projection when there is one
+	 */
+	private static Object projected(List<EmployeeDTO> employees, EmployeeProjection fields) {
+		return fields == null ? employees : fields.of(employees);
 	}
 
 	/**
@@ -52,54 +145,168 @@ public class EmployeeController {
 	 * throw 404 as search is not made for speific employee
 	 * 
 	 * @param searchString
+	 * @param ignoreCase   opt-in case insensitive match
+	 * @param normalize    opt-in match ignoring accents and compatibility forms
+	 * @param fuzzy        opt-in typo tolerant match, closest names first. Case
+	 *                     and accents are always ignored, ignoreCase and normalize
+	 *                     do not apply.
+	 * @param fields       fields=id,name narrows every employee to the listed
+	 *                     properties, all when absent
 	 * @return List<EmployeeDTO>
 	 */
 	@GetMapping("/search/{searchString}")
-	public ResponseEntity<List<EmployeeDTO>> getEmployeesByNameSearch(
-			@PathVariable("searchString") String searchString) {
+	public CompletableFuture<ResponseEntity<Object>> getEmployeesByNameSearch(
+			@PathVariable("searchString") String searchString,
+			@RequestParam(name = "ignoreCase", defaultValue = "false") boolean ignoreCase,
+			@RequestParam(name = "normalize", defaultValue = "false") boolean normalize,
+			@RequestParam(name = "fuzzy", defaultValue = "false") boolean fuzzy,
+			@RequestParam(name = "fields", required = false) EmployeeProjection fields) {
 		log.info("Employee search with request: {} iniated", searchString);
-		final Optional<List<EmployeeDTO>> employeeList = employeeService.searchEmployee(searchString);
-		if (employeeList.isPresent()) {
-			log.info("Employee found with :", searchString);
-			return ResponseEntity.ok(employeeList.get());
+		return (fuzzy ? employeeService.fuzzySearchEmployee(searchString)
+				: employeeService.searchEmployee(searchString, ignoreCase, normalize)).thenApply(employeeList -> {
+					if (employeeList.isPresent()) {
+						log.info("Employee found with :", searchString);
+						return ResponseEntity.ok(projected(employeeList.get(), fields));
+					}
+					return ResponseEntity.noContent().build();
+				});
+	}
+
+	/**
+	 * Same search as {@link #getEmployeesByNameSearch}, one JSON employee per line
+	 * (Accept: application/x-ndjson). Look {@link #streamEmployees}
+	 * 
+	 * @return StreamingResponseBody
+	 */
+	@GetMapping(value = "/search/{searchString}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public CompletableFuture<ResponseEntity<StreamingResponseBody>> streamEmployeesByNameSearch(
+			@PathVariable("searchString") String searchString,
+			@RequestParam(name = "ignoreCase", defaultValue = "false") boolean ignoreCase,
+			@RequestParam(name = "normalize", defaultValue = "false") boolean normalize,
+			@RequestParam(name = "fuzzy", defaultValue = "false") boolean fuzzy,
+			@RequestParam(name = "fields", required = false) EmployeeProjection fields) {
+		log.info("Employee stream search with request: {} iniated", searchString);
+		return streamEmployees(fuzzy ? employeeService.fuzzySearchEmployee(searchString)
+				: employeeService.searchEmployee(searchString, ignoreCase, normalize), fields);
+	}
+
+	/**
+	 * The list is read before the response starts so upstream errors are still
+	 * answered by {@link RestExceptionHandler}. The service lists are views over
+	 * the employee snapshot building each DTO on access, so employees are
+	 * serialized one at a time into the response buffer and memory does not grow
+	 * with the list. Writes block while the client is not reading, which holds
+	 * back the serialization.
+	 * 
+	 * @param employeeList
+	 * @param projection   properties to write, null for all
+	 * @return 200 streaming the employees, 204 when there are none
+	 */
+	private CompletableFuture<ResponseEntity<StreamingResponseBody>> streamEmployees(
+			CompletableFuture<Optional<List<EmployeeDTO>>> employeeList, EmployeeProjection projection) {
+		return employeeList.thenApply(found -> {
+			if (found.isEmpty()) {
+				return ResponseEntity.noContent().build();
+			}
+			final List<EmployeeDTO> employees = found.get();
+			final StreamingResponseBody body = outputStream -> writeNdjson(employees, projection, outputStream);
+			return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+		});
+	}
+
+	private void writeNdjson(List<EmployeeDTO> employees, EmployeeProjection projection, OutputStream outputStream)
+			throws IOException {
+		try (JsonGenerator generator = employeeWriter.createGenerator(outputStream)) {
+			// newline after each value instead of the default space between them
+			generator.setRootValueSeparator(null);
+			for (int i = 0; i < employees.size(); i++) {
+				if (projection == null)
+					employeeWriter.writeValue(generator, employees.get(i));
+				else
+					projection.write(employees, i, generator);
+				generator.writeRaw('\n');
+			}
 		}
-		return ResponseEntity.noContent().build();
 	}
 
 	/**
 	 * 404 is thrown in case employee is not found that is handled by Conroller
-	 * Advice. Look {@RestExceptionHandler}
+	 * Advice. Look {@RestExceptionHandler}. Request is processed asynchronously so
+	 * the servlet thread is released while the 3rd party API call is pending.
 	 * 
 	 * @param id
+	 * @param fields fields=id,name narrows the employee to the listed
+	 *               properties, all when absent
 	 * @return
 	 */
 	@GetMapping("/{id}")
-	public ResponseEntity<EmployeeDTO> getEmployeeById(@PathVariable("id") String id) {
+	public CompletableFuture<ResponseEntity<Object>> getEmployeeById(@PathVariable("id") String id,
+			@RequestParam(name = "fields", required = false) EmployeeProjection fields) {
 		log.info("Employee search with id: {} iniated", id);
-		final EmployeeDTO employee = employeeService.getEmployee(id);
-
-		log.info("Employee found with :", id);
-		return ResponseEntity.ok(employee);
+		return employeeService.getEmployeeAsync(id).thenApply(employee -> {
+			log.info("Employee found with : {}", id);
+			return ResponseEntity.ok(fields == null ? employee : fields.of(employee));
+		});
 		// Thrown 404 in case no employee is found handled via RestExceptionHandler
 
 	}
 
+	/**
+	 * Looks up many employees in one call. Always 200 ok with one result per
+	 * distinct id telling whether it was found, not found or failed.
+	 * 
+	 * @param batchRequest
+	 * @return
+	 */
+	@PostMapping(value = "/batch/get", consumes = "application/json")
+	public CompletableFuture<ResponseEntity<List<EmployeeBatchResultDTO>>> getEmployeesByIds(
+			@Valid @RequestBody EmployeeBatchRequestDTO batchRequest) {
+		log.info("Batch employee lookup for {} ids iniated", batchRequest.getIds().size());
+		return employeeService.getEmployees(batchRequest.getIds()).thenApply(ResponseEntity::ok);
+	}
+
 	@GetMapping("/highestSalary")
-	public ResponseEntity<Integer> getHighestSalaryOfEmployees() {
+	public CompletableFuture<ResponseEntity<Integer>> getHighestSalaryOfEmployees() {
 		log.info("Request to fetch Employee with highest salary initated");
-		return ResponseEntity.ok(employeeService.getHighestSalary());
+		return employeeService.getHighestSalary().thenApply(ResponseEntity::ok);
 	}
 
+	/**
+	 * Names of the employees earning the most, 10 unless limit is given. 400 bad
+	 * request for a limit outside 1 to {@value #MAX_TOP_LIMIT}.
+	 * 
+	 * @param limit
+	 * @return
+	 */
 	@GetMapping("/topTenHighestEarningEmployeeNames")
-	public ResponseEntity<List<String>> getTopTenHighestEarningEmployeeNames() {
-		log.info("Request to fetch top 10 Employee with highest salary initated");
-		final Optional<List<String>> employees = employeeService.getTop10HighestPaidEmployee(10);
-		if (employees.isPresent()) {
-			log.info("Fetched 10 employee with highest salary");
-			return ResponseEntity.ok(employees.get());
-		}
-		log.info("No data found");
-		return ResponseEntity.noContent().build();
+	public CompletableFuture<ResponseEntity<List<String>>> getTopTenHighestEarningEmployeeNames(
+			@RequestParam(name = "limit", defaultValue = "10") @Min(1) @Max(MAX_TOP_LIMIT) int limit) {
+		log.info("Request to fetch top {} Employee with highest salary initated", limit);
+		return employeeService.getTop10HighestPaidEmployee(limit).thenApply(employees -> {
+			if (employees.isPresent()) {
+				log.info("Fetched {} employee with highest salary", employees.get().size());
+				return ResponseEntity.ok(employees.get());
+			}
+			log.info("No data found");
+			return ResponseEntity.noContent().build();
+		});
+	}
+
+	/**
+	 * Headcount, salary and age distribution and counts per salary band and age
+	 * bracket. 204 No content when there is no employee data.
+	 * 
+	 * @return
+	 */
+	@GetMapping("/stats")
+	public CompletableFuture<ResponseEntity<EmployeeStatsDTO>> getEmployeeStats() {
+		log.info("Request to fetch employee statistics initated");
+		return employeeService.getStats().thenApply(stats -> {
+			if (stats.isPresent()) {
+				return ResponseEntity.ok(stats.get());
+			}
+			return ResponseEntity.noContent().build();
+		});
 	}
 
 	/**
@@ -110,20 +317,21 @@ public class EmployeeController {
 	 * @return
 	 */
 	@PostMapping(consumes = "application/json")
-	public ResponseEntity<EmployeeDTO> createEmployee(@Valid @RequestBody EmployeeDTO employeeInput) {
+	public CompletableFuture<ResponseEntity<EmployeeDTO>> createEmployee(
+			@Valid @RequestBody EmployeeDTO employeeInput) {
 		log.info("Request for creating employee has been initaed");
-		final Optional<EmployeeDTO> emplyee = employeeService.create(employeeInput);
-		if (emplyee.isPresent()) {
-			return ResponseEntity.ok(emplyee.get());
-		}
-		return ResponseEntity.badRequest().body(null);
+		return employeeService.createAsync(employeeInput).thenApply(emplyee -> {
+			if (emplyee.isPresent()) {
+				return ResponseEntity.ok(emplyee.get());
+			}
+			return ResponseEntity.badRequest().body(null);
+		});
 	}
 
 	@DeleteMapping("/{id}")
-	public ResponseEntity<String> deleteEmployeeById(@PathVariable("id") String id) {
+	public CompletableFuture<ResponseEntity<String>> deleteEmployeeById(@PathVariable("id") String id) {
 		log.info("Request to delete Employee : {} iniated.", id);
-		employeeService.delete(id);
-		return ResponseEntity.ok("SUCCESS");
+		return employeeService.deleteAsync(id).thenApply(result -> ResponseEntity.ok("SUCCESS"));
 	}
 
 }
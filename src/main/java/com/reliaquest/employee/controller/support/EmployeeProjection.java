@@ -0,0 +1,158 @@
+package com.reliaquest.employee.controller.support;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.reliaquest.employee.exception.InvalidFieldsException;
+import com.reliaquest.employee.model.EmployeeDTO;
+import com.reliaquest.employee.model.EmployeeField;
+import com.reliaquest.employee.service.support.EmployeeRowView;
+
+/**
+ * Subset of the {@link EmployeeDTO} properties written for an employee, as
+ * requested by fields=id,name. Properties are written straight to the
+ * generator with pre-encoded names, in the order Jackson writes the whole DTO,
+ * without going through the bean serializer. Employees of an
+ * {@link EmployeeRowView} are built with the projected properties only.
+ * <p>
+ * There is one instance per combination of fields, built up front, so parsing
+ * a request only looks one up. Handlers take it as the fields request
+ * parameter, Spring binds it through {@link #valueOf(String)} so an invalid
+ * one is rejected before the handler runs.
+ */
+public final class EmployeeProjection {
+	private static final EmployeeField[] FIELDS = EmployeeField.values();
+	private static final SerializedString[] NAMES = new SerializedString[FIELDS.length];
+	private static final EmployeeProjection[] BY_MASK = new EmployeeProjection[1 << FIELDS.length];
+
+	static {
+		for (EmployeeField field : FIELDS) {
+			NAMES[field.ordinal()] = new SerializedString(field.getProperty());
+		}
+		for (int mask = 1; mask < BY_MASK.length; mask++) {
+			final List<EmployeeField> fields = new ArrayList<>();
+			for (EmployeeField field : FIELDS) {
+				if ((mask & (1 << field.ordinal())) != 0)
+					fields.add(field);
+			}
+			BY_MASK[mask] = new EmployeeProjection(fields);
+		}
+	}
+
+	private final EmployeeField[] fields;
+	private final Set<EmployeeField> fieldSet;
+
+	private EmployeeProjection(List<EmployeeField> fields) {
+		this.fields = fields.toArray(EmployeeField[]::new);
+		this.fieldSet = EnumSet.copyOf(fields);
+	}
+
+	/**
+	 * @param fields comma separated property names, case is ignored
+	 * @return the projection, null when fields is null
+	 * @throws InvalidFieldsException for an unknown property or when none is
+	 *                                given
+	 */
+	public static EmployeeProjection valueOf(String fields) {
+		if (fields == null)
+			return null;
+		int mask = 0;
+		for (String name : fields.split(",")) {
+			final String trimmed = name.trim();
+			if (!trimmed.isEmpty())
+				mask |= 1 << field(trimmed).ordinal();
+		}
+		if (mask == 0)
+			throw new InvalidFieldsException("No field requested");
+		return BY_MASK[mask];
+	}
+
+	public void write(EmployeeDTO employee, JsonGenerator generator) throws IOException {
+		generator.writeStartObject(employee);
+		for (EmployeeField field : fields) {
+			generator.writeFieldName(NAMES[field.ordinal()]);
+			write(field, employee, generator);
+		}
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Writes the employee at index, built with the projected properties only when
+	 * employees is an {@link EmployeeRowView}
+	 */
+	public void write(List<EmployeeDTO> employees, int index, JsonGenerator generator) throws IOException {
+		write(employees instanceof EmployeeRowView rows ? rows.get(index, fieldSet) : employees.get(index),
+				generator);
+	}
+
+	/**
+	 * @return the employee as a value Jackson writes through this projection
+	 */
+	public JsonSerializable of(EmployeeDTO employee) {
+		return new Projected(this, employee, null);
+	}
+
+	/**
+	 * @return the employees as a JSON array Jackson writes through this projection
+	 */
+	public JsonSerializable of(List<EmployeeDTO> employees) {
+		return new Projected(this, null, employees);
+	}
+
+	private static EmployeeField field(String name) {
+		for (EmployeeField field : FIELDS) {
+			if (field.getProperty().equalsIgnoreCase(name))
+				return field;
+		}
+		throw new InvalidFieldsException("Unknown field: " + name);
+	}
+
+	private static void write(EmployeeField field, EmployeeDTO employee, JsonGenerator generator)
+			throws IOException {
+		switch (field) {
+		case ID -> generator.writeNumber(employee.getId());
+		case NAME -> generator.writeString(employee.getName());
+		case SALARY -> writeNumber(employee.getSalary(), generator);
+		case AGE -> writeNumber(employee.getAge(), generator);
+		case PROFILE_IMAGE_URL -> generator.writeString(employee.getProfileImageUrl());
+		}
+	}
+
+	private static void writeNumber(Integer value, JsonGenerator generator) throws IOException {
+		if (value == null)
+			generator.writeNull();
+		else
+			generator.writeNumber(value);
+	}
+
+	private record Projected(EmployeeProjection projection, EmployeeDTO employee, List<EmployeeDTO> employees)
+			implements JsonSerializable {
+
+		@Override
+		public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+			if (employees == null) {
+				projection.write(employee, generator);
+				return;
+			}
+			generator.writeStartArray(employees, employees.size());
+			for (int i = 0; i < employees.size(); i++) {
+				projection.write(employees, i, generator);
+			}
+			generator.writeEndArray();
+		}
+
+		@Override
+		public void serializeWithType(JsonGenerator generator, SerializerProvider serializers,
+				TypeSerializer typeSerializer) throws IOException {
+			serialize(generator, serializers);
+		}
+	}
+}
@@ -6,7 +6,10 @@ public enum EmployeeAccessorError {
 	SERVICE_ERROR("Error receieved from 3rd Party API."),
 	JSON_PARSSING_ERROR("Expected Response mismatch"),
 	API_RESOURCE_NOT_FOUND("API Resource Not found"),
-	SERVICE_NETWORK_ERROR("Netwrok error while fetching data.");
+	SERVICE_NETWORK_ERROR("Netwrok error while fetching data."),
+	CIRCUIT_OPEN("Employee Service is temporarily unavailable."),
+	BULKHEAD_FULL("Too many concurrent calls to Employee Service."),
+	RATE_LIMITED("Employee Service request quota exceeded.");
 	private String message;
 
 	private EmployeeAccessorError(String message) {
@@ -4,6 +4,7 @@ package com.reliaquest.employee.exception;
  * Exception for 3rd party failure
  */
 public class EmployeeAccessorException extends RuntimeException {
+	private EmployeeAccessorError error;
 
 	public EmployeeAccessorException() {
 		// TODO Auto-generated constructor stub
@@ -16,6 +17,7 @@ public class EmployeeAccessorException extends RuntimeException {
 
 	public EmployeeAccessorException(EmployeeAccessorError error) {
 		super(error.getMessage());
+		this.error = error;
 		// TODO Auto-generated constructor stub
 	}
 
@@ -31,6 +33,7 @@ public class EmployeeAccessorException extends RuntimeException {
 
 	public EmployeeAccessorException(EmployeeAccessorError error, Throwable cause) {
 		super(error.getMessage(), cause);
+		this.error = error;
 		// TODO Auto-generated constructor stub
 	}
 
@@ -40,4 +43,12 @@ public class EmployeeAccessorException extends RuntimeException {
 		// TODO Auto-generated constructor stub
 	}
 
+	/**
+	 * @return error this exception was raised with, null when raised with a plain
+	 *         message
+	 */
+	public EmployeeAccessorError getError() {
+		return error;
+	}
+
 }
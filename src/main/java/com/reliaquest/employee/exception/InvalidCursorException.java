@@ -0,0 +1,16 @@
+package com.reliaquest.employee.exception;
+
+/**
+ * Page cursor that was not issued by this service or does not fit the request
+ */
+public class InvalidCursorException extends RuntimeException {
+
+	public InvalidCursorException(String message) {
+		super(message);
+	}
+
+	public InvalidCursorException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
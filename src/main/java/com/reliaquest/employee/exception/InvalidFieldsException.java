@@ -0,0 +1,12 @@
+package com.reliaquest.employee.exception;
+
+/**
+ * fields= parameter naming a property employees do not have, or none at all
+ */
+public class InvalidFieldsException extends RuntimeException {
+
+	public InvalidFieldsException(String message) {
+		super(message);
+	}
+
+}
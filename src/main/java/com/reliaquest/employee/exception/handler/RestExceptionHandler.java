@@ -2,15 +2,23 @@ package com.reliaquest.employee.exception.handler;
 
 import java.util.Objects;
 
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import com.reliaquest.employee.exception.EmployeeAccessorError;
 import com.reliaquest.employee.exception.EmployeeAccessorException;
 import com.reliaquest.employee.exception.EmployeeNotFoundException;
+import com.reliaquest.employee.exception.InvalidCursorException;
+import com.reliaquest.employee.exception.InvalidFieldsException;
 import com.reliaquest.employee.model.ErrorDTO;
 
 @ControllerAdvice
@@ -23,17 +31,58 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
 		if (Objects.isNull(error)) {
 			errorDTO = new ErrorDTO(HttpStatus.INTERNAL_SERVER_ERROR.value(), "EMPLOYEE_SERVICE_API_ERROR",
 					"EMPLOYEE_SERVICE_API_ERROR");
+		} else if (error == EmployeeAccessorError.CIRCUIT_OPEN || error == EmployeeAccessorError.BULKHEAD_FULL
+				|| error == EmployeeAccessorError.RATE_LIMITED) {
+			// Upstream is shedding load, let the client back off and retry later
+			errorDTO = new ErrorDTO(HttpStatus.SERVICE_UNAVAILABLE.value(), error.name(), error.getMessage());
+			return error(errorDTO, HttpStatus.SERVICE_UNAVAILABLE);
 		} else {
 			errorDTO = new ErrorDTO(HttpStatus.INTERNAL_SERVER_ERROR.value(), error.name(), error.getMessage());
 		}
-		return new ResponseEntity<>(errorDTO, HttpStatus.INTERNAL_SERVER_ERROR);
+		return error(errorDTO, HttpStatus.INTERNAL_SERVER_ERROR);
 	}
 
 	@ExceptionHandler(EmployeeNotFoundException.class)
 	public ResponseEntity<ErrorDTO> handleEmployeeNotFound(EmployeeNotFoundException exception) {
 		final ErrorDTO errorDTO = new ErrorDTO(HttpStatus.NOT_FOUND.value(), "EMPLOYEE_NOT_FOUND",
 				"EMPLOYEE_NOT_FOUND");
-		return new ResponseEntity<>(errorDTO, HttpStatus.NOT_FOUND);
+		return error(errorDTO, HttpStatus.NOT_FOUND);
+	}
+
+	@ExceptionHandler(InvalidCursorException.class)
+	public ResponseEntity<ErrorDTO> handleInvalidCursor(InvalidCursorException exception) {
+		final ErrorDTO errorDTO = new ErrorDTO(HttpStatus.BAD_REQUEST.value(), "INVALID_CURSOR",
+				exception.getMessage());
+		return error(errorDTO, HttpStatus.BAD_REQUEST);
+	}
+
+	@ExceptionHandler(InvalidFieldsException.class)
+	public ResponseEntity<ErrorDTO> handleInvalidFields(InvalidFieldsException exception) {
+		final ErrorDTO errorDTO = new ErrorDTO(HttpStatus.BAD_REQUEST.value(), "INVALID_FIELDS",
+				exception.getMessage());
+		return error(errorDTO, HttpStatus.BAD_REQUEST);
+	}
+
+	/**
+	 * The fields parameter is bound to an EmployeeProjection, an invalid one fails
+	 * the binding and is answered like the other INVALID_FIELDS errors
+	 */
+	@Override
+	protected ResponseEntity<Object> handleTypeMismatch(TypeMismatchException ex, HttpHeaders headers,
+			HttpStatusCode status, WebRequest request) {
+		if (NestedExceptionUtils.getMostSpecificCause(ex) instanceof InvalidFieldsException invalidFields) {
+			final ResponseEntity<ErrorDTO> error = handleInvalidFields(invalidFields);
+			return new ResponseEntity<>(error.getBody(), error.getHeaders(), error.getStatusCode());
+		}
+		return super.handleTypeMismatch(ex, headers, status, request);
+	}
+
+	/**
+	 * Errors are written as JSON whatever the request accepts, a request for
+	 * NDJSON only would otherwise find no converter and lose the error
+	 */
+	private static ResponseEntity<ErrorDTO> error(ErrorDTO errorDTO, HttpStatus status) {
+		return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(errorDTO);
 	}
 
 }
@@ -0,0 +1,26 @@
+package com.reliaquest.employee.model;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ids to be looked up in one batch call
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeBatchRequestDTO {
+	/**
+	 * Employee ids, duplicates are looked up only once. Every id goes into the
+	 * path of an upstream url so only digits are accepted.
+	 */
+	@NotEmpty(message = "Ids cannot be empty")
+	@Size(max = 100, message = "At most 100 ids can be looked up in one batch")
+	private List<@Pattern(regexp = "\\s*\\d+\\s*", message = "Ids must be numeric") String> ids;
+}
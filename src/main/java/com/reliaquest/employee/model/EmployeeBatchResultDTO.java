@@ -0,0 +1,46 @@
+package com.reliaquest.employee.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of looking up one id of a batch
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeBatchResultDTO {
+	public enum Status {
+		FOUND, NOT_FOUND, ERROR
+	}
+
+	/**
+	 * Requested Employee id
+	 */
+	private String id;
+	/**
+	 * Lookup status of the id
+	 */
+	private Status status;
+	/**
+	 * Employee when found
+	 */
+	private EmployeeDTO employee;
+	/**
+	 * Error code when lookup failed
+	 */
+	private String error;
+
+	public static EmployeeBatchResultDTO found(String id, EmployeeDTO employee) {
+		return new EmployeeBatchResultDTO(id, Status.FOUND, employee, null);
+	}
+
+	public static EmployeeBatchResultDTO notFound(String id) {
+		return new EmployeeBatchResultDTO(id, Status.NOT_FOUND, null, null);
+	}
+
+	public static EmployeeBatchResultDTO error(String id, String error) {
+		return new EmployeeBatchResultDTO(id, Status.ERROR, null, error);
+	}
+}
@@ -0,0 +1,21 @@
+package com.reliaquest.employee.model;
+
+/**
+ * Properties of {@link EmployeeDTO}, in the order Jackson writes them
+ */
+public enum EmployeeField {
+	ID("id"), NAME("name"), SALARY("salary"), AGE("age"), PROFILE_IMAGE_URL("profileImageUrl");
+
+	private final String property;
+
+	EmployeeField(String property) {
+		this.property = property;
+	}
+
+	/**
+	 * @return JSON property name
+	 */
+	public String getProperty() {
+		return property;
+	}
+}
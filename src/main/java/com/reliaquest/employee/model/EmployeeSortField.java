@@ -0,0 +1,9 @@
+package com.reliaquest.employee.model;
+
+/**
+ * Orders the employee list can be paged in. Ties are broken by id, employees
+ * without the value come last in ascending order.
+ */
+public enum EmployeeSortField {
+	ID, NAME, SALARY, AGE;
+}
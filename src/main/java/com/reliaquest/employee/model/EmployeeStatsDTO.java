@@ -0,0 +1,65 @@
+package com.reliaquest.employee.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Salary and age statistics over all employees
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeStatsDTO {
+	/**
+	 * Number of employees
+	 */
+	private long headcount;
+	/**
+	 * Distribution of the known salaries
+	 */
+	private Distribution salary;
+	/**
+	 * Distribution of the known ages
+	 */
+	private Distribution age;
+	/**
+	 * Employees per configured salary band, ascending
+	 */
+	private List<Band> salaryBands;
+	/**
+	 * Employees per configured age bracket, ascending
+	 */
+	private List<Band> ageBrackets;
+
+	/**
+	 * Min, max and mean are exact, percentiles are read from a histogram within
+	 * 0.1% of the actual value. Every field but count is null when count is 0.
+	 */
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Distribution {
+		private long count;
+		private Integer min;
+		private Integer max;
+		private Double mean;
+		private Integer p50;
+		private Integer p90;
+		private Integer p99;
+	}
+
+	/**
+	 * Values from inclusive to exclusive, null for an open end
+	 */
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Band {
+		private Integer from;
+		private Integer to;
+		private long count;
+	}
+}
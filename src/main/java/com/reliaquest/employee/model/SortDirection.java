@@ -0,0 +1,5 @@
+package com.reliaquest.employee.model;
+
+public enum SortDirection {
+	ASC, DESC;
+}
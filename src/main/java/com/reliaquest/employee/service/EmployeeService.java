@@ -1,16 +1,32 @@
 package com.reliaquest.employee.service;
 
-import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.reliaquest.employee.accessor.EmployeeAccessor;
+import com.reliaquest.employee.accessor.AsyncEmployeeAccessor;
 import com.reliaquest.employee.accessor.pojo.EmployeeRequest;
+import com.reliaquest.employee.exception.EmployeeAccessorError;
+import com.reliaquest.employee.exception.EmployeeAccessorException;
 import com.reliaquest.employee.exception.EmployeeNotFoundException;
+import com.reliaquest.employee.exception.InvalidCursorException;
+import com.reliaquest.employee.model.EmployeeBatchRequestDTO;
+import com.reliaquest.employee.model.EmployeeBatchResultDTO;
 import com.reliaquest.employee.model.EmployeeDTO;
+import com.reliaquest.employee.model.EmployeeSortField;
+import com.reliaquest.employee.model.EmployeeStatsDTO;
+import com.reliaquest.employee.model.SortDirection;
+import com.reliaquest.employee.service.support.AsyncPermits;
+import com.reliaquest.employee.service.support.EmployeeCache;
+import com.reliaquest.employee.service.support.EmployeePage;
+import com.reliaquest.employee.service.support.EmployeeSnapshotCache;
+import com.reliaquest.employee.service.support.PageCursor;
 import com.reliaquest.employee.util.MapperUtil;
 
 import io.micrometer.common.lang.NonNull;
@@ -19,114 +35,281 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 @Slf4j
 public class EmployeeService {
-	private EmployeeAccessor employeeAccessor;
+	private AsyncEmployeeAccessor asyncEmployeeAccessor;
+	private EmployeeSnapshotCache employeeSnapshotCache;
+	private EmployeeCache employeeCache;
+	private int batchConcurrency;
+	private AsyncPermits batchPermits;
+	private int fuzzyMaxDistance;
+	private int fuzzyLimit;
 
-	public EmployeeService(EmployeeAccessor employeeAccessor) {
+	public EmployeeService(AsyncEmployeeAccessor asyncEmployeeAccessor, EmployeeSnapshotCache employeeSnapshotCache,
+			EmployeeCache employeeCache, @Value("${employee.service.batch.concurrency}") int batchConcurrency,
+			@Value("${employee.service.search.fuzzy.maxDistance}") int fuzzyMaxDistance,
+			@Value("${employee.service.search.fuzzy.limit}") int fuzzyLimit) {
 		super();
-		this.employeeAccessor = employeeAccessor;
+		this.asyncEmployeeAccessor = asyncEmployeeAccessor;
+		this.employeeSnapshotCache = employeeSnapshotCache;
+		this.employeeCache = employeeCache;
+		if (batchConcurrency <= 0)
+			throw new IllegalArgumentException("employee.service.batch.concurrency must be positive");
+		this.batchConcurrency = batchConcurrency;
+		this.batchPermits = new AsyncPermits(batchConcurrency);
+		this.fuzzyMaxDistance = fuzzyMaxDistance;
+		this.fuzzyLimit = fuzzyLimit;
 	}
 
-	public Optional<List<EmployeeDTO>> fetchAllEmployee() {
+	/**
+	 * Served from the employee snapshot, Look {@link EmployeeSnapshotCache}
+	 * 
+	 * @return
+	 */
+	public CompletableFuture<Optional<List<EmployeeDTO>>> fetchAllEmployee() {
 		log.info("Fetching all employee data initiated.");
-		try {
-			return employeeAccessor.fetchAllEmployee().map(employeeDataList -> {
-				log.info("Received {} employee data.", employeeDataList.size());
-
-				return employeeDataList.stream().map(MapperUtil::convertToDto).collect(Collectors.toList());
-			});
-		} catch (Exception e) {
-			log.info("Error while fetching all Employee Record", e);
-			throw e;
-		}
+		return employeeSnapshotCache.get().whenComplete((result, error) -> {
+			if (error != null)
+				log.info("Error while fetching all Employee Record", error);
+		});
 	}
 
 	/**
-	 * Filtering is done by name on list of all API as in PI list provided it
-	 * doesn't support search API. Ideally this will decrease the efficeny as we are
-	 * loading all employee and then searching. It should have an API implementation
-	 * to search
+	 * One page of the employee list from the employee snapshot. The snapshot keeps
+	 * a sort permutation per order so a page costs O(limit) wherever it starts.
+	 * Sort and direction of a following page come from its cursor.
+	 * 
+	 * @param sort      null for the order of the cursor, by id without one
+	 * @param direction null for the direction of the cursor, ascending without one
+	 * @param cursor    nextCursor of the previous page, null for the first page
+	 * @param limit     null for all remaining employees
+	 * @return
+	 * @throws InvalidCursorException when the cursor is malformed or was issued
+	 *                                for a different sort or direction
+	 */
+	public CompletableFuture<Optional<EmployeePage>> fetchEmployeePage(EmployeeSortField sort,
+			SortDirection direction, String cursor, Integer limit) {
+		log.info("Fetching employee page sorted by: {} {}, limit: {}", sort, direction, limit);
+		final PageCursor pageCursor = cursor == null ? null : PageCursor.decode(cursor);
+		if (pageCursor != null && ((sort != null && sort != pageCursor.sort())
+				|| (direction != null && (direction == SortDirection.DESC) != pageCursor.descending())))
+			throw new InvalidCursorException("Cursor was issued for a different sort");
+		return employeeSnapshotCache.getPage(sort == null ? EmployeeSortField.ID : sort,
+				direction == SortDirection.DESC, pageCursor, limit == null ? Integer.MAX_VALUE : limit)
+				.whenComplete((result, error) -> {
+					if (error != null)
+						log.info("Error while fetching employee page", error);
+				});
+	}
+
+	/**
+	 * Case sensitive name search, look
+	 * {@link #searchEmployee(String, boolean, boolean)}
 	 * 
 	 * @param searchString
 	 * @return
 	 */
-	public Optional<List<EmployeeDTO>> searchEmployee(@NonNull final String searchString) {
-		log.info("Filtering employee by name: {}", searchString);
-		try {
-			return fetchAllEmployee()
-					.map(employeeList -> employeeList.stream()
-							.filter(employee -> employee.getName() != null && employee.getName().contains(searchString))
-							.collect(Collectors.toList()))
-					.filter(filteredEmployees -> !filteredEmployees.isEmpty()).or(() -> {
-						log.info("No employee found with name containing: {}", searchString);
-						return Optional.empty();
-					});
-		} catch (Exception e) {
-			log.info("Error while searching Employee with name containg: {}", searchString, e);
-			throw e;
-		}
+	public CompletableFuture<Optional<List<EmployeeDTO>>> searchEmployee(@NonNull final String searchString) {
+		return searchEmployee(searchString, false, false);
 	}
 
-	public EmployeeDTO getEmployee(String id) {
-		log.info("Fetching employee data for ID: {}", id);
-		try {
-			return employeeAccessor.getEmployee(id).map(MapperUtil::convertToDto)
-					.orElseThrow(EmployeeNotFoundException::new);
-		} catch (Exception e) {
-			log.info("Error while fetching Employee Record with Id: {}", id, e);
-			throw e;
-		}
+	/**
+	 * The API has no search so names are matched against the employee snapshot.
+	 * The snapshot keeps a trigram index of the names so only candidate employees
+	 * are compared instead of the whole list.
+	 * 
+	 * @param searchString substring of the name
+	 * @param ignoreCase
+	 * @param normalize    ignore accents and compatibility forms
+	 * @return
+	 */
+	public CompletableFuture<Optional<List<EmployeeDTO>>> searchEmployee(@NonNull final String searchString,
+			boolean ignoreCase, boolean normalize) {
+		log.info("Filtering employee by name: {}, ignoreCase: {}, normalize: {}", searchString, ignoreCase,
+				normalize);
+		return employeeSnapshotCache.search(searchString, ignoreCase, normalize)
+				.thenApply(employees -> employees.filter(filteredEmployees -> !filteredEmployees.isEmpty()).or(() -> {
+					log.info("No employee found with name containing: {}", searchString);
+					return Optional.empty();
+				})).whenComplete((result, error) -> {
+					if (error != null)
+						log.info("Error while searching Employee with name containg: {}", searchString, error);
+				});
+	}
+
+	/**
+	 * Typo tolerant name search, every word of searchString may be up to
+	 * fuzzyMaxDistance edits away from a word of the name. Answered from the
+	 * name trie of the employee snapshot, at most fuzzyLimit employees closest
+	 * first.
+	 * 
+	 * @param searchString one or more words of the name, case and accents ignored
+	 * @return
+	 */
+	public CompletableFuture<Optional<List<EmployeeDTO>>> fuzzySearchEmployee(@NonNull final String searchString) {
+		log.info("Fuzzy filtering employee by name: {}", searchString);
+		return employeeSnapshotCache.fuzzySearch(searchString, fuzzyMaxDistance, fuzzyLimit)
+				.thenApply(employees -> employees.filter(filteredEmployees -> !filteredEmployees.isEmpty()).or(() -> {
+					log.info("No employee found with name close to: {}", searchString);
+					return Optional.empty();
+				})).whenComplete((result, error) -> {
+					if (error != null)
+						log.info("Error while fuzzy searching Employee with name: {}", searchString, error);
+				});
 	}
 
 	/**
-	 * Maxmum is calulated by loading list of employee. Considering the fact there
-	 * are no such API available
+	 * There is no such API available so the maximum is read from the salary index
+	 * of the employee snapshot
 	 * 
 	 * @return
 	 */
-	public Integer getHighestSalary() {
+	public CompletableFuture<Integer> getHighestSalary() {
 		log.info("Fetching Maximum Salary from the list of Employee.");
-		try {
-			return fetchAllEmployee()
-					.map(employees -> employees.stream().mapToInt(EmployeeDTO::getSalary).max().orElse(0)).orElse(0);
-		} catch (Exception e) {
-			log.info("Error while fetching highest Salary.", e);
-			throw e;
-		}
+		return employeeSnapshotCache.getHighestSalary().thenApply(salary -> salary.orElse(0))
+				.whenComplete((result, error) -> {
+					if (error != null)
+						log.info("Error while fetching highest Salary.", error);
+				});
 	}
 
-	public Optional<List<String>> getTop10HighestPaidEmployee(int limit) {
+	/**
+	 * Names of the limit employees earning the most, read from the salary index of
+	 * the employee snapshot without sorting
+	 * 
+	 * @param limit
+	 * @return
+	 */
+	public CompletableFuture<Optional<List<String>>> getTop10HighestPaidEmployee(int limit) {
 		log.info("Fetching top {} Employee having upmost salary", limit);
-		try {
-			return fetchAllEmployee().map(
-					employees -> employees.stream().sorted(Comparator.comparingInt(EmployeeDTO::getSalary).reversed())
-							.limit(limit).map(EmployeeDTO::getName).collect(Collectors.toList()));
-		} catch (Exception e) {
-			log.info("Error while fetching top {} employee with highest Salary.", limit, e);
-			throw e;
-		}
+		return employeeSnapshotCache.getTopEarnerNames(limit).whenComplete((result, error) -> {
+			if (error != null)
+				log.info("Error while fetching top {} employee with highest Salary.", limit, error);
+		});
 	}
 
-	public Optional<EmployeeDTO> create(@NonNull final EmployeeDTO employee) {
-		log.info("Request initaed for createing Employee");
-		try {
-			final EmployeeRequest request = MapperUtil.convertToRequest(employee);
-			return employeeAccessor.create(request).map(MapperUtil::convertToDto).map(Optional::of).orElseGet(() -> {
+	/**
+	 * Salary and age statistics kept with the employee snapshot, so a poll does not
+	 * walk the employee list
+	 * 
+	 * @return
+	 */
+	public CompletableFuture<Optional<EmployeeStatsDTO>> getStats() {
+		log.info("Fetching employee statistics.");
+		return employeeSnapshotCache.getStats().whenComplete((result, error) -> {
+			if (error != null)
+				log.info("Error while fetching employee statistics.", error);
+		});
+	}
+
+	/**
+	 * Completes exceptionally with {@link EmployeeNotFoundException} in case
+	 * employee is not found
+	 * 
+	 * @param id
+	 * @return
+	 */
+	public CompletableFuture<EmployeeDTO> getEmployeeAsync(String id) {
+		log.info("Fetching employee data asynchronously for ID: {}", id);
+		return loadEmployeeAsync(id).thenApply(employee -> employee.orElseThrow(EmployeeNotFoundException::new))
+				.whenComplete((result, error) -> {
+					if (error != null)
+						log.info("Error while fetching Employee Record with Id: {}", id, error);
+				});
+	}
+
+	public CompletableFuture<Optional<EmployeeDTO>> createAsync(@NonNull final EmployeeDTO employee) {
+		log.info("Request initaed for createing Employee asynchronously");
+		final EmployeeRequest request = MapperUtil.convertToRequest(employee);
+		return asyncEmployeeAccessor.create(request).thenApply(created -> {
+			if (created.isEmpty())
 				log.info("No employee created with request: {}", employee);
-				return Optional.empty();
-			});
-		} catch (Exception exception) {
-			log.error("Error while creating Employee", exception);
-			throw exception;
-		}
+			final Optional<EmployeeDTO> createdEmployee = created.map(MapperUtil::convertToDto);
+			createdEmployee.ifPresent(this::applyCreated);
+			return createdEmployee;
+		}).whenComplete((result, error) -> {
+			if (error != null)
+				log.error("Error while creating Employee", error);
+		});
+	}
+
+	public CompletableFuture<Void> deleteAsync(String id) {
+		log.info("Deleting employee data asynchronously for ID: {}", id);
+		return asyncEmployeeAccessor.delete(id).whenComplete((result, error) -> {
+			// invalidated on failure too as the delete might still have happened
+			employeeCache.invalidate(id);
+			if (error != null)
+				log.error("Error while deleting Employee", error);
+			else
+				employeeSnapshotCache.applyDeleted(id);
+		});
+	}
+
+	/**
+	 * Looks up every distinct id with at most batchConcurrency batch lookups in
+	 * flight to the 3rd party API across all batch requests, a new lookup is
+	 * started only when a previous one completes. Every id gets its own result so
+	 * one failing lookup does not fail the whole batch.
+	 * 
+	 * @param ids numeric ids, Look {@link EmployeeBatchRequestDTO}
+	 * @return results in the order ids were first requested
+	 */
+	public CompletableFuture<List<EmployeeBatchResultDTO>> getEmployees(@NonNull final List<String> ids) {
+		final List<String> distinctIds = ids.stream().filter(Objects::nonNull).map(String::trim)
+				.filter(id -> !id.isEmpty()).distinct().collect(Collectors.toList());
+		log.info("Fetching {} employee in batch with concurrency: {}", distinctIds.size(), batchConcurrency);
+		final List<CompletableFuture<EmployeeBatchResultDTO>> results = distinctIds.stream()
+				.map(id -> batchPermits.acquire()
+						.thenCompose(permit -> lookup(id).whenComplete((result, error) -> batchPermits.release())))
+				.collect(Collectors.toList());
+		return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+				.thenApply(done -> results.stream().map(CompletableFuture::join).collect(Collectors.toList()));
 	}
 
-	public void delete(String id) {
-		log.info("Deleting employee data for ID: {}", id);
+	private CompletableFuture<EmployeeBatchResultDTO> lookup(String id) {
+		CompletableFuture<Optional<EmployeeDTO>> employee;
 		try {
-			employeeAccessor.delete(id);
-		} catch (Exception e) {
-			log.error("Error while deleting Employee", e);
-			throw e;
+			employee = loadEmployeeAsync(id);
+		} catch (RuntimeException e) {
+			employee = CompletableFuture.failedFuture(e);
 		}
+		return employee.handle((result, error) -> {
+			if (error == null)
+				return result.map(dto -> EmployeeBatchResultDTO.found(id, dto))
+						.orElseGet(() -> EmployeeBatchResultDTO.notFound(id));
+			final Throwable cause = error instanceof CompletionException && error.getCause() != null
+					? error.getCause()
+					: error;
+			log.info("Error while fetching Employee Record with Id: {} in batch", id, cause);
+			if (cause instanceof EmployeeAccessorException accessorException && accessorException.getError() != null)
+				return EmployeeBatchResultDTO.error(id, accessorException.getError().name());
+			return EmployeeBatchResultDTO.error(id, "EMPLOYEE_SERVICE_API_ERROR");
+		});
+	}
+
+	/**
+	 * Per-id lookup through {@link EmployeeCache}, shared by single and batch
+	 * lookups. A 404 from the API is loaded as not found, so it is cached for the
+	 * negative TTL instead of failing every lookup of the id upstream again.
+	 */
+	private CompletableFuture<Optional<EmployeeDTO>> loadEmployeeAsync(String id) {
+		return employeeCache.getAsync(id, key -> asyncEmployeeAccessor.getEmployee(key)
+				.thenApply(employee -> employee.map(MapperUtil::convertToDto))
+				.exceptionallyCompose(error -> isNotFound(error) ? CompletableFuture.completedFuture(Optional.empty())
+						: CompletableFuture.failedFuture(error)));
+	}
+
+	private static boolean isNotFound(Throwable error) {
+		final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause()
+				: error;
+		return cause instanceof EmployeeAccessorException accessorException
+				&& accessorException.getError() == EmployeeAccessorError.API_RESOURCE_NOT_FOUND;
+	}
+
+	/**
+	 * Drops a cached not found for the id of a newly created employee and adds it
+	 * to the snapshot
+	 */
+	private void applyCreated(EmployeeDTO employee) {
+		employeeCache.invalidate(String.valueOf(employee.getId()));
+		employeeSnapshotCache.applyCreated(employee);
 	}
 }
@@ -0,0 +1,75 @@
+package com.reliaquest.employee.service.support;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non blocking semaphore. A caller waiting for a permit holds no thread, it
+ * gets a future which completes once a permit is released to it, in the order
+ * permits were asked for.
+ * <p>
+ * A release hands the permit to the next waiter on the releasing thread. When
+ * that waiter's work completes at once and releases again, the nested release
+ * leaves the hand over to the loop already running on the thread, so a long
+ * chain of cache hits does not grow the stack.
+ */
+public class AsyncPermits {
+	private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+	private final ThreadLocal<Boolean> draining = ThreadLocal.withInitial(() -> Boolean.FALSE);
+	private int available;
+
+	public AsyncPermits(int permits) {
+		if (permits <= 0)
+			throw new IllegalArgumentException("Permits must be positive");
+		this.available = permits;
+	}
+
+	/**
+	 * @return future completing once a permit is held, cancelling it before then
+	 *         gives up the place in the queue
+	 */
+	public CompletableFuture<Void> acquire() {
+		synchronized (this) {
+			if (available > 0 && waiters.isEmpty()) {
+				available--;
+				return CompletableFuture.completedFuture(null);
+			}
+			final CompletableFuture<Void> waiter = new CompletableFuture<>();
+			waiters.add(waiter);
+			return waiter;
+		}
+	}
+
+	public void release() {
+		synchronized (this) {
+			available++;
+		}
+		drain();
+	}
+
+	private void drain() {
+		if (draining.get())
+			return;
+		draining.set(Boolean.TRUE);
+		try {
+			while (true) {
+				final CompletableFuture<Void> next;
+				synchronized (this) {
+					if (available == 0 || waiters.isEmpty())
+						return;
+					available--;
+					next = waiters.poll();
+				}
+				// a cancelled waiter does not take the permit
+				if (!next.complete(null)) {
+					synchronized (this) {
+						available++;
+					}
+				}
+			}
+		} finally {
+			draining.set(Boolean.FALSE);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.reliaquest.employee.service.support;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.reliaquest.employee.model.EmployeeDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded per-id employee cache. Caffeine admits and evicts with W-TinyLFU so a
+ * burst of one-off ids cannot push out the frequently requested ones.
+ * <p>
+ * Not found is cached too (as empty) with a shorter TTL so repeated lookups of
+ * an id which does not exist do not go upstream every time. Concurrent loads of
+ * the same id share one call and failures are never cached.
+ */
+@Component
+@Slf4j
+public class EmployeeCache {
+	private static final String CACHE_NAME = "employee.byId";
+
+	private final AsyncCache<String, Optional<EmployeeDTO>> cache;
+	private final Counter negativeHits;
+
+	public EmployeeCache(@Value("${employee.service.cache.maxSize}") long maxSize,
+			@Value("${employee.service.cache.ttl}") long ttl,
+			@Value("${employee.service.cache.negativeTtl}") long negativeTtl, MeterRegistry meterRegistry) {
+		// loads run on the calling thread, async loaders bring their own future and
+		// a failed load is removed before its caller sees the failure
+		this.cache = Caffeine.newBuilder().maximumSize(maxSize)
+				.expireAfter(new FoundOrNotFoundExpiry(Duration.ofMillis(ttl), Duration.ofMillis(negativeTtl)))
+				.executor(Runnable::run).recordStats().buildAsync();
+		this.negativeHits = Counter.builder("employee.cache.negative.hits")
+				.description("Lookups answered not found from the cache").register(meterRegistry);
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+	}
+
+	/**
+	 * @param id
+	 * @param loader called on a miss, its future is shared by every concurrent
+	 *               caller of the id
+	 * @return cached or loaded employee, empty when not found
+	 */
+	public CompletableFuture<Optional<EmployeeDTO>> getAsync(String id,
+			Function<String, CompletableFuture<Optional<EmployeeDTO>>> loader) {
+		final AtomicBoolean loaded = new AtomicBoolean();
+		return cache.get(id, (key, executor) -> {
+			loaded.set(true);
+			return loader.apply(key);
+		}).thenApply(employee -> {
+			recordNegativeHit(employee, loaded.get());
+			return employee;
+		});
+	}
+
+	public void invalidate(String id) {
+		log.info("Invalidating cached employee: {}", id);
+		cache.synchronous().invalidate(id);
+	}
+
+	private void recordNegativeHit(Optional<EmployeeDTO> employee, boolean loaded) {
+		if (employee.isEmpty() && !loaded)
+			negativeHits.increment();
+	}
+
+	/**
+	 * Found employees live for ttl, not found for negativeTtl. A reload replaces
+	 * the entry so its TTL is picked the same way.
+	 */
+	private record FoundOrNotFoundExpiry(Duration ttl, Duration negativeTtl)
+			implements Expiry<String, Optional<EmployeeDTO>> {
+		@Override
+		public long expireAfterCreate(String key, Optional<EmployeeDTO> value, long currentTime) {
+			return (value.isPresent() ? ttl : negativeTtl).toNanos();
+		}
+
+		@Override
+		public long expireAfterUpdate(String key, Optional<EmployeeDTO> value, long currentTime,
+				long currentDuration) {
+			return expireAfterCreate(key, value, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(String key, Optional<EmployeeDTO> value, long currentTime,
+				long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
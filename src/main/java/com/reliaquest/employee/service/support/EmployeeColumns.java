@@ -0,0 +1,323 @@
+package com.reliaquest.employee.service.support;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.springframework.util.function.SingletonSupplier;
+
+import com.reliaquest.employee.accessor.pojo.EmployeeData;
+import com.reliaquest.employee.model.EmployeeDTO;
+import com.reliaquest.employee.model.EmployeeField;
+import com.reliaquest.employee.util.MapperUtil;
+
+/**
+ * Column oriented, immutable copy of the employee list: ids, salaries and ages
+ * in primitive arrays (with a bit set marking nulls), names and profile image
+ * urls dictionary encoded. Aggregates and filters walk the arrays, an
+ * {@link EmployeeDTO} is only built for a row actually returned.
+ * <p>
+ * {@link #asList()} is a list view building the DTO of a row on each access so
+ * the whole list can still be returned without keeping a DTO per employee. The
+ * views are {@link EmployeeRowView}s, a caller writing only some properties
+ * does not read the others.
+ * <p>
+ * {@link #rowOf(int)} is a binary search over the ids sorted once, on first
+ * use.
+ */
+public class EmployeeColumns {
+	private static final Set<EmployeeField> ALL_FIELDS = EnumSet.allOf(EmployeeField.class);
+
+	private final int size;
+	private final int[] ids;
+	private final int[] salaries;
+	private final BitSet salaryNulls;
+	private final int[] ages;
+	private final BitSet ageNulls;
+	private final Dictionary names;
+	private final Dictionary profileImageUrls;
+	private final List<EmployeeDTO> view = new RowView(null);
+	/**
+	 * Id in the high half and row in the low half, ascending
+	 */
+	private final Supplier<long[]> rowsById = SingletonSupplier.of(this::sortById);
+
+	private EmployeeColumns(Builder builder) {
+		this.size = builder.size;
+		this.ids = Arrays.copyOf(builder.ids, size);
+		this.salaries = Arrays.copyOf(builder.salaries, size);
+		this.salaryNulls = (BitSet) builder.salaryNulls.clone();
+		this.ages = Arrays.copyOf(builder.ages, size);
+		this.ageNulls = (BitSet) builder.ageNulls.clone();
+		this.names = builder.names.build(size);
+		this.profileImageUrls = builder.profileImageUrls.build(size);
+	}
+
+	public static EmployeeColumns of(List<EmployeeDTO> employees) {
+		final Builder builder = new Builder(employees.size());
+		employees.forEach(builder::add);
+		return builder.build();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int id(int row) {
+		return ids[row];
+	}
+
+	public boolean hasSalary(int row) {
+		return !salaryNulls.get(row);
+	}
+
+	/**
+	 * @return salary of the row, 0 when it has none
+	 */
+	public int salary(int row) {
+		return salaries[row];
+	}
+
+	public boolean hasAge(int row) {
+		return !ageNulls.get(row);
+	}
+
+	/**
+	 * @return age of the row, 0 when it has none
+	 */
+	public int age(int row) {
+		return ages[row];
+	}
+
+	public String name(int row) {
+		return names.get(row);
+	}
+
+	public String profileImageUrl(int row) {
+		return profileImageUrls.get(row);
+	}
+
+	/**
+	 * @return row of the employee, -1 when there is none
+	 */
+	public int rowOf(int id) {
+		final long[] sorted = rowsById.get();
+		final int found = Arrays.binarySearch(sorted, (long) id << 32);
+		// found only for row 0, otherwise the insertion point is the id's first row
+		final int position = found >= 0 ? found : -found - 1;
+		return position < sorted.length && (int) (sorted[position] >> 32) == id ? (int) sorted[position] : -1;
+	}
+
+	public EmployeeDTO toDto(int row) {
+		return toDto(row, ALL_FIELDS);
+	}
+
+	/**
+	 * @param fields properties to read, the others are left unset
+	 */
+	public EmployeeDTO toDto(int row, Set<EmployeeField> fields) {
+		final EmployeeDTO employee = new EmployeeDTO();
+		if (fields.contains(EmployeeField.ID))
+			employee.setId(ids[row]);
+		if (fields.contains(EmployeeField.NAME))
+			employee.setName(names.get(row));
+		if (fields.contains(EmployeeField.SALARY))
+			employee.setSalary(salaryNulls.get(row) ? null : salaries[row]);
+		if (fields.contains(EmployeeField.AGE))
+			employee.setAge(ageNulls.get(row) ? null : ages[row]);
+		if (fields.contains(EmployeeField.PROFILE_IMAGE_URL))
+			employee.setProfileImageUrl(profileImageUrls.get(row));
+		return employee;
+	}
+
+	/**
+	 * @param rows
+	 * @return read only view of the given rows, in that order, building the DTO
+	 *         of a row on each access like {@link #asList()}
+	 */
+	public List<EmployeeDTO> toDtos(int[] rows) {
+		return new RowView(rows);
+	}
+
+	/**
+	 * @return read only view of every row, the same instance on each call
+	 */
+	public List<EmployeeDTO> asList() {
+		return view;
+	}
+
+	/**
+	 * @return read only view of the names, null for a row without one
+	 */
+	public List<String> names() {
+		return new AbstractList<>() {
+			@Override
+			public String get(int row) {
+				return names.get(Objects.checkIndex(row, size));
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	/**
+	 * Copies every row, meant for the few employees created locally, Look
+	 * {@link IndexedEmployees}
+	 *
+	 * @return copy with the employee appended as the last row
+	 */
+	public EmployeeColumns with(EmployeeDTO employee) {
+		final Builder builder = new Builder(size + 1);
+		for (int row = 0; row < size; row++) {
+			builder.add(this, row);
+		}
+		return builder.add(employee).build();
+	}
+
+	private long[] sortById() {
+		final long[] sorted = new long[size];
+		for (int row = 0; row < size; row++) {
+			sorted[row] = ((long) ids[row] << 32) | row;
+		}
+		Arrays.sort(sorted);
+		return sorted;
+	}
+
+	public static class Builder {
+		private int size;
+		private int[] ids;
+		private int[] salaries;
+		private final BitSet salaryNulls = new BitSet();
+		private int[] ages;
+		private final BitSet ageNulls = new BitSet();
+		private final DictionaryBuilder names;
+		private final DictionaryBuilder profileImageUrls;
+
+		public Builder(int expectedSize) {
+			final int capacity = Math.max(expectedSize, 8);
+			this.ids = new int[capacity];
+			this.salaries = new int[capacity];
+			this.ages = new int[capacity];
+			this.names = new DictionaryBuilder(capacity);
+			this.profileImageUrls = new DictionaryBuilder(capacity);
+		}
+
+		public Builder add(EmployeeDTO employee) {
+			return add(employee.getId(), employee.getName(), employee.getSalary(), employee.getAge(),
+					employee.getProfileImageUrl());
+		}
+
+		/**
+		 * Same values as {@link MapperUtil#convertToDto(EmployeeData)} without
+		 * building the DTO
+		 */
+		public Builder add(EmployeeData employee) {
+			final String profileImage = employee.getProfileImage();
+			return add(employee.getId(), employee.getName(), employee.getSalary(), employee.getAge(),
+					profileImage == null || profileImage.isEmpty() ? null : profileImage);
+		}
+
+		public Builder add(int id, String name, Integer salary, Integer age, String profileImageUrl) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+				salaries = Arrays.copyOf(salaries, size * 2);
+				ages = Arrays.copyOf(ages, size * 2);
+			}
+			ids[size] = id;
+			salaries[size] = salary == null ? 0 : salary;
+			salaryNulls.set(size, salary == null);
+			ages[size] = age == null ? 0 : age;
+			ageNulls.set(size, age == null);
+			names.add(name);
+			profileImageUrls.add(profileImageUrl);
+			size++;
+			return this;
+		}
+
+		private Builder add(EmployeeColumns columns, int row) {
+			return add(columns.ids[row], columns.names.get(row),
+					columns.salaryNulls.get(row) ? null : columns.salaries[row],
+					columns.ageNulls.get(row) ? null : columns.ages[row], columns.profileImageUrls.get(row));
+		}
+
+		public EmployeeColumns build() {
+			return new EmployeeColumns(this);
+		}
+	}
+
+	/**
+	 * Distinct values plus one code per row, -1 for null
+	 */
+	private record Dictionary(String[] values, int[] codes) {
+		private String get(int row) {
+			final int code = codes[row];
+			return code < 0 ? null : values[code];
+		}
+	}
+
+	private static class DictionaryBuilder {
+		private final Map<String, Integer> codesByValue = new HashMap<>();
+		private final List<String> values = new ArrayList<>();
+		private int[] codes;
+		private int size;
+
+		private DictionaryBuilder(int capacity) {
+			this.codes = new int[capacity];
+		}
+
+		private void add(String value) {
+			if (size == codes.length)
+				codes = Arrays.copyOf(codes, size * 2);
+			codes[size++] = value == null ? -1 : codesByValue.computeIfAbsent(value, key -> {
+				values.add(key);
+				return values.size() - 1;
+			});
+		}
+
+		private Dictionary build(int rows) {
+			return new Dictionary(values.toArray(String[]::new), Arrays.copyOf(codes, rows));
+		}
+	}
+
+	/**
+	 * Every row, or the given rows when not null
+	 */
+	private class RowView extends AbstractList<EmployeeDTO> implements EmployeeRowView, RandomAccess {
+		private final int[] rows;
+
+		private RowView(int[] rows) {
+			this.rows = rows;
+		}
+
+		@Override
+		public EmployeeDTO get(int index) {
+			return toDto(row(index));
+		}
+
+		@Override
+		public EmployeeDTO get(int index, Set<EmployeeField> fields) {
+			return toDto(row(index), fields);
+		}
+
+		@Override
+		public int size() {
+			return rows == null ? size : rows.length;
+		}
+
+		private int row(int index) {
+			return rows == null ? Objects.checkIndex(index, size) : rows[Objects.checkIndex(index, rows.length)];
+		}
+	}
+}
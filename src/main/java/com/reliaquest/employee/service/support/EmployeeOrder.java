@@ -0,0 +1,185 @@
+package com.reliaquest.employee.service.support;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import com.reliaquest.employee.model.EmployeeSortField;
+
+/**
+ * Rows of {@link EmployeeColumns} sorted by one field, ascending with ties
+ * broken by id and rows without the value last. Descending is the same
+ * permutation read backwards, so a page in either direction is a slice and
+ * costs O(page size).
+ * <p>
+ * Because ids break every tie the order is total, a page can continue after
+ * the last employee of the previous one in a later snapshot by binary search,
+ * Look {@link #after(Object, int, boolean)}.
+ * <p>
+ * Sorting packs the value in the high half of a long and the id rank in the low
+ * half, names are replaced by the rank of the distinct name first.
+ */
+public class EmployeeOrder {
+	/**
+	 * Case insensitive, case only decides between otherwise equal names
+	 */
+	static final Comparator<String> NAME_ORDER = Comparator.comparing((String name) -> name.toLowerCase(Locale.ROOT))
+			.thenComparing(Comparator.naturalOrder());
+
+	private final EmployeeColumns columns;
+	private final EmployeeSortField field;
+	private final int[] rows;
+
+	private EmployeeOrder(EmployeeColumns columns, EmployeeSortField field, int[] rows) {
+		this.columns = columns;
+		this.field = field;
+		this.rows = rows;
+	}
+
+	public static EmployeeOrder of(EmployeeColumns columns, EmployeeSortField field) {
+		final int size = columns.size();
+		final long[] byId = new long[size];
+		for (int row = 0; row < size; row++) {
+			byId[row] = ((long) columns.id(row) << 32) | row;
+		}
+		Arrays.sort(byId);
+		final int[] idOrder = new int[size];
+		for (int rank = 0; rank < size; rank++) {
+			idOrder[rank] = (int) byId[rank];
+		}
+		if (field == EmployeeSortField.ID)
+			return new EmployeeOrder(columns, field, idOrder);
+
+		final int[] nameRanks = field == EmployeeSortField.NAME ? nameRanks(columns) : null;
+		final long[] keys = new long[size];
+		int count = 0;
+		for (int rank = 0; rank < size; rank++) {
+			final int row = idOrder[rank];
+			if (field == EmployeeSortField.NAME && nameRanks[row] >= 0)
+				keys[count++] = ((long) nameRanks[row] << 32) | rank;
+			else if (field == EmployeeSortField.SALARY && columns.hasSalary(row))
+				keys[count++] = ((long) columns.salary(row) << 32) | rank;
+			else if (field == EmployeeSortField.AGE && columns.hasAge(row))
+				keys[count++] = ((long) columns.age(row) << 32) | rank;
+		}
+		Arrays.sort(keys, 0, count);
+		final int[] rows = new int[size];
+		for (int i = 0; i < count; i++) {
+			rows[i] = idOrder[(int) keys[i]];
+		}
+		for (int rank = 0; rank < size && count < size; rank++) {
+			if (key(columns, field, idOrder[rank]) == null)
+				rows[count++] = idOrder[rank];
+		}
+		return new EmployeeOrder(columns, field, rows);
+	}
+
+	public int size() {
+		return rows.length;
+	}
+
+	/**
+	 * @param from       position in the requested direction
+	 * @param limit
+	 * @param descending
+	 * @return rows at positions from to from + limit, fewer at the end
+	 */
+	public int[] rows(int from, int limit, boolean descending) {
+		final int start = Math.min(Math.max(from, 0), rows.length);
+		final int count = (int) Math.min((long) Math.max(limit, 0), rows.length - start);
+		final int[] page = new int[count];
+		for (int i = 0; i < count; i++) {
+			page[i] = row(start + i, descending);
+		}
+		return page;
+	}
+
+	/**
+	 * @param position position in the requested direction, below {@link #size()}
+	 */
+	int row(int position, boolean descending) {
+		return descending ? rows[rows.length - 1 - position] : rows[position];
+	}
+
+	/**
+	 * @return sort value of the row, null when it has none or the order is by id
+	 */
+	public Object key(int row) {
+		return field == EmployeeSortField.ID ? null : key(columns, field, row);
+	}
+
+	/**
+	 * Binary search for the position following an employee, which does not have
+	 * to be in this snapshot anymore
+	 *
+	 * @param key        its sort value, Look {@link #key(int)}
+	 * @param id         its id
+	 * @param descending
+	 * @return position in the requested direction of the first row after it
+	 */
+	public int after(Object key, int id, boolean descending) {
+		int low = 0;
+		int high = rows.length;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			final int compared = compare(rows[middle], key, id);
+			if (compared < 0 || (!descending && compared == 0))
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		// ascending: first row above the employee, descending: rows from low on are
+		// not below it and come first
+		return descending ? rows.length - low : low;
+	}
+
+	/**
+	 * @param key sort value of the other employee, Look {@link #key(int)}
+	 * @param id  its id
+	 * @return order of the row relative to that employee, ascending
+	 */
+	int compare(int row, Object key, int id) {
+		final int compared = switch (field) {
+		case ID -> 0;
+		case NAME -> Comparator.nullsLast(NAME_ORDER).compare(columns.name(row), (String) key);
+		case SALARY, AGE -> Comparator.nullsLast(Comparator.<Integer>naturalOrder())
+				.compare((Integer) key(columns, field, row), (Integer) key);
+		};
+		return compared != 0 ? compared : Integer.compare(columns.id(row), id);
+	}
+
+	private static Object key(EmployeeColumns columns, EmployeeSortField field, int row) {
+		return switch (field) {
+		case ID -> columns.id(row);
+		case NAME -> columns.name(row);
+		case SALARY -> columns.hasSalary(row) ? columns.salary(row) : null;
+		case AGE -> columns.hasAge(row) ? columns.age(row) : null;
+		};
+	}
+
+	/**
+	 * @return rank of each row's name among the distinct names, -1 for none
+	 */
+	private static int[] nameRanks(EmployeeColumns columns) {
+		// lower cased once per name instead of on every comparison
+		final FoldedName[] distinct = columns.names().stream().filter(Objects::nonNull).distinct()
+				.map(name -> new FoldedName(name.toLowerCase(Locale.ROOT), name)).toArray(FoldedName[]::new);
+		Arrays.sort(distinct, Comparator.comparing(FoldedName::folded).thenComparing(FoldedName::name));
+		final Map<String, Integer> ranks = new HashMap<>(distinct.length * 2);
+		for (int rank = 0; rank < distinct.length; rank++) {
+			ranks.put(distinct[rank].name(), rank);
+		}
+		final int[] result = new int[columns.size()];
+		for (int row = 0; row < columns.size(); row++) {
+			final String name = columns.name(row);
+			result[row] = name == null ? -1 : ranks.get(name);
+		}
+		return result;
+	}
+
+	private record FoldedName(String folded, String name) {
+	}
+}
@@ -0,0 +1,12 @@
+package com.reliaquest.employee.service.support;
+
+import java.util.List;
+
+import com.reliaquest.employee.model.EmployeeDTO;
+
+/**
+ * @param employees  employees of the page
+ * @param nextCursor cursor of the following page, null on the last page
+ */
+public record EmployeePage(List<EmployeeDTO> employees, String nextCursor) {
+}
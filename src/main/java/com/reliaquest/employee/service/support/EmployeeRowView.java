@@ -0,0 +1,20 @@
+package com.reliaquest.employee.service.support;
+
+import java.util.List;
+import java.util.Set;
+
+import com.reliaquest.employee.model.EmployeeDTO;
+import com.reliaquest.employee.model.EmployeeField;
+
+/**
+ * Employees read from {@link EmployeeColumns}, building the DTO of a row on
+ * each access
+ */
+public interface EmployeeRowView extends List<EmployeeDTO> {
+
+	/**
+	 * @param fields properties read from the columns, the others are left unset
+	 * @return employee at index with only those properties
+	 */
+	EmployeeDTO get(int index, Set<EmployeeField> fields);
+}
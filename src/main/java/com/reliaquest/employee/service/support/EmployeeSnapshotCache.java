@@ -0,0 +1,510 @@
+package com.reliaquest.employee.service.support;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.reliaquest.employee.accessor.AsyncEmployeeAccessor;
+import com.reliaquest.employee.accessor.EmployeeAccessor;
+import com.reliaquest.employee.exception.EmployeeAccessorException;
+import com.reliaquest.employee.model.EmployeeDTO;
+import com.reliaquest.employee.model.EmployeeSortField;
+import com.reliaquest.employee.model.EmployeeStatsDTO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-process snapshot of the whole employee list so the list based operations
+ * do not make an upstream round trip per request.
+ * <ul>
+ * <li>Up to ttl old the snapshot is served as is.</li>
+ * <li>Past ttl and up to ttl + maxStale it is still served while a refresh runs
+ * in the background (stale-while-revalidate).</li>
+ * <li>Older than that, or when there is no snapshot yet, the caller loads it
+ * and sees any upstream failure.</li>
+ * </ul>
+ * Reads return a future, already completed unless the caller has to load the
+ * snapshot. That load goes through {@link AsyncEmployeeAccessor} so no request
+ * thread waits for the list, background refreshes run on the refresh thread
+ * through the blocking {@link EmployeeAccessor}.
+ * <p>
+ * Once the first snapshot is loaded it is refreshed every refreshInterval,
+ * which should be shorter than ttl so callers normally never find it expired. A
+ * failed refresh keeps the last good snapshot.
+ * <p>
+ * Every refreshed snapshot is also written to a local {@link SnapshotFile}
+ * (when a path is configured) on the refresh thread, never on a request thread.
+ * A refresh that found the same employees only updates the time of the file. On startup that file seeds the cache so reads
+ * are served right away while the first refresh runs in the background, a file
+ * older than ttl + maxStale is ignored.
+ * <p>
+ * A snapshot keeps the employees as {@link EmployeeColumns}, the DTOs are only
+ * built for the rows a caller reads. Each snapshot carries a
+ * {@link TrigramIndex} and a {@link FuzzyNameIndex} over the employee names, a
+ * {@link SalaryIndex} and {@link EmployeeStats}, all built with the snapshot so
+ * searches, salary queries and statistics do not scan the list. Employees
+ * created or deleted through this service are applied to the current snapshot
+ * right away, beside its indexes instead of rebuilding them, Look
+ * {@link IndexedEmployees}. The next refresh replaces those local changes with
+ * the API data, except the ones made while it was fetching which the API data
+ * may not have yet: they are applied again on top of it.
+ * <p>
+ * Every snapshot with different content gets a new version, page cursors carry
+ * it so a page read from the same snapshot continues at its position. Sort
+ * orders for paging are built the first time a snapshot is paged in that
+ * order.
+ */
+@Component
+@Slf4j
+public class EmployeeSnapshotCache {
+	private final EmployeeAccessor employeeAccessor;
+	private final AsyncEmployeeAccessor asyncEmployeeAccessor;
+	private final Duration ttl;
+	private final Duration maxStale;
+	private final Duration refreshInterval;
+	private final Clock clock;
+	private final SnapshotFile snapshotFile;
+	private final EmployeeStats.Bands bands;
+
+	private final AtomicReference<EmployeeSnapshot> current = new AtomicReference<>();
+	/**
+	 * Random start so cursors of another instance or an earlier run do not match
+	 * a version by chance
+	 */
+	private final AtomicLong versions = new AtomicLong(ThreadLocalRandom.current().nextLong());
+	/**
+	 * Sequence of the local changes, a refresh keeps the ones numbered after the
+	 * sequence it started at
+	 */
+	private final AtomicLong changes = new AtomicLong();
+	private final AtomicBoolean refreshing = new AtomicBoolean();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final ScheduledExecutorService scheduler;
+	private final MeterRegistry meterRegistry;
+	/**
+	 * Version of the snapshot last written to the file, null when none was. Only
+	 * used on the refresh thread.
+	 */
+	private Long persistedVersion;
+
+	@Autowired
+	public EmployeeSnapshotCache(EmployeeAccessor employeeAccessor, AsyncEmployeeAccessor asyncEmployeeAccessor,
+			@Value("${employee.service.snapshot.ttl}") long ttl,
+			@Value("${employee.service.snapshot.maxStale}") long maxStale,
+			@Value("${employee.service.snapshot.refreshInterval}") long refreshInterval,
+			@Value("${employee.service.snapshot.path}") String path,
+			@Value("${employee.service.baseurl}") String baseUrl,
+			@Value("${employee.service.stats.salaryBands}") int[] salaryBands,
+			@Value("${employee.service.stats.ageBrackets}") int[] ageBrackets, MeterRegistry meterRegistry) {
+		this(employeeAccessor, asyncEmployeeAccessor, Duration.ofMillis(ttl), Duration.ofMillis(maxStale),
+				Duration.ofMillis(refreshInterval),
+				StringUtils.hasText(path) ? new SnapshotFile(Path.of(path), baseUrl) : null,
+				new EmployeeStats.Bands(salaryBands, ageBrackets), meterRegistry, Clock.systemUTC());
+	}
+
+	/**
+	 * @param snapshotFile null to keep the snapshot in memory only
+	 * @param bands        salary bands and age brackets counted in the statistics
+	 */
+	public EmployeeSnapshotCache(EmployeeAccessor employeeAccessor, AsyncEmployeeAccessor asyncEmployeeAccessor,
+			Duration ttl, Duration maxStale, Duration refreshInterval, SnapshotFile snapshotFile,
+			EmployeeStats.Bands bands, MeterRegistry meterRegistry, Clock clock) {
+		this.employeeAccessor = employeeAccessor;
+		this.asyncEmployeeAccessor = asyncEmployeeAccessor;
+		this.bands = bands;
+		this.ttl = ttl;
+		this.maxStale = maxStale;
+		this.refreshInterval = refreshInterval;
+		this.snapshotFile = snapshotFile;
+		this.clock = clock;
+		this.meterRegistry = meterRegistry;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "employee-snapshot-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		TimeGauge.builder("employee.snapshot.age", this,
+				TimeUnit.MILLISECONDS, cache -> cache.getAge().map(Duration::toMillis).orElse(0L))
+				.description("Age of the employee snapshot being served").register(meterRegistry);
+	}
+
+	/**
+	 * Seeds the cache from the snapshot file and revalidates it in the background
+	 */
+	@PostConstruct
+	public void warmStart() {
+		if (snapshotFile == null)
+			return;
+		snapshotFile.read().ifPresent(stored -> {
+			final Duration age = Duration.between(stored.fetchedAt(), clock.instant());
+			if (age.compareTo(ttl.plus(maxStale)) > 0) {
+				log.warn("Employee snapshot file {} is {} old, too stale to serve.", snapshotFile.getPath(), age);
+				meterRegistry.counter("employee.snapshot.file", "event", "stale").increment();
+				return;
+			}
+			log.info("Employee snapshot loaded from {}, {} old.", snapshotFile.getPath(), age);
+			meterRegistry.counter("employee.snapshot.file", "event", "loaded").increment();
+			current.compareAndSet(null, EmployeeSnapshot.indexed(null, stored.employees(), bands,
+					versions.incrementAndGet(), changes.get(), stored.fetchedAt()));
+			refreshInBackground();
+		});
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		scheduler.shutdownNow();
+	}
+
+	/**
+	 * @return employee list of the current snapshot, empty when the API returned
+	 *         no data. Completes exceptionally with
+	 *         {@link EmployeeAccessorException} when there is no usable snapshot
+	 *         and the upstream call failed.
+	 */
+	public CompletableFuture<Optional<List<EmployeeDTO>>> get() {
+		return snapshot().thenApply(snapshot -> snapshot.employees().map(IndexedEmployees::asList));
+	}
+
+	/**
+	 * Name search over the current snapshot, same freshness as {@link #get()}
+	 *
+	 * @param query      substring of the name
+	 * @param ignoreCase
+	 * @param normalize  ignore accents and compatibility forms
+	 * @return matching employees, empty when the API returned no data
+	 */
+	public CompletableFuture<Optional<List<EmployeeDTO>>> search(String query, boolean ignoreCase,
+			boolean normalize) {
+		return snapshot().thenApply(snapshot -> snapshot.employees()
+				.map(employees -> employees.search(query, ignoreCase, normalize)));
+	}
+
+	/**
+	 * Typo tolerant name search over the current snapshot, same freshness as
+	 * {@link #get()}
+	 *
+	 * @param query       one or more words of the name, case and accents ignored
+	 * @param maxDistance edits allowed per word
+	 * @param limit       maximum number of employees returned
+	 * @return matching employees, closest first, empty when the API returned no
+	 *         data
+	 */
+	public CompletableFuture<Optional<List<EmployeeDTO>>> fuzzySearch(String query, int maxDistance, int limit) {
+		return snapshot().thenApply(snapshot -> snapshot.employees()
+				.map(employees -> employees.fuzzySearch(query, maxDistance, limit)));
+	}
+
+	/**
+	 * One page of the employee list, same freshness as {@link #get()}
+	 *
+	 * @param sort       order to page in, ignored when a cursor is given
+	 * @param descending ignored when a cursor is given
+	 * @param cursor     where the page starts, null for the first page
+	 * @param limit      maximum number of employees
+	 * @return the page, empty when the API returned no data
+	 */
+	public CompletableFuture<Optional<EmployeePage>> getPage(EmployeeSortField sort, boolean descending,
+			PageCursor cursor, int limit) {
+		return snapshot().thenApply(snapshot -> snapshot.employees()
+				.map(employees -> employees.page(sort, descending, cursor, limit, snapshot.version())));
+	}
+
+	/**
+	 * Same freshness as {@link #get()}
+	 *
+	 * @return highest salary, empty when there is no employee with a salary
+	 */
+	public CompletableFuture<OptionalInt> getHighestSalary() {
+		return snapshot().thenApply(snapshot -> snapshot.employees().isEmpty() ? OptionalInt.empty()
+				: snapshot.employees().get().highestSalary());
+	}
+
+	/**
+	 * Same freshness as {@link #get()}
+	 *
+	 * @param limit
+	 * @return names of at most limit employees, highest salary first, empty when
+	 *         the API returned no data
+	 */
+	public CompletableFuture<Optional<List<String>>> getTopEarnerNames(int limit) {
+		return snapshot().thenApply(snapshot -> snapshot.employees().map(employees -> employees.topEarnerNames(limit)));
+	}
+
+	/**
+	 * Same freshness as {@link #get()}
+	 *
+	 * @return salary and age statistics, empty when the API returned no data
+	 */
+	public CompletableFuture<Optional<EmployeeStatsDTO>> getStats() {
+		return snapshot().thenApply(snapshot -> snapshot.employees().map(IndexedEmployees::stats));
+	}
+
+	/**
+	 * Adds an employee created through this service to the current snapshot, if
+	 * any
+	 */
+	public void applyCreated(EmployeeDTO employee) {
+		current.updateAndGet(snapshot -> snapshot == null ? null
+				: snapshot.applied(new LocalChange(changes.incrementAndGet(), employee, null), versions));
+	}
+
+	/**
+	 * Removes an employee deleted through this service from the current snapshot,
+	 * if any
+	 */
+	public void applyDeleted(String id) {
+		current.updateAndGet(snapshot -> snapshot == null ? null
+				: snapshot.applied(new LocalChange(changes.incrementAndGet(), null, id), versions));
+	}
+
+	/**
+	 * @return age of the current snapshot, empty when nothing is loaded yet
+	 */
+	public Optional<Duration> getAge() {
+		return Optional.ofNullable(current.get()).map(snapshot -> snapshot.age(clock));
+	}
+
+	private CompletableFuture<EmployeeSnapshot> snapshot() {
+		final EmployeeSnapshot snapshot = current.get();
+		if (snapshot != null) {
+			final Duration age = snapshot.age(clock);
+			if (age.compareTo(ttl) <= 0)
+				return CompletableFuture.completedFuture(snapshot);
+			if (age.compareTo(ttl.plus(maxStale)) <= 0) {
+				log.info("Employee snapshot is {} old, serving it while refreshing.", age);
+				meterRegistry.counter("employee.snapshot.stale.served").increment();
+				refreshInBackground();
+				return CompletableFuture.completedFuture(snapshot);
+			}
+		}
+		return refreshAsync();
+	}
+
+	/**
+	 * Same as {@link #refresh()} for a caller which has no usable snapshot,
+	 * without holding its thread while the list is fetched
+	 */
+	private CompletableFuture<EmployeeSnapshot> refreshAsync() {
+		final EmployeeSnapshot previous = current.get();
+		final long since = changes.get();
+		return asyncEmployeeAccessor.fetchAllEmployee(previous == null ? null : previous.sourceVersion())
+				.thenApply(fetched -> load(previous, since, fetched)).whenComplete((snapshot, error) -> {
+					if (error != null)
+						meterRegistry.counter("employee.snapshot.refresh", "result", "failure").increment();
+				}).thenApply(snapshot -> install(snapshot, since));
+	}
+
+	private EmployeeSnapshot refresh() {
+		final EmployeeSnapshot previous = current.get();
+		final long since = changes.get();
+		final EmployeeSnapshot snapshot;
+		try {
+			snapshot = load(previous, since, employeeAccessor
+					.fetchAllEmployee(previous == null ? null : previous.sourceVersion()));
+		} catch (RuntimeException e) {
+			meterRegistry.counter("employee.snapshot.refresh", "result", "failure").increment();
+			throw e;
+		}
+		return install(snapshot, since);
+	}
+
+	/**
+	 * Local changes made while the list was fetched are applied again on top of
+	 * it, the fetch may have started before the API had them. A snapshot whose
+	 * fetch started later, from a concurrent refresh, is kept.
+	 */
+	private EmployeeSnapshot install(EmployeeSnapshot snapshot, long since) {
+		meterRegistry.counter("employee.snapshot.refresh", "result", "success").increment();
+		final EmployeeSnapshot installed = current.updateAndGet(latest -> latest != null && latest.since() > since
+				? latest
+				: snapshot.replayed(latest, versions));
+		persistInBackground(snapshot);
+		scheduleRefresh();
+		return installed;
+	}
+
+	private void persistInBackground(EmployeeSnapshot snapshot) {
+		if (snapshotFile == null)
+			return;
+		try {
+			scheduler.execute(() -> persist(snapshot));
+		} catch (RuntimeException e) {
+			log.warn("Could not start writing employee snapshot file {}.", snapshotFile.getPath(), e);
+		}
+	}
+
+	/**
+	 * A failed write only costs the warm start, the refresh still succeeds
+	 */
+	private void persist(EmployeeSnapshot snapshot) {
+		if (snapshotFile == null)
+			return;
+		try {
+			if (persistedVersion != null && persistedVersion == snapshot.version()
+					&& snapshotFile.touch(snapshot.fetchedAt())) {
+				meterRegistry.counter("employee.snapshot.file", "event", "touched").increment();
+				return;
+			}
+			persistedVersion = null;
+			snapshotFile.write(snapshot.fetchedAt(), snapshot.employees().map(IndexedEmployees::toColumns));
+			persistedVersion = snapshot.version();
+			meterRegistry.counter("employee.snapshot.file", "event", "written").increment();
+		} catch (IOException | RuntimeException e) {
+			persistedVersion = null;
+			log.warn("Could not write employee snapshot file {}.", snapshotFile.getPath(), e);
+			meterRegistry.counter("employee.snapshot.file", "event", "write_failed").increment();
+		}
+	}
+
+	/**
+	 * The list is revalidated against the version of the previous snapshot, when
+	 * the API still has it the columns and indexes are reused. A snapshot with
+	 * local changes has no source version so it is never reused. The received
+	 * rows go straight into the columns, the list is not kept.
+	 */
+	private EmployeeSnapshot load(EmployeeSnapshot previous, long since, EmployeeAccessor.EmployeeList fetched) {
+		final Instant fetchedAt = clock.instant();
+		if (previous != null && !fetched.modified()) {
+			log.info("Employee data unchanged, reusing converted snapshot.");
+			return new EmployeeSnapshot(previous.sourceVersion(), previous.employees(), previous.version(), since,
+					List.of(), fetchedAt);
+		}
+		final Optional<EmployeeColumns> employees = fetched.employees().map(employeeDataList -> {
+			log.info("Received {} employee data.", employeeDataList.size());
+			final EmployeeColumns.Builder columns = new EmployeeColumns.Builder(employeeDataList.size());
+			employeeDataList.forEach(columns::add);
+			return columns.build();
+		});
+		return EmployeeSnapshot.indexed(fetched.version(), employees, bands, versions.incrementAndGet(), since,
+				fetchedAt);
+	}
+
+	private void refreshInBackground() {
+		if (!refreshing.compareAndSet(false, true))
+			return;
+		try {
+			scheduler.execute(this::refreshQuietly);
+		} catch (RuntimeException e) {
+			refreshing.set(false);
+			log.warn("Could not start employee snapshot refresh.", e);
+		}
+	}
+
+	private void scheduleRefresh() {
+		if (refreshInterval.isZero() || refreshInterval.isNegative() || !scheduled.compareAndSet(false, true))
+			return;
+		scheduler.scheduleWithFixedDelay(() -> {
+			if (refreshing.compareAndSet(false, true))
+				refreshQuietly();
+		}, refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Failure keeps the last good snapshot, it is served until it is older than
+	 * ttl + maxStale
+	 */
+	private void refreshQuietly() {
+		try {
+			refresh();
+		} catch (EmployeeAccessorException e) {
+			log.warn("Employee snapshot refresh failed, keeping the last good snapshot.", e);
+		} catch (RuntimeException e) {
+			log.error("Unexpected failure while refreshing employee snapshot.", e);
+		} finally {
+			refreshing.set(false);
+		}
+	}
+
+	/**
+	 * @param sourceVersion version of the list received from the accessor, null
+	 *                      when seeded from the file or changed locally
+	 * @param employees     empty when the API returned no data
+	 * @param since         local change sequence when the fetch started
+	 * @param changes       local changes applied on top of the fetched data, in
+	 *                      order
+	 */
+	private record EmployeeSnapshot(String sourceVersion, Optional<IndexedEmployees> employees, long version,
+			long since, List<LocalChange> changes, Instant fetchedAt) {
+		private static EmployeeSnapshot indexed(String sourceVersion, Optional<EmployeeColumns> employees,
+				EmployeeStats.Bands bands, long version, long since, Instant fetchedAt) {
+			return new EmployeeSnapshot(sourceVersion, employees.map(columns -> IndexedEmployees.of(columns, bands)),
+					version, since, List.of(), fetchedAt);
+		}
+
+		/**
+		 * @param latest snapshot being replaced, its changes made after this one's
+		 *               fetch started are applied again, creating one already in the
+		 *               list or deleting one not in it is a no-op
+		 */
+		private EmployeeSnapshot replayed(EmployeeSnapshot latest, AtomicLong versions) {
+			EmployeeSnapshot replayed = this;
+			if (latest != null) {
+				for (LocalChange change : latest.changes()) {
+					if (change.sequence() > since)
+						replayed = replayed.applied(change, versions);
+				}
+			}
+			return replayed;
+		}
+
+		/**
+		 * @return snapshot with the change, remembered for replay
+		 */
+		private EmployeeSnapshot applied(LocalChange change, AtomicLong versions) {
+			final Optional<IndexedEmployees> changed = employees
+					.map(indexed -> change.created() != null ? indexed.withCreated(change.created())
+							: withDeleted(indexed, change.deletedId()));
+			final List<LocalChange> updatedChanges = new ArrayList<>(changes.size() + 1);
+			updatedChanges.addAll(changes);
+			updatedChanges.add(change);
+			final boolean unchanged = changed.equals(employees);
+			return new EmployeeSnapshot(unchanged ? sourceVersion : null, changed,
+					unchanged ? version : versions.incrementAndGet(), since, List.copyOf(updatedChanges), fetchedAt);
+		}
+
+		private static IndexedEmployees withDeleted(IndexedEmployees employees, String id) {
+			try {
+				return employees.withDeleted(Integer.parseInt(id));
+			} catch (NumberFormatException e) {
+				return employees;
+			}
+		}
+
+		private Duration age(Clock clock) {
+			return Duration.between(fetchedAt, clock.instant());
+		}
+	}
+
+	/**
+	 * Employee created or deleted through this service
+	 *
+	 * @param sequence  Look {@link EmployeeSnapshotCache#changes}
+	 * @param created   null for a delete
+	 * @param deletedId null for a create
+	 */
+	private record LocalChange(long sequence, EmployeeDTO created, String deletedId) {
+	}
+}
@@ -0,0 +1,205 @@
+package com.reliaquest.employee.service.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.util.function.SingletonSupplier;
+
+import com.reliaquest.employee.model.EmployeeDTO;
+import com.reliaquest.employee.model.EmployeeStatsDTO;
+
+/**
+ * Salary and age statistics of one employee snapshot. Salaries and ages are
+ * recorded in HDR histograms (3 significant digits) for the percentiles, sums
+ * give the exact mean and band counts are kept per configured boundary. Salary
+ * min and max come from the {@link SalaryIndex}, age min and max from its
+ * histogram which is exact for any realistic age.
+ * <p>
+ * Built once per snapshot in a single pass over the columns. Like the snapshot
+ * it is immutable, a create or delete returns updated statistics by copying
+ * the histograms and recording or subtracting one value, so its cost does not
+ * depend on the number of employees. The response is computed once per
+ * instance, repeated polls cost nothing.
+ */
+public class EmployeeStats {
+	private static final int SIGNIFICANT_DIGITS = 3;
+
+	private final Bands bands;
+	private final SalaryIndex salaryIndex;
+	private final long headcount;
+	private final Histogram salaries;
+	private final long salarySum;
+	private final Histogram ages;
+	private final long ageSum;
+	private final long[] salaryBandCounts;
+	private final long[] ageBracketCounts;
+	private final Supplier<EmployeeStatsDTO> dto = SingletonSupplier.of(this::computeDto);
+
+	private EmployeeStats(Bands bands, SalaryIndex salaryIndex, long headcount, Histogram salaries, long salarySum,
+			Histogram ages, long ageSum, long[] salaryBandCounts, long[] ageBracketCounts) {
+		this.bands = bands;
+		this.salaryIndex = salaryIndex;
+		this.headcount = headcount;
+		this.salaries = salaries;
+		this.salarySum = salarySum;
+		this.ages = ages;
+		this.ageSum = ageSum;
+		this.salaryBandCounts = salaryBandCounts;
+		this.ageBracketCounts = ageBracketCounts;
+	}
+
+	/**
+	 * @param salaryIndex salary order of the same columns
+	 */
+	public static EmployeeStats of(EmployeeColumns columns, SalaryIndex salaryIndex, Bands bands) {
+		final Histogram salaries = new Histogram(SIGNIFICANT_DIGITS);
+		final Histogram ages = new Histogram(SIGNIFICANT_DIGITS);
+		final long[] salaryBandCounts = new long[bands.salary().length + 1];
+		final long[] ageBracketCounts = new long[bands.age().length + 1];
+		long salarySum = 0;
+		long ageSum = 0;
+		for (int row = 0; row < columns.size(); row++) {
+			if (columns.hasSalary(row)) {
+				salaries.recordValue(recordable(columns.salary(row)));
+				salarySum += columns.salary(row);
+				salaryBandCounts[band(bands.salary(), columns.salary(row))]++;
+			}
+			if (columns.hasAge(row)) {
+				ages.recordValue(recordable(columns.age(row)));
+				ageSum += columns.age(row);
+				ageBracketCounts[band(bands.age(), columns.age(row))]++;
+			}
+		}
+		return new EmployeeStats(bands, salaryIndex, columns.size(), salaries, salarySum, ages, ageSum,
+				salaryBandCounts, ageBracketCounts);
+	}
+
+	/**
+	 * @param salaryIndex salary order including the employee
+	 */
+	public EmployeeStats with(EmployeeDTO employee, SalaryIndex salaryIndex) {
+		return changed(employee, salaryIndex, 1);
+	}
+
+	/**
+	 * @param salaryIndex salary order without the employee
+	 */
+	public EmployeeStats without(EmployeeDTO employee, SalaryIndex salaryIndex) {
+		return changed(employee, salaryIndex, -1);
+	}
+
+	/**
+	 * @return statistics response, the same instance on each call
+	 */
+	public EmployeeStatsDTO toDto() {
+		return dto.get();
+	}
+
+	private EmployeeStats changed(EmployeeDTO employee, SalaryIndex updatedSalaryIndex, int delta) {
+		final Histogram updatedSalaries = salaries.copy();
+		final Histogram updatedAges = ages.copy();
+		final long[] updatedSalaryBandCounts = salaryBandCounts.clone();
+		final long[] updatedAgeBracketCounts = ageBracketCounts.clone();
+		long updatedSalarySum = salarySum;
+		long updatedAgeSum = ageSum;
+		if (employee.getSalary() != null) {
+			record(updatedSalaries, employee.getSalary(), delta);
+			updatedSalarySum += (long) delta * employee.getSalary();
+			updatedSalaryBandCounts[band(bands.salary(), employee.getSalary())] += delta;
+		}
+		if (employee.getAge() != null) {
+			record(updatedAges, employee.getAge(), delta);
+			updatedAgeSum += (long) delta * employee.getAge();
+			updatedAgeBracketCounts[band(bands.age(), employee.getAge())] += delta;
+		}
+		return new EmployeeStats(bands, updatedSalaryIndex, headcount + delta, updatedSalaries, updatedSalarySum,
+				updatedAges, updatedAgeSum, updatedSalaryBandCounts, updatedAgeBracketCounts);
+	}
+
+	/**
+	 * Subtracting goes through a histogram of the one value so min and max are
+	 * recalculated
+	 */
+	private static void record(Histogram histogram, int value, int delta) {
+		if (delta > 0) {
+			histogram.recordValue(recordable(value));
+			return;
+		}
+		final Histogram removed = new Histogram(SIGNIFICANT_DIGITS);
+		removed.recordValue(recordable(value));
+		histogram.subtract(removed);
+	}
+
+	/**
+	 * Histograms only take non negative values, a negative salary or age is
+	 * counted as 0
+	 */
+	private static long recordable(int value) {
+		return Math.max(value, 0);
+	}
+
+	private EmployeeStatsDTO computeDto() {
+		final Integer minSalary = salaries.getTotalCount() == 0 ? null : salaryIndex.lowestSalary().getAsInt();
+		final Integer maxSalary = salaries.getTotalCount() == 0 ? null : salaryIndex.highestSalary().getAsInt();
+		final Integer minAge = ages.getTotalCount() == 0 ? null : (int) ages.getMinValue();
+		final Integer maxAge = ages.getTotalCount() == 0 ? null : (int) ages.getMaxValue();
+		return new EmployeeStatsDTO(headcount, distribution(salaries, salarySum, minSalary, maxSalary),
+				distribution(ages, ageSum, minAge, maxAge), bands(bands.salary(), salaryBandCounts),
+				bands(bands.age(), ageBracketCounts));
+	}
+
+	private static EmployeeStatsDTO.Distribution distribution(Histogram histogram, long sum, Integer min,
+			Integer max) {
+		final long count = histogram.getTotalCount();
+		if (count == 0)
+			return new EmployeeStatsDTO.Distribution(0, null, null, null, null, null, null);
+		return new EmployeeStatsDTO.Distribution(count, min, max, (double) sum / count,
+				percentile(histogram, 50, max), percentile(histogram, 90, max), percentile(histogram, 99, max));
+	}
+
+	/**
+	 * Highest value of the histogram bucket, never above the actual maximum
+	 */
+	private static Integer percentile(Histogram histogram, double percentile, int max) {
+		return (int) Math.min(histogram.getValueAtPercentile(percentile), max);
+	}
+
+	private static List<EmployeeStatsDTO.Band> bands(int[] boundaries, long[] counts) {
+		final List<EmployeeStatsDTO.Band> result = new ArrayList<>(counts.length);
+		for (int i = 0; i < counts.length; i++) {
+			result.add(new EmployeeStatsDTO.Band(i == 0 ? null : boundaries[i - 1],
+					i == boundaries.length ? null : boundaries[i], counts[i]));
+		}
+		return result;
+	}
+
+	/**
+	 * @return number of boundaries not above the value
+	 */
+	private static int band(int[] boundaries, int value) {
+		final int found = Arrays.binarySearch(boundaries, value);
+		return found >= 0 ? found + 1 : -found - 1;
+	}
+
+	/**
+	 * Band boundaries, each array ascending. n boundaries make n + 1 bands, the
+	 * first and last open ended.
+	 */
+	public record Bands(int[] salary, int[] age) {
+		public Bands {
+			salary = ascending(salary, "salary");
+			age = ascending(age, "age");
+		}
+
+		private static int[] ascending(int[] boundaries, String name) {
+			for (int i = 1; i < boundaries.length; i++) {
+				if (boundaries[i] <= boundaries[i - 1])
+					throw new IllegalArgumentException(name + " band boundaries must be ascending");
+			}
+			return boundaries.clone();
+		}
+	}
+}
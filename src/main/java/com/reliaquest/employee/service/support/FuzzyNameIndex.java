@@ -0,0 +1,244 @@
+package com.reliaquest.employee.service.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Typo tolerant name lookup. Names are folded like {@link TrigramIndex} does
+ * (case and accents ignored) and split into words, the distinct words are kept
+ * in a trie. A query word walks the trie with one row of the Levenshtein matrix
+ * per depth, which is a Levenshtein automaton run over all words at once:
+ * common prefixes are compared once and a branch is left as soon as every
+ * entry of its row is above maxDistance.
+ * <p>
+ * A row matches when every word of the query is within maxDistance of some word
+ * of its name. Rows are ranked by the sum of those distances, then by row.
+ * <p>
+ * The trie is a set of parallel arrays, children of a node are a linked list
+ * in char order.
+ */
+public class FuzzyNameIndex {
+	private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+	private static final int ROOT = 0;
+	private static final int NONE = -1;
+
+	private final char[] labels;
+	private final int[] firstChild;
+	private final int[] nextSibling;
+	/**
+	 * Rows of the word ending at the node, null when no word ends there
+	 */
+	private final int[][] rows;
+	private final int depth;
+
+	/**
+	 * @param names name per row, null for a row without one
+	 */
+	public FuzzyNameIndex(List<String> names) {
+		final TreeMap<String, IntList> rowsByWord = new TreeMap<>();
+		for (int row = 0; row < names.size(); row++) {
+			if (names.get(row) == null)
+				continue;
+			for (String word : words(names.get(row))) {
+				rowsByWord.computeIfAbsent(word, key -> new IntList()).addIfAbsent(row);
+			}
+		}
+		final TrieBuilder trie = new TrieBuilder();
+		rowsByWord.forEach((word, wordRows) -> trie.add(word, wordRows.toArray()));
+		this.labels = Arrays.copyOf(trie.labels, trie.size);
+		this.firstChild = Arrays.copyOf(trie.firstChild, trie.size);
+		this.nextSibling = Arrays.copyOf(trie.nextSibling, trie.size);
+		this.rows = Arrays.copyOf(trie.rows, trie.size);
+		this.depth = trie.depth;
+	}
+
+	/**
+	 * @param query       one or more words
+	 * @param maxDistance edits allowed per query word
+	 * @param limit       maximum number of rows returned
+	 * @return matching rows, closest first
+	 */
+	public int[] search(String query, int maxDistance, int limit) {
+		return Arrays.stream(ranked(query, maxDistance, limit)).mapToInt(key -> (int) key).toArray();
+	}
+
+	/**
+	 * Same matches as {@link #search(String, int, int)} with their score, so
+	 * results of two indexes can be merged
+	 *
+	 * @return sum of the distances in the high half and row in the low half of
+	 *         each match, closest first
+	 */
+	public long[] ranked(String query, int maxDistance, int limit) {
+		final List<String> queryWords = words(query);
+		if (queryWords.isEmpty() || limit <= 0)
+			return new long[0];
+		Map<Integer, Integer> scores = null;
+		for (String queryWord : queryWords) {
+			final Map<Integer, Integer> wordScores = new HashMap<>();
+			new Walk(queryWord, maxDistance, wordScores).run();
+			if (scores == null) {
+				scores = wordScores;
+			} else {
+				final Map<Integer, Integer> previous = scores;
+				wordScores.keySet().retainAll(previous.keySet());
+				wordScores.replaceAll((row, distance) -> distance + previous.get(row));
+				scores = wordScores;
+			}
+			if (scores.isEmpty())
+				return new long[0];
+		}
+		// score in the high half, row in the low half sorts by both at once
+		return scores.entrySet().stream().mapToLong(entry -> ((long) entry.getValue() << 32) | entry.getKey())
+				.sorted().limit(limit).toArray();
+	}
+
+	/**
+	 * @return number of trie nodes
+	 */
+	public int size() {
+		return labels.length;
+	}
+
+	static List<String> words(String value) {
+		final List<String> words = new ArrayList<>();
+		for (String word : WORD_SEPARATOR.split(TrigramIndex.fold(value, true, true))) {
+			if (!word.isEmpty())
+				words.add(word);
+		}
+		return words;
+	}
+
+	/**
+	 * One query word against the trie, matrix[d] is the Levenshtein row of the
+	 * node at depth d on the current path
+	 */
+	private class Walk {
+		private final String query;
+		private final int maxDistance;
+		private final Map<Integer, Integer> scores;
+		private final int[][] matrix;
+
+		private Walk(String query, int maxDistance, Map<Integer, Integer> scores) {
+			this.query = query;
+			this.maxDistance = maxDistance;
+			this.scores = scores;
+			this.matrix = new int[depth + 1][query.length() + 1];
+			for (int j = 0; j <= query.length(); j++) {
+				matrix[0][j] = j;
+			}
+		}
+
+		private void run() {
+			for (int child = firstChild[ROOT]; child != NONE; child = nextSibling[child]) {
+				visit(child, 1);
+			}
+		}
+
+		/**
+		 * Recursion depth is bounded by the longest word
+		 */
+		private void visit(int node, int level) {
+			final int[] previous = matrix[level - 1];
+			final int[] current = matrix[level];
+			current[0] = level;
+			int best = level;
+			for (int j = 1; j <= query.length(); j++) {
+				final int substitution = previous[j - 1] + (query.charAt(j - 1) == labels[node] ? 0 : 1);
+				current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+				best = Math.min(best, current[j]);
+			}
+			if (best > maxDistance)
+				return;
+			final int distance = current[query.length()];
+			if (rows[node] != null && distance <= maxDistance) {
+				for (int row : rows[node]) {
+					scores.merge(row, distance, Math::min);
+				}
+			}
+			for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+				visit(child, level + 1);
+			}
+		}
+	}
+
+	/**
+	 * Takes words in ascending order, so a new word shares its prefix with the
+	 * previous one and its first new node is the last child of its parent
+	 */
+	private static class TrieBuilder {
+		private char[] labels = new char[16];
+		private int[] firstChild = new int[16];
+		private int[] nextSibling = new int[16];
+		private int[][] rows = new int[16][];
+		private int size;
+		private int depth;
+		private int[] path = new int[16];
+		private String previous = "";
+
+		private TrieBuilder() {
+			node('\0');
+		}
+
+		private void add(String word, int[] wordRows) {
+			if (word.length() >= path.length)
+				path = Arrays.copyOf(path, word.length() * 2);
+			int common = 0;
+			while (common < Math.min(word.length(), previous.length())
+					&& word.charAt(common) == previous.charAt(common)) {
+				common++;
+			}
+			for (int i = common; i < word.length(); i++) {
+				final int parent = i == 0 ? ROOT : path[i - 1];
+				final int node = node(word.charAt(i));
+				if (i == common && i < previous.length())
+					nextSibling[path[i]] = node;
+				else
+					firstChild[parent] = node;
+				path[i] = node;
+			}
+			rows[path[word.length() - 1]] = wordRows;
+			previous = word;
+			depth = Math.max(depth, word.length());
+		}
+
+		private int node(char label) {
+			if (size == labels.length) {
+				labels = Arrays.copyOf(labels, size * 2);
+				firstChild = Arrays.copyOf(firstChild, size * 2);
+				nextSibling = Arrays.copyOf(nextSibling, size * 2);
+				rows = Arrays.copyOf(rows, size * 2);
+			}
+			labels[size] = label;
+			firstChild[size] = NONE;
+			nextSibling[size] = NONE;
+			return size++;
+		}
+	}
+
+	private static class IntList {
+		private int[] values = new int[2];
+		private int size;
+
+		/**
+		 * Rows are added in increasing order so a repeated word of the same name is
+		 * always the last value
+		 */
+		void addIfAbsent(int value) {
+			if (size > 0 && values[size - 1] == value)
+				return;
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
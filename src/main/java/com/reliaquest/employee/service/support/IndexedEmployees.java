@@ -0,0 +1,392 @@
+package com.reliaquest.employee.service.support;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.util.function.SingletonSupplier;
+
+import com.reliaquest.employee.model.EmployeeDTO;
+import com.reliaquest.employee.model.EmployeeField;
+import com.reliaquest.employee.model.EmployeeSortField;
+import com.reliaquest.employee.model.EmployeeStatsDTO;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Employees of one snapshot with the indexes built over them, plus the
+ * employees created and deleted through this service since it was fetched.
+ * <p>
+ * A local write never touches the fetched columns, their name indexes or sort
+ * orders. A created employee is appended to a small column set of its own, as
+ * row {@code fetched.size() + i}, and a deleted one is only marked, so rows
+ * never move and every index over the fetched rows stays valid. Reads go
+ * through the fetched indexes, skip the deleted rows and merge in the matching
+ * created rows, which get their own indexes on first use. The salary index and
+ * statistics are updated per write.
+ * <p>
+ * A write costs O(k) in the k local changes since the fetch instead of a copy
+ * of every column and a rebuild of every index. Local changes are only folded
+ * into the columns by the next refresh, which replaces them with the API data.
+ */
+@Slf4j
+public class IndexedEmployees {
+	private static final EmployeeColumns NONE = EmployeeColumns.of(List.of());
+
+	private final EmployeeColumns fetched;
+	private final TrigramIndex nameIndex;
+	private final FuzzyNameIndex fuzzyNameIndex;
+	private final Map<EmployeeSortField, Supplier<EmployeeOrder>> orders;
+	private final SalaryIndex salaryIndex;
+	private final EmployeeStats stats;
+	/**
+	 * Rows from fetched.size() on
+	 */
+	private final EmployeeColumns created;
+	/**
+	 * Deleted rows, ascending
+	 */
+	private final int[] deleted;
+	private final Supplier<TrigramIndex> createdNameIndex;
+	private final Supplier<FuzzyNameIndex> createdFuzzyNameIndex;
+	private final Map<EmployeeSortField, Supplier<EmployeeOrder>> createdOrders;
+	private final Supplier<List<EmployeeDTO>> view;
+
+	private IndexedEmployees(EmployeeColumns fetched, TrigramIndex nameIndex, FuzzyNameIndex fuzzyNameIndex,
+			Map<EmployeeSortField, Supplier<EmployeeOrder>> orders, SalaryIndex salaryIndex, EmployeeStats stats,
+			EmployeeColumns created, int[] deleted) {
+		this.fetched = fetched;
+		this.nameIndex = nameIndex;
+		this.fuzzyNameIndex = fuzzyNameIndex;
+		this.orders = orders;
+		this.salaryIndex = salaryIndex;
+		this.stats = stats;
+		this.created = created;
+		this.deleted = deleted;
+		this.createdNameIndex = SingletonSupplier.of(() -> new TrigramIndex(created.names()));
+		this.createdFuzzyNameIndex = SingletonSupplier.of(() -> new FuzzyNameIndex(created.names()));
+		this.createdOrders = orders(created);
+		this.view = edited() ? SingletonSupplier.of(() -> new RowView(visibleRows())) : fetched::asList;
+	}
+
+	/**
+	 * Builds the name indexes, salary index and statistics, sort orders are built
+	 * the first time they are paged in
+	 */
+	public static IndexedEmployees of(EmployeeColumns columns, EmployeeStats.Bands bands) {
+		final long start = System.nanoTime();
+		final TrigramIndex nameIndex = new TrigramIndex(columns.names());
+		final FuzzyNameIndex fuzzyNameIndex = new FuzzyNameIndex(columns.names());
+		final SalaryIndex salaryIndex = SalaryIndex.of(columns);
+		final EmployeeStats stats = EmployeeStats.of(columns, salaryIndex, bands);
+		log.info("Indexed {} employee names into {} trigrams and {} trie nodes, {} salaries in {} ms.", columns.size(),
+				nameIndex.size(), fuzzyNameIndex.size(), salaryIndex.size(),
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		return new IndexedEmployees(columns, nameIndex, fuzzyNameIndex, orders(columns), salaryIndex, stats, NONE,
+				new int[0]);
+	}
+
+	public int size() {
+		return fetched.size() + created.size() - deleted.length;
+	}
+
+	/**
+	 * @return read only view of every employee, the same instance on each call
+	 */
+	public List<EmployeeDTO> asList() {
+		return view.get();
+	}
+
+	/**
+	 * @return the employees as one column set, the fetched columns themselves
+	 *         when nothing changed locally
+	 */
+	public EmployeeColumns toColumns() {
+		if (!edited())
+			return fetched;
+		final EmployeeColumns.Builder columns = new EmployeeColumns.Builder(size());
+		for (int row : visibleRows()) {
+			columns.add(toDto(row));
+		}
+		return columns.build();
+	}
+
+	/**
+	 * Look {@link TrigramIndex#search(String, boolean, boolean)}
+	 *
+	 * @return matching employees, fetched ones first
+	 */
+	public List<EmployeeDTO> search(String query, boolean ignoreCase, boolean normalize) {
+		final int[] matches = nameIndex.search(query, ignoreCase, normalize);
+		if (!edited())
+			return fetched.toDtos(matches);
+		final int[] createdMatches = created.size() == 0 ? new int[0]
+				: createdNameIndex.get().search(query, ignoreCase, normalize);
+		final int[] rows = new int[matches.length + createdMatches.length];
+		int count = 0;
+		for (int row : matches) {
+			if (!isDeleted(row))
+				rows[count++] = row;
+		}
+		for (int row : createdMatches) {
+			if (!isDeleted(fetched.size() + row))
+				rows[count++] = fetched.size() + row;
+		}
+		return new RowView(Arrays.copyOf(rows, count));
+	}
+
+	/**
+	 * Look {@link FuzzyNameIndex#search(String, int, int)}
+	 *
+	 * @return matching employees, closest first
+	 */
+	public List<EmployeeDTO> fuzzySearch(String query, int maxDistance, int limit) {
+		if (!edited())
+			return fetched.toDtos(fuzzyNameIndex.search(query, maxDistance, limit));
+		// deleted rows may be among the closest, as many more are asked for
+		final long[] matches = fuzzyNameIndex.ranked(query, maxDistance,
+				(int) Math.min((long) limit + deleted.length, Integer.MAX_VALUE));
+		final long[] createdMatches = created.size() == 0 ? new long[0]
+				: createdFuzzyNameIndex.get().ranked(query, maxDistance, limit);
+		final long[] merged = new long[matches.length + createdMatches.length];
+		int count = 0;
+		for (long match : matches) {
+			if (!isDeleted((int) match))
+				merged[count++] = match;
+		}
+		for (long match : createdMatches) {
+			// the row is in the low half, created rows rank after fetched ones at the
+			// same score like they would in one index
+			if (!isDeleted(fetched.size() + (int) match))
+				merged[count++] = match + fetched.size();
+		}
+		Arrays.sort(merged, 0, count);
+		return new RowView(
+				Arrays.stream(merged, 0, Math.min(count, Math.max(limit, 0))).mapToInt(match -> (int) match).toArray());
+	}
+
+	/**
+	 * @param sort       order to page in, ignored when a cursor is given
+	 * @param descending ignored when a cursor is given
+	 * @param cursor     where the page starts, null for the first page
+	 * @param limit      maximum number of employees
+	 * @param version    version of the snapshot, carried by the next cursor
+	 */
+	public EmployeePage page(EmployeeSortField sort, boolean descending, PageCursor cursor, int limit,
+			long version) {
+		final EmployeeSortField order = cursor == null ? sort : cursor.sort();
+		final boolean orderDescending = cursor == null ? descending : cursor.descending();
+		if (edited())
+			return mergedPage(order, orderDescending, cursor, limit, version);
+		final EmployeeOrder employeeOrder = orders.get(order).get();
+		final int from;
+		if (cursor == null)
+			from = 0;
+		else if (cursor.version() == version)
+			from = cursor.position();
+		else
+			from = employeeOrder.after(cursor.lastKey(), cursor.lastId(), orderDescending);
+		final int[] rows = employeeOrder.rows(from, limit, orderDescending);
+		String nextCursor = null;
+		if (rows.length > 0 && from + rows.length < employeeOrder.size()) {
+			final int last = rows[rows.length - 1];
+			nextCursor = new PageCursor(version, order, orderDescending, from + rows.length, fetched.id(last),
+					employeeOrder.key(last)).encode();
+		}
+		return new EmployeePage(fetched.toDtos(rows), nextCursor);
+	}
+
+	/**
+	 * @return highest salary, empty when there is no employee with a salary
+	 */
+	public OptionalInt highestSalary() {
+		return salaryIndex.highestSalary();
+	}
+
+	/**
+	 * @return names of at most limit employees, highest salary first
+	 */
+	public List<String> topEarnerNames(int limit) {
+		return Arrays.stream(salaryIndex.top(limit)).mapToObj(this::name).collect(Collectors.toList());
+	}
+
+	/**
+	 * @return salary and age statistics, the same instance until the next write
+	 */
+	public EmployeeStatsDTO stats() {
+		return stats.toDto();
+	}
+
+	/**
+	 * @return employees with the created one added, this when one with its id is
+	 *         already there
+	 */
+	public IndexedEmployees withCreated(EmployeeDTO employee) {
+		if (rowOf(employee.getId()) >= 0)
+			return this;
+		final SalaryIndex updatedSalaryIndex = employee.getSalary() == null ? salaryIndex
+				: salaryIndex.with(fetched.size() + created.size(), employee.getSalary());
+		return new IndexedEmployees(fetched, nameIndex, fuzzyNameIndex, orders, updatedSalaryIndex,
+				stats.with(employee, updatedSalaryIndex), created.with(employee), deleted);
+	}
+
+	/**
+	 * @return employees without the deleted one, this when there is none with
+	 *         that id
+	 */
+	public IndexedEmployees withDeleted(int id) {
+		final int row = rowOf(id);
+		if (row < 0)
+			return this;
+		final EmployeeDTO employee = toDto(row);
+		final SalaryIndex updatedSalaryIndex = salaryIndex.without(row, employee.getSalary());
+		final int position = -Arrays.binarySearch(deleted, row) - 1;
+		final int[] updatedDeleted = new int[deleted.length + 1];
+		System.arraycopy(deleted, 0, updatedDeleted, 0, position);
+		updatedDeleted[position] = row;
+		System.arraycopy(deleted, position, updatedDeleted, position + 1, deleted.length - position);
+		return new IndexedEmployees(fetched, nameIndex, fuzzyNameIndex, orders, updatedSalaryIndex,
+				stats.without(employee, updatedSalaryIndex), created, updatedDeleted);
+	}
+
+	/**
+	 * Walks the fetched and the created order side by side, skipping deleted
+	 * rows. Every local change moves the positions so a page always continues
+	 * after the cursor's last employee, the position it carries is not used.
+	 */
+	private EmployeePage mergedPage(EmployeeSortField order, boolean descending, PageCursor cursor, int limit,
+			long version) {
+		final EmployeeOrder fetchedOrder = orders.get(order).get();
+		final EmployeeOrder createdOrder = createdOrders.get(order).get();
+		int fetchedPosition = cursor == null ? 0 : fetchedOrder.after(cursor.lastKey(), cursor.lastId(), descending);
+		int createdPosition = cursor == null ? 0 : createdOrder.after(cursor.lastKey(), cursor.lastId(), descending);
+		final int wanted = Math.max(limit, 0);
+		final int[] rows = new int[Math.min(wanted, size())];
+		int count = 0;
+		boolean more = false;
+		while (fetchedPosition < fetchedOrder.size() || createdPosition < createdOrder.size()) {
+			final int row;
+			if (createdPosition == createdOrder.size()
+					|| (fetchedPosition < fetchedOrder.size() && fetchedFirst(fetchedOrder,
+							fetchedOrder.row(fetchedPosition, descending), createdOrder,
+							createdOrder.row(createdPosition, descending), descending)))
+				row = fetchedOrder.row(fetchedPosition++, descending);
+			else
+				row = fetched.size() + createdOrder.row(createdPosition++, descending);
+			if (isDeleted(row))
+				continue;
+			if (count == wanted) {
+				more = true;
+				break;
+			}
+			rows[count++] = row;
+		}
+		String nextCursor = null;
+		if (count > 0 && more) {
+			final int last = rows[count - 1];
+			final Object lastKey = last < fetched.size() ? fetchedOrder.key(last)
+					: createdOrder.key(last - fetched.size());
+			nextCursor = new PageCursor(version, order, descending, 0, id(last), lastKey).encode();
+		}
+		return new EmployeePage(new RowView(Arrays.copyOf(rows, count)), nextCursor);
+	}
+
+	private boolean fetchedFirst(EmployeeOrder fetchedOrder, int fetchedRow, EmployeeOrder createdOrder,
+			int createdRow, boolean descending) {
+		final int compared = fetchedOrder.compare(fetchedRow, createdOrder.key(createdRow), created.id(createdRow));
+		return descending ? compared > 0 : compared < 0;
+	}
+
+	/**
+	 * @return row of the employee, -1 when there is none or it was deleted
+	 */
+	private int rowOf(int id) {
+		// an employee created, deleted and created again has a row each time
+		for (int row = created.size() - 1; row >= 0; row--) {
+			if (created.id(row) == id && !isDeleted(fetched.size() + row))
+				return fetched.size() + row;
+		}
+		final int row = fetched.rowOf(id);
+		return row >= 0 && !isDeleted(row) ? row : -1;
+	}
+
+	private boolean edited() {
+		return created.size() > 0 || deleted.length > 0;
+	}
+
+	private boolean isDeleted(int row) {
+		return deleted.length > 0 && Arrays.binarySearch(deleted, row) >= 0;
+	}
+
+	private int[] visibleRows() {
+		final int[] rows = new int[size()];
+		int count = 0;
+		for (int row = 0, next = 0; row < fetched.size() + created.size(); row++) {
+			if (next < deleted.length && deleted[next] == row)
+				next++;
+			else
+				rows[count++] = row;
+		}
+		return rows;
+	}
+
+	private int id(int row) {
+		return row < fetched.size() ? fetched.id(row) : created.id(row - fetched.size());
+	}
+
+	private String name(int row) {
+		return row < fetched.size() ? fetched.name(row) : created.name(row - fetched.size());
+	}
+
+	private EmployeeDTO toDto(int row) {
+		return row < fetched.size() ? fetched.toDto(row) : created.toDto(row - fetched.size());
+	}
+
+	private EmployeeDTO toDto(int row, Set<EmployeeField> fields) {
+		return row < fetched.size() ? fetched.toDto(row, fields) : created.toDto(row - fetched.size(), fields);
+	}
+
+	private static Map<EmployeeSortField, Supplier<EmployeeOrder>> orders(EmployeeColumns columns) {
+		final Map<EmployeeSortField, Supplier<EmployeeOrder>> orders = new EnumMap<>(EmployeeSortField.class);
+		for (EmployeeSortField field : EmployeeSortField.values()) {
+			orders.put(field, SingletonSupplier.of(() -> EmployeeOrder.of(columns, field)));
+		}
+		return orders;
+	}
+
+	/**
+	 * The given rows of the fetched and created columns, building the DTO of a row
+	 * on each access
+	 */
+	private class RowView extends AbstractList<EmployeeDTO> implements EmployeeRowView, RandomAccess {
+		private final int[] rows;
+
+		private RowView(int[] rows) {
+			this.rows = rows;
+		}
+
+		@Override
+		public EmployeeDTO get(int index) {
+			return toDto(rows[Objects.checkIndex(index, rows.length)]);
+		}
+
+		@Override
+		public EmployeeDTO get(int index, Set<EmployeeField> fields) {
+			return toDto(rows[Objects.checkIndex(index, rows.length)], fields);
+		}
+
+		@Override
+		public int size() {
+			return rows.length;
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.reliaquest.employee.service.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+
+import com.reliaquest.employee.exception.InvalidCursorException;
+import com.reliaquest.employee.model.EmployeeSortField;
+
+/**
+ * Where the next page of the employee list starts, handed to clients as an
+ * opaque url safe string.
+ * <p>
+ * The position is only valid in the snapshot of the given version. Any other
+ * snapshot continues after the last employee returned, found by its id and
+ * sort value, so a refresh between two pages neither repeats nor skips an
+ * employee present in both.
+ *
+ * @param version    snapshot the page was read from
+ * @param sort
+ * @param descending
+ * @param position   position of the next row in that snapshot, not used when
+ *                   it has local changes
+ * @param lastId     id of the last employee returned
+ * @param lastKey    its sort value, Look {@link EmployeeOrder#key(int)}
+ */
+public record PageCursor(long version, EmployeeSortField sort, boolean descending, int position, int lastId,
+		Object lastKey) {
+	private static final int FORMAT = 1;
+
+	public String encode() {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(FORMAT);
+			out.writeLong(version);
+			out.writeByte(sort.ordinal());
+			out.writeBoolean(descending);
+			out.writeInt(position);
+			out.writeInt(lastId);
+			out.writeBoolean(lastKey != null);
+			if (lastKey instanceof String name)
+				out.writeUTF(name);
+			else if (lastKey instanceof Integer value)
+				out.writeInt(value);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+	}
+
+	/**
+	 * @throws InvalidCursorException when the value was not produced by
+	 *                                {@link #encode()}
+	 */
+	public static PageCursor decode(String value) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(value)))) {
+			if (in.readByte() != FORMAT)
+				throw new InvalidCursorException("Unknown cursor format");
+			final long version = in.readLong();
+			final EmployeeSortField sort = EmployeeSortField.values()[in.readByte()];
+			final boolean descending = in.readBoolean();
+			final int position = in.readInt();
+			final int lastId = in.readInt();
+			Object lastKey = null;
+			if (in.readBoolean())
+				lastKey = sort == EmployeeSortField.NAME ? in.readUTF() : Integer.valueOf(in.readInt());
+			if (position < 0 || in.available() > 0)
+				throw new InvalidCursorException("Malformed cursor");
+			return new PageCursor(version, sort, descending, position, lastId, lastKey);
+		} catch (IOException | IllegalArgumentException | IndexOutOfBoundsException e) {
+			throw new InvalidCursorException("Malformed cursor", e);
+		}
+	}
+}
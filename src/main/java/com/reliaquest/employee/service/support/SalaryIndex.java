@@ -0,0 +1,216 @@
+package com.reliaquest.employee.service.support;
+
+import java.util.Arrays;
+import java.util.OptionalInt;
+
+/**
+ * Rows of {@link EmployeeColumns} ordered by salary, highest first, with equal
+ * salaries in row order. Rows without a salary are not indexed.
+ * <p>
+ * Each entry packs the complemented salary in the high half of a long and the
+ * row in the low half, so the order is the natural order of the longs. The
+ * index is a sorted array of entries plus a small sorted delta of entries added
+ * and removed since it was built. It is immutable so readers of a snapshot
+ * never see it change, a create or delete returns a new index sharing the
+ * sorted array and copying only the delta.
+ * <p>
+ * With n entries and k in the delta:
+ * <ul>
+ * <li>{@link #with(int, int)} and {@link #without(int, Integer)} are
+ * O(log n + k). Once the delta reaches sqrt(n) entries (at least 64) it is
+ * merged into a new sorted array, which is O(n) but happens once every sqrt(n)
+ * changes.</li>
+ * <li>Highest and lowest salary are O(k) at most, top N is O(N + k) and rank is
+ * O(log n + log k).</li>
+ * </ul>
+ * Rows are never renumbered, a removed row simply leaves the index.
+ */
+public class SalaryIndex {
+	private static final int MIN_DELTA = 64;
+	private static final long[] NONE = new long[0];
+
+	private final long[] entries;
+	/**
+	 * Entries of the sorted array no longer in the index, sorted
+	 */
+	private final long[] removed;
+	/**
+	 * Entries not in the sorted array, sorted
+	 */
+	private final long[] added;
+
+	private SalaryIndex(long[] entries, long[] removed, long[] added) {
+		this.entries = entries;
+		this.removed = removed;
+		this.added = added;
+	}
+
+	public static SalaryIndex of(EmployeeColumns columns) {
+		final long[] entries = new long[columns.size()];
+		int count = 0;
+		for (int row = 0; row < columns.size(); row++) {
+			if (columns.hasSalary(row))
+				entries[count++] = entry(columns.salary(row), row);
+		}
+		Arrays.sort(entries, 0, count);
+		return new SalaryIndex(Arrays.copyOf(entries, count), NONE, NONE);
+	}
+
+	public OptionalInt highestSalary() {
+		final Cursor cursor = new Cursor();
+		return cursor.hasNext() ? OptionalInt.of(salary(cursor.next())) : OptionalInt.empty();
+	}
+
+	public OptionalInt lowestSalary() {
+		// removed entries are among the sorted ones, the trailing ones are skipped
+		int last = entries.length - 1;
+		for (int skipped = removed.length - 1; skipped >= 0 && removed[skipped] == entries[last]; skipped--) {
+			last--;
+		}
+		final long lowest;
+		if (last >= 0)
+			lowest = added.length == 0 ? entries[last] : Math.max(entries[last], added[added.length - 1]);
+		else if (added.length > 0)
+			lowest = added[added.length - 1];
+		else
+			return OptionalInt.empty();
+		return OptionalInt.of(salary(lowest));
+	}
+
+	/**
+	 * @param limit
+	 * @return at most limit rows, highest salary first
+	 */
+	public int[] top(int limit) {
+		final int[] rows = new int[Math.min(Math.max(limit, 0), size())];
+		final Cursor cursor = new Cursor();
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = (int) cursor.next();
+		}
+		return rows;
+	}
+
+	/**
+	 * @param salary
+	 * @return 1 + number of employees earning more than salary
+	 */
+	public int rank(int salary) {
+		// every entry earning more sorts below the first possible entry of salary
+		final long first = entry(salary, 0);
+		return below(entries, first) - below(removed, first) + below(added, first) + 1;
+	}
+
+	public int size() {
+		return entries.length - removed.length + added.length;
+	}
+
+	/**
+	 * @param row    row added to the columns
+	 * @param salary its salary
+	 * @return index with the row added
+	 */
+	public SalaryIndex with(int row, int salary) {
+		final long entry = entry(salary, row);
+		final int found = Arrays.binarySearch(removed, entry);
+		if (found >= 0)
+			return changed(deleted(removed, found), added);
+		final int position = Arrays.binarySearch(added, entry);
+		return position >= 0 ? this : changed(removed, inserted(added, -position - 1, entry));
+	}
+
+	/**
+	 * Other rows keep their number
+	 *
+	 * @param removedRow row removed from the columns
+	 * @param salary     its salary, null when it had none
+	 * @return index without the row, this when it was not indexed
+	 */
+	public SalaryIndex without(int removedRow, Integer salary) {
+		if (salary == null)
+			return this;
+		final long entry = entry(salary, removedRow);
+		final int position = Arrays.binarySearch(added, entry);
+		if (position >= 0)
+			return changed(removed, deleted(added, position));
+		final int found = Arrays.binarySearch(removed, entry);
+		if (found >= 0 || Arrays.binarySearch(entries, entry) < 0)
+			return this;
+		return changed(inserted(removed, -found - 1, entry), added);
+	}
+
+	private SalaryIndex changed(long[] updatedRemoved, long[] updatedAdded) {
+		if (updatedRemoved.length + updatedAdded.length < Math.max(MIN_DELTA, (int) Math.sqrt(entries.length)))
+			return new SalaryIndex(entries, updatedRemoved, updatedAdded);
+		final SalaryIndex merging = new SalaryIndex(entries, updatedRemoved, updatedAdded);
+		final long[] merged = new long[merging.size()];
+		final Cursor cursor = merging.new Cursor();
+		for (int i = 0; i < merged.length; i++) {
+			merged[i] = cursor.next();
+		}
+		return new SalaryIndex(merged, NONE, NONE);
+	}
+
+	/**
+	 * Complemented salary sorts highest first, the row keeps equal salaries in
+	 * row order
+	 */
+	private static long entry(int salary, int row) {
+		return ((long) ~salary << 32) | row;
+	}
+
+	private static int salary(long entry) {
+		return ~(int) (entry >> 32);
+	}
+
+	/**
+	 * @return number of values below the bound
+	 */
+	private static int below(long[] sorted, long bound) {
+		final int found = Arrays.binarySearch(sorted, bound);
+		return found >= 0 ? found : -found - 1;
+	}
+
+	private static long[] inserted(long[] sorted, int position, long value) {
+		final long[] result = new long[sorted.length + 1];
+		System.arraycopy(sorted, 0, result, 0, position);
+		result[position] = value;
+		System.arraycopy(sorted, position, result, position + 1, sorted.length - position);
+		return result;
+	}
+
+	private static long[] deleted(long[] sorted, int position) {
+		final long[] result = new long[sorted.length - 1];
+		System.arraycopy(sorted, 0, result, 0, position);
+		System.arraycopy(sorted, position + 1, result, position, sorted.length - position - 1);
+		return result;
+	}
+
+	/**
+	 * Entries of the index in order: the sorted array without the removed ones,
+	 * merged with the added ones
+	 */
+	private class Cursor {
+		private int entry;
+		private int skipped;
+		private int extra;
+
+		private boolean hasNext() {
+			skipRemoved();
+			return entry < entries.length || extra < added.length;
+		}
+
+		private long next() {
+			skipRemoved();
+			if (extra == added.length || (entry < entries.length && entries[entry] < added[extra]))
+				return entries[entry++];
+			return added[extra++];
+		}
+
+		private void skipRemoved() {
+			while (entry < entries.length && skipped < removed.length && removed[skipped] <= entries[entry]) {
+				if (removed[skipped++] == entries[entry])
+					entry++;
+			}
+		}
+	}
+}
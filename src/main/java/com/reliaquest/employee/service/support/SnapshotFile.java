@@ -0,0 +1,226 @@
+package com.reliaquest.employee.service.support;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compact binary copy of the employee snapshot kept on local disk so a
+ * restarted instance can serve the list before the API answers.
+ * <p>
+ * Layout, big endian:
+ *
+ * <pre>
+ * int   magic "EMPS"
+ * short format version
+ * long  snapshot time, epoch millis
+ * string source, base url of the API the employees were fetched from
+ * int   employee count, -1 when the API returned no data
+ * per employee:
+ *   int id, string name, nullable int salary, nullable int age, string profileImageUrl
+ * int   CRC32C of every byte before it
+ * </pre>
+ *
+ * A string is an int byte length (-1 for null) followed by UTF-8 bytes, a
+ * nullable int is a presence byte followed by the int when present. The file is
+ * written straight to a temporary file with the checksum computed on the way,
+ * which then atomically replaces the file. It is read through a read-only
+ * memory mapping. A file with another magic or version, from another source, a
+ * checksum mismatch or a truncated body is ignored, never failing the startup.
+ * <p>
+ * When a refresh finds the same employees the file is not written again, only
+ * its snapshot time is updated in place, Look {@link #touch(Instant)}.
+ */
+@Slf4j
+public class SnapshotFile {
+	static final int MAGIC = 0x454D5053;
+	static final short VERSION = 2;
+	private static final int TIME_OFFSET = Integer.BYTES + Short.BYTES;
+	private static final int HEADER_BYTES = TIME_OFFSET + Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+	private final Path path;
+	private final String source;
+
+	/**
+	 * @param source base url of the API, a file written for another one is not
+	 *               read
+	 */
+	public SnapshotFile(Path path, String source) {
+		this.path = path;
+		this.source = source;
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	public void write(Instant fetchedAt, Optional<EmployeeColumns> employees) throws IOException {
+		final Path directory = path.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		final Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+		try {
+			try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(temp))) {
+				final CheckedOutputStream checked = new CheckedOutputStream(file, new CRC32C());
+				final DataOutputStream out = new DataOutputStream(checked);
+				out.writeInt(MAGIC);
+				out.writeShort(VERSION);
+				out.writeLong(fetchedAt.toEpochMilli());
+				writeString(out, source);
+				out.writeInt(employees.map(EmployeeColumns::size).orElse(-1));
+				if (employees.isPresent()) {
+					final EmployeeColumns columns = employees.get();
+					for (int row = 0; row < columns.size(); row++) {
+						out.writeInt(columns.id(row));
+						writeString(out, columns.name(row));
+						writeNullableInt(out, columns.hasSalary(row) ? columns.salary(row) : null);
+						writeNullableInt(out, columns.hasAge(row) ? columns.age(row) : null);
+						writeString(out, columns.profileImageUrl(row));
+					}
+				}
+				out.flush();
+				// the checksum itself is not part of what it covers
+				new DataOutputStream(file).writeInt((int) checked.getChecksum().getValue());
+			}
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Updates the snapshot time of the file in place and its checksum, for a
+	 * refresh that found the same employees. A crash half way leaves a checksum
+	 * mismatch, so the file is ignored rather than read with a wrong time.
+	 *
+	 * @return false when there is no intact file to update
+	 */
+	public boolean touch(Instant fetchedAt) throws IOException {
+		if (!Files.isRegularFile(path))
+			return false;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			final long size = channel.size();
+			if (size < HEADER_BYTES + Integer.BYTES || size > Integer.MAX_VALUE)
+				return false;
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			final int bodyLength = buffer.limit() - Integer.BYTES;
+			if (checksum(buffer, bodyLength) != buffer.getInt(bodyLength) || buffer.getInt(0) != MAGIC
+					|| buffer.getShort(Integer.BYTES) != VERSION)
+				return false;
+			buffer.putLong(TIME_OFFSET, fetchedAt.toEpochMilli());
+			buffer.putInt(bodyLength, checksum(buffer, bodyLength));
+			buffer.force();
+			return true;
+		}
+	}
+
+	/**
+	 * @return stored snapshot, empty when there is no file or it is not usable
+	 */
+	public Optional<StoredSnapshot> read() {
+		if (!Files.isRegularFile(path))
+			return Optional.empty();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final long size = channel.size();
+			if (size < HEADER_BYTES + Integer.BYTES || size > Integer.MAX_VALUE) {
+				log.warn("Employee snapshot file {} has invalid size {}, ignoring it.", path, size);
+				return Optional.empty();
+			}
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			return decode(buffer);
+		} catch (IOException | RuntimeException e) {
+			log.warn("Could not read employee snapshot file {}, ignoring it.", path, e);
+			return Optional.empty();
+		}
+	}
+
+	private Optional<StoredSnapshot> decode(ByteBuffer buffer) {
+		final int bodyLength = buffer.limit() - Integer.BYTES;
+		if (checksum(buffer, bodyLength) != buffer.getInt(bodyLength)) {
+			log.warn("Employee snapshot file {} checksum mismatch, ignoring it.", path);
+			return Optional.empty();
+		}
+		final ByteBuffer body = buffer.duplicate().limit(bodyLength);
+		if (body.getInt() != MAGIC || body.getShort() != VERSION) {
+			log.warn("Employee snapshot file {} has an unknown format, ignoring it.", path);
+			return Optional.empty();
+		}
+		final Instant fetchedAt = Instant.ofEpochMilli(body.getLong());
+		try {
+			final String storedSource = readString(body);
+			if (!Objects.equals(source, storedSource)) {
+				log.warn("Employee snapshot file {} was fetched from {}, not {}, ignoring it.", path, storedSource,
+						source);
+				return Optional.empty();
+			}
+			final int count = body.getInt();
+			if (count < 0)
+				return Optional.of(new StoredSnapshot(fetchedAt, Optional.empty()));
+			final EmployeeColumns.Builder employees = new EmployeeColumns.Builder(Math.min(count, body.remaining()));
+			for (int i = 0; i < count; i++) {
+				employees.add(body.getInt(), readString(body), readNullableInt(body), readNullableInt(body),
+						readString(body));
+			}
+			return Optional.of(new StoredSnapshot(fetchedAt, Optional.of(employees.build())));
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			log.warn("Employee snapshot file {} is truncated, ignoring it.", path);
+			return Optional.empty();
+		}
+	}
+
+	private static int checksum(ByteBuffer buffer, int bodyLength) {
+		final CRC32C crc = new CRC32C();
+		crc.update(buffer.duplicate().position(0).limit(bodyLength));
+		return (int) crc.getValue();
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		final int length = buffer.getInt();
+		if (length < 0)
+			return null;
+		if (length > buffer.remaining())
+			throw new BufferUnderflowException();
+		final byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeNullableInt(DataOutputStream out, Integer value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null)
+			out.writeInt(value);
+	}
+
+	private static Integer readNullableInt(ByteBuffer buffer) {
+		return buffer.get() == 0 ? null : buffer.getInt();
+	}
+
+	public record StoredSnapshot(Instant fetchedAt, Optional<EmployeeColumns> employees) {
+	}
+}
@@ -0,0 +1,165 @@
+package com.reliaquest.employee.service.support;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index from name trigrams to the rows of the employees having them,
+ * built once per employee snapshot. A substring query is answered by
+ * intersecting the posting lists of its trigrams and verifying only the
+ * remaining candidates, queries shorter than a trigram fall back to a scan.
+ * <p>
+ * Trigrams are taken from the name with marks stripped after NFKD and lower
+ * cased per code point. Every match mode (exact, ignoring case, normalized)
+ * implies a match on that folded form so one index serves all of them, the
+ * verification then applies the requested mode. Matching rows are returned in
+ * ascending order.
+ */
+public class TrigramIndex {
+	private static final int GRAM = 3;
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+	private final List<String> names;
+	private final Map<Long, int[]> postings;
+
+	/**
+	 * @param names name per row, null for a row without one
+	 */
+	public TrigramIndex(List<String> names) {
+		this.names = names;
+		final Map<Long, IntList> building = new HashMap<>();
+		for (int row = 0; row < names.size(); row++) {
+			final String name = names.get(row);
+			if (name == null)
+				continue;
+			final int[] codePoints = fold(name, true, true).codePoints().toArray();
+			for (int i = 0; i + GRAM <= codePoints.length; i++) {
+				building.computeIfAbsent(trigram(codePoints, i), key -> new IntList()).addIfAbsent(row);
+			}
+		}
+		this.postings = new HashMap<>(building.size() * 4 / 3 + 1);
+		building.forEach((key, list) -> postings.put(key, list.toArray()));
+	}
+
+	/**
+	 * @param query      substring to look for
+	 * @param ignoreCase compare lower cased per code point
+	 * @param normalize  compare after NFKD with marks stripped, so "Jose" also
+	 *                   matches "Jos\u00e9"
+	 * @return matching rows in ascending order
+	 */
+	public int[] search(String query, boolean ignoreCase, boolean normalize) {
+		final String needle = fold(query, ignoreCase, normalize);
+		final int[] codePoints = fold(query, true, true).codePoints().toArray();
+		if (codePoints.length < GRAM)
+			return scan(needle, ignoreCase, normalize);
+
+		final Set<Long> trigrams = new LinkedHashSet<>();
+		for (int i = 0; i + GRAM <= codePoints.length; i++) {
+			trigrams.add(trigram(codePoints, i));
+		}
+		final List<int[]> lists = new ArrayList<>(trigrams.size());
+		for (Long trigram : trigrams) {
+			final int[] list = postings.get(trigram);
+			if (list == null)
+				return new int[0];
+			lists.add(list);
+		}
+		// smallest list first keeps every intersection bounded by it
+		lists.sort(Comparator.comparingInt(list -> list.length));
+		int[] candidates = lists.get(0);
+		for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+			candidates = intersect(candidates, lists.get(i));
+		}
+
+		final IntList matches = new IntList();
+		for (int row : candidates) {
+			if (fold(names.get(row), ignoreCase, normalize).contains(needle))
+				matches.addIfAbsent(row);
+		}
+		return matches.toArray();
+	}
+
+	public int size() {
+		return postings.size();
+	}
+
+	private int[] scan(String needle, boolean ignoreCase, boolean normalize) {
+		final IntList matches = new IntList();
+		for (int row = 0; row < names.size(); row++) {
+			final String name = names.get(row);
+			if (name != null && fold(name, ignoreCase, normalize).contains(needle))
+				matches.addIfAbsent(row);
+		}
+		return matches.toArray();
+	}
+
+	static String fold(String value, boolean ignoreCase, boolean normalize) {
+		String folded = value;
+		if (normalize)
+			folded = MARKS.matcher(Normalizer.normalize(folded, Normalizer.Form.NFKD)).replaceAll("");
+		if (ignoreCase) {
+			// per code point, String.toLowerCase is context sensitive and could break
+			// the substring relation the index relies on
+			final StringBuilder lower = new StringBuilder(folded.length());
+			folded.codePoints().map(Character::toLowerCase).forEach(lower::appendCodePoint);
+			folded = lower.toString();
+		}
+		return folded;
+	}
+
+	private static long trigram(int[] codePoints, int start) {
+		return ((long) codePoints[start] << 42) | ((long) codePoints[start + 1] << 21) | codePoints[start + 2];
+	}
+
+	/**
+	 * Both arrays are sorted, every element of the smaller one is looked up in
+	 * the remaining part of the larger one
+	 */
+	private static int[] intersect(int[] smaller, int[] larger) {
+		final int[] result = new int[smaller.length];
+		int size = 0;
+		int from = 0;
+		for (int value : smaller) {
+			final int found = Arrays.binarySearch(larger, from, larger.length, value);
+			if (found >= 0) {
+				result[size++] = value;
+				from = found + 1;
+			} else {
+				from = -found - 1;
+			}
+			if (from >= larger.length)
+				break;
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	private static class IntList {
+		private int[] values = new int[4];
+		private int size;
+
+		/**
+		 * Rows are added in increasing order so a repeated trigram of the same name
+		 * is always the last value
+		 */
+		void addIfAbsent(int value) {
+			if (size > 0 && values[size - 1] == value)
+				return;
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
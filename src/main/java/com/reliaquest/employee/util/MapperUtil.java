@@ -1,6 +1,7 @@
 package com.reliaquest.employee.util;
 
-import org.modelmapper.ModelMapper;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.reliaquest.employee.accessor.pojo.EmployeeData;
 import com.reliaquest.employee.accessor.pojo.EmployeeRequest;
@@ -8,17 +9,49 @@ import com.reliaquest.employee.model.EmployeeDTO;
 
 import lombok.experimental.UtilityClass;
 
+/**
+ * Conversions between the 3rd party API POJOs and EmployeeDTO as plain field
+ * copies
+ */
 @UtilityClass
 public class MapperUtil {
-	private ModelMapper modelMapper = new ModelMapper();
 
+	/**
+	 * @param post
+	 * @return EmployeeDTO, profile image url is null when the API sends none
+	 */
 	public EmployeeDTO convertToDto(EmployeeData post) {
-		EmployeeDTO employee = modelMapper.map(post, EmployeeDTO.class);
+		final EmployeeDTO employee = new EmployeeDTO();
+		employee.setId(post.getId());
+		employee.setName(post.getName());
+		employee.setSalary(post.getSalary());
+		employee.setAge(post.getAge());
+		final String profileImage = post.getProfileImage();
+		employee.setProfileImageUrl(profileImage == null || profileImage.isEmpty() ? null : profileImage);
 		return employee;
 	}
 
+	/**
+	 * @param posts
+	 * @return EmployeeDTOs in the same order
+	 */
+	public List<EmployeeDTO> convertAll(List<EmployeeData> posts) {
+		final List<EmployeeDTO> employees = new ArrayList<>(posts.size());
+		for (EmployeeData post : posts) {
+			employees.add(convertToDto(post));
+		}
+		return employees;
+	}
+
+	/**
+	 * @param post
+	 * @return EmployeeRequest, salary and age are 0 when missing
+	 */
 	public EmployeeRequest convertToRequest(EmployeeDTO post) {
-		EmployeeRequest employee = modelMapper.map(post, EmployeeRequest.class);
+		final EmployeeRequest employee = new EmployeeRequest();
+		employee.setName(post.getName());
+		employee.setSalary(post.getSalary() == null ? 0 : post.getSalary());
+		employee.setAge(post.getAge() == null ? 0 : post.getAge());
 		return employee;
 	}
 
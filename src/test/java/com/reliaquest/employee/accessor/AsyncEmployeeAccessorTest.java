@@ -0,0 +1,388 @@
+package com.reliaquest.employee.accessor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.http.HttpMethod;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reliaquest.employee.accessor.pojo.EmployeeData;
+import com.reliaquest.employee.accessor.pojo.EmployeeRequest;
+import com.reliaquest.employee.accessor.support.ClassifiedRetryPolicy;
+import com.reliaquest.employee.accessor.support.Hedger;
+import com.reliaquest.employee.accessor.support.RetryAfterBackOffPolicy;
+import com.reliaquest.employee.accessor.support.RetryBudget;
+import com.reliaquest.employee.accessor.support.UpstreamGuard;
+import com.reliaquest.employee.accessor.support.UpstreamRateLimiter;
+import com.reliaquest.employee.accessor.support.ValidatorCache;
+import com.reliaquest.employee.exception.EmployeeAccessorError;
+import com.reliaquest.employee.exception.EmployeeAccessorException;
+import com.reliaquest.employee.util.EmployeeUtility;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class AsyncEmployeeAccessorTest {
+	private HttpClient httpClient;
+	private Hedger hedger;
+	private UpstreamGuard upstreamGuard;
+	private UpstreamRateLimiter rateLimiter;
+	private RetryBudget retryBudget;
+	private SimpleMeterRegistry meterRegistry;
+	private AsyncEmployeeAccessor asyncEmployeeAccessor;
+
+	@BeforeEach
+	void setUp() {
+		httpClient = mock(HttpClient.class);
+		hedger = new Hedger("", 0.95, 100, 10, 0.1, 5, new SimpleMeterRegistry());
+		upstreamGuard = new UpstreamGuard(CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+				.slidingWindowSize(3).minimumNumberOfCalls(3).waitDurationInOpenState(Duration.ofMinutes(1)).build()),
+				BulkheadRegistry.ofDefaults());
+		rateLimiter = new UpstreamRateLimiter(0, 1, 0, new SimpleMeterRegistry());
+		retryBudget = new RetryBudget(0.2, 10);
+		meterRegistry = new SimpleMeterRegistry();
+		asyncEmployeeAccessor = accessor(rateLimiter);
+	}
+
+	@AfterEach
+	void tearDown() {
+		asyncEmployeeAccessor.shutdown();
+		hedger.shutdown();
+		rateLimiter.shutdown();
+	}
+
+	private AsyncEmployeeAccessor accessor(UpstreamRateLimiter rateLimiter) {
+		return new AsyncEmployeeAccessor(new ObjectMapper(), httpClient, hedger, upstreamGuard, rateLimiter,
+				new ClassifiedRetryPolicy(3, Duration.ofSeconds(5), retryBudget, new SimpleMeterRegistry()),
+				new RetryAfterBackOffPolicy(10, 2, 100), "http://localhost/api/v1", 1000, meterRegistry, 100);
+	}
+
+	@Test
+	void testCreate_Success() {
+		EmployeeRequest request = new EmployeeRequest();
+		request.setName("Rahul Anand");
+		request.setAge(29);
+		request.setSalary(2900);
+		doReturn(response(200, EmployeeUtility.fetch1Employee())).when(httpClient).sendAsync(any(), any());
+
+		Optional<EmployeeData> result = asyncEmployeeAccessor.create(request).join();
+
+		assertTrue(result.isPresent());
+		assertEquals(1, result.get().getId());
+		assertEquals("Rahul Anand", result.get().getName());
+	}
+
+	@Test
+	void testGetEmployee_EmptyData() {
+		doReturn(response(200, EmployeeUtility.fetchEmptyEmployee())).when(httpClient).sendAsync(any(), any());
+
+		assertTrue(asyncEmployeeAccessor.getEmployee("1").join().isEmpty());
+	}
+
+	@Test
+	void testDelete_Success() {
+		doReturn(response(200, "")).when(httpClient).sendAsync(any(), any());
+
+		asyncEmployeeAccessor.delete("1").join();
+
+		Mockito.verify(httpClient, Mockito.times(1)).sendAsync(any(HttpRequest.class), any());
+	}
+
+	@Test
+	void testGetEmployee_Success() {
+		doReturn(response(200, EmployeeUtility.fetch1Employee())).when(httpClient).sendAsync(any(), any());
+
+		Optional<EmployeeData> result = asyncEmployeeAccessor.getEmployee("1").join();
+
+		assertTrue(result.isPresent());
+		assertEquals("Rahul Anand", result.get().getName());
+	}
+
+	@Test
+	void testGetEmployee_NotModifiedReusesPreviousResponse() {
+		CompletableFuture<HttpResponse<byte[]>> notModified = response(304, "");
+		doReturn(response(200, EmployeeUtility.fetch1Employee(), Map.of("ETag", List.of("\"v1\""))))
+				.doReturn(notModified).when(httpClient).sendAsync(any(), any());
+
+		EmployeeData first = asyncEmployeeAccessor.getEmployee("1").join().get();
+		EmployeeData second = asyncEmployeeAccessor.getEmployee("1").join().get();
+
+		ArgumentCaptor<HttpRequest> requests = ArgumentCaptor.forClass(HttpRequest.class);
+		Mockito.verify(httpClient, Mockito.times(2)).sendAsync(requests.capture(), any());
+		assertTrue(requests.getAllValues().get(0).headers().firstValue("If-None-Match").isEmpty());
+		assertEquals("\"v1\"", requests.getAllValues().get(1).headers().firstValue("If-None-Match").get());
+		assertSame(first, second);
+		assertEquals(1, revalidations("hit"));
+	}
+
+	@Test
+	void testGetEmployee_UnchangedContentIsNotParsedAgain() {
+		doReturn(response(200, EmployeeUtility.fetch1Employee())).when(httpClient).sendAsync(any(), any());
+
+		EmployeeData first = asyncEmployeeAccessor.getEmployee("1").join().get();
+		EmployeeData second = asyncEmployeeAccessor.getEmployee("1").join().get();
+
+		assertSame(first, second);
+		assertEquals(1, revalidations("hit"));
+		assertEquals(1, revalidations("miss"));
+	}
+
+	@Test
+	void testFetchAllEmployee_UnchangedContentIsNotModified() {
+		doReturn(response(200, EmployeeUtility.fetchAllEmployee())).when(httpClient).sendAsync(any(), any());
+
+		EmployeeAccessor.EmployeeList first = asyncEmployeeAccessor.fetchAllEmployee(null).join();
+		EmployeeAccessor.EmployeeList second = asyncEmployeeAccessor.fetchAllEmployee(first.version()).join();
+
+		assertTrue(first.modified());
+		assertEquals(24, first.employees().get().size());
+		assertFalse(second.modified());
+		assertTrue(second.employees().isEmpty());
+		assertEquals(first.version(), second.version());
+		assertEquals(1, revalidations("hit"));
+		assertEquals(1, revalidations("miss"));
+	}
+
+	@Test
+	void testFetchAllEmployee_RevalidatedWithTheCallersVersion() {
+		String version = new ValidatorCache.Entry("\"v1\"", null, null, null).version();
+		doReturn(response(304, "")).when(httpClient).sendAsync(any(), any());
+
+		EmployeeAccessor.EmployeeList result = asyncEmployeeAccessor.fetchAllEmployee(version).join();
+
+		ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+		Mockito.verify(httpClient).sendAsync(request.capture(), any());
+		assertEquals("\"v1\"", request.getValue().headers().firstValue("If-None-Match").get());
+		assertFalse(result.modified());
+		assertEquals(version, result.version());
+	}
+
+	@Test
+	void testGetEmployee_ConcurrentLookupsShareOneCall() {
+		CompletableFuture<HttpResponse<byte[]>> exchange = new CompletableFuture<>();
+		doReturn(exchange).when(httpClient).sendAsync(any(), any());
+
+		CompletableFuture<Optional<EmployeeData>> first = asyncEmployeeAccessor.getEmployee("1");
+		CompletableFuture<Optional<EmployeeData>> second = asyncEmployeeAccessor.getEmployee("1");
+		exchange.complete(response(200, EmployeeUtility.fetch1Employee()).join());
+
+		assertEquals(1, first.join().get().getId());
+		assertEquals(1, second.join().get().getId());
+		Mockito.verify(httpClient, Mockito.times(1)).sendAsync(any(HttpRequest.class), any());
+		assertEquals(2, meterRegistry.get("employee.accessor.coalesced.callers").tag("operation", "get").summary()
+				.totalAmount());
+	}
+
+	@Test
+	void testGetEmployee_NotFoundIsNotRetried() {
+		doReturn(response(404, "")).when(httpClient).sendAsync(any(), any());
+
+		CompletionException exception = assertThrows(CompletionException.class,
+				() -> asyncEmployeeAccessor.getEmployee("1").join());
+
+		assertEquals(EmployeeAccessorError.API_RESOURCE_NOT_FOUND.getMessage(), exception.getCause().getMessage());
+		Mockito.verify(httpClient, Mockito.times(1)).sendAsync(any(HttpRequest.class), any());
+	}
+
+	@Test
+	void testDelete_ServerErrorIsRetried() {
+		doReturn(response(500, "")).when(httpClient).sendAsync(any(), any());
+
+		CompletionException exception = assertThrows(CompletionException.class,
+				() -> asyncEmployeeAccessor.delete("1").join());
+
+		assertTrue(exception.getCause() instanceof EmployeeAccessorException);
+		assertEquals(EmployeeAccessorError.SERVICE_NETWORK_ERROR.getMessage(), exception.getCause().getMessage());
+		Mockito.verify(httpClient, Mockito.times(3)).sendAsync(any(HttpRequest.class), any());
+	}
+
+	@Test
+	void testGetEmployee_RecoversAfterNetworkError() {
+		CompletableFuture<HttpResponse<byte[]>> success = response(200, EmployeeUtility.fetch1Employee());
+		doReturn(CompletableFuture.failedFuture(new IOException("Connection reset"))).doReturn(success)
+				.when(httpClient).sendAsync(any(), any());
+
+		Optional<EmployeeData> result = asyncEmployeeAccessor.getEmployee("1").join();
+
+		assertEquals("Rahul Anand", result.get().getName());
+		Mockito.verify(httpClient, Mockito.times(2)).sendAsync(any(HttpRequest.class), any());
+	}
+
+	@Test
+	void testGetEmployee_TooManyRequestsIsRetriedAfterRetryAfter() {
+		CompletableFuture<HttpResponse<byte[]>> success = response(200, EmployeeUtility.fetch1Employee());
+		doReturn(response(429, "", Map.of("Retry-After", List.of("0")))).doReturn(success).when(httpClient)
+				.sendAsync(any(), any());
+
+		Optional<EmployeeData> result = asyncEmployeeAccessor.getEmployee("1").join();
+
+		assertTrue(result.isPresent());
+		Mockito.verify(httpClient, Mockito.times(2)).sendAsync(any(HttpRequest.class), any());
+	}
+
+	@Test
+	void testGetEmployee_RetryAfterTooLongIsNotRetried() {
+		doReturn(response(429, "", Map.of("Retry-After", List.of("60")))).when(httpClient).sendAsync(any(), any());
+
+		assertThrows(CompletionException.class, () -> asyncEmployeeAccessor.getEmployee("1").join());
+
+		Mockito.verify(httpClient, Mockito.times(1)).sendAsync(any(HttpRequest.class), any());
+	}
+
+	@Test
+	void testDelete_RetryBudgetIsShared() {
+		retryBudget = new RetryBudget(0, 1);
+		asyncEmployeeAccessor.shutdown();
+		asyncEmployeeAccessor = accessor(rateLimiter);
+		doReturn(response(500, "")).when(httpClient).sendAsync(any(), any());
+
+		assertThrows(CompletionException.class, () -> asyncEmployeeAccessor.delete("1").join());
+
+		// the only token is spent on the first retry
+		Mockito.verify(httpClient, Mockito.times(2)).sendAsync(any(HttpRequest.class), any());
+	}
+
+	@Test
+	void testGetEmployee_ParsingError() {
+		doReturn(response(200, "{\"status\":")).when(httpClient).sendAsync(any(), any());
+
+		CompletionException exception = assertThrows(CompletionException.class,
+				() -> asyncEmployeeAccessor.getEmployee("1").join());
+
+		assertEquals(EmployeeAccessorError.JSON_PARSSING_ERROR.getMessage(), exception.getCause().getMessage());
+		Mockito.verify(httpClient, Mockito.times(1)).sendAsync(any(HttpRequest.class), any());
+	}
+
+	@Test
+	void testCancelAbortsExchangeInFlight() {
+		CompletableFuture<HttpResponse<byte[]>> exchange = new CompletableFuture<>();
+		doReturn(exchange).when(httpClient).sendAsync(any(), any());
+
+		CompletableFuture<Optional<Object>> result = asyncEmployeeAccessor.executeAsync("get",
+				"http://localhost/employee/1", Object.class, null, HttpMethod.GET);
+		result.cancel(true);
+
+		assertTrue(exchange.isCancelled());
+	}
+
+	@Test
+	void testServerErrorsOpenTheSharedCircuit() {
+		doReturn(response(500, "")).when(httpClient).sendAsync(any(), any());
+
+		assertThrows(CompletionException.class, () -> asyncEmployeeAccessor.delete("1").join());
+		assertEquals(CircuitBreaker.State.OPEN, upstreamGuard.getState("delete"));
+
+		CompletionException exception = assertThrows(CompletionException.class,
+				() -> asyncEmployeeAccessor.delete("2").join());
+		assertEquals(EmployeeAccessorError.CIRCUIT_OPEN.getMessage(), exception.getCause().getMessage());
+		// every attempt of the first delete is recorded, the second one never
+		// reaches the API
+		Mockito.verify(httpClient, Mockito.times(3)).sendAsync(any(HttpRequest.class), any());
+	}
+
+	@Test
+	void testDelete_Metrics() {
+		doReturn(response(500, "")).when(httpClient).sendAsync(any(), any());
+
+		assertThrows(CompletionException.class, () -> asyncEmployeeAccessor.delete("1").join());
+
+		assertEquals(3, meterRegistry.get("employee.accessor.attempts").tag("operation", "delete")
+				.tag("status", "500").timer().count());
+		assertEquals(2, meterRegistry.get("employee.accessor.retries").tag("operation", "delete").counter().count());
+		assertEquals(1, meterRegistry.get("employee.accessor.calls").tag("operation", "delete")
+				.tag("outcome", "SERVICE_NETWORK_ERROR").timer().count());
+		assertEquals(1, meterRegistry.get("employee.accessor.errors").tag("operation", "delete")
+				.tag("error", "SERVICE_NETWORK_ERROR").counter().count());
+	}
+
+	@Test
+	void testGetEmployee_Metrics() {
+		final String body = EmployeeUtility.fetch1Employee();
+		doReturn(response(200, body)).when(httpClient).sendAsync(any(), any());
+
+		asyncEmployeeAccessor.getEmployee("1").join();
+
+		assertEquals(1, meterRegistry.get("employee.accessor.calls").tag("operation", "get")
+				.tag("outcome", "success").timer().count());
+		assertEquals(1, meterRegistry.get("employee.accessor.attempts").tag("operation", "get")
+				.tag("status", "200").timer().count());
+		assertEquals(body.getBytes(StandardCharsets.UTF_8).length, meterRegistry.get("employee.accessor.payload")
+				.tag("operation", "get").summary().totalAmount());
+		assertTrue(meterRegistry.find("employee.accessor.retries").counters().isEmpty());
+	}
+
+	@Test
+	void testCancel_MetricsAreNotErrors() {
+		doReturn(new CompletableFuture<>()).when(httpClient).sendAsync(any(), any());
+
+		asyncEmployeeAccessor.executeAsync("get", "http://localhost/employee/1", Object.class, null, HttpMethod.GET)
+				.cancel(true);
+
+		assertEquals(1, meterRegistry.get("employee.accessor.calls").tag("operation", "get")
+				.tag("outcome", "CANCELLED").timer().count());
+		assertEquals(1, meterRegistry.get("employee.accessor.attempts").tag("operation", "get")
+				.tag("status", "CANCELLED").timer().count());
+		assertTrue(meterRegistry.find("employee.accessor.errors").counters().isEmpty());
+	}
+
+	@Test
+	void testGetEmployee_RateLimited() {
+		asyncEmployeeAccessor.shutdown();
+		rateLimiter = new UpstreamRateLimiter(0.001, 1, 0, new SimpleMeterRegistry());
+		asyncEmployeeAccessor = accessor(rateLimiter);
+		doReturn(response(200, EmployeeUtility.fetch1Employee())).when(httpClient).sendAsync(any(), any());
+
+		assertTrue(asyncEmployeeAccessor.getEmployee("1").join().isPresent());
+		CompletionException exception = assertThrows(CompletionException.class,
+				() -> asyncEmployeeAccessor.getEmployee("1").join());
+
+		assertEquals(EmployeeAccessorError.RATE_LIMITED.getMessage(), exception.getCause().getMessage());
+		Mockito.verify(httpClient, Mockito.times(1)).sendAsync(any(HttpRequest.class), any());
+	}
+
+	private double revalidations(String result) {
+		return meterRegistry.get("employee.accessor.revalidation").tag("result", result).counter().count();
+	}
+
+	private static CompletableFuture<HttpResponse<byte[]>> response(int status, String body) {
+		return response(status, body, Map.of());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static CompletableFuture<HttpResponse<byte[]>> response(int status, String body,
+			Map<String, List<String>> headers) {
+		HttpResponse<byte[]> response = mock(HttpResponse.class);
+		when(response.statusCode()).thenReturn(status);
+		when(response.body()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+		when(response.headers()).thenReturn(HttpHeaders.of(headers, (name, value) -> true));
+		return CompletableFuture.completedFuture(response);
+	}
+}
@@ -1,45 +1,56 @@
 package com.reliaquest.employee.accessor;
 
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
-import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
 import org.springframework.retry.RetryCallback;
 import org.springframework.retry.RetryPolicy;
 import org.springframework.retry.backoff.ExponentialBackOffPolicy;
 import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.reliaquest.employee.accessor.pojo.EmployeeData;
-import com.reliaquest.employee.accessor.pojo.EmployeeReponse;
-import com.reliaquest.employee.accessor.pojo.EmployeeRequest;
+import com.reliaquest.employee.accessor.support.UpstreamGuard;
+import com.reliaquest.employee.accessor.support.UpstreamRateLimiter;
+import com.reliaquest.employee.accessor.support.ValidatorCache;
+import com.reliaquest.employee.exception.EmployeeAccessorError;
 import com.reliaquest.employee.exception.EmployeeAccessorException;
 import com.reliaquest.employee.util.EmployeeUtility;
 
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 public class EmployeeAccessorTest {
 	private RestTemplate restTemplate;
 	private RetryTemplate retryTemplate;
 	private ObjectMapper objectMapper;
 	private EmployeeAccessor employeeAccessor;
+	private SimpleMeterRegistry meterRegistry;
+	private UpstreamGuard upstreamGuard;
 
 	@BeforeEach
 	void setUp() {
@@ -54,108 +65,204 @@ public class EmployeeAccessorTest {
 		backOffPolicy.setMultiplier(2);
 		retryTemplate.setBackOffPolicy(backOffPolicy);
 		objectMapper = new ObjectMapper();
-		employeeAccessor = new EmployeeAccessor(objectMapper, restTemplate, retryTemplate);
+		upstreamGuard = new UpstreamGuard(CircuitBreakerRegistry.ofDefaults(),
+				BulkheadRegistry.ofDefaults());
+		meterRegistry = new SimpleMeterRegistry();
+		employeeAccessor = new EmployeeAccessor(objectMapper, restTemplate, retryTemplate, upstreamGuard,
+				new UpstreamRateLimiter(0, 1, 0, meterRegistry), meterRegistry);
 	}
 
 	@Test
 	void testFetchAllEmployee_Success() throws Throwable {
 		String responseBody = EmployeeUtility.fetchAllEmployee();
-		ResponseEntity<String> responseEntity = new ResponseEntity<>(responseBody, HttpStatus.OK);
-
-		when(restTemplate.getForEntity(Mockito.eq("null/employees"), Mockito.eq(String.class)))
-				.thenReturn(responseEntity);
-		Optional<List<EmployeeData>> result = employeeAccessor.fetchAllEmployee();
+		mockResponse("null/employees", HttpMethod.GET, responseBody, HttpStatus.OK);
+		EmployeeAccessor.EmployeeList result = employeeAccessor.fetchAllEmployee(null);
 
-		assertTrue(result.isPresent());
-		assertEquals(24, result.get().size());
+		assertTrue(result.modified());
+		assertEquals(24, result.employees().get().size());
 	}
 
 	@Test
 	void testFetchAllEmployee_NotFound() throws Throwable {
-		when(restTemplate.getForEntity(Mockito.eq("null/employees"), Mockito.eq(String.class)))
+		when(restTemplate.execute(Mockito.eq("null/employees"), Mockito.eq(HttpMethod.GET), any(),
+				ArgumentMatchers.<ResponseExtractor<Object>>any()))
 				.thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
 
-		assertThrows(EmployeeAccessorException.class, () -> employeeAccessor.fetchAllEmployee());
+		assertThrows(EmployeeAccessorException.class, () -> employeeAccessor.fetchAllEmployee(null));
+	}
+
+	@Test
+	void testRetry() throws Throwable {
+		when(restTemplate.execute(Mockito.eq("null/employees"), Mockito.eq(HttpMethod.GET), any(),
+				ArgumentMatchers.<ResponseExtractor<Object>>any()))
+				.thenThrow(new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR));
+
+		assertThrows(EmployeeAccessorException.class, () -> employeeAccessor.fetchAllEmployee(null));
+		Mockito.verify(restTemplate, Mockito.times(3)).execute(Mockito.eq("null/employees"),
+				Mockito.eq(HttpMethod.GET), any(), ArgumentMatchers.<ResponseExtractor<Object>>any());
 	}
 
 	@Test
-	void testGetEmployee_Success() throws Throwable {
-		String responseBody = EmployeeUtility.fetch1Employee();
-		ResponseEntity<String> responseEntity = new ResponseEntity<>(responseBody, HttpStatus.OK);
+	void testRetry_Metrics() throws Throwable {
+		when(restTemplate.execute(Mockito.eq("null/employees"), Mockito.eq(HttpMethod.GET), any(),
+				ArgumentMatchers.<ResponseExtractor<Object>>any()))
+				.thenThrow(new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR));
+
+		assertThrows(EmployeeAccessorException.class, () -> employeeAccessor.fetchAllEmployee(null));
+		assertEquals(3, meterRegistry.get("employee.accessor.attempts").tag("operation", "list")
+				.tag("status", "500").timer().count());
+		assertEquals(2, meterRegistry.get("employee.accessor.retries").tag("operation", "list").counter().count());
+		assertEquals(1, meterRegistry.get("employee.accessor.calls").tag("operation", "list")
+				.tag("outcome", "SERVICE_NETWORK_ERROR").timer().count());
+		assertEquals(1, meterRegistry.get("employee.accessor.errors").tag("operation", "list")
+				.tag("error", "SERVICE_NETWORK_ERROR").counter().count());
+	}
 
-		when(restTemplate.getForEntity(Mockito.eq("null/employee/1"), Mockito.eq(String.class)))
-				.thenReturn(responseEntity);
+	@Test
+	void testFetchAllEmployee_Metrics() throws Throwable {
+		final String body = EmployeeUtility.fetchAllEmployee();
+		mockResponse("null/employees", HttpMethod.GET, body, HttpStatus.OK);
 
-		Optional<EmployeeData> result = employeeAccessor.getEmployee("1");
+		employeeAccessor.fetchAllEmployee(null);
 
-		assertTrue(result.isPresent());
-		assertEquals(1, result.get().getId());
-		assertEquals("Rahul Anand", result.get().getName());
+		assertEquals(1, meterRegistry.get("employee.accessor.calls").tag("operation", "list")
+				.tag("outcome", "success").timer().count());
+		assertEquals(1, meterRegistry.get("employee.accessor.attempts").tag("operation", "list")
+				.tag("status", "200").timer().count());
+		assertEquals(body.getBytes(StandardCharsets.UTF_8).length, meterRegistry.get("employee.accessor.payload")
+				.tag("operation", "list").summary().totalAmount());
+		assertEquals(24, meterRegistry.get("employee.accessor.records").tag("operation", "list").summary()
+				.totalAmount());
+		assertTrue(meterRegistry.find("employee.accessor.retries").counters().isEmpty());
 	}
 
 	@Test
-	void testGetEmployee_NotFound() throws Throwable {
-		String responseBody = EmployeeUtility.fetchEmptyEmployee();
-		ResponseEntity<String> responseEntity = new ResponseEntity<>(responseBody, HttpStatus.OK);
+	void testFetchAllEmployee_ParsingError() throws Throwable {
+		mockResponse("null/employees", HttpMethod.GET, "{\"status\":", HttpStatus.OK);
 
-		when(restTemplate.getForEntity(Mockito.eq("null/employee/1"), Mockito.eq(String.class)))
-				.thenReturn(responseEntity);
-		Optional<EmployeeData> result = employeeAccessor.getEmployee("1");
-		assertFalse(result.isPresent());
+		EmployeeAccessorException exception = assertThrows(EmployeeAccessorException.class,
+				() -> employeeAccessor.fetchAllEmployee(null));
+		assertEquals(EmployeeAccessorError.JSON_PARSSING_ERROR.getMessage(), exception.getMessage());
+		Mockito.verify(restTemplate, Mockito.times(1)).execute(Mockito.eq("null/employees"),
+				Mockito.eq(HttpMethod.GET), any(), ArgumentMatchers.<ResponseExtractor<Object>>any());
 	}
 
 	@Test
-	void testCreate_Success() throws Throwable {
-		EmployeeRequest request = new EmployeeRequest();
-		request.setName("Rahul Anand");
-		request.setAge(29);
-		request.setSalary(2900);
+	void testFetchAllEmployee_UnexpectedStatus() throws Throwable {
+		mockResponse("null/employees", HttpMethod.GET, "", HttpStatus.ACCEPTED);
 
-		String requestBody = objectMapper.writeValueAsString(request);
-		String responseBody = EmployeeUtility.fetch1Employee();
-		ResponseEntity<String> responseEntity = new ResponseEntity<>(responseBody, HttpStatus.OK);
+		assertThrows(EmployeeAccessorException.class, () -> employeeAccessor.fetchAllEmployee(null));
+	}
 
-		when(restTemplate.postForEntity(Mockito.eq("null/create"), Mockito.eq(requestBody), Mockito.eq(String.class)))
-				.thenReturn(responseEntity);
+	@Test
+	void testFetchAllEmployee_UnchangedContentIsNotParsedAgain() throws Throwable {
+		mockResponse("null/employees", HttpMethod.GET, EmployeeUtility.fetchAllEmployee(), HttpStatus.OK);
 
-		Optional<EmployeeData> result = employeeAccessor.create(request);
+		EmployeeAccessor.EmployeeList first = employeeAccessor.fetchAllEmployee(null);
+		EmployeeAccessor.EmployeeList second = employeeAccessor.fetchAllEmployee(first.version());
 
-		assertTrue(result.isPresent());
-		assertEquals(1, result.get().getId());
-		assertEquals("Rahul Anand", result.get().getName());
+		assertFalse(second.modified());
+		assertTrue(second.employees().isEmpty());
+		assertEquals(first.version(), second.version());
+		assertEquals(1, revalidations("hit"));
+		assertEquals(1, revalidations("miss"));
 	}
 
 	@Test
-	void testCreate_ParsingError() throws Exception {
-		EmployeeRequest request = new EmployeeRequest();
-		request.setName("Rahul Anand");
-		request.setAge(29);
-		request.setSalary(2900);
-		ObjectMapper objectMapper1 = mock(ObjectMapper.class);
-		when(objectMapper1.writeValueAsString(request)).thenThrow(JsonProcessingException.class);
+	void testFetchAllEmployee_UnchangedContentIsHashedBeforeParsing() throws Throwable {
+		// would fail to parse, so it can only be not modified if it was never parsed
+		String body = "not json";
+		mockResponse("null/employees", HttpMethod.GET, body, HttpStatus.OK);
+		String version = new ValidatorCache.Entry(null, null,
+				ValidatorCache.contentHash(body.getBytes(StandardCharsets.UTF_8)), null).version();
 
-		assertThrows(EmployeeAccessorException.class, () -> employeeAccessor.create(request));
+		EmployeeAccessor.EmployeeList list = employeeAccessor.fetchAllEmployee(version);
+
+		assertFalse(list.modified());
+		assertEquals(version, list.version());
+		assertEquals(1, revalidations("hit"));
 	}
 
 	@Test
-	void testDelete_Success() throws Throwable {
-		ResponseEntity<String> responseEntity = new ResponseEntity<>(HttpStatus.OK);
+	void testFetchAllEmployee_WithoutVersionIsParsed() throws Throwable {
+		mockResponse("null/employees", HttpMethod.GET, EmployeeUtility.fetchAllEmployee(), HttpStatus.OK);
 
-		when(restTemplate.exchange(Mockito.eq("null/delete/1"), Mockito.eq(HttpMethod.DELETE),
-				Mockito.eq(HttpEntity.EMPTY), Mockito.eq(String.class))).thenReturn(responseEntity);
+		employeeAccessor.fetchAllEmployee(null);
+		EmployeeAccessor.EmployeeList second = employeeAccessor.fetchAllEmployee(null);
 
-		assertDoesNotThrow(() -> employeeAccessor.delete("1"));
+		assertTrue(second.modified());
+		assertEquals(24, second.employees().get().size());
+		assertEquals(2, revalidations("miss"));
 	}
 
 	@Test
-	void testRetry() throws Throwable {
-		when(restTemplate.exchange(Mockito.eq("null/delete/1"), Mockito.eq(HttpMethod.DELETE),
-				Mockito.eq(HttpEntity.EMPTY), Mockito.eq(String.class)))
-				.thenThrow(new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR));
+	void testFetchAllEmployee_ChangedContentIsParsed() throws Throwable {
+		mockResponse("null/employees", HttpMethod.GET, EmployeeUtility.fetchAllEmployee(), HttpStatus.OK);
+		EmployeeAccessor.EmployeeList first = employeeAccessor.fetchAllEmployee(null);
+
+		mockResponse("null/employees", HttpMethod.GET, EmployeeUtility.fetchAllEmployee().replace("Tiger", "Lion"),
+				HttpStatus.OK);
+		EmployeeAccessor.EmployeeList second = employeeAccessor.fetchAllEmployee(first.version());
+
+		assertTrue(second.modified());
+		assertNotEquals(first.version(), second.version());
+		assertEquals("Lion Nixon", second.employees().get().get(0).getName());
+		assertEquals(2, revalidations("miss"));
+	}
+
+	@Test
+	void testFetchAllEmployee_NotModifiedIsNotParsed() throws Throwable {
+		List<HttpHeaders> requestHeaders = new ArrayList<>();
+		when(restTemplate.execute(Mockito.eq("null/employees"), Mockito.eq(HttpMethod.GET), any(),
+				ArgumentMatchers.<ResponseExtractor<Object>>any())).thenAnswer(invocation -> {
+					MockClientHttpRequest request = new MockClientHttpRequest();
+					((RequestCallback) invocation.getArgument(2)).doWithRequest(request);
+					requestHeaders.add(request.getHeaders());
+					MockClientHttpResponse response;
+					if (requestHeaders.size() == 1) {
+						response = new MockClientHttpResponse(
+								EmployeeUtility.fetchAllEmployee().getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+						response.getHeaders().setETag("\"v1\"");
+					} else {
+						response = new MockClientHttpResponse(new byte[0], HttpStatus.NOT_MODIFIED);
+					}
+					return ((ResponseExtractor<?>) invocation.getArgument(3)).extractData(response);
+				});
+
+		EmployeeAccessor.EmployeeList first = employeeAccessor.fetchAllEmployee(null);
+		EmployeeAccessor.EmployeeList second = employeeAccessor.fetchAllEmployee(first.version());
+
+		assertTrue(requestHeaders.get(0).getIfNoneMatch().isEmpty());
+		assertEquals(List.of("\"v1\""), requestHeaders.get(1).getIfNoneMatch());
+		assertFalse(second.modified());
+		assertEquals(1, revalidations("hit"));
+	}
+
+	@Test
+	void testFetchAllEmployee_RateLimited() throws Throwable {
+		employeeAccessor = new EmployeeAccessor(objectMapper, restTemplate, new RetryTemplate(), upstreamGuard,
+				new UpstreamRateLimiter(0.001, 1, 0, meterRegistry), meterRegistry);
+		mockResponse("null/employees", HttpMethod.GET, EmployeeUtility.fetchAllEmployee(), HttpStatus.OK);
+
+		assertTrue(employeeAccessor.fetchAllEmployee(null).modified());
+		EmployeeAccessorException exception = assertThrows(EmployeeAccessorException.class,
+				() -> employeeAccessor.fetchAllEmployee(null));
+		assertEquals(EmployeeAccessorError.RATE_LIMITED, exception.getError());
+	}
+
+	private double revalidations(String result) {
+		return meterRegistry.get("employee.accessor.revalidation").tag("result", result).counter().count();
+	}
 
-		assertThrows(EmployeeAccessorException.class, () -> employeeAccessor.delete("1"));
-		Mockito.verify(restTemplate, Mockito.times(3)).exchange(Mockito.eq("null/delete/1"),
-				Mockito.eq(HttpMethod.DELETE), Mockito.eq(HttpEntity.EMPTY), Mockito.eq(String.class));
+	/**
+	 * Stub RestTemplate so that the accessor's own response extractor decodes the
+	 * given body
+	 */
+	private void mockResponse(String url, HttpMethod method, String body, HttpStatus status) {
+		when(restTemplate.execute(Mockito.eq(url), Mockito.eq(method), any(),
+				ArgumentMatchers.<ResponseExtractor<Object>>any()))
+				.thenAnswer(invocation -> ((ResponseExtractor<?>) invocation.getArgument(3))
+						.extractData(new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), status)));
 	}
 
 }
@@ -0,0 +1,130 @@
+package com.reliaquest.employee.accessor.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ClassifiedRetryPolicyTest {
+	private RetryBudget retryBudget;
+	private RetryTemplate retryTemplate;
+	private List<Long> sleeps;
+
+	@BeforeEach
+	void setUp() {
+		retryBudget = new RetryBudget(0.2, 10);
+		sleeps = new ArrayList<>();
+		retryTemplate = retryTemplate(retryBudget);
+	}
+
+	@Test
+	void testNotFoundIsNotRetried() {
+		AtomicInteger attempts = new AtomicInteger();
+		assertThrows(HttpClientErrorException.class, () -> execute(attempts, () -> {
+			throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+		}));
+		assertEquals(1, attempts.get());
+		assertTrue(sleeps.isEmpty());
+	}
+
+	@Test
+	void testServerErrorIsRetried() {
+		AtomicInteger attempts = new AtomicInteger();
+		assertThrows(HttpServerErrorException.class, () -> execute(attempts, () -> {
+			throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+		}));
+		assertEquals(3, attempts.get());
+		assertEquals(2, sleeps.size());
+		// full jitter never exceeds the capped exponential interval
+		assertTrue(sleeps.get(0) <= 100);
+		assertTrue(sleeps.get(1) <= 200);
+	}
+
+	@Test
+	void testNetworkErrorRecovers() {
+		AtomicInteger attempts = new AtomicInteger();
+		String result = execute(attempts, () -> {
+			if (attempts.get() == 1)
+				throw new ResourceAccessException("Connection reset");
+			return "OK";
+		});
+		assertEquals("OK", result);
+		assertEquals(2, attempts.get());
+	}
+
+	@Test
+	void testTooManyRequestsHonoursRetryAfter() {
+		AtomicInteger attempts = new AtomicInteger();
+		String result = execute(attempts, () -> {
+			if (attempts.get() == 1)
+				throw tooManyRequests("2");
+			return "OK";
+		});
+		assertEquals("OK", result);
+		assertEquals(List.of(2000L), sleeps);
+	}
+
+	@Test
+	void testRetryAfterBeyondLimitIsNotRetried() {
+		AtomicInteger attempts = new AtomicInteger();
+		assertThrows(HttpClientErrorException.class, () -> execute(attempts, () -> {
+			throw tooManyRequests("120");
+		}));
+		assertEquals(1, attempts.get());
+	}
+
+	@Test
+	void testRetryBudgetLimitsRetries() {
+		RetryBudget smallBudget = new RetryBudget(0.5, 1);
+		retryTemplate = retryTemplate(smallBudget);
+		AtomicInteger attempts = new AtomicInteger();
+		assertThrows(HttpServerErrorException.class, () -> execute(attempts, () -> {
+			throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+		}));
+		// balance is capped at one token so only a single retry fits in the budget
+		assertEquals(2, attempts.get());
+		assertEquals(0.0, smallBudget.getBalance());
+	}
+
+	private RetryTemplate retryTemplate(RetryBudget budget) {
+		RetryTemplate template = new RetryTemplate();
+		template.setRetryPolicy(
+				new ClassifiedRetryPolicy(3, Duration.ofSeconds(5), budget, new SimpleMeterRegistry()));
+		RetryAfterBackOffPolicy backOffPolicy = new RetryAfterBackOffPolicy(100, 2, 1000);
+		backOffPolicy.setSleeper(sleeps::add);
+		template.setBackOffPolicy(backOffPolicy);
+		return template;
+	}
+
+	private String execute(AtomicInteger attempts, Supplier<String> call) {
+		return retryTemplate.execute((RetryCallback<String, RuntimeException>) context -> {
+			attempts.incrementAndGet();
+			return call.get();
+		});
+	}
+
+	private static HttpClientErrorException tooManyRequests(String retryAfter) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(HttpHeaders.RETRY_AFTER, retryAfter);
+		return HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", headers,
+				new byte[0], StandardCharsets.UTF_8);
+	}
+}
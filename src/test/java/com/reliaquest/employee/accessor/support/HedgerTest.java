@@ -0,0 +1,142 @@
+package com.reliaquest.employee.accessor.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class HedgerTest {
+	private Hedger hedger;
+	private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@AfterEach
+	void tearDown() {
+		hedger.shutdown();
+	}
+
+	@Test
+	void testDisabledOperationIsNotHedged() throws Exception {
+		hedger = new Hedger("get", 0.95, 10, 10, 1, 5, meterRegistry);
+		List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+
+		CompletableFuture<String> result = hedger.call("list", () -> newAttempt(attempts));
+		Thread.sleep(100);
+
+		assertEquals(1, attempts.size());
+		assertFalse(result.isDone());
+	}
+
+	@Test
+	void testCreateCannotBeHedged() {
+		hedger = new Hedger("get, create", 0.95, 10, 10, 1, 5, meterRegistry);
+		assertTrue(hedger.isEnabled("get"));
+		assertFalse(hedger.isEnabled("create"));
+	}
+
+	@Test
+	void testSlowAttemptIsHedgedAndLoserCancelled() throws Exception {
+		hedger = new Hedger("get", 0.95, 20, 10, 1, 5, meterRegistry);
+		List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+
+		CompletableFuture<String> result = hedger.call("get", () -> newAttempt(attempts));
+		waitForAttempts(attempts, 2);
+		attempts.get(1).complete("hedge");
+
+		assertEquals("hedge", result.get(1, TimeUnit.SECONDS));
+		assertTrue(attempts.get(0).isCancelled());
+		assertEquals(1, meterRegistry.get("employee.accessor.hedge.sent").counter().count());
+		assertEquals(1, meterRegistry.get("employee.accessor.hedge.won").counter().count());
+	}
+
+	@Test
+	void testFastAttemptIsNotHedged() throws Exception {
+		hedger = new Hedger("get", 0.95, 200, 200, 1, 5, meterRegistry);
+
+		CompletableFuture<String> result = hedger.call("get", () -> CompletableFuture.completedFuture("primary"));
+		Thread.sleep(300);
+
+		assertEquals("primary", result.get());
+		assertTrue(meterRegistry.find("employee.accessor.hedge.sent").counters().isEmpty());
+	}
+
+	@Test
+	void testHedgeBudgetCapsExtraLoad() throws Exception {
+		hedger = new Hedger("get", 0.95, 10, 10, 0, 0, meterRegistry);
+		List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+
+		hedger.call("get", () -> newAttempt(attempts));
+		Thread.sleep(100);
+
+		assertEquals(1, attempts.size());
+		assertEquals(1, meterRegistry.get("employee.accessor.hedge.budget.exhausted").counter().count());
+	}
+
+	@Test
+	void testFailureWaitsForOutstandingHedge() throws Exception {
+		hedger = new Hedger("get", 0.95, 20, 10, 1, 5, meterRegistry);
+		List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+
+		CompletableFuture<String> result = hedger.call("get", () -> newAttempt(attempts));
+		waitForAttempts(attempts, 2);
+		attempts.get(0).completeExceptionally(new IllegalStateException("primary failed"));
+		assertFalse(result.isDone());
+		attempts.get(1).complete("hedge");
+
+		assertEquals("hedge", result.get(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void testCancelledPrimaryLatencyIsRecorded() throws Exception {
+		hedger = new Hedger("get", 1, 50, 10, 1, 5, meterRegistry);
+		// enough calls to recompute the percentile, every primary is cancelled after
+		// 50 ms by a hedge answering at once
+		for (int i = 0; i < 32; i++) {
+			List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+			CompletableFuture<String> result = hedger.call("get",
+					() -> attempts.isEmpty() ? newAttempt(attempts) : CompletableFuture.completedFuture("hedge"));
+			assertEquals("hedge", result.get(1, TimeUnit.SECONDS));
+			waitForCancel(attempts.get(0));
+		}
+
+		List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+		hedger.call("get", () -> newAttempt(attempts));
+		Thread.sleep(30);
+
+		// only the fast hedges would have lowered the delay to minDelay
+		assertEquals(1, attempts.size());
+	}
+
+	private static CompletableFuture<String> newAttempt(List<CompletableFuture<String>> attempts) {
+		CompletableFuture<String> attempt = new CompletableFuture<>();
+		attempts.add(attempt);
+		return attempt;
+	}
+
+	private static void waitForAttempts(List<CompletableFuture<String>> attempts, int expected)
+			throws InterruptedException {
+		for (int i = 0; i < 100 && attempts.size() < expected; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(expected, attempts.size());
+	}
+
+	/**
+	 * The primary is cancelled on the thread completing the result, possibly after
+	 * the caller has seen the result.
+	 */
+	private static void waitForCancel(CompletableFuture<String> attempt) throws InterruptedException {
+		for (int i = 0; i < 100 && !attempt.isCancelled(); i++) {
+			Thread.sleep(10);
+		}
+		assertTrue(attempt.isCancelled());
+	}
+}
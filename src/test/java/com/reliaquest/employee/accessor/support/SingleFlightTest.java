@@ -0,0 +1,188 @@
+package com.reliaquest.employee.accessor.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.reliaquest.employee.exception.EmployeeAccessorException;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SingleFlightTest {
+	private SimpleMeterRegistry meterRegistry;
+	private SingleFlight<String, String> singleFlight;
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		singleFlight = new SingleFlight<>("list", meterRegistry);
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void testConcurrentCallersShareOneCall() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger upstreamCalls = new AtomicInteger();
+
+		Future<String> leader = executor.submit(() -> singleFlight.execute("ALL", () -> {
+			upstreamCalls.incrementAndGet();
+			started.countDown();
+			await(release);
+			return "employees";
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		List<Future<String>> followers = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			followers.add(executor.submit(() -> singleFlight.execute("ALL", () -> {
+				upstreamCalls.incrementAndGet();
+				return "other";
+			})));
+		}
+		// let the followers join the in-flight call before it completes
+		Thread.sleep(200);
+		release.countDown();
+
+		assertEquals("employees", leader.get(5, TimeUnit.SECONDS));
+		for (Future<String> follower : followers) {
+			assertEquals("employees", follower.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, upstreamCalls.get());
+		DistributionSummary summary = meterRegistry.get("employee.accessor.coalesced.callers").summary();
+		assertEquals(1, summary.count());
+		assertEquals(4, summary.totalAmount());
+	}
+
+	@Test
+	void testExceptionIsSharedAndNotCached() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Future<String> leader = executor.submit(() -> singleFlight.execute("1", () -> {
+			started.countDown();
+			await(release);
+			throw new EmployeeAccessorException("upstream down");
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		Future<String> follower = executor.submit(() -> singleFlight.execute("1", () -> "unexpected"));
+		Thread.sleep(200);
+		release.countDown();
+
+		ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+		ExecutionException followerError = assertThrows(ExecutionException.class,
+				() -> follower.get(5, TimeUnit.SECONDS));
+		assertTrue(leaderError.getCause() instanceof EmployeeAccessorException);
+		assertTrue(followerError.getCause() instanceof EmployeeAccessorException);
+
+		assertEquals("recovered", singleFlight.execute("1", () -> "recovered"));
+	}
+
+	@Test
+	void testErrorIsSharedWithFollowers() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Future<String> leader = executor.submit(() -> singleFlight.execute("1", () -> {
+			started.countDown();
+			await(release);
+			throw new StackOverflowError();
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		Future<String> follower = executor.submit(() -> singleFlight.execute("1", () -> "unexpected"));
+		Thread.sleep(200);
+		release.countDown();
+
+		ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+		ExecutionException followerError = assertThrows(ExecutionException.class,
+				() -> follower.get(5, TimeUnit.SECONDS));
+		assertTrue(leaderError.getCause() instanceof StackOverflowError);
+		assertTrue(followerError.getCause() instanceof StackOverflowError);
+	}
+
+	@Test
+	void testAsyncCallersShareOneCall() {
+		CompletableFuture<String> upstream = new CompletableFuture<>();
+		AtomicInteger upstreamCalls = new AtomicInteger();
+
+		List<CompletableFuture<String>> callers = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			callers.add(singleFlight.executeAsync("1", () -> {
+				upstreamCalls.incrementAndGet();
+				return upstream;
+			}));
+		}
+		upstream.complete("employee");
+
+		for (CompletableFuture<String> caller : callers) {
+			assertEquals("employee", caller.join());
+		}
+		assertEquals(1, upstreamCalls.get());
+		DistributionSummary summary = meterRegistry.get("employee.accessor.coalesced.callers").summary();
+		assertEquals(1, summary.count());
+		assertEquals(3, summary.totalAmount());
+
+	}
+
+	@Test
+	void testAsyncFailureIsSharedAndNotCached() {
+		CompletableFuture<String> upstream = new CompletableFuture<>();
+		CompletableFuture<String> leader = singleFlight.executeAsync("1", () -> upstream);
+		CompletableFuture<String> follower = singleFlight.executeAsync("1",
+				() -> CompletableFuture.completedFuture("unexpected"));
+		upstream.completeExceptionally(new EmployeeAccessorException("upstream down"));
+
+		CompletionException leaderError = assertThrows(CompletionException.class, leader::join);
+		CompletionException followerError = assertThrows(CompletionException.class, follower::join);
+		assertTrue(leaderError.getCause() instanceof EmployeeAccessorException);
+		assertTrue(followerError.getCause() instanceof EmployeeAccessorException);
+
+		assertEquals("recovered",
+				singleFlight.executeAsync("1", () -> CompletableFuture.completedFuture("recovered")).join());
+	}
+
+	@Test
+	void testAsyncCancelledCallerDoesNotCancelOthers() {
+		CompletableFuture<String> upstream = new CompletableFuture<>();
+		CompletableFuture<String> leader = singleFlight.executeAsync("1", () -> upstream);
+		CompletableFuture<String> follower = singleFlight.executeAsync("1", () -> upstream);
+
+		leader.cancel(true);
+		upstream.complete("employee");
+
+		assertFalse(upstream.isCancelled());
+		assertEquals("employee", follower.join());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package com.reliaquest.employee.accessor.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.reliaquest.employee.exception.EmployeeAccessorError;
+import com.reliaquest.employee.exception.EmployeeAccessorException;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+
+public class UpstreamGuardTest {
+	private UpstreamGuard upstreamGuard;
+
+	@BeforeEach
+	void setUp() {
+		CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerConfig.custom().slidingWindowSize(4)
+				.minimumNumberOfCalls(4).failureRateThreshold(50).waitDurationInOpenState(Duration.ofMinutes(1))
+				.recordException(e -> !(e instanceof EmployeeAccessorException accessorException
+						&& accessorException.getError() == EmployeeAccessorError.API_RESOURCE_NOT_FOUND))
+				.ignoreExceptions(BulkheadFullException.class).build();
+		BulkheadConfig bulkheadConfig = BulkheadConfig.custom().maxConcurrentCalls(1).maxWaitDuration(Duration.ZERO)
+				.build();
+		upstreamGuard = new UpstreamGuard(CircuitBreakerRegistry.of(circuitBreakerConfig),
+				BulkheadRegistry.of(bulkheadConfig));
+	}
+
+	@Test
+	void testCircuitOpensAndFailsFast() {
+		for (int i = 0; i < 4; i++) {
+			assertThrows(EmployeeAccessorException.class, () -> upstreamGuard.call("list", () -> {
+				throw new EmployeeAccessorException(EmployeeAccessorError.SERVICE_NETWORK_ERROR);
+			}));
+		}
+		assertEquals(CircuitBreaker.State.OPEN, upstreamGuard.getState("list"));
+
+		EmployeeAccessorException exception = assertThrows(EmployeeAccessorException.class,
+				() -> upstreamGuard.call("list", () -> "not called"));
+		assertEquals(EmployeeAccessorError.CIRCUIT_OPEN, exception.getError());
+		// circuits are per operation
+		assertEquals("called", upstreamGuard.call("get", () -> "called"));
+	}
+
+	@Test
+	void testNotFoundDoesNotOpenCircuit() {
+		for (int i = 0; i < 4; i++) {
+			assertThrows(EmployeeAccessorException.class, () -> upstreamGuard.call("get", () -> {
+				throw new EmployeeAccessorException(EmployeeAccessorError.API_RESOURCE_NOT_FOUND);
+			}));
+		}
+		assertEquals(CircuitBreaker.State.CLOSED, upstreamGuard.getState("get"));
+	}
+
+	@Test
+	void testBulkheadRejectsWhenFull() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			executor.submit(() -> upstreamGuard.call("list", () -> {
+				started.countDown();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return "done";
+			}));
+			started.await(5, TimeUnit.SECONDS);
+
+			EmployeeAccessorException exception = assertThrows(EmployeeAccessorException.class,
+					() -> upstreamGuard.call("get", () -> "rejected"));
+			assertEquals(EmployeeAccessorError.BULKHEAD_FULL, exception.getError());
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+		assertEquals(CircuitBreaker.State.CLOSED, upstreamGuard.getState("get"));
+	}
+
+	@Test
+	void testAsyncCallsShareCircuitAndBulkhead() {
+		for (int i = 0; i < 4; i++) {
+			CompletableFuture<String> failed = upstreamGuard.callAsync("get", () -> CompletableFuture
+					.failedFuture(new EmployeeAccessorException(EmployeeAccessorError.SERVICE_NETWORK_ERROR)));
+			assertThrows(CompletionException.class, failed::join);
+		}
+		assertEquals(CircuitBreaker.State.OPEN, upstreamGuard.getState("get"));
+		EmployeeAccessorException open = assertThrows(EmployeeAccessorException.class,
+				() -> upstreamGuard.call("get", () -> "not called"));
+		assertEquals(EmployeeAccessorError.CIRCUIT_OPEN, open.getError());
+
+		CompletableFuture<String> pending = new CompletableFuture<>();
+		assertSame(pending, upstreamGuard.callAsync("list", () -> pending));
+		CompletionException full = assertThrows(CompletionException.class,
+				() -> upstreamGuard.callAsync("delete", () -> CompletableFuture.completedFuture("rejected")).join());
+		assertEquals(EmployeeAccessorError.BULKHEAD_FULL, ((EmployeeAccessorException) full.getCause()).getError());
+
+		// a cancelled call frees the bulkhead and is not recorded
+		pending.cancel(true);
+		assertEquals("called", upstreamGuard.callAsync("delete", () -> CompletableFuture.completedFuture("called"))
+				.join());
+		assertEquals(CircuitBreaker.State.CLOSED, upstreamGuard.getState("list"));
+	}
+}
@@ -0,0 +1,106 @@
+package com.reliaquest.employee.accessor.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.reliaquest.employee.accessor.support.UpstreamRateLimiter.Priority;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class UpstreamRateLimiterTest {
+	private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void testBurstThenRejectAfterMaxWait() {
+		UpstreamRateLimiter limiter = new UpstreamRateLimiter(0.001, 2, 50, meterRegistry);
+
+		assertTrue(limiter.acquire(Priority.HIGH));
+		assertTrue(limiter.acquire(Priority.LOW));
+		assertFalse(limiter.acquire(Priority.HIGH));
+		assertEquals(1, meterRegistry.get("employee.accessor.ratelimit.rejected").tag("priority", "high").counter()
+				.count());
+		assertEquals(0, limiter.queued(Priority.HIGH));
+	}
+
+	@Test
+	void testDisabledLimiterNeverBlocks() {
+		UpstreamRateLimiter limiter = new UpstreamRateLimiter(0, 1, 0, meterRegistry);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(limiter.acquire(Priority.LOW));
+		}
+	}
+
+	@Test
+	void testHighPriorityOvertakesQueuedLowPriority() throws Exception {
+		UpstreamRateLimiter limiter = new UpstreamRateLimiter(5, 1, 2000, meterRegistry);
+		assertTrue(limiter.acquire(Priority.HIGH));
+		List<Priority> served = new CopyOnWriteArrayList<>();
+
+		Thread low = new Thread(() -> {
+			if (limiter.acquire(Priority.LOW))
+				served.add(Priority.LOW);
+		});
+		low.start();
+		waitForQueued(limiter, Priority.LOW);
+		Thread high = new Thread(() -> {
+			if (limiter.acquire(Priority.HIGH))
+				served.add(Priority.HIGH);
+		});
+		high.start();
+		waitForQueued(limiter, Priority.HIGH);
+
+		low.join(2000);
+		high.join(2000);
+		assertEquals(List.of(Priority.HIGH, Priority.LOW), served);
+	}
+
+	@Test
+	void testAsyncWaitersAreServedByPriority() throws Exception {
+		UpstreamRateLimiter limiter = new UpstreamRateLimiter(20, 1, 2000, meterRegistry);
+		try {
+			assertTrue(limiter.acquireAsync(Priority.HIGH).join());
+			List<Priority> served = new CopyOnWriteArrayList<>();
+			CompletableFuture<Boolean> low = limiter.acquireAsync(Priority.LOW);
+			low.thenRun(() -> served.add(Priority.LOW));
+			CompletableFuture<Boolean> high = limiter.acquireAsync(Priority.HIGH);
+			high.thenRun(() -> served.add(Priority.HIGH));
+			assertFalse(low.isDone());
+
+			assertTrue(low.get(2, TimeUnit.SECONDS));
+			assertTrue(high.get(2, TimeUnit.SECONDS));
+			assertEquals(List.of(Priority.HIGH, Priority.LOW), served);
+		} finally {
+			limiter.shutdown();
+		}
+	}
+
+	@Test
+	void testCancelledWaiterLeavesTheQueue() {
+		UpstreamRateLimiter limiter = new UpstreamRateLimiter(0.001, 1, 60000, meterRegistry);
+		try {
+			assertTrue(limiter.acquireAsync(Priority.HIGH).join());
+			CompletableFuture<Boolean> waiting = limiter.acquireAsync(Priority.LOW);
+			assertEquals(1, limiter.queued(Priority.LOW));
+
+			waiting.cancel(false);
+			assertEquals(0, limiter.queued(Priority.LOW));
+		} finally {
+			limiter.shutdown();
+		}
+	}
+
+	private static void waitForQueued(UpstreamRateLimiter limiter, Priority priority) throws InterruptedException {
+		for (int i = 0; i < 100 && limiter.queued(priority) == 0; i++) {
+			Thread.sleep(1);
+		}
+		assertEquals(1, limiter.queued(priority));
+	}
+}
@@ -0,0 +1,114 @@
+package com.reliaquest.employee.controller;
+
+import static com.reliaquest.employee.util.EmployeeUtility.employee;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reliaquest.employee.controller.impl.EmployeeController;
+import com.reliaquest.employee.exception.handler.RestExceptionHandler;
+import com.reliaquest.employee.model.EmployeeDTO;
+import com.reliaquest.employee.service.EmployeeService;
+import com.reliaquest.employee.service.support.EmployeeColumns;
+import com.reliaquest.employee.service.support.EmployeePage;
+
+public class EmployeeControllerFieldsTest {
+	private static final EmployeeDTO EMPLOYEE = employee(1, "Rahul Anand", 2900, 29, "r.png");
+
+	private EmployeeService employeeService;
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		employeeService = mock(EmployeeService.class);
+		mockMvc = MockMvcBuilders.standaloneSetup(new EmployeeController(employeeService, new ObjectMapper()))
+				.setControllerAdvice(new RestExceptionHandler()).build();
+	}
+
+	@Test
+	void testListIsProjected() throws Exception {
+		when(employeeService.fetchAllEmployee())
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(List.of(EMPLOYEE))));
+		MvcResult result = mockMvc.perform(get("/").param("fields", "id,name")).andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(content().json("[{\"id\":1,\"name\":\"Rahul Anand\"}]", true));
+		result = mockMvc.perform(get("/")).andExpect(request().asyncStarted()).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].profileImageUrl").value("r.png"));
+	}
+
+	@Test
+	void testPageIsProjected() throws Exception {
+		when(employeeService.fetchEmployeePage(any(), any(), any(), any())).thenReturn(CompletableFuture.completedFuture(
+				Optional.of(new EmployeePage(EmployeeColumns.of(List.of(EMPLOYEE)).asList(), null))));
+		MvcResult result = mockMvc.perform(get("/").param("limit", "1").param("fields", "age"))
+				.andExpect(request().asyncStarted()).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(content().json("[{\"age\":29}]", true));
+	}
+
+	@Test
+	void testAsyncEmployeeIsProjected() throws Exception {
+		when(employeeService.getEmployeeAsync("1")).thenReturn(CompletableFuture.completedFuture(EMPLOYEE));
+		MvcResult result = mockMvc.perform(get("/1").param("fields", "salary"))
+				.andExpect(request().asyncStarted()).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(content().json("{\"salary\":2900}", true));
+	}
+
+	@Test
+	void testStreamIsProjected() throws Exception {
+		when(employeeService.fetchAllEmployee())
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(List.of(EMPLOYEE))));
+		MvcResult result = mockMvc.perform(get("/").param("fields", "id").accept(MediaType.APPLICATION_NDJSON))
+				.andExpect(request().asyncStarted()).andReturn();
+		result = mockMvc.perform(asyncDispatch(result)).andExpect(request().asyncStarted()).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+				.andExpect(content().string("{\"id\":1}\n"));
+	}
+
+	@Test
+	void testFieldsOnlyOnReads() throws Exception {
+		when(employeeService.createAsync(EMPLOYEE))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(EMPLOYEE)));
+		MvcResult result = mockMvc.perform(post("/").param("fields", "id").contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(EMPLOYEE))).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.name").value("Rahul Anand"));
+	}
+
+	@Test
+	void testUnknownField() throws Exception {
+		mockMvc.perform(get("/search/Rahul").param("fields", "id,email")).andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.title").value("INVALID_FIELDS"));
+		mockMvc.perform(get("/search/Rahul").param("fields", "email").accept(MediaType.APPLICATION_NDJSON))
+				.andExpect(status().isBadRequest()).andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.title").value("INVALID_FIELDS"));
+		mockMvc.perform(get("/1").param("fields", "")).andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.title").value("INVALID_FIELDS"));
+		// rejected while binding, before the service is called
+		verifyNoInteractions(employeeService);
+	}
+}
@@ -4,28 +4,49 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.reliaquest.employee.controller.impl.EmployeeController;
+import com.reliaquest.employee.controller.support.EmployeeProjection;
+import com.reliaquest.employee.exception.EmployeeAccessorException;
+import com.reliaquest.employee.exception.EmployeeNotFoundException;
+import com.reliaquest.employee.model.EmployeeBatchRequestDTO;
+import com.reliaquest.employee.model.EmployeeBatchResultDTO;
 import com.reliaquest.employee.model.EmployeeDTO;
+import com.reliaquest.employee.model.EmployeeSortField;
+import com.reliaquest.employee.model.EmployeeStatsDTO;
+import com.reliaquest.employee.model.SortDirection;
 import com.reliaquest.employee.service.EmployeeService;
+import com.reliaquest.employee.service.support.EmployeePage;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -47,7 +68,7 @@ public class EmployeeControllerTest {
 	@BeforeEach
 	void setUp() {
 		MockitoAnnotations.openMocks(this);
-		employeeController = new EmployeeController(employeeService);
+		employeeController = new EmployeeController(employeeService, new ObjectMapper());
 	}
 
 	// @Test
@@ -78,8 +99,9 @@ public class EmployeeControllerTest {
 
 	@Test
 	void testGetAllEmployees_EmptyList() {
-		when(employeeService.fetchAllEmployee()).thenReturn(Optional.of(new ArrayList<>()));
-		ResponseEntity<List<EmployeeDTO>> response = employeeController.getAllEmployees();
+		when(employeeService.fetchAllEmployee())
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(new ArrayList<>())));
+		ResponseEntity<Object> response = employeeController.getAllEmployees(null, null, null, null, null).join();
 		assertEquals(HttpStatus.OK, response.getStatusCode());
 	}
 
@@ -91,12 +113,106 @@ public class EmployeeControllerTest {
 		employeeDTO.setAge(29);
 		employeeDTO.setSalary(2900);
 		employeeList.add(employeeDTO);
-		when(employeeService.fetchAllEmployee()).thenReturn(Optional.of(employeeList));
-		ResponseEntity<List<EmployeeDTO>> response = employeeController.getAllEmployees();
+		when(employeeService.fetchAllEmployee())
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(employeeList)));
+		ResponseEntity<Object> response = employeeController.getAllEmployees(null, null, null, null, null).join();
 		assertEquals(HttpStatus.OK, response.getStatusCode());
 		assertEquals(employeeList, response.getBody());
 	}
 
+	@Test
+	void testGetAllEmployees_Page() {
+		EmployeeDTO employeeDTO = new EmployeeDTO();
+		employeeDTO.setName("Rahul");
+		when(employeeService.fetchEmployeePage(EmployeeSortField.SALARY, SortDirection.DESC, null, 1))
+				.thenReturn(CompletableFuture
+						.completedFuture(Optional.of(new EmployeePage(List.of(employeeDTO), "next"))));
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.setQueryString("limit=1&sort=salary&direction=desc");
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+		try {
+			ResponseEntity<Object> response = employeeController.getAllEmployees(1, null, EmployeeSortField.SALARY,
+					SortDirection.DESC, null).join();
+			assertEquals(HttpStatus.OK, response.getStatusCode());
+			assertEquals(List.of(employeeDTO), response.getBody());
+			assertEquals("<http://localhost/?limit=1&sort=salary&direction=desc&cursor=next>; rel=\"next\"",
+					response.getHeaders().getFirst(HttpHeaders.LINK));
+		} finally {
+			RequestContextHolder.resetRequestAttributes();
+		}
+		verify(employeeService, never()).fetchAllEmployee();
+	}
+
+	@Test
+	void testGetAllEmployees_LastPage() {
+		when(employeeService.fetchEmployeePage(null, null, "cursor", null))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(new EmployeePage(List.of(), null))));
+		ResponseEntity<Object> response = employeeController.getAllEmployees(null, "cursor", null, null, null).join();
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(List.of(), response.getBody());
+		assertFalse(response.getHeaders().containsKey(HttpHeaders.LINK));
+	}
+
+	@Test
+	void testGetAllEmployees_InvalidPageRequest() throws Exception {
+		mockMvc.perform(get("/").param("limit", "0")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/").param("sort", "bogus")).andExpect(status().isBadRequest());
+		// sort in lower case is accepted, the cursor is rejected before the snapshot is read
+		mockMvc.perform(get("/").param("sort", "salary").param("direction", "desc").param("cursor", "bogus"))
+				.andExpect(status().isBadRequest()).andExpect(jsonPath("$.title").value("INVALID_CURSOR"));
+	}
+
+	@Test
+	void testStreamAllEmployees() throws Exception {
+		List<EmployeeDTO> employeeList = new ArrayList<>();
+		for (int id = 1; id <= 3; id++) {
+			EmployeeDTO employeeDTO = new EmployeeDTO();
+			employeeDTO.setId(id);
+			employeeDTO.setName("Rahul " + id);
+			employeeDTO.setSalary(2900);
+			employeeList.add(employeeDTO);
+		}
+		when(employeeService.fetchAllEmployee())
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(employeeList)));
+		ResponseEntity<StreamingResponseBody> response = employeeController.streamAllEmployees(null).join();
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		response.getBody().writeTo(out);
+		String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+		assertEquals(3, lines.length);
+		ObjectMapper objectMapper = new ObjectMapper();
+		for (int i = 0; i < lines.length; i++) {
+			assertEquals(employeeList.get(i), objectMapper.readValue(lines[i], EmployeeDTO.class));
+		}
+		assertTrue(out.toString(StandardCharsets.UTF_8).endsWith("}\n"));
+	}
+
+	@Test
+	void testStreamEmployeesByNameSearch_Fields() throws Exception {
+		EmployeeDTO employeeDTO = new EmployeeDTO();
+		employeeDTO.setId(7);
+		employeeDTO.setName("Rahul Anand");
+		employeeDTO.setSalary(2900);
+		when(employeeService.searchEmployee("Rahul", false, false))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(List.of(employeeDTO))));
+		ResponseEntity<StreamingResponseBody> response = employeeController.streamEmployeesByNameSearch("Rahul", false,
+				false, false, EmployeeProjection.valueOf("name,id")).join();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		response.getBody().writeTo(out);
+		assertEquals("{\"id\":7,\"name\":\"Rahul Anand\"}\n", out.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testStreamEmployeesByNameSearch_EmployeeNotFound() {
+		when(employeeService.searchEmployee("Rahul", true, false))
+				.thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+		ResponseEntity<StreamingResponseBody> response = employeeController.streamEmployeesByNameSearch("Rahul", true,
+				false, false, null).join();
+		assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+	}
+
 	@Test
 	void testGetEmployeesByNameSearch_EmployeeFound() {
 		String searchString = "Rahul";
@@ -107,9 +223,11 @@ public class EmployeeControllerTest {
 		employeeDTO.setSalary(2900);
 		employeeList.add(employeeDTO);
 
-		when(employeeService.searchEmployee(searchString)).thenReturn(Optional.of(employeeList));
+		when(employeeService.searchEmployee(searchString, false, false))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(employeeList)));
 
-		ResponseEntity<List<EmployeeDTO>> responseEntity = employeeController.getEmployeesByNameSearch(searchString);
+		ResponseEntity<Object> responseEntity = employeeController.getEmployeesByNameSearch(searchString, false, false,
+				false, null).join();
 		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
 		assertEquals(employeeList, responseEntity.getBody());
 	}
@@ -118,11 +236,27 @@ public class EmployeeControllerTest {
 	void testGetEmployeesByNameSearch_EmployeeNotFound() {
 		String searchString = "Rahul";
 		Optional<List<EmployeeDTO>> optionalEmployeeList = Optional.empty();
-		when(employeeService.searchEmployee(searchString)).thenReturn(optionalEmployeeList);
-		ResponseEntity<List<EmployeeDTO>> responseEntity = employeeController.getEmployeesByNameSearch(searchString);
+		when(employeeService.searchEmployee(searchString, false, false))
+				.thenReturn(CompletableFuture.completedFuture(optionalEmployeeList));
+		ResponseEntity<Object> responseEntity = employeeController.getEmployeesByNameSearch(searchString, false, false,
+				false, null).join();
 		assertEquals(HttpStatus.NO_CONTENT, responseEntity.getStatusCode());
 	}
 
+	@Test
+	void testGetEmployeesByNameSearch_Fuzzy() {
+		String searchString = "Rahul Anad";
+		EmployeeDTO employeeDTO = new EmployeeDTO();
+		employeeDTO.setName("Rahul Anand");
+		when(employeeService.fuzzySearchEmployee(searchString))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(List.of(employeeDTO))));
+		ResponseEntity<Object> responseEntity = employeeController.getEmployeesByNameSearch(searchString, false,
+				false, true, null).join();
+		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+		assertEquals(List.of(employeeDTO), responseEntity.getBody());
+		verify(employeeService, never()).searchEmployee(searchString, false, false);
+	}
+
 	@Test
 	void testGetEmployeeById_EmployeeFound() {
 		// Mock data
@@ -133,8 +267,8 @@ public class EmployeeControllerTest {
 		employeeDTO.setSalary(2900);
 		employeeDTO.setId(1);
 
-		when(employeeService.getEmployee(id)).thenReturn(employeeDTO);
-		ResponseEntity<EmployeeDTO> responseEntity = employeeController.getEmployeeById(id);
+		when(employeeService.getEmployeeAsync(id)).thenReturn(CompletableFuture.completedFuture(employeeDTO));
+		ResponseEntity<Object> responseEntity = employeeController.getEmployeeById(id, null).join();
 		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
 	}
 
@@ -143,40 +277,95 @@ public class EmployeeControllerTest {
 		String id = "2";
 		Optional<EmployeeDTO> optionalEmployee = Optional.empty();
 
-		when(employeeService.getEmployee(id)).thenReturn(null); // Employee not found
-		ResponseEntity<EmployeeDTO> responseEntity = employeeController.getEmployeeById(id);
+		when(employeeService.getEmployeeAsync(id))
+				.thenReturn(CompletableFuture.failedFuture(new EmployeeNotFoundException())); // Employee not found
+		CompletionException exception = assertThrows(CompletionException.class,
+				() -> employeeController.getEmployeeById(id, null).join());
+		assertTrue(exception.getCause() instanceof EmployeeNotFoundException);
+	}
+
+	@Test
+	void testGetEmployeesByIds_Success() {
+		List<String> ids = List.of("1", "2");
+		List<EmployeeBatchResultDTO> results = List.of(EmployeeBatchResultDTO.found("1", new EmployeeDTO()),
+				EmployeeBatchResultDTO.notFound("2"));
+		when(employeeService.getEmployees(ids)).thenReturn(CompletableFuture.completedFuture(results));
+		ResponseEntity<List<EmployeeBatchResultDTO>> responseEntity = employeeController
+				.getEmployeesByIds(new EmployeeBatchRequestDTO(ids)).join();
 		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+		assertEquals(results, responseEntity.getBody());
+	}
+
+	@Test
+	void testGetEmployeesByIds_EmptyIds() throws Exception {
+		mockMvc.perform(post("/batch/get").contentType(MediaType.APPLICATION_JSON).content("{\"ids\": []}"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void testGetEmployeesByIds_NonNumericId() throws Exception {
+		mockMvc.perform(post("/batch/get").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"ids\": [\"1\", \"../delete/2\"]}")).andExpect(status().isBadRequest());
+		Mockito.verifyNoInteractions(employeeService);
 	}
 
 	@Test
 	void testGetHighestSalaryOfEmployees_Success() {
 		int highestSalary = 100000;
-		when(employeeService.getHighestSalary()).thenReturn(highestSalary);
-		ResponseEntity<Integer> responseEntity = employeeController.getHighestSalaryOfEmployees();
+		when(employeeService.getHighestSalary()).thenReturn(CompletableFuture.completedFuture(highestSalary));
+		ResponseEntity<Integer> responseEntity = employeeController.getHighestSalaryOfEmployees().join();
 		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
 		assertEquals(highestSalary, responseEntity.getBody());
 	}
 
 	@Test
 	void testGetHighestSalaryOfEmployees_NoData() {
-		when(employeeService.getHighestSalary()).thenReturn(0);
-		ResponseEntity<Integer> responseEntity = employeeController.getHighestSalaryOfEmployees();
+		when(employeeService.getHighestSalary()).thenReturn(CompletableFuture.completedFuture(0));
+		ResponseEntity<Integer> responseEntity = employeeController.getHighestSalaryOfEmployees().join();
 		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
 	}
 
 	@Test
 	void testGetTopTenHighestEarningEmployeeNames_Success() {
 		List<String> topTenNames = Arrays.asList("Rahul", "Pranav", "Chinmay");
-		when(employeeService.getTop10HighestPaidEmployee(10)).thenReturn(Optional.of(topTenNames));
-		ResponseEntity<List<String>> responseEntity = employeeController.getTopTenHighestEarningEmployeeNames();
+		when(employeeService.getTop10HighestPaidEmployee(10))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(topTenNames)));
+		ResponseEntity<List<String>> responseEntity = employeeController
+				.getTopTenHighestEarningEmployeeNames(10).join();
 		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
 		assertEquals(topTenNames, responseEntity.getBody());
 	}
 
 	@Test
 	void testGetTopTenHighestEarningEmployeeNames_NoData() {
-		when(employeeService.getTop10HighestPaidEmployee(10)).thenReturn(Optional.empty());
-		ResponseEntity<List<String>> responseEntity = employeeController.getTopTenHighestEarningEmployeeNames();
+		when(employeeService.getTop10HighestPaidEmployee(10))
+				.thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+		ResponseEntity<List<String>> responseEntity = employeeController
+				.getTopTenHighestEarningEmployeeNames(10).join();
+		assertEquals(HttpStatus.NO_CONTENT, responseEntity.getStatusCode());
+	}
+
+	@Test
+	void testGetTopTenHighestEarningEmployeeNames_InvalidLimit() throws Exception {
+		mockMvc.perform(get("/topTenHighestEarningEmployeeNames").param("limit", "0"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/topTenHighestEarningEmployeeNames").param("limit", "1001"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void testGetEmployeeStats_Success() {
+		EmployeeStatsDTO stats = new EmployeeStatsDTO(1, null, null, List.of(), List.of());
+		when(employeeService.getStats()).thenReturn(CompletableFuture.completedFuture(Optional.of(stats)));
+		ResponseEntity<EmployeeStatsDTO> responseEntity = employeeController.getEmployeeStats().join();
+		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+		assertEquals(stats, responseEntity.getBody());
+	}
+
+	@Test
+	void testGetEmployeeStats_NoData() {
+		when(employeeService.getStats()).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+		ResponseEntity<EmployeeStatsDTO> responseEntity = employeeController.getEmployeeStats().join();
 		assertEquals(HttpStatus.NO_CONTENT, responseEntity.getStatusCode());
 	}
 
@@ -186,8 +375,9 @@ public class EmployeeControllerTest {
 		employeeInput.setName("Rahul Anand");
 		employeeInput.setSalary(50000);
 		employeeInput.setAge(29);
-		when(employeeService.create(employeeInput)).thenReturn(Optional.of(employeeInput));
-		ResponseEntity<EmployeeDTO> responseEntity = employeeController.createEmployee(employeeInput);
+		when(employeeService.createAsync(employeeInput))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(employeeInput)));
+		ResponseEntity<EmployeeDTO> responseEntity = employeeController.createEmployee(employeeInput).join();
 		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
 		assertEquals(employeeInput, responseEntity.getBody());
 	}
@@ -198,7 +388,9 @@ public class EmployeeControllerTest {
 		employeeInput.setName("Rahul Anand");
 		employeeInput.setSalary(50000);
 		employeeInput.setAge(29);
-		ResponseEntity<EmployeeDTO> responseEntity = employeeController.createEmployee(employeeInput);
+		when(employeeService.createAsync(employeeInput))
+				.thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+		ResponseEntity<EmployeeDTO> responseEntity = employeeController.createEmployee(employeeInput).join();
 		assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
 		assertNull(responseEntity.getBody());
 	}
@@ -209,9 +401,22 @@ public class EmployeeControllerTest {
 		employeeInput.setName("Rahul Anand");
 		employeeInput.setSalary(50000);
 		employeeInput.setAge(29);
-		when(employeeService.create(employeeInput)).thenReturn(Optional.empty());
+		when(employeeService.createAsync(employeeInput))
+				.thenReturn(CompletableFuture.failedFuture(new EmployeeAccessorException()));
+
+		assertThrows(CompletionException.class, () -> employeeController.createEmployee(employeeInput).join());
+	}
+
+	@Test
+	void testCreateEmployee_EmptyResponse() {
+		EmployeeDTO employeeInput = new EmployeeDTO();
+		employeeInput.setName("Rahul Anand");
+		employeeInput.setSalary(50000);
+		employeeInput.setAge(29);
+		when(employeeService.createAsync(employeeInput))
+				.thenReturn(CompletableFuture.completedFuture(Optional.empty()));
 
-		ResponseEntity<EmployeeDTO> responseEntity = employeeController.createEmployee(employeeInput);
+		ResponseEntity<EmployeeDTO> responseEntity = employeeController.createEmployee(employeeInput).join();
 
 		assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
 		assertNull(responseEntity.getBody());
@@ -221,8 +426,9 @@ public class EmployeeControllerTest {
 	void testDeleteEmployeeById_Success() {
 
 		String id = "1";
-		ResponseEntity<String> responseEntity = employeeController.deleteEmployeeById(id);
-		verify(employeeService).delete(id);
+		when(employeeService.deleteAsync(id)).thenReturn(CompletableFuture.completedFuture(null));
+		ResponseEntity<String> responseEntity = employeeController.deleteEmployeeById(id).join();
+		verify(employeeService).deleteAsync(id);
 		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
 		assertEquals("SUCCESS", responseEntity.getBody());
 	}
@@ -0,0 +1,64 @@
+package com.reliaquest.employee.controller.support;
+
+import static com.reliaquest.employee.util.EmployeeUtility.employee;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reliaquest.employee.exception.InvalidFieldsException;
+import com.reliaquest.employee.model.EmployeeDTO;
+import com.reliaquest.employee.model.EmployeeField;
+import com.reliaquest.employee.service.support.EmployeeRowView;
+
+public class EmployeeProjectionTest {
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void testValueOf() {
+		assertNull(EmployeeProjection.valueOf(null));
+		assertSame(EmployeeProjection.valueOf("id,name"), EmployeeProjection.valueOf(" NAME , id,"));
+		assertThrows(InvalidFieldsException.class, () -> EmployeeProjection.valueOf("id,email"));
+		assertThrows(InvalidFieldsException.class, () -> EmployeeProjection.valueOf(""));
+		assertThrows(InvalidFieldsException.class, () -> EmployeeProjection.valueOf(" , "));
+	}
+
+	@Test
+	void testProjectedFieldsInDtoOrder() throws Exception {
+		EmployeeDTO employee = employee(3, "Rahul \"R\" Anand", null, 29, "https://example.com/r.png");
+		assertEquals("{\"id\":3,\"name\":\"Rahul \\\"R\\\" Anand\"}",
+				objectMapper.writeValueAsString(EmployeeProjection.valueOf("name,id").of(employee)));
+		assertEquals("{\"salary\":null,\"age\":29}",
+				objectMapper.writeValueAsString(EmployeeProjection.valueOf("age,salary").of(employee)));
+	}
+
+	@Test
+	void testAllFieldsMatchBeanSerializer() throws Exception {
+		List<EmployeeDTO> employees = List.of(employee(1, "Tiger Nixon", 320800, 61, "a.png"),
+				employee(2, null, null, null, null));
+		EmployeeProjection all = EmployeeProjection.valueOf("id,name,salary,age,profileImageUrl");
+		assertEquals(objectMapper.writeValueAsString(employees), objectMapper.writeValueAsString(all.of(employees)));
+		assertEquals("[]", objectMapper.writeValueAsString(all.of(List.of())));
+	}
+
+	@Test
+	void testRowViewReadsProjectedFieldsOnly() throws Exception {
+		EmployeeRowView employees = mock(EmployeeRowView.class);
+		when(employees.size()).thenReturn(1);
+		when(employees.get(0, EnumSet.of(EmployeeField.ID, EmployeeField.AGE)))
+				.thenReturn(employee(3, null, null, 29, null));
+		assertEquals("[{\"id\":3,\"age\":29}]",
+				objectMapper.writeValueAsString(EmployeeProjection.valueOf("age,id").of(employees)));
+		verify(employees, never()).get(0);
+	}
+}
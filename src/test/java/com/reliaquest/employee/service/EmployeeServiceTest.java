@@ -1,14 +1,21 @@
 package com.reliaquest.employee.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,116 +23,248 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
+import com.reliaquest.employee.accessor.AsyncEmployeeAccessor;
 import com.reliaquest.employee.accessor.EmployeeAccessor;
 import com.reliaquest.employee.accessor.pojo.EmployeeData;
 import com.reliaquest.employee.accessor.pojo.EmployeeRequest;
+import com.reliaquest.employee.exception.EmployeeAccessorError;
 import com.reliaquest.employee.exception.EmployeeAccessorException;
 import com.reliaquest.employee.exception.EmployeeNotFoundException;
+import com.reliaquest.employee.exception.InvalidCursorException;
+import com.reliaquest.employee.model.EmployeeBatchResultDTO;
 import com.reliaquest.employee.model.EmployeeDTO;
+import com.reliaquest.employee.model.EmployeeSortField;
+import com.reliaquest.employee.model.EmployeeStatsDTO;
+import com.reliaquest.employee.model.SortDirection;
+import com.reliaquest.employee.service.support.EmployeeCache;
+import com.reliaquest.employee.service.support.EmployeePage;
+import com.reliaquest.employee.service.support.EmployeeSnapshotCache;
+import com.reliaquest.employee.service.support.EmployeeStats;
 import com.reliaquest.employee.util.EmployeeUtility;
 import com.reliaquest.employee.util.MapperUtil;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 public class EmployeeServiceTest {
 
 	@Mock
 	private EmployeeAccessor employeeAccessor;
 
+	@Mock
+	private AsyncEmployeeAccessor asyncEmployeeAccessor;
+
 	private EmployeeService employeeService;
 
 	@BeforeEach
 	void setUp() {
 		MockitoAnnotations.openMocks(this);
-		employeeService = new EmployeeService(employeeAccessor);
+		// no caching, every list call is a load through the async accessor
+		EmployeeSnapshotCache snapshotCache = new EmployeeSnapshotCache(employeeAccessor, asyncEmployeeAccessor,
+				Duration.ZERO, Duration.ZERO, Duration.ZERO, null,
+				new EmployeeStats.Bands(new int[] { 100000 }, new int[] { 40 }), new SimpleMeterRegistry(),
+				Clock.systemUTC());
+		EmployeeCache employeeCache = new EmployeeCache(100, 60000, 60000, new SimpleMeterRegistry());
+		employeeService = new EmployeeService(asyncEmployeeAccessor, snapshotCache, employeeCache, 2, 2, 3);
 	}
 
 	@Test
 	void testFetchAllEmployee_Success() {
 		// Mock data
 		List<EmployeeData> mockEmployeeList = EmployeeUtility.getALlEmployee();
-		when(employeeAccessor.fetchAllEmployee()).thenReturn(Optional.of(mockEmployeeList));
-		Optional<List<EmployeeDTO>> result = employeeService.fetchAllEmployee();
+		when(asyncEmployeeAccessor.fetchAllEmployee(any()))
+				.thenReturn(CompletableFuture.completedFuture(EmployeeUtility.employeeList(mockEmployeeList)));
+		Optional<List<EmployeeDTO>> result = employeeService.fetchAllEmployee().join();
 		assertTrue(result.isPresent());
 		assertEquals(24, result.get().size());
 	}
 
+	@Test
+	void testFetchAllEmployee_UnchangedListIsNotConvertedAgain() {
+		EmployeeAccessor.EmployeeList fetched = EmployeeUtility.employeeList(EmployeeUtility.getALlEmployee());
+		when(asyncEmployeeAccessor.fetchAllEmployee(any()))
+				.thenReturn(CompletableFuture.completedFuture(fetched))
+				.thenReturn(CompletableFuture.completedFuture(EmployeeUtility.notModified(fetched.version())));
+		List<EmployeeDTO> first = employeeService.fetchAllEmployee().join().get();
+		List<EmployeeDTO> second = employeeService.fetchAllEmployee().join().get();
+		assertSame(first, second);
+	}
+
 	@Test
 	void testFetchAllEmployee_EmptyList() {
-		when(employeeAccessor.fetchAllEmployee()).thenReturn(Optional.of(Collections.emptyList()));
-		Optional<List<EmployeeDTO>> result = employeeService.fetchAllEmployee();
+		when(asyncEmployeeAccessor.fetchAllEmployee(any()))
+				.thenReturn(CompletableFuture.completedFuture(EmployeeUtility.employeeList(Collections.emptyList())));
+		Optional<List<EmployeeDTO>> result = employeeService.fetchAllEmployee().join();
 		assertTrue(result.isPresent());
 		assertTrue(result.get().isEmpty());
 	}
 
 	@Test
 	void testFetchAllEmployee_ThrowException() {
-		when(employeeAccessor.fetchAllEmployee()).thenThrow(EmployeeAccessorException.class);
-		assertThrows(EmployeeAccessorException.class, () -> employeeService.fetchAllEmployee());
+		when(asyncEmployeeAccessor.fetchAllEmployee(any()))
+				.thenReturn(CompletableFuture.failedFuture(new EmployeeAccessorException()));
+		CompletionException exception = assertThrows(CompletionException.class,
+				() -> employeeService.fetchAllEmployee().join());
+		assertTrue(exception.getCause() instanceof EmployeeAccessorException);
 	}
 
 	@Test
 	void testSearchEmployee_Success() {
 		List<EmployeeData> mockEmployeeList = EmployeeUtility.getALlEmployee();
-		when(employeeAccessor.fetchAllEmployee()).thenReturn(Optional.of(mockEmployeeList));
-		Optional<List<EmployeeDTO>> result = employeeService.searchEmployee("Tiger");
+		when(asyncEmployeeAccessor.fetchAllEmployee(any()))
+				.thenReturn(CompletableFuture.completedFuture(EmployeeUtility.employeeList(mockEmployeeList)));
+		Optional<List<EmployeeDTO>> result = employeeService.searchEmployee("Tiger").join();
 		assertTrue(result.isPresent());
 		assertEquals(1, result.get().size());
 		assertEquals("Tiger Nixon", result.get().get(0).getName());
 	}
 
 	@Test
-	void testSearchEmployee_Empty() {
+	void testSearchEmployee_IgnoreCase() {
 		List<EmployeeData> mockEmployeeList = EmployeeUtility.getALlEmployee();
-		when(employeeAccessor.fetchAllEmployee()).thenReturn(Optional.of(mockEmployeeList));
-		Optional<List<EmployeeDTO>> result = employeeService.searchEmployee("Rahul");
-		assertTrue(result.isEmpty());
+		when(asyncEmployeeAccessor.fetchAllEmployee(any()))
+				.thenReturn(CompletableFuture.completedFuture(EmployeeUtility.employeeList(mockEmployeeList)));
+		assertTrue(employeeService.searchEmployee("tiger nix").join().isEmpty());
+		Optional<List<EmployeeDTO>> result = employeeService.searchEmployee("tiger nix", true, false).join();
+		assertTrue(result.isPresent());
+		assertEquals("Tiger Nixon", result.get().get(0).getName());
 	}
 
 	@Test
-	void testGetEmployee_Success() {
-		EmployeeData mockEmployee = EmployeeUtility.getALlEmployeeById();
-		when(employeeAccessor.getEmployee("1")).thenReturn(Optional.of(mockEmployee));
-		EmployeeDTO result = employeeService.getEmployee("1");
-		assertEquals(mockEmployee.getName(), result.getName());
-		assertEquals(mockEmployee.getAge(), result.getAge());
-		assertEquals(mockEmployee.getSalary(), result.getSalary());
+	void testFuzzySearchEmployee() {
+		List<EmployeeData> mockEmployeeList = EmployeeUtility.getALlEmployee();
+		when(asyncEmployeeAccessor.fetchAllEmployee(any()))
+				.thenReturn(CompletableFuture.completedFuture(EmployeeUtility.employeeList(mockEmployeeList)));
+		Optional<List<EmployeeDTO>> result = employeeService.fuzzySearchEmployee("tigre nixxon").join();
+		assertTrue(result.isPresent());
+		assertEquals(1, result.get().size());
+		assertEquals("Tiger Nixon", result.get().get(0).getName());
+		assertTrue(employeeService.fuzzySearchEmployee("Rahul Anand").join().isEmpty());
 	}
 
 	@Test
-	void testGetEmployee_NotFound() {
-		when(employeeAccessor.getEmployee("1")).thenReturn(Optional.empty());
-		assertThrows(EmployeeNotFoundException.class, () -> {
-			employeeService.getEmployee("1");
-		});
+	void testFetchEmployeePage() {
+		List<EmployeeData> mockEmployeeList = EmployeeUtility.getALlEmployee();
+		when(asyncEmployeeAccessor.fetchAllEmployee(any()))
+				.thenReturn(CompletableFuture.completedFuture(EmployeeUtility.employeeList(mockEmployeeList)));
+		EmployeePage first = employeeService.fetchEmployeePage(EmployeeSortField.AGE, SortDirection.DESC, null, 2)
+				.join().get();
+		assertEquals(List.of(66, 66), first.employees().stream().map(EmployeeDTO::getAge).toList());
+		EmployeePage second = employeeService.fetchEmployeePage(null, null, first.nextCursor(), 1).join().get();
+		assertEquals(64, second.employees().get(0).getAge());
+		assertEquals(21, employeeService.fetchEmployeePage(null, null, second.nextCursor(), null).join().get()
+				.employees().size());
+		assertThrows(InvalidCursorException.class,
+				() -> employeeService.fetchEmployeePage(EmployeeSortField.AGE, SortDirection.ASC, first.nextCursor(), 1));
+		assertThrows(InvalidCursorException.class,
+				() -> employeeService.fetchEmployeePage(null, null, "bogus", 1));
+	}
+
+	@Test
+	void testSearchEmployee_Empty() {
+		List<EmployeeData> mockEmployeeList = EmployeeUtility.getALlEmployee();
+		when(asyncEmployeeAccessor.fetchAllEmployee(any()))
+				.thenReturn(CompletableFuture.completedFuture(EmployeeUtility.employeeList(mockEmployeeList)));
+		Optional<List<EmployeeDTO>> result = employeeService.searchEmployee("Rahul").join();
+		assertTrue(result.isEmpty());
 	}
 
 	@Test
 	void testHighestSalary_Success() {
 		List<EmployeeData> mockEmployeeList = EmployeeUtility.getALlEmployee();
-		when(employeeAccessor.fetchAllEmployee()).thenReturn(Optional.of(mockEmployeeList));
-		Integer result = employeeService.getHighestSalary();
+		when(asyncEmployeeAccessor.fetchAllEmployee(any()))
+				.thenReturn(CompletableFuture.completedFuture(EmployeeUtility.employeeList(mockEmployeeList)));
+		Integer result = employeeService.getHighestSalary().join();
 		assertEquals(725000, result);
 	}
 
 	@Test
 	void testHighestSalary_EmptyList() {
 		List<EmployeeData> mockEmployeeList = new ArrayList<>();
-		when(employeeAccessor.fetchAllEmployee()).thenReturn(Optional.of(mockEmployeeList));
-		Integer result = employeeService.getHighestSalary();
+		when(asyncEmployeeAccessor.fetchAllEmployee(any()))
+				.thenReturn(CompletableFuture.completedFuture(EmployeeUtility.employeeList(mockEmployeeList)));
+		Integer result = employeeService.getHighestSalary().join();
 		assertEquals(0, result);
 	}
 
 	@Test
 	void getTop10HighestPaidEmployee_Success() {
 		List<EmployeeData> mockEmployeeList = EmployeeUtility.getALlEmployee();
-		when(employeeAccessor.fetchAllEmployee()).thenReturn(Optional.of(mockEmployeeList));
-		Optional<List<String>> result = employeeService.getTop10HighestPaidEmployee(10);
+		when(asyncEmployeeAccessor.fetchAllEmployee(any()))
+				.thenReturn(CompletableFuture.completedFuture(EmployeeUtility.employeeList(mockEmployeeList)));
+		Optional<List<String>> result = employeeService.getTop10HighestPaidEmployee(10).join();
 		assertTrue(result.isPresent());
 		assertEquals(10, result.get().size());
 		assertEquals("Paul Byrd", result.get().get(0));
 	}
 
 	@Test
-	void testCreate_Success() {
+	void testGetStats_Success() {
+		List<EmployeeData> mockEmployeeList = EmployeeUtility.getALlEmployee();
+		when(asyncEmployeeAccessor.fetchAllEmployee(any()))
+				.thenReturn(CompletableFuture.completedFuture(EmployeeUtility.employeeList(mockEmployeeList)));
+		EmployeeStatsDTO stats = employeeService.getStats().join().get();
+		assertEquals(24, stats.getHeadcount());
+		assertEquals(725000, stats.getSalary().getMax());
+		assertEquals(24, stats.getSalaryBands().stream().mapToLong(EmployeeStatsDTO.Band::getCount).sum());
+	}
+
+	@Test
+	void testGetStats_NoData() {
+		when(asyncEmployeeAccessor.fetchAllEmployee(any()))
+				.thenReturn(CompletableFuture.completedFuture(EmployeeUtility.employeeList(null)));
+		assertTrue(employeeService.getStats().join().isEmpty());
+	}
+
+	@Test
+	void testGetEmployeeAsync_Success() {
+		EmployeeData mockEmployee = EmployeeUtility.getALlEmployeeById();
+		when(asyncEmployeeAccessor.getEmployee("1"))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(mockEmployee)));
+		EmployeeDTO result = employeeService.getEmployeeAsync("1").join();
+		assertEquals(mockEmployee.getName(), result.getName());
+		assertEquals(mockEmployee.getSalary(), result.getSalary());
+	}
+
+	@Test
+	void testGetEmployeeAsync_CachedUntilCreated() {
+		EmployeeData created = EmployeeUtility.getALlEmployeeById();
+		String id = String.valueOf(created.getId());
+		when(asyncEmployeeAccessor.getEmployee(id)).thenReturn(CompletableFuture.completedFuture(Optional.empty()))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(created)));
+		when(asyncEmployeeAccessor.create(Mockito.any()))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(created)));
+
+		assertThrows(CompletionException.class, () -> employeeService.getEmployeeAsync(id).join());
+		assertThrows(CompletionException.class, () -> employeeService.getEmployeeAsync(id).join());
+		Mockito.verify(asyncEmployeeAccessor, Mockito.times(1)).getEmployee(id);
+
+		employeeService.createAsync(MapperUtil.convertToDto(created)).join();
+		assertEquals(created.getName(), employeeService.getEmployeeAsync(id).join().getName());
+		Mockito.verify(asyncEmployeeAccessor, Mockito.times(2)).getEmployee(id);
+	}
+
+	@Test
+	void testGetEmployeeAsync_NotFound() {
+		when(asyncEmployeeAccessor.getEmployee("1")).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+		CompletionException exception = assertThrows(CompletionException.class,
+				() -> employeeService.getEmployeeAsync("1").join());
+		assertTrue(exception.getCause() instanceof EmployeeNotFoundException);
+	}
+
+	@Test
+	void testGetEmployeeAsync_UpstreamNotFoundIsCached() {
+		when(asyncEmployeeAccessor.getEmployee("404")).thenReturn(CompletableFuture
+				.failedFuture(new EmployeeAccessorException(EmployeeAccessorError.API_RESOURCE_NOT_FOUND)));
+		for (int i = 0; i < 2; i++) {
+			CompletionException exception = assertThrows(CompletionException.class,
+					() -> employeeService.getEmployeeAsync("404").join());
+			assertTrue(exception.getCause() instanceof EmployeeNotFoundException);
+		}
+		Mockito.verify(asyncEmployeeAccessor, Mockito.times(1)).getEmployee("404");
+	}
+
+	@Test
+	void testCreateAsync_Success() {
 		EmployeeDTO mockEmployeeDTO = new EmployeeDTO();
 		mockEmployeeDTO.setName("Rahul Anand");
 		mockEmployeeDTO.setAge(29);
@@ -134,71 +273,132 @@ public class EmployeeServiceTest {
 		employeeData.setName("Rahul Anand");
 		employeeData.setAge(29);
 		employeeData.setSalary(2900);
-		when(employeeAccessor.create(MapperUtil.convertToRequest(mockEmployeeDTO)))
-				.thenReturn(Optional.of(employeeData));
-		Optional<EmployeeDTO> result = employeeService.create(mockEmployeeDTO);
+		when(asyncEmployeeAccessor.create(MapperUtil.convertToRequest(mockEmployeeDTO)))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(employeeData)));
+
+		Optional<EmployeeDTO> result = employeeService.createAsync(mockEmployeeDTO).join();
 
 		assertTrue(result.isPresent());
 		assertEquals(mockEmployeeDTO, result.get());
 	}
 
 	@Test
-	void testCreate_EmptyResponse() {
-
+	void testCreateAsync_EmptyResponse() {
 		EmployeeDTO mockEmployeeDTO = new EmployeeDTO();
 		mockEmployeeDTO.setName("Rahul Anand");
 		mockEmployeeDTO.setAge(29);
 		mockEmployeeDTO.setSalary(2900);
-		EmployeeData employeeData = new EmployeeData();
-		employeeData.setName("Rahul Anand");
-		employeeData.setAge(29);
-		employeeData.setSalary(2900);
-		when(employeeAccessor.create(MapperUtil.convertToRequest(mockEmployeeDTO))).thenReturn(Optional.empty());
+		when(asyncEmployeeAccessor.create(MapperUtil.convertToRequest(mockEmployeeDTO)))
+				.thenReturn(CompletableFuture.completedFuture(Optional.empty()));
 
-		Optional<EmployeeDTO> result = employeeService.create(mockEmployeeDTO);
+		Optional<EmployeeDTO> result = employeeService.createAsync(mockEmployeeDTO).join();
 
 		assertTrue(result.isEmpty());
 	}
 
 	@Test
-	void testCreate_Exception() {
+	void testCreateAsync_Exception() {
 		EmployeeDTO mockEmployeeDTO = new EmployeeDTO();
 		mockEmployeeDTO.setName("Rahul Anand");
 		mockEmployeeDTO.setAge(29);
 		mockEmployeeDTO.setSalary(2900);
-		EmployeeData employeeData = new EmployeeData();
-		employeeData.setName("Rahul Anand");
-		employeeData.setAge(29);
-		employeeData.setSalary(2900);
+		when(asyncEmployeeAccessor.create(MapperUtil.convertToRequest(mockEmployeeDTO)))
+				.thenReturn(CompletableFuture.failedFuture(new EmployeeAccessorException()));
 
-		when(employeeAccessor.create(MapperUtil.convertToRequest(mockEmployeeDTO)))
-				.thenThrow(new EmployeeAccessorException());
+		CompletionException exception = assertThrows(CompletionException.class,
+				() -> employeeService.createAsync(mockEmployeeDTO).join());
+		assertTrue(exception.getCause() instanceof EmployeeAccessorException);
+	}
 
-		assertThrows(EmployeeAccessorException.class, () -> {
-			employeeService.create(mockEmployeeDTO);
-		});
+	@Test
+	void testDeleteAsync_Success() {
+		when(asyncEmployeeAccessor.delete("123")).thenReturn(CompletableFuture.completedFuture(null));
+
+		employeeService.deleteAsync("123").join();
+
+		Mockito.verify(asyncEmployeeAccessor, Mockito.times(1)).delete("123");
 	}
 
 	@Test
-	void testDelete_Success() {
+	void testDeleteAsync_Exception() {
+		when(asyncEmployeeAccessor.delete("123"))
+				.thenReturn(CompletableFuture.failedFuture(new EmployeeAccessorException()));
+		CompletionException exception = assertThrows(CompletionException.class,
+				() -> employeeService.deleteAsync("123").join());
+		assertTrue(exception.getCause() instanceof EmployeeAccessorException);
+	}
 
-		employeeService.delete("123");
-		Mockito.verify(employeeAccessor, Mockito.times(1)).delete("123");
+	@Test
+	void testGetEmployees_MixedResults() {
+		EmployeeData mockEmployee = EmployeeUtility.getALlEmployeeById();
+		when(asyncEmployeeAccessor.getEmployee("1"))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(mockEmployee)));
+		when(asyncEmployeeAccessor.getEmployee("2")).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+		when(asyncEmployeeAccessor.getEmployee("3")).thenReturn(CompletableFuture
+				.failedFuture(new EmployeeAccessorException(EmployeeAccessorError.API_RESOURCE_NOT_FOUND)));
+		when(asyncEmployeeAccessor.getEmployee("4")).thenReturn(
+				CompletableFuture.failedFuture(new EmployeeAccessorException(EmployeeAccessorError.SERVICE_ERROR)));
+
+		List<EmployeeBatchResultDTO> results = employeeService.getEmployees(List.of("1", "2", " 1", "3", "4")).join();
+
+		assertEquals(4, results.size());
+		assertEquals(EmployeeBatchResultDTO.Status.FOUND, results.get(0).getStatus());
+		assertEquals(mockEmployee.getName(), results.get(0).getEmployee().getName());
+		assertEquals(EmployeeBatchResultDTO.Status.NOT_FOUND, results.get(1).getStatus());
+		assertEquals(EmployeeBatchResultDTO.Status.NOT_FOUND, results.get(2).getStatus());
+		assertEquals(EmployeeBatchResultDTO.Status.ERROR, results.get(3).getStatus());
+		assertEquals(EmployeeAccessorError.SERVICE_ERROR.name(), results.get(3).getError());
+		Mockito.verify(asyncEmployeeAccessor, Mockito.times(1)).getEmployee("1");
 	}
 
 	@Test
-	void testDelete_Exception() {
+	void testGetEmployees_BoundedConcurrency() {
+		List<CompletableFuture<Optional<EmployeeData>>> pending = new ArrayList<>();
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		when(asyncEmployeeAccessor.getEmployee(Mockito.anyString())).thenAnswer(invocation -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			CompletableFuture<Optional<EmployeeData>> future = new CompletableFuture<>();
+			pending.add(future);
+			return future;
+		});
 
-		String employeeId = "123";
-		Mockito.doThrow(new RuntimeException("Simulated deletion error")).when(employeeAccessor).delete(employeeId);
+		CompletableFuture<List<EmployeeBatchResultDTO>> results = employeeService
+				.getEmployees(List.of("1", "2", "3", "4", "5"));
+		for (int i = 0; i < pending.size(); i++) {
+			inFlight.decrementAndGet();
+			pending.get(i).complete(Optional.empty());
+		}
 
-		try {
-			employeeService.delete(employeeId);
-		} catch (Exception e) {
-			Mockito.verify(employeeAccessor, Mockito.times(1)).delete(employeeId);
-			assertTrue(e instanceof RuntimeException);
-			assertEquals("Simulated deletion error", e.getMessage());
+		assertEquals(5, results.join().size());
+		assertEquals(2, maxInFlight.get());
+	}
+
+	@Test
+	void testGetEmployees_ConcurrencyIsSharedByBatches() {
+		List<CompletableFuture<Optional<EmployeeData>>> pending = new ArrayList<>();
+		when(asyncEmployeeAccessor.getEmployee(Mockito.anyString())).thenAnswer(invocation -> {
+			CompletableFuture<Optional<EmployeeData>> future = new CompletableFuture<>();
+			pending.add(future);
+			return future;
+		});
+
+		CompletableFuture<List<EmployeeBatchResultDTO>> first = employeeService.getEmployees(List.of("1", "2", "3"));
+		CompletableFuture<List<EmployeeBatchResultDTO>> second = employeeService.getEmployees(List.of("4", "5"));
+		assertEquals(2, pending.size());
+
+		for (int i = 0; i < pending.size(); i++) {
+			pending.get(i).complete(Optional.empty());
 		}
+		assertEquals(3, first.join().size());
+		assertEquals(2, second.join().size());
+		assertEquals(5, pending.size());
+	}
+
+	@Test
+	void testBatchConcurrencyMustBePositive() {
+		assertThrows(IllegalArgumentException.class, () -> new EmployeeService(asyncEmployeeAccessor, null,
+				new EmployeeCache(100, 60000, 60000, new SimpleMeterRegistry()), 0, 2, 3));
 	}
 
 }
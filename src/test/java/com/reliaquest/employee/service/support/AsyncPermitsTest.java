@@ -0,0 +1,68 @@
+package com.reliaquest.employee.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class AsyncPermitsTest {
+
+	@Test
+	void testWaitersAreServedInOrder() {
+		AsyncPermits permits = new AsyncPermits(1);
+		CompletableFuture<Void> first = permits.acquire();
+		CompletableFuture<Void> second = permits.acquire();
+		CompletableFuture<Void> third = permits.acquire();
+
+		assertTrue(first.isDone());
+		assertFalse(second.isDone());
+		permits.release();
+		assertTrue(second.isDone());
+		assertFalse(third.isDone());
+	}
+
+	@Test
+	void testCancelledWaiterDoesNotTakeThePermit() {
+		AsyncPermits permits = new AsyncPermits(1);
+		permits.acquire();
+		CompletableFuture<Void> cancelled = permits.acquire();
+		CompletableFuture<Void> waiting = permits.acquire();
+
+		cancelled.cancel(false);
+		permits.release();
+
+		assertTrue(waiting.isDone());
+	}
+
+	@Test
+	void testChainedReleasesDoNotGrowTheStack() {
+		AsyncPermits permits = new AsyncPermits(1);
+		AtomicInteger completed = new AtomicInteger();
+		List<CompletableFuture<Void>> waiters = new ArrayList<>();
+		permits.acquire();
+		for (int i = 0; i < 100_000; i++) {
+			// work done at once releases from inside the previous release
+			waiters.add(permits.acquire().thenRun(() -> {
+				completed.incrementAndGet();
+				permits.release();
+			}));
+		}
+
+		permits.release();
+
+		assertEquals(100_000, completed.get());
+		assertTrue(permits.acquire().isDone());
+	}
+
+	@Test
+	void testPermitsMustBePositive() {
+		assertThrows(IllegalArgumentException.class, () -> new AsyncPermits(0));
+	}
+}
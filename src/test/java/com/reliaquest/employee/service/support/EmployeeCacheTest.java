@@ -0,0 +1,100 @@
+package com.reliaquest.employee.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.reliaquest.employee.exception.EmployeeAccessorError;
+import com.reliaquest.employee.exception.EmployeeAccessorException;
+import com.reliaquest.employee.model.EmployeeDTO;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class EmployeeCacheTest {
+	private SimpleMeterRegistry meterRegistry;
+	private EmployeeCache employeeCache;
+	private AtomicInteger loads;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		employeeCache = new EmployeeCache(100, 60000, 50, meterRegistry);
+		loads = new AtomicInteger();
+	}
+
+	@Test
+	void testFoundEmployeeIsCached() {
+		EmployeeDTO employee = new EmployeeDTO();
+		Optional<EmployeeDTO> first = employeeCache.getAsync("1", id -> load(Optional.of(employee))).join();
+		Optional<EmployeeDTO> second = employeeCache.getAsync("1", id -> load(Optional.empty())).join();
+
+		assertSame(employee, first.get());
+		assertSame(employee, second.get());
+		assertEquals(1, loads.get());
+		assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "employee.byId").tag("result", "hit")
+				.functionCounter().count());
+	}
+
+	@Test
+	void testNotFoundIsCachedForNegativeTtl() throws Exception {
+		assertTrue(employeeCache.getAsync("404", id -> load(Optional.empty())).join().isEmpty());
+		assertTrue(employeeCache.getAsync("404", id -> load(Optional.empty())).join().isEmpty());
+		assertEquals(1, loads.get());
+		assertEquals(1, meterRegistry.get("employee.cache.negative.hits").counter().count());
+
+		Thread.sleep(100);
+		employeeCache.getAsync("404", id -> load(Optional.empty())).join();
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void testFailureIsNotCached() {
+		CompletionException exception = assertThrows(CompletionException.class,
+				() -> employeeCache.getAsync("1", id -> CompletableFuture.failedFuture(
+						new EmployeeAccessorException(EmployeeAccessorError.SERVICE_NETWORK_ERROR))).join());
+		assertTrue(exception.getCause() instanceof EmployeeAccessorException);
+		employeeCache.getAsync("1", id -> load(Optional.of(new EmployeeDTO()))).join();
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void testConcurrentLookupsShareOneLoad() {
+		CompletableFuture<Optional<EmployeeDTO>> upstream = new CompletableFuture<>();
+		CompletableFuture<Optional<EmployeeDTO>> first = employeeCache.getAsync("1", id -> {
+			loads.incrementAndGet();
+			return upstream;
+		});
+		CompletableFuture<Optional<EmployeeDTO>> second = employeeCache.getAsync("1", id -> {
+			loads.incrementAndGet();
+			return upstream;
+		});
+		EmployeeDTO employee = new EmployeeDTO();
+		upstream.complete(Optional.of(employee));
+
+		assertSame(employee, first.join().get());
+		assertSame(employee, second.join().get());
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void testInvalidateForcesReload() {
+		employeeCache.getAsync("1", id -> load(Optional.empty())).join();
+		employeeCache.invalidate("1");
+		employeeCache.getAsync("1", id -> load(Optional.empty())).join();
+		assertEquals(2, loads.get());
+	}
+
+	private CompletableFuture<Optional<EmployeeDTO>> load(Optional<EmployeeDTO> employee) {
+		loads.incrementAndGet();
+		return CompletableFuture.completedFuture(employee);
+	}
+}
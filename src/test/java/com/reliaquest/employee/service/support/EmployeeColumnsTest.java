@@ -0,0 +1,69 @@
+package com.reliaquest.employee.service.support;
+
+import static com.reliaquest.employee.util.EmployeeUtility.employee;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.reliaquest.employee.model.EmployeeDTO;
+import com.reliaquest.employee.model.EmployeeField;
+
+public class EmployeeColumnsTest {
+	private final List<EmployeeDTO> employees = List.of(employee(1, "Tiger Nixon", 320800, 61, "a.png"),
+			employee(2, null, null, null, null), employee(3, "Tiger Nixon", 170750, 63, "a.png"));
+	private final EmployeeColumns columns = EmployeeColumns.of(employees);
+
+	@Test
+	void testRows() {
+		assertEquals(3, columns.size());
+		assertEquals(employees, columns.asList());
+		assertSame(columns.asList(), columns.asList());
+		assertEquals(employees.get(2), columns.toDto(2));
+		assertEquals(List.of(employees.get(2), employees.get(0)), columns.toDtos(new int[] { 2, 0 }));
+		assertEquals(320800, columns.salary(0));
+		assertFalse(columns.hasSalary(1));
+		assertFalse(columns.hasAge(1));
+		assertEquals(2, columns.rowOf(3));
+		assertEquals(-1, columns.rowOf(4));
+		assertThrows(IndexOutOfBoundsException.class, () -> columns.asList().get(3));
+	}
+
+	@Test
+	void testOnlyRequestedFields() {
+		EnumSet<EmployeeField> fields = EnumSet.of(EmployeeField.NAME, EmployeeField.AGE);
+		assertEquals(employee(0, "Tiger Nixon", null, 63, null), columns.toDto(2, fields));
+		EmployeeRowView view = (EmployeeRowView) columns.toDtos(new int[] { 2, 0 });
+		assertEquals(employee(0, "Tiger Nixon", null, 61, null), view.get(1, fields));
+		assertEquals(employee(2, null, null, null, null),
+				((EmployeeRowView) columns.asList()).get(1, EnumSet.allOf(EmployeeField.class)));
+	}
+
+	@Test
+	void testWith() {
+		EmployeeDTO created = employee(4, "Rahul Anand", 50000, 29, null);
+		EmployeeColumns added = columns.with(created);
+		assertEquals(List.of(employees.get(0), employees.get(1), employees.get(2), created), added.asList());
+		assertEquals(employees, columns.asList());
+		assertTrue(added.hasSalary(3));
+		assertEquals(3, added.rowOf(4));
+	}
+
+	@Test
+	void testRowOf() {
+		EmployeeColumns unordered = EmployeeColumns.of(List.of(employee(7, null, null, null, null),
+				employee(-2, null, null, null, null), employee(5, null, null, null, null),
+				employee(7, null, null, null, null)));
+		assertEquals(0, unordered.rowOf(7));
+		assertEquals(1, unordered.rowOf(-2));
+		assertEquals(2, unordered.rowOf(5));
+		assertEquals(-1, unordered.rowOf(6));
+		assertEquals(-1, EmployeeColumns.of(List.of()).rowOf(1));
+	}
+}
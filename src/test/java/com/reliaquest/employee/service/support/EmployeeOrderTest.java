@@ -0,0 +1,110 @@
+package com.reliaquest.employee.service.support;
+
+import static com.reliaquest.employee.util.EmployeeUtility.employee;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.reliaquest.employee.model.EmployeeDTO;
+import com.reliaquest.employee.model.EmployeeSortField;
+
+public class EmployeeOrderTest {
+	private final EmployeeColumns columns = EmployeeColumns.of(List.of(employee(5, "bob", 300, 40, null),
+			employee(2, "Alice", null, 30, null), employee(9, "alice", 300, null, null),
+			employee(1, null, 100, 40, null), employee(7, "Carl", -50, 20, null)));
+
+	@Test
+	void testOrders() {
+		assertArrayEquals(new int[] { 3, 1, 0, 4, 2 }, order(EmployeeSortField.ID).rows(0, 10, false));
+		assertArrayEquals(new int[] { 1, 2, 0, 4, 3 }, order(EmployeeSortField.NAME).rows(0, 10, false));
+		assertArrayEquals(new int[] { 4, 3, 0, 2, 1 }, order(EmployeeSortField.SALARY).rows(0, 10, false));
+		assertArrayEquals(new int[] { 4, 1, 3, 0, 2 }, order(EmployeeSortField.AGE).rows(0, 10, false));
+	}
+
+	@Test
+	void testDescendingIsReversed() {
+		assertArrayEquals(new int[] { 1, 2, 0, 3, 4 }, order(EmployeeSortField.SALARY).rows(0, 10, true));
+		assertArrayEquals(new int[] { 0, 3 }, order(EmployeeSortField.SALARY).rows(2, 2, true));
+	}
+
+	@Test
+	void testSlices() {
+		EmployeeOrder order = order(EmployeeSortField.ID);
+		assertArrayEquals(new int[] { 0, 4 }, order.rows(2, 2, false));
+		assertArrayEquals(new int[] { 2 }, order.rows(4, 2, false));
+		assertEquals(0, order.rows(5, 2, false).length);
+		assertEquals(5, order.rows(0, Integer.MAX_VALUE, false).length);
+	}
+
+	@Test
+	void testKey() {
+		assertNull(order(EmployeeSortField.ID).key(0));
+		assertEquals("bob", order(EmployeeSortField.NAME).key(0));
+		assertNull(order(EmployeeSortField.SALARY).key(1));
+		assertEquals(40, order(EmployeeSortField.AGE).key(3));
+	}
+
+	@Test
+	void testAfterEmployeeStillPresent() {
+		EmployeeOrder order = order(EmployeeSortField.SALARY);
+		assertEquals(3, order.after(300, 5, false));
+		assertEquals(4, order.after(300, 9, false));
+		assertEquals(1, order.after(null, 2, true));
+		assertEquals(5, order.after(-50, 7, true));
+	}
+
+	@Test
+	void testAfterMatchesScan() {
+		final Random random = new Random(3);
+		final List<EmployeeDTO> employees = new ArrayList<>();
+		for (int id = 0; id < 300; id++) {
+			employees.add(employee(id * 2, random.nextInt(5) == 0 ? null : "n" + random.nextInt(40),
+					random.nextInt(5) == 0 ? null : random.nextInt(20) * 1000,
+					random.nextInt(5) == 0 ? null : 20 + random.nextInt(10), null));
+		}
+		final EmployeeColumns generated = EmployeeColumns.of(employees);
+		for (EmployeeSortField field : EmployeeSortField.values()) {
+			final EmployeeOrder order = EmployeeOrder.of(generated, field);
+			final List<Integer> expected = IntStream.range(0, generated.size()).boxed()
+					.sorted(Comparator.<Integer, Object>comparing(row -> order.key(row), this::compareKeys)
+							.thenComparing(row -> generated.id(row)))
+					.toList();
+			assertEquals(expected, IntStream.of(order.rows(0, 1000, false)).boxed().toList(), field.name());
+			for (int i = 0; i < 200; i++) {
+				// odd ids are not in the snapshot
+				final int id = random.nextInt(600);
+				final Object key = order.key(random.nextInt(generated.size()));
+				final long ascending = expected.stream()
+						.filter(row -> compareKeys(order.key(row), key) < 0
+								|| (compareKeys(order.key(row), key) == 0 && generated.id(row) <= id))
+						.count();
+				assertEquals(ascending, order.after(key, id, false), field.name());
+				final long descending = expected.stream()
+						.filter(row -> compareKeys(order.key(row), key) > 0
+								|| (compareKeys(order.key(row), key) == 0 && generated.id(row) >= id))
+						.count();
+				assertEquals(descending, order.after(key, id, true), field.name());
+			}
+		}
+	}
+
+	private int compareKeys(Object a, Object b) {
+		if (a instanceof String name)
+			return Comparator.nullsLast(EmployeeOrder.NAME_ORDER).compare(name, (String) b);
+		if (b instanceof String name)
+			return Comparator.nullsLast(EmployeeOrder.NAME_ORDER).compare((String) a, name);
+		return Comparator.nullsLast(Comparator.<Integer>naturalOrder()).compare((Integer) a, (Integer) b);
+	}
+
+	private EmployeeOrder order(EmployeeSortField field) {
+		return EmployeeOrder.of(columns, field);
+	}
+}
@@ -0,0 +1,389 @@
+package com.reliaquest.employee.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.reliaquest.employee.accessor.AsyncEmployeeAccessor;
+import com.reliaquest.employee.accessor.EmployeeAccessor;
+import com.reliaquest.employee.accessor.pojo.EmployeeData;
+import com.reliaquest.employee.exception.EmployeeAccessorError;
+import com.reliaquest.employee.exception.EmployeeAccessorException;
+import com.reliaquest.employee.model.EmployeeDTO;
+import com.reliaquest.employee.model.EmployeeSortField;
+import com.reliaquest.employee.util.EmployeeUtility;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class EmployeeSnapshotCacheTest {
+	private static final EmployeeStats.Bands BANDS = new EmployeeStats.Bands(new int[] { 100000, 300000 },
+			new int[] { 30, 50 });
+	private static final String SOURCE = "http://localhost/api/v1";
+	private EmployeeAccessor employeeAccessor;
+	private AsyncEmployeeAccessor asyncEmployeeAccessor;
+	private MutableClock clock;
+	private EmployeeSnapshotCache snapshotCache;
+
+	@BeforeEach
+	void setUp() {
+		employeeAccessor = mock(EmployeeAccessor.class);
+		asyncEmployeeAccessor = mock(AsyncEmployeeAccessor.class);
+		// loads on a request thread answer with what the blocking accessor is stubbed
+		// with, so every fetch is verified on employeeAccessor
+		when(asyncEmployeeAccessor.fetchAllEmployee(any())).thenAnswer(invocation -> {
+			try {
+				return CompletableFuture.completedFuture(employeeAccessor.fetchAllEmployee(invocation.getArgument(0)));
+			} catch (RuntimeException e) {
+				return CompletableFuture.failedFuture(e);
+			}
+		});
+		clock = new MutableClock();
+		snapshotCache = new EmployeeSnapshotCache(employeeAccessor, asyncEmployeeAccessor, Duration.ofSeconds(60),
+				Duration.ofSeconds(300), Duration.ZERO, null, BANDS, new SimpleMeterRegistry(), clock);
+	}
+
+	@AfterEach
+	void tearDown() {
+		snapshotCache.shutdown();
+	}
+
+	@Test
+	void testFreshSnapshotIsServedFromMemory() {
+		when(employeeAccessor.fetchAllEmployee(any())).thenReturn(EmployeeUtility.employeeList(EmployeeUtility.getALlEmployee()));
+
+		List<EmployeeDTO> first = snapshotCache.get().join().get();
+		clock.advance(Duration.ofSeconds(59));
+		List<EmployeeDTO> second = snapshotCache.get().join().get();
+
+		assertSame(first, second);
+		assertEquals(Duration.ofSeconds(59), snapshotCache.getAge().get());
+		verify(employeeAccessor, times(1)).fetchAllEmployee(any());
+	}
+
+	@Test
+	void testStaleSnapshotIsServedWhileRefreshing() {
+		List<EmployeeData> updated = EmployeeUtility.getALlEmployee().subList(0, 1);
+		when(employeeAccessor.fetchAllEmployee(any())).thenReturn(EmployeeUtility.employeeList(EmployeeUtility.getALlEmployee()))
+				.thenReturn(EmployeeUtility.employeeList(updated));
+
+		assertEquals(24, snapshotCache.get().join().get().size());
+		clock.advance(Duration.ofSeconds(120));
+		assertEquals(24, snapshotCache.get().join().get().size());
+
+		verify(employeeAccessor, timeout(1000).times(2)).fetchAllEmployee(any());
+		awaitAge(Duration.ZERO);
+		assertEquals(1, snapshotCache.get().join().get().size());
+		// only the first load waited for by a caller is asynchronous
+		verify(asyncEmployeeAccessor, times(1)).fetchAllEmployee(any());
+	}
+
+	@Test
+	void testColdSnapshotIsLoadedWithoutBlockingTheCaller() {
+		CompletableFuture<EmployeeAccessor.EmployeeList> fetched = new CompletableFuture<>();
+		doReturn(fetched).when(asyncEmployeeAccessor).fetchAllEmployee(any());
+
+		CompletableFuture<Optional<List<EmployeeDTO>>> employees = snapshotCache.get();
+		assertFalse(employees.isDone());
+		fetched.complete(EmployeeUtility.employeeList(EmployeeUtility.getALlEmployee()));
+
+		assertEquals(24, employees.join().get().size());
+		assertEquals(Duration.ZERO, snapshotCache.getAge().get());
+		verify(employeeAccessor, never()).fetchAllEmployee(any());
+	}
+
+	@Test
+	void testFailedRefreshKeepsLastGoodSnapshot() {
+		when(employeeAccessor.fetchAllEmployee(any())).thenReturn(EmployeeUtility.employeeList(EmployeeUtility.getALlEmployee()))
+				.thenThrow(new EmployeeAccessorException(EmployeeAccessorError.SERVICE_NETWORK_ERROR));
+
+		List<EmployeeDTO> first = snapshotCache.get().join().get();
+		clock.advance(Duration.ofSeconds(120));
+		snapshotCache.get().join();
+		verify(employeeAccessor, timeout(1000).times(2)).fetchAllEmployee(any());
+
+		assertSame(first, snapshotCache.get().join().get());
+	}
+
+	@Test
+	void testSnapshotBeyondMaxStaleIsNotServed() {
+		when(employeeAccessor.fetchAllEmployee(any())).thenReturn(EmployeeUtility.employeeList(EmployeeUtility.getALlEmployee()))
+				.thenThrow(new EmployeeAccessorException(EmployeeAccessorError.SERVICE_NETWORK_ERROR));
+
+		snapshotCache.get().join();
+		clock.advance(Duration.ofSeconds(361));
+
+		CompletionException exception = assertThrows(CompletionException.class, () -> snapshotCache.get().join());
+		assertTrue(exception.getCause() instanceof EmployeeAccessorException);
+	}
+
+	@Test
+	void testLocalWritesAreApplied() {
+		when(employeeAccessor.fetchAllEmployee(any())).thenReturn(EmployeeUtility.employeeList(EmployeeUtility.getALlEmployee()));
+		snapshotCache.get().join();
+		EmployeeDTO created = EmployeeUtility.employee(999, "Rahul Anand", 1000000, null, null);
+
+		snapshotCache.applyCreated(created);
+		assertEquals(25, snapshotCache.get().join().get().size());
+		assertEquals(1000000, snapshotCache.getHighestSalary().join().getAsInt());
+		assertEquals(List.of("Rahul Anand"), snapshotCache.getTopEarnerNames(1).join().get());
+		assertEquals(25, snapshotCache.getStats().join().get().getHeadcount());
+		assertEquals(1000000, snapshotCache.getStats().join().get().getSalary().getMax());
+		assertEquals(List.of(created), snapshotCache.search("Rahul", false, false).join().get());
+
+		snapshotCache.applyDeleted("999");
+		assertEquals(24, snapshotCache.get().join().get().size());
+		assertEquals(725000, snapshotCache.getHighestSalary().join().getAsInt());
+		assertTrue(snapshotCache.search("Rahul", false, false).join().get().isEmpty());
+
+		snapshotCache.applyDeleted("3");
+		List<String> expected = snapshotCache.get().join().get().stream()
+				.sorted(Comparator.comparingInt(EmployeeDTO::getSalary).reversed()).map(EmployeeDTO::getName)
+				.collect(Collectors.toList());
+		assertEquals(23, expected.size());
+		assertEquals(expected, snapshotCache.getTopEarnerNames(30).join().get());
+		verify(employeeAccessor, times(1)).fetchAllEmployee(any());
+	}
+
+	@Test
+	void testLocalWritesDuringRefreshAreKept() {
+		EmployeeDTO created = EmployeeUtility.employee(999, "Rahul Anand", null, null, null);
+		when(employeeAccessor.fetchAllEmployee(any())).thenReturn(EmployeeUtility.employeeList(EmployeeUtility.getALlEmployee()))
+				.thenAnswer(invocation -> {
+					// written through this service after the API answered the refresh
+					snapshotCache.applyCreated(created);
+					snapshotCache.applyDeleted("1");
+					return EmployeeUtility.employeeList(EmployeeUtility.getALlEmployee());
+				});
+
+		snapshotCache.get().join();
+		clock.advance(Duration.ofSeconds(400));
+		List<EmployeeDTO> refreshed = snapshotCache.get().join().get();
+
+		assertEquals(24, refreshed.size());
+		assertTrue(refreshed.contains(created));
+		assertTrue(refreshed.stream().noneMatch(employee -> employee.getId() == 1));
+		assertEquals(Duration.ZERO, snapshotCache.getAge().get());
+	}
+
+	@Test
+	void testSnapshotFileIsWrittenOffTheCallerThread(@TempDir Path directory) {
+		List<String> writers = new CopyOnWriteArrayList<>();
+		SnapshotFile snapshotFile = new SnapshotFile(directory.resolve("employee-snapshot.bin"), SOURCE) {
+			@Override
+			public void write(Instant fetchedAt, Optional<EmployeeColumns> employees) throws IOException {
+				super.write(fetchedAt, employees);
+				writers.add(Thread.currentThread().getName());
+			}
+		};
+		when(employeeAccessor.fetchAllEmployee(any())).thenReturn(EmployeeUtility.employeeList(EmployeeUtility.getALlEmployee()));
+		snapshotCache = new EmployeeSnapshotCache(employeeAccessor, asyncEmployeeAccessor, Duration.ofSeconds(60),
+				Duration.ofSeconds(300), Duration.ZERO, snapshotFile, BANDS, new SimpleMeterRegistry(), clock);
+
+		snapshotCache.get().join();
+
+		for (int i = 0; i < 100 && writers.isEmpty(); i++) {
+			sleep();
+		}
+		assertEquals(List.of("employee-snapshot-refresh"), writers);
+	}
+
+	@Test
+	void testUnchangedSnapshotIsNotWrittenAgain(@TempDir Path directory) throws Exception {
+		List<String> events = new CopyOnWriteArrayList<>();
+		SnapshotFile snapshotFile = new SnapshotFile(directory.resolve("employee-snapshot.bin"), SOURCE) {
+			@Override
+			public void write(Instant fetchedAt, Optional<EmployeeColumns> employees) throws IOException {
+				super.write(fetchedAt, employees);
+				events.add("write");
+			}
+
+			@Override
+			public boolean touch(Instant fetchedAt) throws IOException {
+				final boolean touched = super.touch(fetchedAt);
+				events.add("touch");
+				return touched;
+			}
+		};
+		EmployeeAccessor.EmployeeList fetched = EmployeeUtility.employeeList(EmployeeUtility.getALlEmployee());
+		when(employeeAccessor.fetchAllEmployee(any())).thenReturn(fetched)
+				.thenReturn(EmployeeUtility.notModified(fetched.version()));
+		snapshotCache = new EmployeeSnapshotCache(employeeAccessor, asyncEmployeeAccessor, Duration.ofSeconds(60),
+				Duration.ofSeconds(300), Duration.ZERO, snapshotFile, BANDS, new SimpleMeterRegistry(), clock);
+
+		snapshotCache.get().join();
+		clock.advance(Duration.ofSeconds(400));
+		snapshotCache.get().join();
+
+		for (int i = 0; i < 100 && events.size() < 2; i++) {
+			sleep();
+		}
+		assertEquals(List.of("write", "touch"), events);
+		assertEquals(clock.instant(), snapshotFile.read().get().fetchedAt());
+	}
+
+	@Test
+	void testPagesCoverTheSortedList() {
+		when(employeeAccessor.fetchAllEmployee(any())).thenReturn(EmployeeUtility.employeeList(EmployeeUtility.getALlEmployee()));
+		List<String> expected = snapshotCache.get().join().get().stream()
+				.sorted(Comparator.comparingInt(EmployeeDTO::getSalary).reversed()).map(EmployeeDTO::getName)
+				.collect(Collectors.toList());
+
+		List<String> names = new ArrayList<>();
+		EmployeePage page = snapshotCache.getPage(EmployeeSortField.SALARY, true, null, 5).join().get();
+		while (true) {
+			page.employees().forEach(employee -> names.add(employee.getName()));
+			if (page.nextCursor() == null)
+				break;
+			page = snapshotCache.getPage(EmployeeSortField.ID, false, PageCursor.decode(page.nextCursor()), 5).join()
+					.get();
+		}
+		assertEquals(expected, names);
+	}
+
+	@Test
+	void testCursorSurvivesSnapshotChange() {
+		when(employeeAccessor.fetchAllEmployee(any())).thenReturn(EmployeeUtility.employeeList(EmployeeUtility.getALlEmployee()));
+		EmployeePage first = snapshotCache.getPage(EmployeeSortField.ID, false, null, 5).join().get();
+		assertEquals(List.of(1, 2, 3, 4, 5), first.employees().stream().map(EmployeeDTO::getId).toList());
+
+		// the last employee of the page and one before it are gone, one is added
+		snapshotCache.applyDeleted("5");
+		snapshotCache.applyDeleted("2");
+		snapshotCache.applyCreated(EmployeeUtility.employee(0, "Rahul Anand", null, null, null));
+
+		EmployeePage second = snapshotCache.getPage(EmployeeSortField.ID, false, PageCursor.decode(first.nextCursor()),
+				5).join().get();
+		assertEquals(List.of(6, 7, 8, 9, 10), second.employees().stream().map(EmployeeDTO::getId).toList());
+
+		clock.advance(Duration.ofSeconds(400));
+		EmployeePage third = snapshotCache.getPage(EmployeeSortField.ID, false, PageCursor.decode(second.nextCursor()),
+				5).join().get();
+		assertEquals(List.of(11, 12, 13, 14, 15), third.employees().stream().map(EmployeeDTO::getId).toList());
+	}
+
+	@Test
+	void testUnchangedListIsNotConvertedAgain() {
+		EmployeeAccessor.EmployeeList fetched = EmployeeUtility.employeeList(EmployeeUtility.getALlEmployee());
+		when(employeeAccessor.fetchAllEmployee(any())).thenReturn(fetched)
+				.thenReturn(EmployeeUtility.notModified(fetched.version()));
+
+		List<EmployeeDTO> first = snapshotCache.get().join().get();
+		clock.advance(Duration.ofSeconds(400));
+		List<EmployeeDTO> second = snapshotCache.get().join().get();
+
+		assertSame(first, second);
+		assertEquals(Duration.ZERO, snapshotCache.getAge().get());
+		verify(employeeAccessor).fetchAllEmployee(null);
+		verify(employeeAccessor).fetchAllEmployee(fetched.version());
+	}
+
+	@Test
+	void testWarmStartServesSnapshotFileWhileRevalidating(@TempDir Path directory) throws Exception {
+		SnapshotFile snapshotFile = new SnapshotFile(directory.resolve("employee-snapshot.bin"), SOURCE);
+		snapshotFile.write(clock.instant().minus(Duration.ofSeconds(90)),
+				Optional.of(EmployeeColumns.of(List.of(EmployeeUtility.employee(1, "Stored", null, null, null)))));
+		CountDownLatch served = new CountDownLatch(1);
+		when(employeeAccessor.fetchAllEmployee(any())).thenAnswer(invocation -> {
+			served.await(1, TimeUnit.SECONDS);
+			return EmployeeUtility.employeeList(EmployeeUtility.getALlEmployee());
+		});
+
+		snapshotCache = new EmployeeSnapshotCache(employeeAccessor, asyncEmployeeAccessor, Duration.ofSeconds(60),
+				Duration.ofSeconds(300), Duration.ZERO, snapshotFile, BANDS, new SimpleMeterRegistry(), clock);
+		snapshotCache.warmStart();
+
+		assertEquals("Stored", snapshotCache.get().join().get().get(0).getName());
+		served.countDown();
+		verify(employeeAccessor, timeout(1000).times(1)).fetchAllEmployee(any());
+		awaitAge(Duration.ZERO);
+		assertEquals(24, snapshotCache.get().join().get().size());
+		// the refreshed snapshot replaces the file right after it is published
+		for (int i = 0; i < 100 && snapshotFile.read().get().employees().get().size() != 24; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(24, snapshotFile.read().get().employees().get().size());
+	}
+
+	@Test
+	void testWarmStartIgnoresTooStaleFile(@TempDir Path directory) throws Exception {
+		SnapshotFile snapshotFile = new SnapshotFile(directory.resolve("employee-snapshot.bin"), SOURCE);
+		snapshotFile.write(clock.instant().minus(Duration.ofHours(1)),
+				Optional.of(EmployeeColumns.of(List.of(new EmployeeDTO()))));
+
+		snapshotCache = new EmployeeSnapshotCache(employeeAccessor, asyncEmployeeAccessor, Duration.ofSeconds(60),
+				Duration.ofSeconds(300), Duration.ZERO, snapshotFile, BANDS, new SimpleMeterRegistry(), clock);
+		snapshotCache.warmStart();
+
+		assertTrue(snapshotCache.getAge().isEmpty());
+	}
+
+	private void awaitAge(Duration expected) {
+		for (int i = 0; i < 100 && !snapshotCache.getAge().get().equals(expected); i++) {
+			sleep();
+		}
+	}
+
+	private static void sleep() {
+		try {
+			Thread.sleep(10);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static class MutableClock extends Clock {
+		private volatile Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+		void advance(Duration duration) {
+			now = now.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.reliaquest.employee.service.support;
+
+import static com.reliaquest.employee.util.EmployeeUtility.employee;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.reliaquest.employee.model.EmployeeDTO;
+import com.reliaquest.employee.model.EmployeeStatsDTO;
+
+public class EmployeeStatsTest {
+	private static final EmployeeStats.Bands BANDS = new EmployeeStats.Bands(new int[] { 100000, 300000 },
+			new int[] { 30, 50 });
+
+	@Test
+	void testStats() {
+		EmployeeStatsDTO stats = stats(List.of(employee(1, null, 50000, 25, null), employee(2, null, 100000, 30, null),
+				employee(3, null, 320800, 61, null), employee(4, null, null, null, null))).toDto();
+
+		assertEquals(4, stats.getHeadcount());
+		assertEquals(new EmployeeStatsDTO.Distribution(3, 50000, 320800, 470800 / 3.0, 100000, 320800, 320800),
+				approximate(stats.getSalary()));
+		assertEquals(new EmployeeStatsDTO.Distribution(3, 25, 61, 116 / 3.0, 30, 61, 61), stats.getAge());
+		assertEquals(List.of(new EmployeeStatsDTO.Band(null, 100000, 1), new EmployeeStatsDTO.Band(100000, 300000, 1),
+				new EmployeeStatsDTO.Band(300000, null, 1)), stats.getSalaryBands());
+		assertEquals(List.of(new EmployeeStatsDTO.Band(null, 30, 1), new EmployeeStatsDTO.Band(30, 50, 1),
+				new EmployeeStatsDTO.Band(50, null, 1)), stats.getAgeBrackets());
+	}
+
+	@Test
+	void testNoValues() {
+		EmployeeStatsDTO stats = stats(List.of(employee(1, null, null, null, null))).toDto();
+		assertEquals(1, stats.getHeadcount());
+		assertEquals(0, stats.getSalary().getCount());
+		assertNull(stats.getSalary().getMax());
+		assertNull(stats.getAge().getP50());
+	}
+
+	@Test
+	void testDtoIsComputedOnce() {
+		EmployeeStats stats = stats(List.of(employee(1, null, 50000, 25, null)));
+		assertSame(stats.toDto(), stats.toDto());
+	}
+
+	@Test
+	void testChangesMatchRebuild() {
+		final Random random = new Random(3);
+		// rows are never renumbered, a removed one stays as null
+		final List<EmployeeDTO> employees = new ArrayList<>();
+		SalaryIndex salaryIndex = SalaryIndex.of(EmployeeColumns.of(employees));
+		EmployeeStats stats = EmployeeStats.of(EmployeeColumns.of(employees), salaryIndex, BANDS);
+		for (int id = 0; id < 500; id++) {
+			final int row = random.nextInt(employees.size() + 1);
+			if (row < employees.size() && employees.get(row) != null && random.nextInt(3) == 0) {
+				final EmployeeDTO removed = employees.set(row, null);
+				salaryIndex = salaryIndex.without(row, removed.getSalary());
+				stats = stats.without(removed, salaryIndex);
+			} else {
+				final EmployeeDTO added = employee(id, null, random.nextInt(10) == 0 ? null : random.nextInt(600000),
+						18 + random.nextInt(50), null);
+				salaryIndex = added.getSalary() == null ? salaryIndex
+						: salaryIndex.with(employees.size(), added.getSalary());
+				employees.add(added);
+				stats = stats.with(added, salaryIndex);
+			}
+		}
+		assertEquals(stats(employees.stream().filter(Objects::nonNull).toList()).toDto(), stats.toDto());
+	}
+
+	@Test
+	void testBandsMustBeAscending() {
+		assertThrows(IllegalArgumentException.class,
+				() -> new EmployeeStats.Bands(new int[] { 2, 1 }, new int[] { 30 }));
+	}
+
+	/**
+	 * Percentiles are within the histogram precision, this rounds them to it
+	 */
+	private static EmployeeStatsDTO.Distribution approximate(EmployeeStatsDTO.Distribution distribution) {
+		return new EmployeeStatsDTO.Distribution(distribution.getCount(), distribution.getMin(), distribution.getMax(),
+				distribution.getMean(), round(distribution.getP50()), round(distribution.getP90()),
+				round(distribution.getP99()));
+	}
+
+	private static Integer round(Integer value) {
+		return value == null ? null : (int) (Math.round(value / 100.0) * 100);
+	}
+
+	private static EmployeeStats stats(List<EmployeeDTO> employees) {
+		EmployeeColumns columns = EmployeeColumns.of(employees);
+		return EmployeeStats.of(columns, SalaryIndex.of(columns), BANDS);
+	}
+}
@@ -0,0 +1,110 @@
+package com.reliaquest.employee.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class FuzzyNameIndexTest {
+	private final FuzzyNameIndex index = new FuzzyNameIndex(Arrays.asList("Tiger Nixon", "José Ávila", null,
+			"Garrett Winters", "Tiger Woods", "Nixon Nixon", "Tigger Nixen"));
+
+	@Test
+	void testRankedByDistance() {
+		assertArrayEquals(new int[] { 0, 6 }, index.search("Nixon Tigr", 2, 10));
+		assertArrayEquals(new int[] { 0, 5, 6 }, index.search("nixon", 1, 10));
+		assertArrayEquals(new int[] { 0, 4, 6 }, index.search("tiger", 1, 10));
+	}
+
+	@Test
+	void testPrefixesShareNodes() {
+		final FuzzyNameIndex prefixes = new FuzzyNameIndex(Arrays.asList("ann", "anna", "annabel", "anne", "bo"));
+		assertEquals(11, prefixes.size());
+		assertArrayEquals(new int[] { 0, 1, 3 }, prefixes.search("ann", 1, 10));
+		assertArrayEquals(new int[] { 2 }, prefixes.search("anabel", 1, 10));
+		assertArrayEquals(new int[] { 4 }, prefixes.search("b", 1, 10));
+	}
+
+	@Test
+	void testCaseAndAccentsIgnored() {
+		assertArrayEquals(new int[] { 1 }, index.search("jose avilla", 1, 10));
+	}
+
+	@Test
+	void testEveryWordMustMatch() {
+		assertEquals(0, index.search("Tiger Rahul", 2, 10).length);
+		assertArrayEquals(new int[] { 3 }, index.search("Winters", 0, 10));
+	}
+
+	@Test
+	void testLimit() {
+		assertArrayEquals(new int[] { 0 }, index.search("tiger", 1, 1));
+		assertEquals(0, index.search("tiger", 1, 0).length);
+		assertEquals(0, index.search(" ", 2, 10).length);
+	}
+
+	@Test
+	void testMatchesScan() {
+		final Random random = new Random(11);
+		final String alphabet = "abcdé ";
+		final List<String> names = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			names.add(randomString(random, alphabet, 2 + random.nextInt(10)));
+		}
+		final FuzzyNameIndex generatedIndex = new FuzzyNameIndex(names);
+		for (int i = 0; i < 300; i++) {
+			final String query = randomString(random, alphabet, 1 + random.nextInt(6));
+			final int maxDistance = random.nextInt(3);
+			assertArrayEquals(scan(names, query, maxDistance), generatedIndex.search(query, maxDistance, 25), query);
+		}
+	}
+
+	private static int[] scan(List<String> names, String query, int maxDistance) {
+		final List<long[]> matches = new ArrayList<>();
+		final List<String> queryWords = FuzzyNameIndex.words(query);
+		for (int row = 0; row < names.size() && !queryWords.isEmpty(); row++) {
+			final List<String> nameWords = FuzzyNameIndex.words(names.get(row));
+			int score = 0;
+			for (String queryWord : queryWords) {
+				final int best = nameWords.stream().mapToInt(word -> distance(queryWord, word)).min()
+						.orElse(Integer.MAX_VALUE);
+				if (best > maxDistance) {
+					score = -1;
+					break;
+				}
+				score += best;
+			}
+			if (score >= 0)
+				matches.add(new long[] { score, row });
+		}
+		return matches.stream().sorted((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]))
+				.limit(25).mapToInt(match -> (int) match[1]).toArray();
+	}
+
+	private static int distance(String a, String b) {
+		final int[][] matrix = new int[a.length() + 1][b.length() + 1];
+		for (int i = 0; i <= a.length(); i++) {
+			for (int j = 0; j <= b.length(); j++) {
+				if (i == 0 || j == 0)
+					matrix[i][j] = i + j;
+				else
+					matrix[i][j] = Math.min(matrix[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1),
+							Math.min(matrix[i - 1][j], matrix[i][j - 1]) + 1);
+			}
+		}
+		return matrix[a.length()][b.length()];
+	}
+
+	private static String randomString(Random random, String alphabet, int length) {
+		final StringBuilder value = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return value.toString();
+	}
+}
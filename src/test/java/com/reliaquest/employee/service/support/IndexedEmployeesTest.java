@@ -0,0 +1,102 @@
+package com.reliaquest.employee.service.support;
+
+import static com.reliaquest.employee.util.EmployeeUtility.employee;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.reliaquest.employee.model.EmployeeDTO;
+import com.reliaquest.employee.model.EmployeeSortField;
+
+public class IndexedEmployeesTest {
+	private static final EmployeeStats.Bands BANDS = new EmployeeStats.Bands(new int[] { 5000, 15000 },
+			new int[] { 25 });
+
+	@Test
+	void testUnknownChangesAreNoOps() {
+		IndexedEmployees employees = IndexedEmployees
+				.of(EmployeeColumns.of(List.of(employee(1, "Tiger Nixon", 320800, 61, null))), BANDS);
+		assertSame(employees, employees.withCreated(employee(1, "Rahul Anand", 1000, 30, null)));
+		assertSame(employees, employees.withDeleted(2));
+		assertSame(employees.asList(), employees.asList());
+
+		IndexedEmployees deleted = employees.withDeleted(1);
+		assertEquals(0, deleted.size());
+		assertSame(deleted, deleted.withDeleted(1));
+		assertEquals(1, deleted.withCreated(employee(1, "Rahul Anand", 1000, 30, null)).size());
+	}
+
+	@Test
+	void testLocalChangesMatchRebuild() {
+		final Random random = new Random(5);
+		final List<EmployeeDTO> fetched = new ArrayList<>();
+		for (int id = 0; id < 300; id++) {
+			fetched.add(generated(random, id));
+		}
+		final List<EmployeeDTO> expected = new ArrayList<>(fetched);
+		IndexedEmployees employees = IndexedEmployees.of(EmployeeColumns.of(fetched), BANDS);
+		for (int change = 0; change < 200; change++) {
+			if (random.nextInt(3) == 0 && !expected.isEmpty()) {
+				final EmployeeDTO removed = expected.remove(random.nextInt(expected.size()));
+				employees = employees.withDeleted(removed.getId());
+			} else {
+				// ids of deleted employees come back now and then
+				final EmployeeDTO created = generated(random,
+						random.nextInt(2) == 0 ? random.nextInt(300) : 300 + change);
+				if (expected.stream().noneMatch(employee -> employee.getId() == created.getId()))
+					expected.add(created);
+				employees = employees.withCreated(created);
+			}
+			if (change % 50 == 49)
+				assertMatches(expected, employees, random);
+		}
+	}
+
+	private static void assertMatches(List<EmployeeDTO> expected, IndexedEmployees employees, Random random) {
+		final IndexedEmployees rebuilt = IndexedEmployees.of(EmployeeColumns.of(expected), BANDS);
+		assertEquals(expected, employees.asList());
+		assertEquals(expected, employees.toColumns().asList());
+		assertEquals(expected.size(), employees.size());
+		assertEquals(rebuilt.stats(), employees.stats());
+		assertEquals(rebuilt.highestSalary(), employees.highestSalary());
+		assertEquals(rebuilt.topEarnerNames(30), employees.topEarnerNames(30));
+		for (int i = 0; i < 20; i++) {
+			final String query = "name" + random.nextInt(40);
+			assertEquals(rebuilt.search(query, false, false), employees.search(query, false, false), query);
+			assertEquals(rebuilt.search(query.toUpperCase(), true, false),
+					employees.search(query.toUpperCase(), true, false), query);
+			assertEquals(rebuilt.fuzzySearch(query, 1, 15), employees.fuzzySearch(query, 1, 15), query);
+		}
+		for (EmployeeSortField field : EmployeeSortField.values()) {
+			for (boolean descending : new boolean[] { false, true }) {
+				assertEquals(pages(rebuilt, field, descending), pages(employees, field, descending),
+						field + " " + descending);
+			}
+		}
+	}
+
+	/**
+	 * Every page of 7 through the cursors
+	 */
+	private static List<EmployeeDTO> pages(IndexedEmployees employees, EmployeeSortField field, boolean descending) {
+		final List<EmployeeDTO> read = new ArrayList<>();
+		EmployeePage page = employees.page(field, descending, null, 7, 1);
+		read.addAll(page.employees());
+		while (page.nextCursor() != null) {
+			page = employees.page(field, descending, PageCursor.decode(page.nextCursor()), 7, 1);
+			read.addAll(page.employees());
+		}
+		return read;
+	}
+
+	private static EmployeeDTO generated(Random random, int id) {
+		return employee(id, random.nextInt(8) == 0 ? null : "name" + random.nextInt(40),
+				random.nextInt(8) == 0 ? null : random.nextInt(20) * 1000,
+				random.nextInt(8) == 0 ? null : 20 + random.nextInt(10), null);
+	}
+}
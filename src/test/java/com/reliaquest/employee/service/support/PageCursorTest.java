@@ -0,0 +1,36 @@
+package com.reliaquest.employee.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.reliaquest.employee.exception.InvalidCursorException;
+import com.reliaquest.employee.model.EmployeeSortField;
+
+public class PageCursorTest {
+
+	@Test
+	void testRoundTrip() {
+		for (PageCursor cursor : new PageCursor[] { new PageCursor(-3, EmployeeSortField.ID, false, 10, 7, null),
+				new PageCursor(Long.MAX_VALUE, EmployeeSortField.NAME, true, 0, -1, "Zoë Ng"),
+				new PageCursor(42, EmployeeSortField.SALARY, false, 3, 1, -50),
+				new PageCursor(42, EmployeeSortField.AGE, true, 3, 1, null) }) {
+			final String encoded = cursor.encode();
+			assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+			assertEquals(cursor, PageCursor.decode(encoded));
+		}
+	}
+
+	@Test
+	void testMalformed() {
+		final String valid = new PageCursor(1, EmployeeSortField.SALARY, false, 3, 1, 100).encode();
+		assertThrows(InvalidCursorException.class, () -> PageCursor.decode("not a cursor"));
+		assertThrows(InvalidCursorException.class, () -> PageCursor.decode(""));
+		assertThrows(InvalidCursorException.class, () -> PageCursor.decode(valid.substring(0, valid.length() - 2)));
+		assertThrows(InvalidCursorException.class, () -> PageCursor.decode(valid + "AAAA"));
+		assertThrows(InvalidCursorException.class,
+				() -> PageCursor.decode(new PageCursor(1, EmployeeSortField.ID, false, -1, 1, null).encode()));
+	}
+}
@@ -0,0 +1,102 @@
+package com.reliaquest.employee.service.support;
+
+import static com.reliaquest.employee.util.EmployeeUtility.employee;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.reliaquest.employee.model.EmployeeDTO;
+
+public class SalaryIndexTest {
+	private final SalaryIndex index = SalaryIndex.of(EmployeeColumns.of(List.of(employee(1, null, 300, null, null),
+			employee(2, null, 500, null, null), employee(3, null, null, null, null), employee(4, null, 300, null, null),
+			employee(5, null, 100, null, null))));
+
+	@Test
+	void testOrder() {
+		assertEquals(500, index.highestSalary().getAsInt());
+		assertArrayEquals(new int[] { 1, 0, 3, 4 }, index.top(10));
+		assertArrayEquals(new int[] { 1, 0 }, index.top(2));
+		assertEquals(0, index.top(0).length);
+	}
+
+	@Test
+	void testRank() {
+		assertEquals(1, index.rank(600));
+		assertEquals(1, index.rank(500));
+		assertEquals(2, index.rank(300));
+		assertEquals(4, index.rank(200));
+		assertEquals(5, index.rank(0));
+	}
+
+	@Test
+	void testWithAndWithout() {
+		SalaryIndex updated = index.with(5, 300).with(6, 900);
+		assertArrayEquals(new int[] { 6, 1, 0, 3, 5, 4 }, updated.top(10));
+		assertArrayEquals(new int[] { 1, 0, 3, 4 }, index.top(10));
+
+		// other rows keep their number
+		updated = updated.without(3, 300).without(2, null);
+		assertArrayEquals(new int[] { 6, 1, 0, 5, 4 }, updated.top(10));
+		assertSame(updated, updated.without(3, 300));
+	}
+
+	@Test
+	void testEmpty() {
+		SalaryIndex empty = SalaryIndex.of(EmployeeColumns.of(List.of()));
+		assertTrue(empty.highestSalary().isEmpty());
+		assertEquals(0, empty.top(10).length);
+		assertEquals(1, empty.with(0, 10).size());
+	}
+
+	@Test
+	void testMatchesSort() {
+		final Random random = new Random(11);
+		// rows are never renumbered, a removed one stays as null
+		final List<EmployeeDTO> employees = new ArrayList<>();
+		SalaryIndex updated = SalaryIndex.of(EmployeeColumns.of(employees));
+		for (int id = 0; id < 1000; id++) {
+			final int row = random.nextInt(employees.size() + 1);
+			if (row < employees.size() && employees.get(row) != null && random.nextInt(4) == 0) {
+				updated = updated.without(row, employees.get(row).getSalary());
+				employees.set(row, null);
+			} else {
+				final EmployeeDTO added = employee(id, null, random.nextInt(10) == 0 ? null : random.nextInt(50), null,
+						null);
+				employees.add(added);
+				updated = added.getSalary() == null ? updated : updated.with(employees.size() - 1, added.getSalary());
+			}
+			// checked between merges of the changes into the sorted array too
+			if (id % 97 == 0)
+				assertMatches(employees, updated);
+		}
+		assertMatches(employees, updated);
+	}
+
+	private static void assertMatches(List<EmployeeDTO> employees, SalaryIndex index) {
+		final int[] expected = IntStream.range(0, employees.size()).boxed()
+				.filter(row -> employees.get(row) != null && employees.get(row).getSalary() != null)
+				.sorted(Comparator.comparing(row -> -employees.get(row).getSalary())).mapToInt(Integer::intValue)
+				.toArray();
+		assertArrayEquals(expected, index.top(employees.size()));
+		assertEquals(expected.length, index.size());
+		if (expected.length > 0) {
+			assertEquals(employees.get(expected[0]).getSalary(), index.highestSalary().getAsInt());
+			assertEquals(employees.get(expected[expected.length - 1]).getSalary(), index.lowestSalary().getAsInt());
+		}
+		for (int salary = -1; salary <= 50; salary++) {
+			final int threshold = salary;
+			final long above = IntStream.of(expected).filter(row -> employees.get(row).getSalary() > threshold).count();
+			assertEquals(above + 1, index.rank(salary));
+		}
+	}
+}
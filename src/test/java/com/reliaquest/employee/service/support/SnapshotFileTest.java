@@ -0,0 +1,128 @@
+package com.reliaquest.employee.service.support;
+
+import static com.reliaquest.employee.util.EmployeeUtility.employee;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.reliaquest.employee.model.EmployeeDTO;
+
+public class SnapshotFileTest {
+	private static final Instant FETCHED_AT = Instant.parse("2024-01-01T00:00:00Z");
+	private static final String SOURCE = "http://localhost/api/v1";
+
+	@TempDir
+	Path directory;
+
+	private SnapshotFile snapshotFile;
+
+	@BeforeEach
+	void setUp() {
+		snapshotFile = new SnapshotFile(directory.resolve("employee-snapshot.bin"), SOURCE);
+	}
+
+	@Test
+	void testRoundTrip() throws Exception {
+		List<EmployeeDTO> employees = List.of(employee(1, "Tiger Nixon é", 320800, 61, ""),
+				employee(2, null, null, null, null));
+
+		snapshotFile.write(FETCHED_AT, Optional.of(EmployeeColumns.of(employees)));
+		SnapshotFile.StoredSnapshot stored = snapshotFile.read().get();
+
+		assertEquals(FETCHED_AT, stored.fetchedAt());
+		assertEquals(employees, stored.employees().get().asList());
+	}
+
+	@Test
+	void testNoDataRoundTrip() throws Exception {
+		snapshotFile.write(FETCHED_AT, Optional.empty());
+		assertTrue(snapshotFile.read().get().employees().isEmpty());
+	}
+
+	@Test
+	void testMissingFileIsIgnored() {
+		assertTrue(snapshotFile.read().isEmpty());
+	}
+
+	@Test
+	void testCorruptFileIsIgnored() throws Exception {
+		snapshotFile.write(FETCHED_AT,
+				Optional.of(EmployeeColumns.of(List.of(employee(1, "Tiger Nixon", 320800, 61, "")))));
+		byte[] bytes = Files.readAllBytes(snapshotFile.getPath());
+		bytes[20] ^= 0x1;
+		Files.write(snapshotFile.getPath(), bytes);
+
+		assertTrue(snapshotFile.read().isEmpty());
+	}
+
+	@Test
+	void testTruncatedFileIsIgnored() throws Exception {
+		snapshotFile.write(FETCHED_AT,
+				Optional.of(EmployeeColumns.of(List.of(employee(1, "Tiger Nixon", 320800, 61, "")))));
+		byte[] bytes = Files.readAllBytes(snapshotFile.getPath());
+		Files.write(snapshotFile.getPath(), Arrays.copyOf(bytes, 10));
+
+		assertTrue(snapshotFile.read().isEmpty());
+	}
+
+	@Test
+	void testUnknownVersionIsIgnored() throws Exception {
+		snapshotFile.write(FETCHED_AT,
+				Optional.of(EmployeeColumns.of(List.of(employee(1, "Tiger Nixon", 320800, 61, "")))));
+		byte[] bytes = Files.readAllBytes(snapshotFile.getPath());
+		ByteBuffer.wrap(bytes).putShort(Integer.BYTES, (short) (SnapshotFile.VERSION + 1));
+		// keep the checksum valid so only the version check can reject it
+		CRC32C crc = new CRC32C();
+		crc.update(bytes, 0, bytes.length - Integer.BYTES);
+		ByteBuffer.wrap(bytes).putInt(bytes.length - Integer.BYTES, (int) crc.getValue());
+		Files.write(snapshotFile.getPath(), bytes);
+
+		assertTrue(snapshotFile.read().isEmpty());
+	}
+
+	@Test
+	void testOtherSourceIsIgnored() throws Exception {
+		snapshotFile.write(FETCHED_AT,
+				Optional.of(EmployeeColumns.of(List.of(employee(1, "Tiger Nixon", 320800, 61, "")))));
+
+		assertTrue(new SnapshotFile(snapshotFile.getPath(), "http://other/api/v1").read().isEmpty());
+	}
+
+	@Test
+	void testTouchUpdatesOnlyTheTime() throws Exception {
+		List<EmployeeDTO> employees = List.of(employee(1, "Tiger Nixon", 320800, 61, ""));
+		snapshotFile.write(FETCHED_AT, Optional.of(EmployeeColumns.of(employees)));
+		Instant revalidatedAt = FETCHED_AT.plusSeconds(45);
+
+		assertTrue(snapshotFile.touch(revalidatedAt));
+		SnapshotFile.StoredSnapshot stored = snapshotFile.read().get();
+
+		assertEquals(revalidatedAt, stored.fetchedAt());
+		assertEquals(employees, stored.employees().get().asList());
+	}
+
+	@Test
+	void testCorruptFileIsNotTouched() throws Exception {
+		snapshotFile.write(FETCHED_AT,
+				Optional.of(EmployeeColumns.of(List.of(employee(1, "Tiger Nixon", 320800, 61, "")))));
+		byte[] bytes = Files.readAllBytes(snapshotFile.getPath());
+		bytes[20] ^= 0x1;
+		Files.write(snapshotFile.getPath(), bytes);
+
+		assertFalse(snapshotFile.touch(FETCHED_AT.plusSeconds(45)));
+		assertTrue(snapshotFile.read().isEmpty());
+	}
+}
@@ -0,0 +1,84 @@
+package com.reliaquest.employee.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class TrigramIndexTest {
+	private final TrigramIndex index = new TrigramIndex(Arrays.asList("Tiger Nixon", "José Ávila", null,
+			"Garrett Winters", "ＴＩＧＥＲ Woods", "Nixon Tiger"));
+
+	@Test
+	void testExactIsCaseSensitive() {
+		assertArrayEquals(new int[] { 0, 5 }, index.search("Tiger", false, false));
+		assertEquals(0, index.search("tiger", false, false).length);
+	}
+
+	@Test
+	void testIgnoreCase() {
+		assertArrayEquals(new int[] { 0, 5 }, index.search("tiger", true, false));
+	}
+
+	@Test
+	void testNormalize() {
+		assertEquals(0, index.search("Jose", false, false).length);
+		assertArrayEquals(new int[] { 1 }, index.search("Jose Av", false, true));
+		assertArrayEquals(new int[] { 4 }, index.search("TIGER", false, true));
+		assertArrayEquals(new int[] { 0, 4, 5 }, index.search("tiger", true, true));
+	}
+
+	@Test
+	void testShortQueryScans() {
+		assertArrayEquals(new int[] { 0, 5 }, index.search("Ti", false, false));
+		assertArrayEquals(new int[] { 0, 1, 3, 4, 5 }, index.search("", false, false));
+	}
+
+	@Test
+	void testUnknownTrigram() {
+		assertEquals(0, index.search("Rahul", true, true).length);
+	}
+
+	@Test
+	void testCandidatesAreVerified() {
+		// every trigram of "Nixon Tig" occurs in "Tiger Nixon" but not as one substring
+		assertArrayEquals(new int[] { 5 }, index.search("Nixon Tig", false, false));
+	}
+
+	@Test
+	void testMatchesScan() {
+		final Random random = new Random(7);
+		final String alphabet = "abcAB éÉ";
+		final List<String> names = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			names.add(randomString(random, alphabet, 3 + random.nextInt(10)));
+		}
+		final TrigramIndex generatedIndex = new TrigramIndex(names);
+		for (int i = 0; i < 500; i++) {
+			final String query = randomString(random, alphabet, 1 + random.nextInt(5));
+			for (boolean ignoreCase : new boolean[] { false, true }) {
+				for (boolean normalize : new boolean[] { false, true }) {
+					final String needle = TrigramIndex.fold(query, ignoreCase, normalize);
+					final int[] expected = IntStream.range(0, names.size())
+							.filter(row -> TrigramIndex.fold(names.get(row), ignoreCase, normalize).contains(needle))
+							.toArray();
+					assertArrayEquals(expected, generatedIndex.search(query, ignoreCase, normalize), query);
+				}
+			}
+		}
+	}
+
+	private static String randomString(Random random, String alphabet, int length) {
+		final StringBuilder value = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return value.toString();
+	}
+}
@@ -2,12 +2,15 @@ package com.reliaquest.employee.util;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reliaquest.employee.accessor.EmployeeAccessor;
 import com.reliaquest.employee.accessor.pojo.EmployeeData;
 import com.reliaquest.employee.accessor.pojo.EmployeeReponse;
 import com.reliaquest.employee.accessor.pojo.ListEmployeeReponse;
+import com.reliaquest.employee.model.EmployeeDTO;
 
 public class EmployeeUtility {
 
@@ -62,6 +65,32 @@ public class EmployeeUtility {
 		return new ArrayList<>();
 	}
 	
+	/**
+	 * @param employees null when the API returned no list
+	 * @return list response with a version of its own content
+	 */
+	public static EmployeeAccessor.EmployeeList employeeList(List<EmployeeData> employees) {
+		final String version = employees == null ? null : "H" + Integer.toHexString(employees.hashCode());
+		return new EmployeeAccessor.EmployeeList(version, true, Optional.ofNullable(employees));
+	}
+
+	/**
+	 * @return employee with the given fields, null ones are left unset
+	 */
+	public static EmployeeDTO employee(int id, String name, Integer salary, Integer age, String profileImageUrl) {
+		final EmployeeDTO employee = new EmployeeDTO();
+		employee.setId(id);
+		employee.setName(name);
+		employee.setSalary(salary);
+		employee.setAge(age);
+		employee.setProfileImageUrl(profileImageUrl);
+		return employee;
+	}
+
+	public static EmployeeAccessor.EmployeeList notModified(String version) {
+		return new EmployeeAccessor.EmployeeList(version, false, Optional.empty());
+	}
+
 	public static EmployeeData getALlEmployeeById(){
 		ObjectMapper objectMapper = new ObjectMapper();
 		try {
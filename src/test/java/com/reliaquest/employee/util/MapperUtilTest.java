@@ -0,0 +1,51 @@
+package com.reliaquest.employee.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.reliaquest.employee.accessor.pojo.EmployeeData;
+import com.reliaquest.employee.accessor.pojo.EmployeeRequest;
+import com.reliaquest.employee.model.EmployeeDTO;
+
+public class MapperUtilTest {
+
+	@Test
+	void testConvertToDto() {
+		EmployeeDTO employee = MapperUtil
+				.convertToDto(new EmployeeData(7, "Rahul Anand", 2900, 29, "https://example.com/r.png"));
+		assertEquals(7, employee.getId());
+		assertEquals("Rahul Anand", employee.getName());
+		assertEquals(2900, employee.getSalary());
+		assertEquals(29, employee.getAge());
+		assertEquals("https://example.com/r.png", employee.getProfileImageUrl());
+		assertNull(MapperUtil.convertToDto(new EmployeeData(7, "Rahul Anand", 2900, 29, "")).getProfileImageUrl());
+	}
+
+	@Test
+	void testConvertAll() {
+		List<EmployeeData> employees = EmployeeUtility.getALlEmployee();
+		List<EmployeeDTO> converted = MapperUtil.convertAll(employees);
+		assertEquals(employees.size(), converted.size());
+		for (int i = 0; i < employees.size(); i++) {
+			assertEquals(MapperUtil.convertToDto(employees.get(i)), converted.get(i));
+		}
+		assertEquals("Tiger Nixon", converted.get(0).getName());
+		assertNull(converted.get(0).getProfileImageUrl());
+	}
+
+	@Test
+	void testConvertToRequest() {
+		EmployeeDTO employee = new EmployeeDTO();
+		employee.setName("Rahul Anand");
+		employee.setSalary(2900);
+		employee.setProfileImageUrl("https://example.com/r.png");
+		EmployeeRequest request = MapperUtil.convertToRequest(employee);
+		assertEquals("Rahul Anand", request.getName());
+		assertEquals(2900, request.getSalary());
+		assertEquals(0, request.getAge());
+	}
+}